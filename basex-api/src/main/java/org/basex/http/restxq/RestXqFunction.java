@@ -8,6 +8,7 @@ import static org.basex.util.Token.*;
 import java.io.*;
 import java.util.*;
 import java.util.Set;
+import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.regex.*;
 
@@ -45,6 +46,8 @@ import org.basex.util.options.*;
 public final class RestXqFunction extends WebFunction {
   /** EQName pattern. */
   private static final Pattern EQNAME = Pattern.compile("^Q\\{(.*?)}(.*)$");
+  /** Maximum number of cached media type checks. */
+  private static final int MEDIA_TYPES = 64;
 
   /** Query parameters. */
   final ArrayList<WebParam> queryParams = new ArrayList<>();
@@ -65,6 +68,8 @@ public final class RestXqFunction extends WebFunction {
   private final ArrayList<WebParam> cookieParams = new ArrayList<>();
   /** Consumed media types. */
   private final ArrayList<MediaType> consumes = new ArrayList<>();
+  /** Results of media type checks, indexed by the Content-Type and Accept headers. */
+  private final Map<String, Boolean> mediaTypes = new ConcurrentHashMap<>();
 
   /** Path (can be {@code null}). */
   public RestXqPath path;
@@ -275,14 +280,29 @@ public final class RestXqFunction extends WebFunction {
    */
   public boolean matches(final HTTPConnection conn, final QNm err, final boolean perm) {
     // check method, consumed and produced media type, and path or error
-    if(!((methods.isEmpty() || methods.contains(conn.method)) && consumes(conn) &&
-        produces(conn))) return false;
+    if(!((methods.isEmpty() || methods.contains(conn.method)) && mediaTypes(conn))) return false;
 
     if(perm) return permission != null && permission.matches(conn);
     if(err != null) return error != null && error.matches(err);
     return path != null && path.matches(conn);
   }
 
+  /**
+   * Returns the HTTP methods supported by this function.
+   * @return methods (empty if all methods are supported)
+   */
+  public Set<String> methods() {
+    return methods;
+  }
+
+  /**
+   * Returns the segments of the path template (see {@link RestXqPath#segments()}).
+   * @return segments, or {@code null} if the function has no path
+   */
+  public String[] segments() {
+    return path != null ? path.segments() : null;
+  }
+
   @Override
   public QueryException error(final String msg, final Object... ext) {
     return error(function.info, msg, ext);
@@ -354,6 +374,26 @@ public final class RestXqFunction extends WebFunction {
     methods.add(method);
   }
 
+  /**
+   * Checks if the consumed and produced media types match. The results are cached.
+   * @param conn HTTP connection
+   * @return result of check
+   */
+  private boolean mediaTypes(final HTTPConnection conn) {
+    if(consumes.isEmpty() && produces.isEmpty()) return true;
+
+    // headers cannot contain newlines; a missing Accept header is represented by a newline
+    final String type = conn.request.getContentType();
+    final String accept = conn.request.getHeader(HttpText.ACCEPT);
+    final String key = (type != null ? type : "") + '\n' + (accept != null ? accept : "\n");
+    Boolean matches = mediaTypes.get(key);
+    if(matches == null) {
+      matches = consumes(conn) && produces(conn);
+      if(mediaTypes.size() < MEDIA_TYPES) mediaTypes.put(key, matches);
+    }
+    return matches;
+  }
+
   /**
    * Checks if the consumed content type matches.
    * @param conn HTTP connection
@@ -55,6 +55,24 @@ final class RestXqPath extends WebPath implements Comparable<RestXqPath> {
     return matcher.values(conn.path());
   }
 
+  /**
+   * Returns the segments of the path template. If a segment contains a template or characters
+   * that are not matched literally, it will be {@code null}, and the remaining segments
+   * will be skipped.
+   * @return segments
+   */
+  String[] segments() {
+    final ArrayList<String> list = new ArrayList<>();
+    final String[] segments = (path.startsWith("/") ? path.substring(1) : path).split("/", -1);
+    for(final String segment : segments) {
+      final boolean literal = segment.indexOf('{') == -1 && segment.indexOf('%') == -1 &&
+          segment.indexOf('\\') == -1;
+      list.add(literal ? segment : null);
+      if(!literal) break;
+    }
+    return list.toArray(new String[0]);
+  }
+
   /**
    * Checks if the specified path segment is a template.
    * @param s offset of segment
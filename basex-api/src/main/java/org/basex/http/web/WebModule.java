@@ -5,6 +5,8 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
 import org.basex.http.*;
@@ -14,22 +16,47 @@ import org.basex.io.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class caches information on a single XQuery module with relevant annotations.
  *
+ * The module source is kept in main memory until the file is modified. As a query context
+ * cannot be evaluated more than once, a small number of contexts are parsed in advance,
+ * and a new context is parsed in the background whenever a context has been taken.
+ * Contexts are discarded if the module file or one of its imported modules has been modified,
+ * or if the module is dropped from the module cache.
+ *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  */
 public final class WebModule {
-  /** Supported methods. */
-  private final ArrayList<RestXqFunction> functions = new ArrayList<>();
-  /** Supported WebSocket methods. */
-  private final ArrayList<WsFunction> wsFunctions = new ArrayList<>();
+  /** Maximum number of query contexts that are parsed in advance. */
+  private static final int POOL = 8;
+  /** Threads for parsing query contexts in advance (one per available processor). */
+  private static final ExecutorService PARSER = Executors.newFixedThreadPool(
+      Runtime.getRuntime().availableProcessors(), r -> {
+        final Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  /** Query contexts that have been parsed in advance. */
+  private final Queue<Parsed> pool = new ConcurrentLinkedQueue<>();
+  /** Number of query contexts that are currently parsed in the background. */
+  private final AtomicInteger parsing = new AtomicInteger();
   /** File reference. */
   private final IOFile file;
+  /** Supported methods. */
+  private volatile ArrayList<RestXqFunction> functions = new ArrayList<>();
+  /** Supported WebSocket methods. */
+  private volatile ArrayList<WsFunction> wsFunctions = new ArrayList<>();
+  /** Module source ({@code null} if the file has not been read yet). */
+  private volatile Source source;
   /** Parsing timestamp. */
   private long time;
+  /** Indicates if the module has been dropped from the module cache. */
+  private volatile boolean closed;
 
   /**
    * Constructor.
@@ -48,19 +75,19 @@ public final class WebModule {
    * @throws IOException I/O exception
    */
   public boolean parse(final Context ctx) throws QueryException, IOException {
-    functions.clear();
-    wsFunctions.clear();
+    final ArrayList<RestXqFunction> funcs = new ArrayList<>();
+    final ArrayList<WsFunction> wsFuncs = new ArrayList<>();
 
-    try(QueryContext qc = qc(ctx)) {
+    try(QueryContext qc = parse(ctx, source())) {
       // loop through all functions
       final String name = file.name();
       for(final StaticFunc sf : qc.funcs.funcs()) {
         // only add functions that are defined in the same module (file)
         if(sf.expr != null && name.equals(new IOFile(sf.info.path()).name())) {
           final RestXqFunction rxf = new RestXqFunction(sf, qc, this);
-          if(rxf.parse(ctx)) functions.add(rxf);
+          if(rxf.parse(ctx)) funcs.add(rxf);
           final WsFunction wxq = new WsFunction(sf, qc, this);
-          if(wxq.parse(ctx)) wsFunctions.add(wxq);
+          if(wxq.parse(ctx)) wsFuncs.add(wxq);
         }
       }
     } catch(final QueryException ex) {
@@ -68,7 +95,10 @@ public final class WebModule {
       // ignore modules that cannot be parsed
       Util.debug(ex);
     }
-    return !(functions.isEmpty() && wsFunctions.isEmpty());
+    // functions may be accessed by other threads
+    functions = funcs;
+    wsFunctions = wsFuncs;
+    return !(funcs.isEmpty() && wsFuncs.isEmpty());
   }
 
   /**
@@ -109,16 +139,85 @@ public final class WebModule {
    * @throws QueryException query exception
    */
   public QueryContext qc(final Context ctx) throws QueryException {
-    final QueryContext qc = new QueryContext(ctx);
     try {
-      qc.parse(string(file.read()), file.path());
-      return qc;
+      // parse a replacement for the context that will be taken
+      prefetch();
+      for(Parsed parsed; (parsed = pool.poll()) != null;) {
+        if(parsed.valid() && parsed.qc.attach(ctx)) return parsed.qc;
+        parsed.qc.close();
+      }
+      return parse(ctx, source());
     } catch(final IOException ex) {
       // may be triggered when reading the file
       throw IOERR_X.get(null, ex);
     }
   }
 
+  /**
+   * Parses a query context in the background if the maximum number of parsed contexts
+   * has not been reached yet.
+   */
+  private void prefetch() {
+    if(closed || pool.size() + parsing.get() >= POOL) return;
+    parsing.incrementAndGet();
+    PARSER.execute(() -> {
+      try {
+        final Source src = source();
+        final QueryContext qc = parse(HTTPContext.get().context(), src);
+        pool.add(new Parsed(qc, src.time));
+        // module may have been dropped in the meantime
+        if(closed) close();
+      } catch(final QueryException | IOException ex) {
+        // errors will be raised when the module is parsed for a request
+        Util.debug(ex);
+      } finally {
+        parsing.decrementAndGet();
+      }
+    });
+  }
+
+  /**
+   * Closes the query contexts that have been parsed in advance.
+   * Called when the module is dropped from the module cache.
+   */
+  void close() {
+    closed = true;
+    for(Parsed parsed; (parsed = pool.poll()) != null;) parsed.qc.close();
+  }
+
+  /**
+   * Returns the module source. The file is only read again if it has been modified.
+   * @return source
+   * @throws IOException I/O exception
+   */
+  private Source source() throws IOException {
+    final long ts = file.timeStamp();
+    Source src = source;
+    if(src == null || src.time != ts) {
+      src = new Source(string(file.read()), ts);
+      source = src;
+    }
+    return src;
+  }
+
+  /**
+   * Parses the module.
+   * @param ctx database context
+   * @param src module source
+   * @return query context
+   * @throws QueryException query exception
+   */
+  private QueryContext parse(final Context ctx, final Source src) throws QueryException {
+    final QueryContext qc = new QueryContext(ctx);
+    try {
+      qc.parse(src.query, file.path());
+      return qc;
+    } catch(final QueryException ex) {
+      qc.close();
+      throw ex;
+    }
+  }
+
   /**
    * Returns the specified function from the given query context.
    * @param qc query context
@@ -133,4 +232,62 @@ public final class WebModule {
     // will only happen if file has been swapped between caching and parsing
     throw HTTPCode.NO_XQUERY.get();
   }
+
+  /**
+   * Returns the timestamps of the modules that have been imported by the specified query.
+   * @param qc query context
+   * @return timestamps
+   */
+  private static long[] times(final QueryContext qc) {
+    final LongList times = new LongList(qc.modParsed.size());
+    for(final byte[] path : qc.modParsed) times.add(IO.get(string(path)).timeStamp());
+    return times.finish();
+  }
+
+  /** Module source. */
+  private static final class Source {
+    /** Query string. */
+    final String query;
+    /** Timestamp of the file. */
+    final long time;
+
+    /**
+     * Constructor.
+     * @param query query string
+     * @param time timestamp of the file
+     */
+    Source(final String query, final long time) {
+      this.query = query;
+      this.time = time;
+    }
+  }
+
+  /** Query context that has been parsed in advance. */
+  private final class Parsed {
+    /** Query context. */
+    final QueryContext qc;
+    /** Timestamp of the module file. */
+    final long time;
+    /** Timestamps of the imported modules. */
+    final long[] times;
+
+    /**
+     * Constructor.
+     * @param qc query context
+     * @param time timestamp of the module file
+     */
+    Parsed(final QueryContext qc, final long time) {
+      this.qc = qc;
+      this.time = time;
+      times = times(qc);
+    }
+
+    /**
+     * Checks if neither the module file nor one of its imported modules has been modified.
+     * @return result of check
+     */
+    boolean valid() {
+      return time == file.timeStamp() && Arrays.equals(times, times(qc));
+    }
+  }
 }
@@ -5,6 +5,7 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.Map.*;
 
 import javax.servlet.http.*;
 
@@ -33,12 +34,14 @@ public final class WebModules {
   /** RESTXQ path. */
   private final IOFile path;
 
-  /** Module cache. */
-  private HashMap<String, WebModule> modules = new HashMap<>();
+  /** Module cache (will be replaced if it is updated). */
+  private volatile HashMap<String, WebModule> modules = new HashMap<>();
+  /** Index of the functions of the cached modules. */
+  private volatile WebRoutes routes;
   /** Current parsing state. */
-  private boolean parsed;
+  private volatile boolean parsed;
   /** Last access time. */
-  private long access;
+  private volatile long access;
 
   /**
    * Private constructor.
@@ -137,17 +140,7 @@ public final class WebModules {
    */
   private List<RestXqFunction> find(final HTTPConnection conn, final QNm error, final boolean perm)
       throws QueryException, IOException {
-
-    // collect and sort all functions
-    final ArrayList<RestXqFunction> list = new ArrayList<>();
-    for(final WebModule mod : cache(conn.context).values()) {
-      for(final RestXqFunction func : mod.functions()) {
-        if(func.matches(conn, error, perm)) list.add(func);
-      }
-    }
-    // sort by specifity
-    Collections.sort(list);
-    return list;
+    return cache(conn.context).restxq(conn, error, perm);
   }
 
   /**
@@ -172,14 +165,7 @@ public final class WebModules {
    */
   public ArrayList<WsFunction> findWs(final WebSocket ws, final Annotation ann)
       throws QueryException, IOException {
-    final ArrayList<WsFunction> funcs = new ArrayList<>();
-    for(final WebModule mod : cache(ws.context).values()) {
-      for(final WsFunction func : mod.wsFunctions()) {
-        if(func.matches(ann, ws.path)) funcs.add(func);
-      }
-    }
-    Collections.sort(funcs);
-    return funcs;
+    return cache(ws.context).ws(ann, ws.path);
   }
 
   /**
@@ -286,34 +272,44 @@ public final class WebModules {
   }
 
   /**
-   * Returns the module cache.
+   * Returns the index of the module cache. No lock is required if the cache is up-to-date.
    * @param ctx database context
-   * @return module cache
+   * @return index of the module cache
    * @throws QueryException query exception
    * @throws IOException I/O exception
    */
-  private synchronized HashMap<String, WebModule> cache(final Context ctx)
-      throws QueryException, IOException {
-
-    final HashMap<String, WebModule> cache;
-    if(parsed) {
-      // module cache is still up-to-date
-      cache = modules;
-    } else {
-      // module cache needs to be updated
-      if(!path.exists()) throw HTTPCode.NO_RESTXQ.get();
-
-      cache = new HashMap<>();
-      parse(ctx, path, cache, modules);
-      modules = cache;
-      parsed = true;
-    }
-
+  private WebRoutes cache(final Context ctx) throws QueryException, IOException {
+    final WebRoutes cache = parsed ? routes : update(ctx);
     // update last access time
     access = System.currentTimeMillis();
     return cache;
   }
 
+  /**
+   * Updates the module cache and its index if they are not up-to-date.
+   * @param ctx database context
+   * @return index of the module cache
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  private synchronized WebRoutes update(final Context ctx) throws QueryException, IOException {
+    // module cache may have been updated by another thread
+    if(parsed) return routes;
+    if(!path.exists()) throw HTTPCode.NO_RESTXQ.get();
+
+    final HashMap<String, WebModule> cache = new HashMap<>();
+    parse(ctx, path, cache, modules);
+    final WebRoutes rts = new WebRoutes(cache.values());
+    // release the parsed query contexts of dropped modules
+    for(final Entry<String, WebModule> entry : modules.entrySet()) {
+      if(cache.get(entry.getKey()) != entry.getValue()) entry.getValue().close();
+    }
+    modules = cache;
+    routes = rts;
+    parsed = true;
+    return rts;
+  }
+
   /**
    * Parses the specified path for modules with relevant annotations and caches new entries.
    * @param root root path
@@ -0,0 +1,191 @@
+package org.basex.http.web;
+
+import java.util.*;
+
+import org.basex.http.*;
+import org.basex.http.restxq.*;
+import org.basex.http.ws.*;
+import org.basex.query.ann.*;
+import org.basex.query.value.item.*;
+import org.basex.util.list.*;
+
+/**
+ * This class indexes the functions of the cached web modules.
+ *
+ * RESTXQ functions with paths are indexed by their HTTP methods and by the literal segments of
+ * their path templates. If a segment contains a template, the function is attached to the
+ * node of the preceding segment, and the remaining path is matched by the path template.
+ * Functions are sorted by specifity once, so the candidates of a request only need to be
+ * checked and ordered by their offsets. WebSocket functions are indexed by their path segments.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class WebRoutes {
+  /** Key for RESTXQ functions without HTTP methods. */
+  private static final String ALL = "";
+
+  /** RESTXQ functions with paths, ordered by specifity. */
+  private final ArrayList<RestXqFunction> paths = new ArrayList<>();
+  /** RESTXQ error and permission functions. */
+  private final ArrayList<RestXqFunction> others = new ArrayList<>();
+  /** WebSocket functions, ordered by path. */
+  private final ArrayList<WsFunction> ws = new ArrayList<>();
+  /** Routes of RESTXQ functions with paths, indexed by HTTP methods. */
+  private final HashMap<String, Route> routes = new HashMap<>();
+  /** Routes of WebSocket functions. */
+  private final Route wsRoutes = new Route();
+
+  /**
+   * Constructor.
+   * @param modules modules
+   */
+  WebRoutes(final Collection<WebModule> modules) {
+    for(final WebModule module : modules) {
+      for(final RestXqFunction func : module.functions()) {
+        (func.segments() != null ? paths : others).add(func);
+      }
+      ws.addAll(module.wsFunctions());
+    }
+    Collections.sort(paths);
+    Collections.sort(ws);
+
+    final int ps = paths.size();
+    for(int p = 0; p < ps; p++) {
+      final RestXqFunction func = paths.get(p);
+      final Set<String> methods = func.methods();
+      if(methods.isEmpty()) {
+        route(ALL).add(func.segments(), p);
+      } else {
+        for(final String method : methods) route(method).add(func.segments(), p);
+      }
+    }
+    final int wl = ws.size();
+    for(int w = 0; w < wl; w++) wsRoutes.add(segments(ws.get(w).path.toString()), w);
+  }
+
+  /**
+   * Returns RESTXQ functions that match the current request.
+   * @param conn HTTP connection
+   * @param error error code (assigned if error function is to be called)
+   * @param perm permission flag
+   * @return list of matching functions, ordered by specifity
+   */
+  List<RestXqFunction> restxq(final HTTPConnection conn, final QNm error, final boolean perm) {
+    final ArrayList<RestXqFunction> list = new ArrayList<>();
+    if(perm || error != null) {
+      for(final RestXqFunction func : others) {
+        if(func.matches(conn, error, perm)) list.add(func);
+      }
+      // sort by specifity
+      Collections.sort(list);
+    } else {
+      final String path = conn.path();
+      final String[] segments = segments(path.startsWith("/") ? path.substring(1) : path);
+      final IntList offsets = new IntList();
+      for(final String method : new String[] { conn.method, ALL }) {
+        final Route route = routes.get(method);
+        if(route != null) route.find(segments, offsets);
+      }
+      for(final int offset : offsets.sort().finish()) {
+        final RestXqFunction func = paths.get(offset);
+        if(func.matches(conn, null, false)) list.add(func);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Returns WebSocket functions that match the specified annotation and path.
+   * @param ann annotation (can be {@code null})
+   * @param path path (can be {@code null})
+   * @return list of matching functions, ordered by path
+   */
+  ArrayList<WsFunction> ws(final Annotation ann, final WsPath path) {
+    final ArrayList<WsFunction> list = new ArrayList<>();
+    if(path == null) {
+      for(final WsFunction func : ws) {
+        if(func.matches(ann, null)) list.add(func);
+      }
+    } else {
+      final IntList offsets = new IntList();
+      wsRoutes.find(segments(path.toString()), offsets);
+      for(final int offset : offsets.finish()) {
+        final WsFunction func = ws.get(offset);
+        if(func.matches(ann, path)) list.add(func);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Returns the route for the specified HTTP method.
+   * @param method method
+   * @return route
+   */
+  private Route route(final String method) {
+    return routes.computeIfAbsent(method, m -> new Route());
+  }
+
+  /**
+   * Splits a path into segments.
+   * @param path path
+   * @return segments
+   */
+  private static String[] segments(final String path) {
+    return path.split("/", -1);
+  }
+
+  /** Node of a route. */
+  private static final class Route {
+    /** Child nodes, indexed by literal segments. */
+    private final HashMap<String, Route> children = new HashMap<>();
+    /** Offsets of the functions whose paths end at this node. */
+    private final IntList paths = new IntList(0);
+    /** Offsets of the functions whose remaining paths start with a template. */
+    private final IntList templates = new IntList(0);
+
+    /**
+     * Adds a function.
+     * @param segments segments of the path ({@code null}: segment with template)
+     * @param offset offset of the function
+     */
+    void add(final String[] segments, final int offset) {
+      Route route = this;
+      for(final String segment : segments) {
+        if(segment == null) {
+          route.templates.add(offset);
+          return;
+        }
+        route = route.children.computeIfAbsent(segment, s -> new Route());
+      }
+      route.paths.add(offset);
+    }
+
+    /**
+     * Collects the offsets of all functions that may match the specified path.
+     * @param segments segments of the path
+     * @param offsets offsets
+     */
+    void find(final String[] segments, final IntList offsets) {
+      Route route = this;
+      for(final String segment : segments) {
+        add(route.templates, offsets);
+        route = route.children.get(segment);
+        if(route == null) return;
+      }
+      add(route.templates, offsets);
+      add(route.paths, offsets);
+    }
+
+    /**
+     * Adds offsets to a list.
+     * @param source offsets to add
+     * @param target target list
+     */
+    private static void add(final IntList source, final IntList target) {
+      final int ss = source.size();
+      for(int s = 0; s < ss; s++) target.add(source.get(s));
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package org.basex.http.restxq;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.junit.*;
+
+/**
+ * This test contains RESTXQ modules that are modified while they are cached.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class RestXqModuleTest extends RestXqTest {
+  /** Library module. */
+  private static final String LIBRARY = "module namespace l = 'l'; declare function l:f() { '%' };";
+
+  /**
+   * Modifies a module and one of its imported modules.
+   * @throws Exception exception
+   */
+  @Test public void modified() throws Exception {
+    final String function = "import module namespace l = 'l' at 'lib.xqm';"
+        + "declare %R:path('') function m:f() { l:f() || '%' };";
+    install(function.replace("%", "x"));
+    final IOFile webpath = new IOFile(context.soptions.get(StaticOptions.WEBPATH));
+    final IOFile module = webpath.children()[0], library = new IOFile(webpath, "lib.xqm");
+    library.write(LIBRARY.replace("%", "a"));
+    // take parsed query contexts from the pool
+    for(int i = 0; i < 4; i++) assertEquals("ax", get(""));
+
+    // modify imported module
+    modify(library, LIBRARY.replace("%", "b"));
+    for(int i = 0; i < 4; i++) assertEquals("bx", get(""));
+
+    // modify module file (the function is defined at the same position)
+    modify(module, string(module.read()).replace("'x'", "'y'"));
+    for(int i = 0; i < 4; i++) assertEquals("by", get(""));
+  }
+
+  /**
+   * Writes a file and assigns a new timestamp.
+   * @param file file
+   * @param string contents
+   * @throws IOException I/O exception
+   */
+  private static void modify(final IOFile file, final String string) throws IOException {
+    final long time = file.timeStamp();
+    file.write(string);
+    assertTrue(file.file().setLastModified(time + 1000));
+  }
+}
@@ -185,6 +185,24 @@ public final class RestXqPathTest extends RestXqTest {
         "1", "1");
   }
 
+  /**
+   * Chooses between functions with literal and template segments.
+   * @throws Exception exception
+   */
+  @Test public void routes() throws Exception {
+    final String f = "declare %R:path('a/b') function m:f1() { 1 };" +
+        "declare %R:path('a/{$x}') function m:f2($x) { 2 };" +
+        "declare %R:path('a/{$x}/c') function m:f3($x) { 3 };" +
+        "declare %R:path('a/%62/c') function m:f4() { 4 };" +
+        "declare %R:POST %R:path('a/c') function m:f5() { 5 };";
+    get(f, "a/b", "1");
+    get(f, "a/c", "2");
+    get(f, "a/x/c", "3");
+    get(f, "a/b/c", "4");
+    getE(f, "a/b/c/d");
+    getE(f, "b");
+  }
+
   /**
    * Various annotations.
    * @throws Exception exception
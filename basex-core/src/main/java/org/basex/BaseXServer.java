@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.basex.api.client.*;
@@ -31,6 +32,8 @@ public final class BaseXServer extends CLI implements Runnable {
   private volatile boolean stop;
   /** Server socket. */
   private ServerSocket socket;
+  /** Selector for idle client connections ({@code null} if each client has its own thread). */
+  private ClientSelector selector;
   /** Start as service. */
   private boolean service;
   /** Daemon flag. */
@@ -98,7 +101,13 @@ public final class BaseXServer extends CLI implements Runnable {
     }
 
     try {
-      socket = new ServerSocket();
+      // sockets that are created via channels can be registered with a selector
+      if(sopts.get(StaticOptions.SERVERSELECTOR)) {
+        socket = ServerSocketChannel.open().socket();
+        selector = new ClientSelector(context);
+      } else {
+        socket = new ServerSocket();
+      }
       socket.setReuseAddress(true);
       socket.bind(new InetSocketAddress(addr, port));
       stopFile = stopFile(getClass(), port);
@@ -159,7 +168,11 @@ public final class BaseXServer extends CLI implements Runnable {
             }, ka);
             authorizing.add(cl);
           }
-          cl.start();
+          if(selector != null) {
+            selector.add(cl);
+          } else {
+            cl.start();
+          }
         }
       } catch(final SocketException ex) {
         Util.debug(ex);
@@ -194,6 +207,7 @@ public final class BaseXServer extends CLI implements Runnable {
       cl.close();
     }
     context.sessions.close();
+    if(selector != null) selector.close();
 
     try {
       // close interactive input if server was stopped by another process
@@ -0,0 +1,374 @@
+package org.basex.api.client;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.io.in.*;
+import org.basex.io.out.*;
+import org.basex.server.*;
+import org.basex.util.*;
+
+/**
+ * <p>This class collects database commands and queries, which will be run at once.
+ * A batch is created via {@link Session#batch()}.</p>
+ *
+ * <p>If the batch is run by a {@link ClientSession}, all requests are sent to the server in a
+ * single frame (see {@link ServerCmd#BATCH}), and the results are received in the order of the
+ * requests, without further round trips. A query is parsed, bound, executed and closed in one
+ * go. Requests will be run even if previous requests failed.</p>
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class Batch {
+  /** Session. */
+  private final Session session;
+  /** Requests. */
+  private final ArrayList<Request> requests = new ArrayList<>();
+
+  /**
+   * Constructor.
+   * @param session session
+   */
+  Batch(final Session session) {
+    this.session = session;
+  }
+
+  /**
+   * Adds a database command.
+   * @param command command string
+   * @return self reference
+   */
+  public Batch execute(final String command) {
+    return add(new Request(ServerCmd.COMMAND, command, null));
+  }
+
+  /**
+   * Adds a database command.
+   * @param command command
+   * @return self reference
+   */
+  public Batch execute(final Command command) {
+    return execute(command.toString());
+  }
+
+  /**
+   * Adds a request for creating a database.
+   * @param name name of database
+   * @param input xml input
+   * @return self reference
+   */
+  public Batch create(final String name, final InputStream input) {
+    return add(new Request(ServerCmd.CREATE, name, input));
+  }
+
+  /**
+   * Adds a request for adding a document to the opened database.
+   * @param path target path
+   * @param input xml input
+   * @return self reference
+   */
+  public Batch add(final String path, final InputStream input) {
+    return add(new Request(ServerCmd.ADD, path, input));
+  }
+
+  /**
+   * Adds a request for replacing a document in the opened database.
+   * @param path document(s) to replace
+   * @param input new content
+   * @return self reference
+   */
+  public Batch replace(final String path, final InputStream input) {
+    return add(new Request(ServerCmd.REPLACE, path, input));
+  }
+
+  /**
+   * Adds a request for storing raw data in the opened database.
+   * @param path target path
+   * @param input binary input
+   * @return self reference
+   */
+  public Batch store(final String path, final InputStream input) {
+    return add(new Request(ServerCmd.STORE, path, input));
+  }
+
+  /**
+   * Adds a query. Values can be bound to the query by subsequently calling
+   * {@link #bind(String, Object)} and {@link #context(Object)}.
+   * @param query query string
+   * @return self reference
+   */
+  public Batch query(final String query) {
+    return add(new Request(ServerCmd.QUERY, query, null));
+  }
+
+  /**
+   * Binds a value to an external variable of the most recently added query.
+   * @param name name of variable
+   * @param value value to be bound
+   * @return self reference
+   */
+  public Batch bind(final String name, final Object value) {
+    return bind(name, value, "");
+  }
+
+  /**
+   * Binds a value with an optional type to an external variable of the most recently added query.
+   * @param name name of variable
+   * @param value value to be bound
+   * @param type value type (may be {@code null})
+   * @return self reference
+   */
+  public Batch bind(final String name, final Object value, final String type) {
+    query().bindings.add(new Request(ServerCmd.BIND, name, value, type));
+    return this;
+  }
+
+  /**
+   * Binds a value to the context value of the most recently added query.
+   * @param value value to be bound
+   * @return self reference
+   */
+  public Batch context(final Object value) {
+    return context(value, "");
+  }
+
+  /**
+   * Binds a value with an optional type to the context value of the most recently added query.
+   * @param value value to be bound
+   * @param type value type (may be {@code null})
+   * @return self reference
+   */
+  public Batch context(final Object value, final String type) {
+    query().bindings.add(new Request(ServerCmd.CONTEXT, null, value, type));
+    return this;
+  }
+
+  /**
+   * Returns the number of requests.
+   * @return number of requests
+   */
+  public int size() {
+    return requests.size();
+  }
+
+  /**
+   * Runs all requests and removes them from the batch.
+   * If an output stream has been assigned to the session, results are serialized to that stream.
+   * @return results, in the order of the requests
+   * @throws IOException I/O exception
+   */
+  public List<Result> run() throws IOException {
+    try {
+      return session.run(requests);
+    } finally {
+      requests.clear();
+    }
+  }
+
+  /**
+   * Adds a request.
+   * @param request request
+   * @return self reference
+   */
+  private Batch add(final Request request) {
+    requests.add(request);
+    return this;
+  }
+
+  /**
+   * Returns the most recently added query.
+   * @return query request
+   */
+  private Request query() {
+    final int rs = requests.size();
+    final Request request = rs == 0 ? null : requests.get(rs - 1);
+    if(request == null || request.cmd != ServerCmd.QUERY) {
+      throw new IllegalStateException("No query has been added to the batch.");
+    }
+    return request;
+  }
+
+  /**
+   * Result of a request.
+   */
+  public static final class Result {
+    /** Result ({@code null} if the result was serialized to the output stream of the session). */
+    public final String result;
+    /** Command info or error message. */
+    public final String info;
+    /** Success flag. */
+    public final boolean ok;
+
+    /**
+     * Constructor.
+     * @param result result (can be {@code null})
+     * @param info command info or error message
+     * @param ok success flag
+     */
+    Result(final String result, final String info, final boolean ok) {
+      this.result = result;
+      this.info = info;
+      this.ok = ok;
+    }
+
+    @Override
+    public String toString() {
+      return ok ? result : info;
+    }
+  }
+
+  /**
+   * Request of a batch.
+   */
+  static final class Request {
+    /** Bindings of a query. */
+    final ArrayList<Request> bindings = new ArrayList<>(0);
+    /** Server command. */
+    final ServerCmd cmd;
+    /** Argument (command, query, name or path; {@code null} for context bindings). */
+    final String arg;
+    /** Input ({@code null} if the request has no input). */
+    final InputStream input;
+    /** Bound value ({@code null} if the request is no binding). */
+    final Object value;
+    /** Type of bound value. */
+    final String type;
+
+    /**
+     * Constructor.
+     * @param cmd server command
+     * @param arg argument
+     * @param input input (can be {@code null})
+     */
+    Request(final ServerCmd cmd, final String arg, final InputStream input) {
+      this(cmd, arg, input, null, null);
+    }
+
+    /**
+     * Constructor for bindings.
+     * @param cmd server command
+     * @param arg argument (can be {@code null})
+     * @param value bound value
+     * @param type type of value (may be {@code null})
+     */
+    Request(final ServerCmd cmd, final String arg, final Object value, final String type) {
+      this(cmd, arg, null, value, type);
+    }
+
+    /**
+     * Constructor.
+     * @param cmd server command
+     * @param arg argument (can be {@code null})
+     * @param input input (can be {@code null})
+     * @param value bound value (can be {@code null})
+     * @param type type of value (can be {@code null})
+     */
+    private Request(final ServerCmd cmd, final String arg, final InputStream input,
+        final Object value, final String type) {
+      this.cmd = cmd;
+      this.arg = arg;
+      this.input = input;
+      this.value = value;
+      this.type = type;
+    }
+
+    /**
+     * Runs the request with the specified session.
+     * @param session session
+     * @param output output stream
+     * @return command info
+     * @throws IOException I/O exception
+     */
+    String run(final Session session, final OutputStream output) throws IOException {
+      switch(cmd) {
+        case COMMAND: session.execute(arg, output); break;
+        case CREATE:  session.create(arg, input); break;
+        case ADD:     session.add(arg, input); break;
+        case REPLACE: session.replace(arg, input); break;
+        case STORE:   session.store(arg, input); break;
+        default:
+          try(Query query = session.query(arg)) {
+            for(final Request binding : bindings) {
+              if(binding.cmd == ServerCmd.BIND) query.bind(binding.arg, binding.value, binding.type);
+              else query.context(binding.value, binding.type);
+            }
+            final String result = query.execute();
+            if(session.out == null) output.write(Token.token(result));
+          }
+          return "";
+      }
+      return session.info();
+    }
+
+    /**
+     * Writes the request in the format of the client/server protocol.
+     * A query is followed by its bindings, and by requests for executing and closing it.
+     * @param os output stream
+     * @throws IOException I/O exception
+     */
+    void write(final OutputStream os) throws IOException {
+      if(cmd != ServerCmd.COMMAND) os.write(cmd.code);
+      write(os, arg);
+      if(input != null) {
+        final ServerOutput so = new ServerOutput(os);
+        for(int b; (b = input.read()) != -1;) so.write(b);
+        os.write(0);
+      } else if(cmd == ServerCmd.QUERY) {
+        // an empty id refers to the most recently created query
+        for(final Request binding : bindings) {
+          os.write(binding.cmd.code);
+          write(os, "");
+          if(binding.arg != null) write(os, binding.arg);
+          write(os, ClientQuery.binding(binding.value, binding.type));
+        }
+        os.write(ServerCmd.EXEC.code);
+        write(os, "");
+        os.write(ServerCmd.CLOSE.code);
+        write(os, "");
+      }
+    }
+
+    /**
+     * Reads the response to the request.
+     * @param bi server input
+     * @param output output stream for results ({@code null}: return results as strings)
+     * @return result
+     * @throws IOException I/O exception
+     */
+    Result read(final BufferInput bi, final OutputStream output) throws IOException {
+      final ArrayOutput ao = output == null ? new ArrayOutput() : null;
+      final OutputStream os = ao != null ? ao : output;
+      String info = null;
+      if(cmd == ServerCmd.QUERY) {
+        // responses to the creation, the bindings, the execution and closing of the query
+        final int rs = bindings.size() + 3;
+        for(int r = 0; r < rs; r++) {
+          ClientSession.receive(bi, r == rs - 2 ? os : new ArrayOutput());
+          if(!ClientSession.ok(bi)) {
+            final String error = bi.readString();
+            if(info == null) info = error;
+          }
+        }
+        return new Result(ao != null ? ao.toString() : null, info == null ? "" : info,
+            info == null);
+      }
+      if(cmd == ServerCmd.COMMAND) ClientSession.receive(bi, os);
+      info = bi.readString();
+      final boolean ok = ClientSession.ok(bi);
+      return new Result(ao != null ? ao.toString() : null, info, ok);
+    }
+
+    /**
+     * Writes a string, followed by a zero byte.
+     * @param os output stream
+     * @param string string
+     * @throws IOException I/O exception
+     */
+    private static void write(final OutputStream os, final String string) throws IOException {
+      os.write(Token.token(string));
+      os.write(0);
+    }
+  }
+}
@@ -60,7 +60,19 @@ public class ClientQuery extends Query {
   @Override
   public void bind(final String name, final Object value, final String type) throws IOException {
     cache = null;
+    final ServerCmd cmd = name == null ? ServerCmd.CONTEXT : ServerCmd.BIND;
+    final String n = name == null ? "" : name + '\0';
+    cs.exec(cmd, id + '\0' + n + binding(value, type), null);
+  }
 
+  /**
+   * Returns the string representation of a value and its type that will be sent to the server.
+   * @param value value to be bound
+   * @param type value type (may be {@code null})
+   * @return value and type, separated by a zero byte
+   * @throws IOException I/O exception
+   */
+  static String binding(final Object value, final String type) throws IOException {
     final Object vl = value instanceof BXNode ? ((BXNode) value).getNode() : value;
     String t = type == null ? "" : type;
     final String v;
@@ -87,10 +99,7 @@ public class ClientQuery extends Query {
     } else {
       v = value.toString();
     }
-
-    final ServerCmd cmd = name == null ? ServerCmd.CONTEXT : ServerCmd.BIND;
-    final String n = name == null ? "" : name + '\0';
-    cs.exec(cmd, id + '\0' + n + v + '\0' + t, null);
+    return v + '\0' + t;
   }
 
   @Override
@@ -110,13 +119,21 @@ public class ClientQuery extends Query {
 
   @Override
   public void cache(final boolean full) throws IOException {
-    cs.sout.write((full ? ServerCmd.FULL : ServerCmd.RESULTS).code);
+    final boolean chunk = !full && (chunkItems != 0 || chunkBytes != 0);
+    pending = false;
+    cs.sout.write((chunk ? ServerCmd.CHUNK : full ? ServerCmd.FULL : ServerCmd.RESULTS).code);
     cs.send(id);
+    if(chunk) {
+      cs.send(Integer.toString(chunkItems));
+      cs.send(Integer.toString(chunkBytes));
+    }
     cs.sout.flush();
 
     @SuppressWarnings("resource")
     final BufferInput bi = BufferInput.get(cs.sin);
     cache(bi, full);
     if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
+    // chunks: check if more results can be requested
+    if(chunk) pending = bi.read() == 1;
   }
 }
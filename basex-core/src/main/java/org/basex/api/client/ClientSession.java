@@ -2,6 +2,7 @@ package org.basex.api.client;
 
 import java.io.*;
 import java.net.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.Commands.Cmd;
@@ -149,6 +150,24 @@ public class ClientSession extends Session {
     return new ClientQuery(query, this, out);
   }
 
+  @Override
+  List<Batch.Result> run(final List<Batch.Request> requests) throws IOException {
+    // send all requests in a single frame
+    sout.write(ServerCmd.BATCH.code);
+    final ServerOutput so = new ServerOutput(sout);
+    for(final Batch.Request request : requests) request.write(so);
+    sout.write(0);
+    sout.flush();
+
+    // receive results in the order of the requests
+    @SuppressWarnings("resource")
+    final BufferInput bi = BufferInput.get(sin);
+    final ArrayList<Batch.Result> results = new ArrayList<>(requests.size());
+    for(final Batch.Request request : requests) results.add(request.read(bi, out));
+    if(!results.isEmpty()) info = results.get(results.size() - 1).info;
+    return results;
+  }
+
   @Override
   public synchronized void close() throws IOException {
     socket.close();
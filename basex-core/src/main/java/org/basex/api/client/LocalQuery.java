@@ -45,7 +45,12 @@ public class LocalQuery extends Query {
   @Override
   public void cache(final boolean full) throws IOException {
     final ArrayOutput ao = new ArrayOutput();
-    ql.execute(ao, true, true, full);
+    pending = false;
+    if(!full && (chunkItems != 0 || chunkBytes != 0)) {
+      pending = ql.chunk(ao, chunkItems, chunkBytes);
+    } else {
+      ql.execute(ao, true, true, full);
+    }
     cache(new ArrayInput(ao.finish()), full);
   }
 
@@ -73,5 +78,6 @@ public class LocalQuery extends Query {
 
   @Override
   public void close() {
+    ql.close();
   }
 }
@@ -24,6 +24,12 @@ public abstract class Query implements Closeable {
   protected OutputStream out;
   /** Cached results. */
   protected TokenList cache;
+  /** Maximum number of items of a chunk ({@code 0}: no limit). */
+  protected int chunkItems;
+  /** Maximum number of bytes of a chunk ({@code 0}: no limit). */
+  protected int chunkBytes;
+  /** Indicates if more chunks can be requested. */
+  protected boolean pending;
 
   /** Cached result types. */
   private ByteList types;
@@ -66,6 +72,21 @@ public abstract class Query implements Closeable {
    */
   public abstract void context(Object value, String type) throws IOException;
 
+  /**
+   * Retrieves the results of {@link #more()} and {@link #next()} in chunks. Items will then
+   * be generated and sent by the server only when they are requested, and only the items of
+   * the current chunk will be cached. The query keeps its locks until all items have been
+   * returned or until it is closed. If both arguments are {@code 0}, all results will be
+   * retrieved at once (default).
+   * @param items maximum number of items of a chunk ({@code 0}: no limit)
+   * @param bytes maximum number of bytes of a chunk ({@code 0}: no limit;
+   *   the last item of a chunk may exceed the limit)
+   */
+  public final void chunks(final int items, final int bytes) {
+    chunkItems = items;
+    chunkBytes = bytes;
+  }
+
   /**
    * Returns {@code true} if more items are available.
    * @return result of check
@@ -73,6 +94,7 @@ public abstract class Query implements Closeable {
    */
   public boolean more() throws IOException {
     if(cache == null) cache(false);
+    while(pos == cache.size() && pending) cache(false);
     if(pos < cache.size()) return true;
     cache = null;
     types = null;
@@ -1,6 +1,7 @@
 package org.basex.api.client;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.io.out.*;
@@ -58,6 +59,14 @@ public abstract class Session implements Closeable {
    */
   public abstract Query query(String query) throws IOException;
 
+  /**
+   * Returns a new batch, which can be used to run multiple commands and queries at once.
+   * @return batch
+   */
+  public final Batch batch() {
+    return new Batch(this);
+  }
+
   /**
    * Creates a database.
    * @param name name of database
@@ -127,6 +136,29 @@ public abstract class Session implements Closeable {
     out = output;
   }
 
+  /**
+   * Runs the requests of a batch one by one.
+   * @param requests requests
+   * @return results
+   * @throws IOException I/O exception
+   */
+  List<Batch.Result> run(final List<Batch.Request> requests) throws IOException {
+    final ArrayList<Batch.Result> results = new ArrayList<>(requests.size());
+    for(final Batch.Request request : requests) {
+      final ArrayOutput ao = out == null ? new ArrayOutput() : null;
+      String inf;
+      boolean ok = true;
+      try {
+        inf = request.run(this, ao != null ? ao : out);
+      } catch(final BaseXException ex) {
+        inf = ex.getMessage();
+        ok = false;
+      }
+      results.add(new Batch.Result(ao != null ? ao.toString() : null, inf, ok));
+    }
+    return results;
+  }
+
   /**
    * Executes a command and prints the result to the specified output stream.
    * @param command command to be parsed
@@ -70,8 +70,13 @@ public final class DiskBuilder extends Builder {
     try {
       try {
         tout = new DataOutput(new TableOutput(meta, DATATBL));
-        xout = new DataOutput(meta.dbFile(DATATXT), bs);
-        vout = new DataOutput(meta.dbFile(DATAATV), bs);
+        if(meta.compresstexts) {
+          xout = new DataOutput(new CompressedOutput(meta.dbFile(DATATXT)));
+          vout = new DataOutput(new CompressedOutput(meta.dbFile(DATAATV)));
+        } else {
+          xout = new DataOutput(meta.dbFile(DATATXT), bs);
+          vout = new DataOutput(meta.dbFile(DATAATV), bs);
+        }
         sout = new DataOutput(meta.dbFile(DATATMP), bs);
         parse();
       } finally {
@@ -396,12 +396,15 @@ public abstract class Command extends Job {
 
   /**
    * Closes the specified database if it is currently opened and only pinned once.
+   * Cached queries that have opened the database will be discarded.
    * @param ctx database context
    * @param db database to be closed
    * @return {@code true} if opened database was closed
    */
   protected static boolean close(final Context ctx, final String db) {
     final Data data = ctx.data();
-    return data != null && db.equals(data.meta.name) && ctx.datas.pins(db) == 1 && Close.close(ctx);
+    if(data == null || !db.equals(data.meta.name)) return false;
+    ctx.queries.invalidate(db);
+    return ctx.datas.pins(db) == 1 && Close.close(ctx);
   }
 }
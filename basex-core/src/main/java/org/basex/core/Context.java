@@ -4,7 +4,10 @@ import org.basex.core.jobs.*;
 import org.basex.core.locks.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.path.*;
 import org.basex.io.random.*;
+import org.basex.query.*;
 import org.basex.query.util.pkg.*;
 import org.basex.query.value.seq.*;
 import org.basex.server.*;
@@ -43,6 +46,11 @@ public final class Context {
   public final Log log;
   /** Locking. */
   public final Locking locking;
+  /** Cached queries. */
+  public final QueryCache queries;
+
+  /** Indicates if the global caches have been initialized. */
+  private static boolean caches;
 
   /** Client info. Set to {@code null} in standalone/server mode. */
   private final ClientInfo client;
@@ -107,6 +115,7 @@ public final class Context {
     repo = ctx.repo;
     log = ctx.log;
     jobs = ctx.jobs;
+    queries = ctx.queries;
   }
 
   /**
@@ -126,7 +135,23 @@ public final class Context {
     log = new Log(soptions);
     user = users.get(UserText.ADMIN);
     jobs = new JobPool(soptions);
+    queries = new QueryCache(soptions);
     client = null;
+    caches(soptions);
+  }
+
+  /**
+   * Initializes the global buffer pool, the index cache and the size limit of numeric columns.
+   * The caches are shared by all contexts of the running process. They are initialized by the
+   * first context that is created.
+   * @param sopts static options
+   */
+  private static synchronized void caches(final StaticOptions sopts) {
+    if(caches) return;
+    caches = true;
+    BufferPool.init((long) sopts.get(StaticOptions.BUFFERPOOL) << 20);
+    IndexCache.init((long) sopts.get(StaticOptions.INDEXCACHE) << 20);
+    NumericColumns.limit((long) sopts.get(StaticOptions.NUMCOLUMNSMAX) << 20);
   }
 
   /**
@@ -155,6 +180,7 @@ public final class Context {
     closed = true;
     jobs.close();
     sessions.close();
+    queries.close();
     datas.close();
     log.close();
     closeDB();
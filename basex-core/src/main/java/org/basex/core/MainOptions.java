@@ -101,6 +101,16 @@ public final class MainOptions extends Options {
   public static final BooleanOption AUTOOPTIMIZE = new BooleanOption("AUTOOPTIMIZE", false);
   /** Index split size. */
   public static final NumberOption SPLITSIZE = new NumberOption("SPLITSIZE", 0);
+  /** Flag for memory-mapped table access. */
+  public static final BooleanOption MMAP = new BooleanOption("MMAP", false);
+  /** Flag for storing texts and attribute values in compressed blocks. */
+  public static final BooleanOption COMPRESSTEXTS = new BooleanOption("COMPRESSTEXTS", false);
+  /** Flag for decoding numeric texts and attribute values in main memory. */
+  public static final BooleanOption NUMCOLUMNS = new BooleanOption("NUMCOLUMNS", false);
+  /** Number of threads for creating indexes ({@code 0}: number of available processors). */
+  public static final NumberOption INDEXTHREADS = new NumberOption("INDEXTHREADS", 0);
+  /** Main memory budget for creating indexes (megabytes; {@code 0}: half of the heap size). */
+  public static final NumberOption INDEXMEMORY = new NumberOption("INDEXMEMORY", 0);
 
   // Full-Text
 
@@ -145,6 +155,10 @@ public final class MainOptions extends Options {
   public static final BooleanOption ENFORCEINDEX = new BooleanOption("ENFORCEINDEX", false);
   /** Deep node copies. */
   public static final BooleanOption COPYNODE = new BooleanOption("COPYNODE", true);
+  /** Evaluates expressions on large sequences in parallel. */
+  public static final BooleanOption PARALLELQUERY = new BooleanOption("PARALLELQUERY", false);
+  /** Maximum number of parallel tasks of a query (0: number of fork/join threads). */
+  public static final NumberOption PARALLELTASKS = new NumberOption("PARALLELTASKS", 0);
 
   // Serialize
 
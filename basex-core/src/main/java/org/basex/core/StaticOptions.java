@@ -33,6 +33,14 @@ public final class StaticOptions extends Options {
   public static final BooleanOption FAIRLOCK = new BooleanOption("FAIRLOCK", false);
   /** Timeout (seconds) for remembering result of asynchronous queries. */
   public static final NumberOption CACHETIMEOUT = new NumberOption("CACHETIMEOUT", 3600);
+  /** Size of the shared buffer pool (megabytes); deactivated if set to 0. */
+  public static final NumberOption BUFFERPOOL = new NumberOption("BUFFERPOOL", 0);
+  /** Size of the shared index entry cache (megabytes); deactivated if set to 0. */
+  public static final NumberOption INDEXCACHE = new NumberOption("INDEXCACHE", 32);
+  /** Maximum size of the numeric columns of a database (megabytes). */
+  public static final NumberOption NUMCOLUMNSMAX = new NumberOption("NUMCOLUMNSMAX", 64);
+  /** Maximum number of cached query plans; deactivated if set to 0. */
+  public static final NumberOption QUERYCACHE = new NumberOption("QUERYCACHE", 0);
 
   /** Comment: written to options file. */
   public static final Comment C_CLIENT = new Comment("Client/Server Architecture");
@@ -64,8 +72,12 @@ public final class StaticOptions extends Options {
   public static final NumberOption TIMEOUT = new NumberOption("TIMEOUT", 30);
   /** Keep alive time (seconds) for clients; deactivated if set to 0. */
   public static final NumberOption KEEPALIVE = new NumberOption("KEEPALIVE", 600);
+  /** Server: multiplex idle client connections instead of using one thread per client. */
+  public static final BooleanOption SERVERSELECTOR = new BooleanOption("SERVERSELECTOR", false);
   /** Defines the number of parallel readers. */
   public static final NumberOption PARALLEL = new NumberOption("PARALLEL", 8);
+  /** Number of threads for evaluating queries in parallel (0: number of processors). */
+  public static final NumberOption FORKJOINTHREADS = new NumberOption("FORKJOINTHREADS", 0);
   /** Logging flag. */
   public static final BooleanOption LOG = new BooleanOption("LOG", true);
   /** Log message cut-off. */
@@ -644,6 +644,8 @@ public interface Text {
   String INDEX_DROPPED_X_X = lang("index_dropped_%_%");
   /** Index not dropped. */
   String INDEX_NOT_DROPPED_X = lang("index_not_dropped_%");
+  /** Index statistics. */
+  String INDEX_STATS_X_X_X_X = lang("index_stats_%_%_%_%");
   /** Index not available. */
   String NOT_AVAILABLE = lang("not_available");
 
@@ -857,6 +859,12 @@ public interface Text {
 
   /** "Database Properties". */
   String DB_PROPS = lang("db_props");
+  /** "Buffer Pool". */
+  String BUFFER_POOL = lang("buffer_pool");
+  /** "Index Cache". */
+  String INDEX_CACHE = lang("index_cache");
+  /** "Query Cache". */
+  String QUERY_CACHE = lang("query_cache");
   /** "General Information". */
   String GENERAL_INFO = lang("general_info");
   /** "Global Options". */
@@ -104,6 +104,15 @@ public abstract class ACreate extends Command {
     return error(Util.message(exc));
   }
 
+  /**
+   * Adds statistics on a created index structure to the command info.
+   * Called by index builders, which may run in parallel.
+   * @param stats statistics (ignored if empty)
+   */
+  final synchronized void indexStats(final String stats) {
+    info(stats);
+  }
+
   @Override
   public boolean newData(final Context ctx) {
     if(newData) Close.close(ctx);
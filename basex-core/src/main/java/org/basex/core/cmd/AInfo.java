@@ -5,6 +5,10 @@ import static org.basex.core.Text.*;
 import org.basex.core.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.io.*;
+import org.basex.io.random.*;
+import org.basex.query.*;
 import org.basex.util.*;
 
 /**
@@ -42,4 +46,58 @@ abstract class AInfo extends Command {
   static void info(final TokenBuilder tb, final MetaProp prop, final MetaData meta) {
     info(tb, prop.name(), prop.value(meta));
   }
+
+  /**
+   * Adds information on the shared buffer pool, if it is enabled.
+   * @param tb token builder
+   * @param header header string
+   */
+  static void bufferPool(final TokenBuilder tb, final String header) {
+    final BufferPool pool = BufferPool.get();
+    if(pool == null) return;
+
+    final int size = pool.size(), capacity = pool.capacity();
+    final long hits = pool.hits(), misses = pool.misses(), total = hits + misses;
+    tb.add(NL).addExt(header, BUFFER_POOL);
+    info(tb, "SIZE", Performance.format((long) capacity * IO.BLOCKSIZE));
+    info(tb, "PAGES", size + "/" + capacity);
+    info(tb, "HITS", hits);
+    info(tb, "MISSES", misses);
+    info(tb, "HITRATIO", (total == 0 ? 0 : hits * 100 / total) + "%");
+  }
+
+  /**
+   * Adds information on the shared index entry cache, if it is enabled.
+   * @param tb token builder
+   * @param header header string
+   */
+  static void indexCache(final TokenBuilder tb, final String header) {
+    if(!IndexCache.enabled()) return;
+
+    final long hits = IndexCache.hits(), misses = IndexCache.misses(), total = hits + misses;
+    tb.add(NL).addExt(header, INDEX_CACHE);
+    info(tb, "CAPACITY", Performance.format(IndexCache.capacity()));
+    info(tb, "USED", Performance.format(IndexCache.used()));
+    info(tb, "ENTRIES", IndexCache.entries());
+    info(tb, "HITS", hits);
+    info(tb, "MISSES", misses);
+    info(tb, "HITRATIO", (total == 0 ? 0 : hits * 100 / total) + "%");
+  }
+
+  /**
+   * Adds information on the query cache, if it is enabled.
+   * @param tb token builder
+   * @param header header string
+   * @param queries query cache
+   */
+  static void queryCache(final TokenBuilder tb, final String header, final QueryCache queries) {
+    if(!queries.enabled()) return;
+
+    final long hits = queries.hits(), misses = queries.misses(), total = hits + misses;
+    tb.add(NL).addExt(header, QUERY_CACHE);
+    info(tb, "ENTRIES", queries.size());
+    info(tb, "HITS", hits);
+    info(tb, "MISSES", misses);
+    info(tb, "HITRATIO", (total == 0 ? 0 : hits * 100 / total) + "%");
+  }
 }
@@ -92,8 +92,10 @@ public abstract class AQuery extends Command {
 
           qp.compile();
           info.compiling += perf.ns();
-          if(compplan) queryPlan();
-          if(!run) continue;
+          if(!run) {
+            if(compplan) queryPlan();
+            continue;
+          }
 
           final PrintOutput po = r == 0 && serial ? out : new NullOutput();
           try(Serializer ser = qp.getSerializer(po)) {
@@ -113,8 +115,11 @@ public abstract class AQuery extends Command {
               }
             }
           }
-          qp.close();
           info.serializing += perf.ns();
+          // generate plan of compiled query after evaluation (includes runtime statistics)
+          // before the query is closed and its context may be reused
+          if(compplan) queryPlan();
+          qp.close();
         }
         return info(info.toString(qp, out.size(), hits, jc().locks));
 
@@ -165,11 +170,11 @@ public abstract class AQuery extends Command {
   private void init(final String query, final Context ctx) throws QueryException {
     final Performance perf = new Performance();
     if(qp == null) qp = pushJob(new QueryProcessor(query, uri, ctx));
-    if(info == null) info = qp.qc.info;
-
     for(final Map.Entry<String, Object> entry : props.entrySet())
       qp.qc.putProperty(entry.getKey(), entry.getValue());
     qp.parse();
+    // assign info after parsing (query context may have been replaced with a cached instance)
+    if(info == null) info = qp.qc.info;
     qp.qc.info.parsing += perf.ns();
   }
 
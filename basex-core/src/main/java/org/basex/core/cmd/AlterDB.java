@@ -41,7 +41,8 @@ public final class AlterDB extends ACreate {
 
     // close database if it's currently opened and not opened by others
     if(!closed) closed = close(context, src);
-    // check if source database is still opened
+    // discard cached queries, check if source database is still opened
+    context.queries.invalidate(src);
     if(context.pinned(src)) return error(DB_PINNED_X, src);
 
     // try to alter database
@@ -93,6 +93,8 @@ public final class CreateDB extends ACreate {
         context.openDB(data);
         context.datas.pin(data);
       } else {
+        // discard cached queries, check if database is still pinned
+        context.queries.invalidate(name);
         if(context.pinned(name)) return error(DB_PINNED_X, name);
 
         // create disk-based instance
@@ -176,7 +178,8 @@ public final class CreateDB extends ACreate {
     if(mem) {
       data = MemBuilder.build(name, parser);
     } else {
-      // database is currently locked by another job
+      // discard cached queries, check if database is currently locked by another job
+      ctx.queries.invalidate(name);
       if(ctx.pinned(name)) throw new BaseXException(DB_PINNED_X, name);
       new DiskBuilder(name, parser, ctx.soptions, options).build().close();
       data = Open.open(name, ctx, options);
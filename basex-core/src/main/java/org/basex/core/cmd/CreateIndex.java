@@ -3,6 +3,8 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -60,6 +62,8 @@ public final class CreateIndex extends ACreate {
     }
     data.meta.names(type, options);
     data.meta.splitsize = options.get(MainOptions.SPLITSIZE);
+    data.meta.indexthreads = options.get(MainOptions.INDEXTHREADS);
+    data.meta.indexmemory = options.get(MainOptions.INDEXMEMORY);
 
     return update(data, new Code() {
       @Override
@@ -82,10 +86,34 @@ public final class CreateIndex extends ACreate {
    * @throws IOException I/O exception
    */
   static void create(final Data data, final ACreate cmd) throws IOException {
-    if(data.meta.createtext) create(IndexType.TEXT, data, cmd);
-    if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, cmd);
-    if(data.meta.createtoken) create(IndexType.TOKEN, data, cmd);
-    if(data.meta.createft) create(IndexType.FULLTEXT, data, cmd);
+    final ArrayList<IndexType> types = new ArrayList<>();
+    if(data.meta.createtext) types.add(IndexType.TEXT);
+    if(data.meta.createattr) types.add(IndexType.ATTRIBUTE);
+    if(data.meta.createtoken) types.add(IndexType.TOKEN);
+    if(data.meta.createft) types.add(IndexType.FULLTEXT);
+    create(types, data, cmd);
+  }
+
+  /**
+   * Builds the specified indexes. Independent indexes are built in parallel,
+   * and the memory budget is shared by the concurrently running builders.
+   * @param types indexes to be built
+   * @param data data reference
+   * @param cmd calling command (may be {@code null})
+   * @throws IOException I/O exception
+   */
+  static void create(final ArrayList<IndexType> types, final Data data, final ACreate cmd)
+      throws IOException {
+    final int ts = types.size(), threads = Math.max(1, Math.min(IndexBuilder.threads(data), ts));
+    final long memory = IndexBuilder.memory(data) / threads;
+    final ArrayList<Callable<Void>> tasks = new ArrayList<>(ts);
+    for(final IndexType type : types) {
+      tasks.add(() -> {
+        create(type, data, memory, cmd);
+        return null;
+      });
+    }
+    IndexBuilder.parallel(tasks, threads, cmd);
   }
 
   /**
@@ -96,8 +124,22 @@ public final class CreateIndex extends ACreate {
    * @throws IOException I/O exception
    */
   static void create(final IndexType type, final Data data, final ACreate cmd) throws IOException {
+    create(type, data, IndexBuilder.memory(data), cmd);
+  }
+
+  /**
+   * Builds the specified index.
+   * @param type index to be built
+   * @param data data reference
+   * @param memory main memory budget (bytes)
+   * @param cmd calling command (may be {@code null})
+   * @throws IOException I/O exception
+   */
+  private static void create(final IndexType type, final Data data, final long memory,
+      final ACreate cmd) throws IOException {
     DropIndex.drop(type, data);
-    data.createIndex(type, cmd);
+    final String stats = data.createIndex(type, memory, cmd);
     data.meta.index(type, true);
+    if(cmd != null) cmd.indexStats(stats);
   }
 }
@@ -39,7 +39,8 @@ public final class DropDB extends ACreate {
     for(final String db : dbs) {
       // close database if it's currently opened
       close(context, db);
-      // check if database is still pinned
+      // discard cached queries, check if database is still pinned
+      context.queries.invalidate(db);
       if(context.pinned(db)) {
         info(DB_PINNED_X, db);
         ok = false;
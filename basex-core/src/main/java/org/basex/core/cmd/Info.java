@@ -46,6 +46,9 @@ public final class Info extends AInfo {
 
     final User user = context.user();
     info(tb, USED_MEM, Performance.getMemory());
+    bufferPool(tb, "%" + COL + NL);
+    indexCache(tb, "%" + COL + NL);
+    queryCache(tb, "%" + COL + NL, context.queries);
 
     if(user.has(Perm.ADMIN)) {
       final StaticOptions sopts = context.soptions;
@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.core.users.*;
@@ -47,6 +48,19 @@ public final class Optimize extends ACreate {
           data.meta.autooptimize = autooptimize;
           data.meta.dirty = true;
         }
+        // reassign table access flag (will be considered when the database is reopened)
+        final boolean mmap = options.get(MainOptions.MMAP);
+        if(mmap != data.meta.mmap) {
+          data.meta.mmap = mmap;
+          data.meta.dirty = true;
+        }
+        final boolean numcolumns = options.get(MainOptions.NUMCOLUMNS);
+        if(numcolumns != data.meta.numcolumns) {
+          data.meta.numcolumns = numcolumns;
+          data.meta.dirty = true;
+        }
+        data.meta.indexthreads = options.get(MainOptions.INDEXTHREADS);
+        data.meta.indexmemory = options.get(MainOptions.INDEXMEMORY);
         optimize(data, Optimize.this);
         return info(DB_OPTIMIZED_X, meta.name, jc().performance);
       }
@@ -156,29 +170,34 @@ public final class Optimize extends ACreate {
       meta.uptodate = true;
     }
 
+    // merge adjacent entries of the id-pre mapping
+    if(meta.updindex && data.idmap.compact()) meta.dirty = true;
+
     // rebuild value indexes
-    optimize(IndexType.TEXT, data, meta.createtext, enforceText, cmd);
-    optimize(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, cmd);
-    optimize(IndexType.TOKEN, data, meta.createtoken, enforceToken, cmd);
-    optimize(IndexType.FULLTEXT, data, meta.createft, enforceFt, cmd);
+    final ArrayList<IndexType> types = new ArrayList<>();
+    optimize(IndexType.TEXT, data, meta.createtext, enforceText, types);
+    optimize(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, types);
+    optimize(IndexType.TOKEN, data, meta.createtoken, enforceToken, types);
+    optimize(IndexType.FULLTEXT, data, meta.createft, enforceFt, types);
+    CreateIndex.create(types, data, cmd);
   }
 
   /**
-   * Creates or deletes the specified index if the old and new state is different.
+   * Deletes the specified index or schedules its creation if the old and new state is different.
    * @param type index type
    * @param data data reference
    * @param create new flag
    * @param enforce enforce operation
-   * @param cmd calling command instance
+   * @param types indexes to be created
    * @throws IOException I/O exception
    */
   private static void optimize(final IndexType type, final Data data, final boolean create,
-      final boolean enforce, final Optimize cmd) throws IOException {
+      final boolean enforce, final ArrayList<IndexType> types) throws IOException {
 
     // check if flags have changed
     if(create == data.meta.index(type) && !enforce) return;
     // create or drop index
-    if(create) CreateIndex.create(type, data, cmd);
+    if(create) types.add(type);
     else DropIndex.drop(type, data);
   }
 
@@ -196,9 +215,11 @@ public final class Optimize extends ACreate {
 
     if(data.meta.updindex) {
       data.idmap = new IdPreMap(md.lastid);
-      if(data.meta.textindex) optimize(IndexType.TEXT, data, true, true, null);
-      if(data.meta.attrindex) optimize(IndexType.ATTRIBUTE, data, true, true, null);
-      if(data.meta.tokenindex) optimize(IndexType.TOKEN, data, true, true, null);
+      final ArrayList<IndexType> types = new ArrayList<>();
+      if(data.meta.textindex) types.add(IndexType.TEXT);
+      if(data.meta.attrindex) types.add(IndexType.ATTRIBUTE);
+      if(data.meta.tokenindex) types.add(IndexType.TOKEN);
+      CreateIndex.create(types, data, null);
     }
   }
 }
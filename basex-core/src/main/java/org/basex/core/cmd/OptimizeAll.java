@@ -86,8 +86,9 @@ public final class OptimizeAll extends ACreate {
     final DiskData odata = (DiskData) data;
     final MetaData ometa = odata.meta;
 
-    // check if database is also pinned by other users
+    // check if database is also pinned by other users (discard cached queries)
     final String name = ometa.name;
+    context.queries.invalidate(name);
     if(context.datas.pins(name) > 1) throw new BaseXException(DB_PINNED_X, name);
 
     // adopt original index options
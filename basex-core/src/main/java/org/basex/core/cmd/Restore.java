@@ -41,7 +41,8 @@ public final class Restore extends ABackup {
 
     // close database if it's currently opened and not opened by others
     if(!closed) closed = close(context, db);
-    // check if database is still pinned
+    // discard cached queries, check if database is still pinned
+    context.queries.invalidate(db);
     if(context.pinned(db)) return error(DB_PINNED_X, db);
 
     // try to restore database
@@ -13,7 +13,7 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public abstract class Job {
-  /** Child jobs. */
+  /** Child jobs (all accesses must be synchronized). */
   private final List<Job> children = Collections.synchronizedList(new ArrayList<>(0));
   /** Job context. */
   private JobContext jc = new JobContext(this);
@@ -25,7 +25,7 @@ public abstract class Job {
   /** State of job. */
   public JobState state = JobState.SCHEDULED;
   /** Stopped flag. */
-  private boolean stopped;
+  private volatile boolean stopped;
 
   /**
    * Returns the job context.
@@ -65,7 +65,11 @@ public abstract class Job {
    * @return job
    */
   public final Job active() {
-    return children.isEmpty() ? this : children.get(0).active();
+    final Job child;
+    synchronized(children) {
+      child = children.isEmpty() ? null : children.get(0);
+    }
+    return child != null ? child.active() : this;
   }
 
   /**
@@ -75,16 +79,32 @@ public abstract class Job {
    * @return passed on job reference
    */
   public final <J extends Job> J pushJob(final J job) {
-    children.add(job);
-    job.jobContext(jc);
+    synchronized(children) {
+      children.add(job);
+      job.jobContext(jc);
+      // child jobs of stopped jobs (e.g. parallel tasks that are started later) will be stopped
+      if(stopped) job.state(state);
+    }
     return job;
   }
 
   /**
    * Pops the last job.
    */
-  public final synchronized void popJob() {
-    children.remove(children.size() - 1);
+  public final void popJob() {
+    synchronized(children) {
+      children.remove(children.size() - 1);
+    }
+  }
+
+  /**
+   * Removes the specified child job. Must be called if child jobs are run in parallel.
+   * @param job child job
+   */
+  public final void popJob(final Job job) {
+    synchronized(children) {
+      children.remove(job);
+    }
   }
 
   /**
@@ -128,11 +148,13 @@ public abstract class Job {
    * @param js new state
    */
   public void state(final JobState js) {
-    for(final Job job : children) job.state(js);
-    state = js;
-    if(js == JobState.STOPPED || js == JobState.TIMEOUT || js == JobState.MEMORY) {
-      stopped = true;
-      stopTimeout();
+    synchronized(children) {
+      for(final Job job : children) job.state(js);
+      state = js;
+      if(js == JobState.STOPPED || js == JobState.TIMEOUT || js == JobState.MEMORY) {
+        stopped = true;
+        stopTimeout();
+      }
     }
   }
 
@@ -176,8 +198,10 @@ public abstract class Job {
    * @param ctx job context
    */
   final void jobContext(final JobContext ctx) {
-    for(final Job job : children) job.jobContext(ctx);
-    jc = ctx;
+    synchronized(children) {
+      for(final Job job : children) job.jobContext(ctx);
+      jc = ctx;
+    }
   }
 
   // PRIVATE FUNCTIONS ============================================================================
@@ -26,6 +26,10 @@ public final class JobPool {
   final Timer timer = new Timer(true);
   /** Timeout (ms). */
   private final long timeout;
+  /** Number of threads of the fork/join pool. */
+  private final int threads;
+  /** Fork/join pool for evaluating queries in parallel (created on first request). */
+  private ForkJoinPool pool;
 
   /**
    * Constructor.
@@ -33,6 +37,17 @@ public final class JobPool {
    */
   public JobPool(final StaticOptions sopts) {
     timeout = sopts.get(StaticOptions.CACHETIMEOUT) * 1000L;
+    final int thr = sopts.get(StaticOptions.FORKJOINTHREADS);
+    threads = thr > 0 ? thr : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Returns the fork/join pool, which is shared by all queries.
+   * @return pool
+   */
+  public synchronized ForkJoinPool pool() {
+    if(pool == null) pool = new ForkJoinPool(threads);
+    return pool;
   }
 
   /**
@@ -60,6 +75,7 @@ public final class JobPool {
     timer.cancel();
     for(final Job job : active.values()) job.stop();
     while(!active.isEmpty()) Performance.sleep(1);
+    if(pool != null) pool.shutdownNow();
   }
 
   /**
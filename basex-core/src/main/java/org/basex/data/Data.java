@@ -142,12 +142,15 @@ public abstract class Data {
   }
 
   /**
-   * Drops the specified index.
-   * @param type index to be dropped
+   * Creates the specified index.
+   * @param type index to be created
+   * @param memory main memory budget for building the index (bytes)
    * @param cmd calling command
+   * @return build statistics (empty if no statistics are available)
    * @throws IOException I/O exception
    */
-  public abstract void createIndex(IndexType type, Command cmd) throws IOException;
+  public abstract String createIndex(IndexType type, long memory, Command cmd)
+      throws IOException;
 
   /**
    * Drops the specified index.
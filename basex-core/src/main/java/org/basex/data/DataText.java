@@ -34,6 +34,12 @@ public interface DataText {
   String DBUPDIDX = "UPDINDEX";
   /** Automatic optimization. */
   String DBAUTOOPT = "AUTOOPT";
+  /** Memory-mapped table access. */
+  String DBMMAP = "MMAP";
+  /** Texts and attribute values stored in compressed blocks. */
+  String DBCMPTXT = "CMPTXT";
+  /** Numeric columns. */
+  String DBNUMCOL = "NUMCOL";
   /** Text index. */
   String DBTXTIDX = "TXTINDEX";
   /** Attribute index. */
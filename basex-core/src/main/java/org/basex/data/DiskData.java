@@ -5,6 +5,7 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.build.*;
 import org.basex.core.*;
@@ -56,6 +57,18 @@ public final class DiskData extends Data {
   private DataAccess texts;
   /** Values access file. */
   private DataAccess values;
+  /** Decoded numeric texts, indexed by element name ids (entries can be {@code null}). */
+  private volatile NumericColumns[] textColumns = new NumericColumns[0];
+  /** Decoded numeric attribute values, indexed by name ids (entries can be {@code null}). */
+  private volatile NumericColumns[] attrColumns = new NumericColumns[0];
+  /** Indicates if the database is currently being updated. */
+  private volatile boolean updating;
+  /** Indicates if a numeric column is currently being created (guarded by the path index). */
+  private boolean building;
+  /** Number of entries of all numeric columns (guarded by the path index). */
+  private long entries;
+  /** Number of started and finished updates (guarded by the path index). */
+  private int updates;
 
   /**
    * Default constructor, called from {@link Open#open}.
@@ -122,9 +135,9 @@ public final class DiskData extends Data {
    * @throws IOException I/O exception
    */
   private void init() throws IOException {
-    table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbFile(DATATXT));
-    values = new DataAccess(meta.dbFile(DATAATV));
+    table = meta.mmap ? new TableMappedAccess(meta, false) : new TableDiskAccess(meta, false);
+    texts = new DataAccess(meta.dbFile(DATATXT), meta.compresstexts);
+    values = new DataAccess(meta.dbFile(DATAATV), meta.compresstexts);
   }
 
   /**
@@ -184,21 +197,23 @@ public final class DiskData extends Data {
   }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
+  public String createIndex(final IndexType type, final long memory, final Command cmd)
+      throws IOException {
     // close existing index
     close(type);
     final IndexBuilder ib;
     switch(type) {
-      case TEXT: case ATTRIBUTE: case TOKEN: ib = new DiskValuesBuilder(this, type); break;
-      case FULLTEXT: ib = new FTBuilder(this); break;
+      case TEXT: case ATTRIBUTE: case TOKEN: ib = new DiskValuesBuilder(this, type, memory); break;
+      case FULLTEXT: ib = new FTBuilder(this, memory); break;
       default: throw Util.notExpected();
     }
     try {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
+    return ib.statistics();
   }
 
   @Override
@@ -227,6 +242,8 @@ public final class DiskData extends Data {
   @Override
   public void startUpdate(final MainOptions opts) throws BaseXException {
     if(!table.lock(true)) throw new BaseXException(DB_PINNED_X, meta.name);
+    updating = true;
+    discardColumns();
     if(opts.get(MainOptions.AUTOFLUSH)) {
       final IOFile upd = meta.updateFile();
       if(upd.exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
@@ -248,6 +265,8 @@ public final class DiskData extends Data {
     }
 
     flush(auto);
+    discardColumns();
+    updating = false;
     if(!table.lock(false)) throw Util.notExpected("Database '%': could not unlock.", meta.name);
   }
 
@@ -276,13 +295,90 @@ public final class DiskData extends Data {
   @Override
   public long textItr(final int pre, final boolean text) {
     final long value = textRef(pre);
-    return Inline.inlined(value) ? Inline.unpackLong(value) : toLong(txt(value, text));
+    if(Inline.inlined(value)) return Inline.unpackLong(value);
+    final NumericColumns nc = columns(pre, text);
+    if(nc != null) {
+      final long l = nc.itr(pre);
+      if(l != Long.MIN_VALUE) return l;
+    }
+    return toLong(txt(value, text));
   }
 
   @Override
   public double textDbl(final int pre, final boolean text) {
     final long value = textRef(pre);
-    return Inline.inlined(value) ? Inline.unpackDouble(value) : toDouble(txt(value, text));
+    if(Inline.inlined(value)) return Inline.unpackDouble(value);
+    final NumericColumns nc = columns(pre, text);
+    if(nc != null) {
+      final double d = nc.dbl(pre);
+      if(!Double.isNaN(d)) return d;
+    }
+    return toDouble(txt(value, text));
+  }
+
+  /**
+   * Returns the decoded numeric values of the texts of the parent element or of the attribute
+   * with the same name as the specified node. The values will be created if they are enabled and
+   * if the database is not being updated. Only the values of this name are decoded, and they are
+   * created by a single thread and without holding a lock. Meanwhile, other threads decode the
+   * values from the texts.
+   * @param pre pre value
+   * @param text text or attribute value
+   * @return numeric column or {@code null}
+   */
+  private NumericColumns columns(final int pre, final boolean text) {
+    if(!meta.numcolumns || updating) return null;
+    final int name;
+    if(text) {
+      final int par = parent(pre, TEXT);
+      if(par < 0 || kind(par) != ELEM) return null;
+      name = nameId(par);
+    } else {
+      name = nameId(pre);
+    }
+    NumericColumns[] cols = text ? textColumns : attrColumns;
+    NumericColumns nc = name < cols.length ? cols[name] : null;
+    if(nc != null) return nc;
+
+    final int upd;
+    final long used;
+    synchronized(paths) {
+      if(building) return null;
+      building = true;
+      upd = updates;
+      used = entries;
+    }
+    try {
+      nc = NumericColumns.create(this, text ? TEXT : ATTR, name, used);
+    } finally {
+      synchronized(paths) {
+        building = false;
+        // discard values if the database has been updated in the meantime
+        if(nc != null && upd == updates && !updating) {
+          cols = text ? textColumns : attrColumns;
+          cols = Arrays.copyOf(cols, Math.max(cols.length, name + 1));
+          cols[name] = nc;
+          if(text) textColumns = cols;
+          else attrColumns = cols;
+          entries += nc.size();
+        } else {
+          nc = null;
+        }
+      }
+    }
+    return nc;
+  }
+
+  /**
+   * Discards the decoded numeric values.
+   */
+  private void discardColumns() {
+    synchronized(paths) {
+      textColumns = new NumericColumns[0];
+      attrColumns = new NumericColumns[0];
+      entries = 0;
+      updates++;
+    }
   }
 
   @Override
@@ -290,10 +386,10 @@ public final class DiskData extends Data {
     final long value = textRef(pre);
     if(Inline.inlined(value)) return Inline.unpackLength(value);
 
-    final DataAccess da = text ? texts : values;
-    final int l = da.readNum(value & Compress.COMPRESS - 1);
+    final DataReader dr = (text ? texts : values).reader();
+    final int l = dr.readNum(value & Compress.COMPRESS - 1);
     // if text is compressed, read number of compressed bytes
-    return Compress.compressed(value) ? da.readNum() : l;
+    return Compress.compressed(value) ? dr.readNum() : l;
   }
 
   /**
@@ -303,7 +399,7 @@ public final class DiskData extends Data {
    * @return text
    */
   private byte[] txt(final long offset, final boolean text) {
-    final byte[] txt = (text ? texts : values).readToken(offset & Compress.COMPRESS - 1);
+    final byte[] txt = (text ? texts : values).reader().readToken(offset & Compress.COMPRESS - 1);
     return Compress.compressed(offset) ? Compress.unpack(txt) : txt;
   }
 
@@ -71,7 +71,8 @@ public final class MemData extends Data {
   }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
+  public String createIndex(final IndexType type, final long memory, final Command cmd)
+      throws IOException {
     final IndexBuilder ib;
     switch(type) {
       case TEXT: case ATTRIBUTE: case TOKEN:
@@ -85,8 +86,9 @@ public final class MemData extends Data {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
+    return ib.statistics();
   }
 
   @Override
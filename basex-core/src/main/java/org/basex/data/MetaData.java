@@ -52,6 +52,12 @@ public final class MetaData {
   public boolean updindex;
   /** Flag for automatic index updating. */
   public boolean autooptimize;
+  /** Flag for memory-mapped table access. */
+  public boolean mmap;
+  /** Flag for storing texts and attribute values in compressed blocks. */
+  public boolean compresstexts;
+  /** Flag for decoding numeric texts and attribute values in main memory. */
+  public boolean numcolumns;
 
   /** Indicates if the text index is to be recreated. */
   public boolean createtext;
@@ -85,6 +91,10 @@ public final class MetaData {
   public int maxlen;
   /** Split size for creating indexes. */
   public int splitsize;
+  /** Number of threads for creating indexes (not stored on disk). */
+  public int indexthreads;
+  /** Main memory budget for creating indexes, in megabytes (not stored on disk). */
+  public int indexmemory;
 
   /** Language of full-text search index. */
   public Language language;
@@ -95,6 +105,8 @@ public final class MetaData {
   public boolean corrupt;
   /** Dirty flag. */
   public boolean dirty;
+  /** Number of updates since the database was opened (not stored on disk). */
+  public int changes;
 
   /** Number of nodes. */
   public int size;
@@ -140,6 +152,9 @@ public final class MetaData {
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
     autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    mmap = options.get(MainOptions.MMAP);
+    compresstexts = options.get(MainOptions.COMPRESSTEXTS);
+    numcolumns = options.get(MainOptions.NUMCOLUMNS);
     maxlen = options.get(MainOptions.MAXLEN);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
@@ -149,6 +164,8 @@ public final class MetaData {
     tokeninclude = options.get(MainOptions.TOKENINCLUDE);
     ftinclude = options.get(MainOptions.FTINCLUDE);
     splitsize = options.get(MainOptions.SPLITSIZE);
+    indexthreads = options.get(MainOptions.INDEXTHREADS);
+    indexmemory = options.get(MainOptions.INDEXMEMORY);
   }
 
   // STATIC METHODS ===============================================================================
@@ -403,6 +420,9 @@ public final class MetaData {
         case DBFTDC:     diacritics = toBoolean(v); break;
         case DBUPDIDX:   updindex = toBoolean(v); break;
         case DBAUTOOPT:  autooptimize = toBoolean(v); break;
+        case DBMMAP:     mmap = toBoolean(v); break;
+        case DBCMPTXT:   compresstexts = toBoolean(v); break;
+        case DBNUMCOL:   numcolumns = toBoolean(v); break;
         case DBTXTIDX:   textindex = toBoolean(v); break;
         case DBATVIDX:   attrindex = toBoolean(v); break;
         case DBTOKIDX:   tokenindex = toBoolean(v); break;
@@ -446,6 +466,9 @@ public final class MetaData {
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBUPDIDX,   updindex);
     writeInfo(out, DBAUTOOPT,  autooptimize);
+    writeInfo(out, DBMMAP,     mmap);
+    writeInfo(out, DBCMPTXT,   compresstexts);
+    writeInfo(out, DBNUMCOL,   numcolumns);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBTOKIDX,   tokenindex);
@@ -477,6 +500,7 @@ public final class MetaData {
   public void update() {
     // update database timestamp
     time = System.currentTimeMillis();
+    changes++;
     uptodate = false;
     dirty = true;
     if(!updindex) {
@@ -140,6 +140,21 @@ public enum MetaProp {
     public Boolean value(final MetaData meta) { return meta.autooptimize; }
   },
   /** Property. */
+  MMAP(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.mmap; }
+  },
+  /** Property. */
+  COMPRESSTEXTS(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.compresstexts; }
+  },
+  /** Property. */
+  NUMCOLUMNS(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.numcolumns; }
+  },
+  /** Property. */
   MAXCATS(true) {
     @Override
     public Integer value(final MetaData meta) { return meta.maxcats; }
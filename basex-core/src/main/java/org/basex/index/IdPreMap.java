@@ -12,6 +12,15 @@ import org.basex.util.list.*;
 /**
  * Updatable ID-PRE mapping.
  *
+ * The mapping is stored as a list of intervals, which are sorted by their PRE values. Lookups
+ * are performed on an immutable snapshot. Readers will thus not be blocked by each other, and
+ * all PRE values can be found via binary search: the first IDs of the inserted intervals are
+ * indexed in ascending order. As updates invalidate the snapshot, lookups that follow an update
+ * are performed on the mapping itself, and a new snapshot is only created if the number of
+ * these lookups exceeds the logarithm of the number of intervals.
+ * If new nodes are appended to an inserted interval, the interval will be extended.
+ * Adjacent intervals are merged via {@link #compact()}.
+ *
  * @author BaseX Team 2005-20, BSD License
  * @author Dimitar Popov
  */
@@ -33,6 +42,10 @@ public class IdPreMap {
 
   /** Number of records in the table. */
   private int rows;
+  /** Snapshot for lookups ({@code null} if it needs to be created). */
+  private volatile Snapshot snapshot;
+  /** Number of lookups since the last update. */
+  private int lookups;
 
   /**
    * Constructor.
@@ -69,7 +82,8 @@ public class IdPreMap {
    * @param file file to write to
    * @throws IOException I/O error while writing to the file
    */
-  public final void write(final IOFile file) throws IOException {
+  public final synchronized void write(final IOFile file) throws IOException {
+    compact();
     try(DataOutput out = new DataOutput(file)) {
       out.writeNum(baseid);
       out.writeNum(rows);
@@ -85,7 +99,8 @@ public class IdPreMap {
    * Finishes database creation.
    * @param base last id
    */
-  public final void finish(final int base) {
+  public final synchronized void finish(final int base) {
+    invalidate();
     baseid = base;
   }
 
@@ -95,20 +110,82 @@ public class IdPreMap {
    * @return PRE or -1 if the ID is already deleted
    */
   public int pre(final int id) {
+    final Snapshot s = snapshot;
+    return s != null ? s.pre(id) : find(id);
+  }
+
+  /**
+   * Finds the PRE value of a given ID in the mapping. Creates a new snapshot if the number of
+   * lookups since the last update exceeds the logarithm of the number of intervals.
+   * @param id ID
+   * @return PRE or -1 if the ID is already deleted
+   */
+  private synchronized int find(final int id) {
+    Snapshot s = snapshot;
+    if(s == null && ++lookups > 32 - Integer.numberOfLeadingZeros(rows)) {
+      s = new Snapshot(this);
+      snapshot = s;
+    }
+    if(s != null) return s.pre(id);
+
     // no updates or id is not affected by updates
     if(rows == 0 || id < pres[0]) return id;
 
     if(id > baseid) {
       // id was inserted by update
-      for(int i = 0; i < rows; ++i) {
-        if(fids[i] <= id && id <= nids[i]) return pres[i] + id - fids[i];
+      for(int r = 0; r < rows; r++) {
+        if(fids[r] <= id && id <= nids[r]) return pres[r] + id - fids[r];
+      }
+      return -1;
+    }
+    // id is affected by updates
+    final int i = lastIndexOf(oids, rows, id);
+    return id + (i >= 0 ? incs[i] : 0);
+  }
+
+  /**
+   * Invalidates the snapshot. Must be called before the mapping is updated.
+   */
+  private void invalidate() {
+    snapshot = null;
+    lookups = 0;
+  }
+
+  /**
+   * Merges adjacent intervals of inserted IDs if their PRE and ID values are consecutive.
+   * @return {@code true} if the mapping was changed
+   */
+  public synchronized boolean compact() {
+    if(rows < 2) return false;
+    int w = 0;
+    for(int r = 1; r < rows; r++) {
+      if(oids[r] == oids[w] && fids[r] != INV && follows(w, pres[r], fids[r])) {
+        nids[w] = nids[r];
+        incs[w] = incs[r];
+      } else if(++w != r) {
+        pres[w] = pres[r];
+        fids[w] = fids[r];
+        nids[w] = nids[r];
+        incs[w] = incs[r];
+        oids[w] = oids[r];
       }
-    } else {
-      // id is affected by updates
-      final int i = sortedLastIndexOf(oids, id);
-      return id + incs[i < 0 ? -i - 2 : i];
     }
-    return -1;
+    if(++w == rows) return false;
+    invalidate();
+    rows = w;
+    return true;
+  }
+
+  /**
+   * Checks if the specified PRE and ID values directly follow the inserted interval
+   * at the given index.
+   * @param i index of the interval
+   * @param pre PRE value
+   * @param id ID value
+   * @return result of check
+   */
+  private boolean follows(final int i, final int pre, final int id) {
+    return fids[i] != INV && nids[i] + 1 == id && pres[i] + nids[i] - fids[i] + 1 == pre;
   }
 
   /**
@@ -117,7 +194,8 @@ public class IdPreMap {
    * @param id record ID
    * @param c number of inserted records
    */
-  public void insert(final int pre, final int id, final int c) {
+  public synchronized void insert(final int pre, final int id, final int c) {
+    invalidate();
     if(rows == 0 && pre == id && id == baseid + 1) {
       // no mapping and we append at the end => nothing to do
       baseid += c;
@@ -162,6 +240,14 @@ public class IdPreMap {
       }
 
       increment(pos, c);
+
+      // extend the previous interval if the inserted nodes directly follow it
+      final int prev = pos - 1;
+      if(prev >= 0 && oids[prev] == oid && follows(prev, pre, id)) {
+        nids[prev] += c;
+        incs[prev] = inc;
+        return;
+      }
     }
 
     // add the new interval
@@ -174,7 +260,8 @@ public class IdPreMap {
    * @param id ID of the first deleted record
    * @param c number of deleted records (negative)
    */
-  public void delete(final int pre, final int id, final int c) {
+  public synchronized void delete(final int pre, final int id, final int c) {
+    invalidate();
     if(rows == 0 && pre == id && id - c == baseid + 1) {
       // no mapping and we delete at the end => nothing to do
       baseid += c;
@@ -304,21 +391,6 @@ public class IdPreMap {
     return low; // key not found.
   }
 
-  /**
-   * Binary search of a key in a list. If there are several hits the last one is returned.
-   * @param a array to search into
-   * @param e key to search for
-   * @return index of the found hit or where the key ought to be inserted
-   */
-  private int sortedLastIndexOf(final int[] a, final int e) {
-    int i = Arrays.binarySearch(a, 0, rows, e);
-    if(i >= 0) {
-      while(++i < rows && a[i] == e);
-      return i - 1;
-    }
-    return i;
-  }
-
   /**
    * Adds a record to the table and the ID index.
    * @param i index in the table where the record should be inserted
@@ -374,7 +446,7 @@ public class IdPreMap {
   }
 
   @Override
-  public String toString() {
+  public synchronized String toString() {
     final Table t = new Table();
     t.header.add("PRE").add("FID").add("NID").add("INC").add("OID");
     for(int i = 0; i < 5; ++i) t.align.add(true);
@@ -385,4 +457,90 @@ public class IdPreMap {
     }
     return t + "\n- BaseID: " + baseid + '\n';
   }
+
+  /**
+   * Immutable snapshot of the mapping.
+   */
+  private static final class Snapshot {
+    /** Base ID value. */
+    private final int baseid;
+    /** PRE values of the inserted/deleted IDs. */
+    private final int[] pres;
+    /** Increments. */
+    private final int[] incs;
+    /** Original ID values (sorted). */
+    private final int[] oids;
+    /** First IDs of the inserted intervals (sorted). */
+    private final int[] ids;
+    /** Last IDs of the inserted intervals. */
+    private final int[] lids;
+    /** PRE values of the inserted intervals. */
+    private final int[] ipres;
+
+    /**
+     * Constructor.
+     * @param map mapping
+     */
+    private Snapshot(final IdPreMap map) {
+      final int rows = map.rows;
+      baseid = map.baseid;
+      pres = Arrays.copyOf(map.pres, rows);
+      incs = Arrays.copyOf(map.incs, rows);
+      oids = Arrays.copyOf(map.oids, rows);
+
+      // sort non-empty intervals of inserted IDs by their first ID
+      final LongList list = new LongList();
+      for(int r = 0; r < rows; r++) {
+        final int fid = map.fids[r];
+        if(fid != INV && fid <= map.nids[r]) list.add((long) fid << 32 | r);
+      }
+      final long[] sorted = list.sort().finish();
+      final int sl = sorted.length;
+      ids = new int[sl];
+      lids = new int[sl];
+      ipres = new int[sl];
+      for(int s = 0; s < sl; s++) {
+        final int r = (int) sorted[s];
+        ids[s] = map.fids[r];
+        lids[s] = map.nids[r];
+        ipres[s] = map.pres[r];
+      }
+    }
+
+    /**
+     * Finds the PRE value of a given ID.
+     * @param id ID
+     * @return PRE or -1 if the ID is already deleted
+     */
+    private int pre(final int id) {
+      // no updates or id is not affected by updates
+      if(pres.length == 0 || id < pres[0]) return id;
+
+      if(id > baseid) {
+        // id was inserted by update
+        final int i = lastIndexOf(ids, ids.length, id);
+        return i >= 0 && id <= lids[i] ? ipres[i] + id - ids[i] : -1;
+      }
+      // id is affected by updates
+      final int i = lastIndexOf(oids, oids.length, id);
+      return id + (i >= 0 ? incs[i] : 0);
+    }
+  }
+
+  /**
+   * Returns the index of the last entry that is smaller than or equal to the specified value.
+   * @param a sorted array
+   * @param size number of entries to consider
+   * @param v value
+   * @return index, or {@code -1} if all entries are greater
+   */
+  private static int lastIndexOf(final int[] a, final int size, final int v) {
+    int l = 0, h = size - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      if(a[m] <= v) l = m + 1;
+      else h = m - 1;
+    }
+    return h;
+  }
 }
@@ -3,28 +3,41 @@ package org.basex.index;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
 import org.basex.core.jobs.*;
 import org.basex.data.*;
 import org.basex.index.value.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This interface defines the functions which are needed for building
  * new index structures.
  *
+ * If multiple threads are available, large databases can be split into partitions with
+ * disjoint pre ranges. Each partition is indexed by a separate builder, which writes
+ * partial index structures to disk. The partial structures are merged afterwards.
+ *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  */
 public abstract class IndexBuilder extends Job {
+  /** Minimum number of nodes in a partition. */
+  private static final int PARTITION = 1 << 16;
+
   /** Performance. */
   private final Performance perf = new Performance();
 
   /** Data reference. */
   protected final Data data;
-  /** Total parsing value. */
+  /** Total parsing value (pre value after the last node to be indexed). */
   protected final int size;
+  /** First pre value to be indexed. */
+  protected final int start;
   /** Index type. */
   protected final IndexType type;
   /** Text node flag. */
@@ -32,11 +45,15 @@ public abstract class IndexBuilder extends Job {
 
   /** Number of index operations to perform before writing a partial index to disk. */
   private final int splitSize;
-  /** Maximum memory to consume. */
-  private final long maxMem = (long) (Runtime.getRuntime().maxMemory() * 0.8);
+  /** Main memory budget for the in-memory index structures (bytes). */
+  private final long budget;
 
   /** Names and namespace uri of element or attributes to include. */
   private final IndexNames includeNames;
+  /** Prefix of partial index structures. */
+  private final String prefix;
+  /** Names of partial index structures, sorted by pre values. */
+  protected final StringList partials = new StringList();
 
   /** Current pre value. */
   protected int pre;
@@ -44,24 +61,43 @@ public abstract class IndexBuilder extends Job {
   protected long count;
   /** Number of partial index structures. */
   protected int splits;
-  /** Threshold for freeing memory when estimating main memory consumption. */
-  private int gcCount;
+  /** Number of partial index structures that were written because the budget was exceeded. */
+  private int spills;
+  /** Number of bytes written to disk. */
+  protected long written;
+  /** Time needed for merging partial index structures (nanoseconds). */
+  protected long merging;
 
   /**
    * Constructor.
    * @param data reference
    * @param type index type
+   * @param budget main memory budget for the in-memory index structures (bytes)
+   */
+  protected IndexBuilder(final Data data, final IndexType type, final long budget) {
+    this(data, type, "", 0, data.meta.size, budget);
+  }
+
+  /**
+   * Constructor for building the index structures of a partition.
+   * @param data reference
+   * @param type index type
+   * @param prefix prefix of partial index structures
+   * @param start first pre value
+   * @param end pre value after the last node
+   * @param budget main memory budget for the in-memory index structures (bytes)
    */
-  protected IndexBuilder(final Data data, final IndexType type) {
+  protected IndexBuilder(final Data data, final IndexType type, final String prefix,
+      final int start, final int end, final long budget) {
     this.data = data;
     this.type = type;
+    this.prefix = prefix;
+    this.start = start;
+    this.budget = budget;
     splitSize = (int) Math.min(Integer.MAX_VALUE, (long) data.meta.splitsize * splitFactor());
-    size = data.meta.size;
+    size = end;
     includeNames = new IndexNames(type, data);
     text = type == IndexType.TEXT || type == IndexType.FULLTEXT;
-
-    // run garbage collection if memory maximum is already reached
-    if(Performance.memory() >= maxMem) clean();
   }
 
   /**
@@ -71,6 +107,82 @@ public abstract class IndexBuilder extends Job {
    */
   public abstract ValueIndex build() throws IOException;
 
+  /**
+   * Creates a builder for a partition of the database.
+   * @param name prefix of partial index structures
+   * @param first first pre value
+   * @param last pre value after the last node
+   * @param memory main memory budget of the builder (bytes)
+   * @return builder
+   * @throws IOException I/O Exception
+   */
+  protected IndexBuilder partition(final String name, final int first, final int last,
+      final long memory) throws IOException {
+    throw Util.notExpected();
+  }
+
+  /**
+   * Indexes all nodes of a partition and writes the partial index structures to disk.
+   * @throws IOException I/O Exception
+   */
+  protected void buildPartition() throws IOException {
+    throw Util.notExpected();
+  }
+
+  /**
+   * Indexes the database in partitions if it is large enough and if multiple threads
+   * are available. The memory budget is shared by the partitions.
+   * The names of all partial index structures will be assigned to this builder.
+   * @return {@code true} if partitions were built
+   * @throws IOException I/O Exception
+   */
+  protected final boolean partitions() throws IOException {
+    final int nodes = size - start, parts = Math.min(threads(data), nodes / PARTITION);
+    if(parts < 2) return false;
+
+    final IndexBuilder[] builders = new IndexBuilder[parts];
+    final ArrayList<Callable<Void>> tasks = new ArrayList<>(parts);
+    try {
+      for(int p = 0; p < parts; p++) {
+        final int first = start + (int) ((long) nodes * p / parts);
+        final int last = start + (int) ((long) nodes * (p + 1) / parts);
+        final IndexBuilder builder = pushJob(partition(prefix + p + '-', first, last,
+            budget / parts));
+        builders[p] = builder;
+        tasks.add(() -> {
+          builder.buildPartition();
+          return null;
+        });
+      }
+      parallel(tasks, parts, this);
+    } finally {
+      for(final IndexBuilder builder : builders) {
+        if(builder != null) popJob(builder);
+      }
+    }
+
+    // adopt partial index structures in the order of the partitions
+    for(final IndexBuilder builder : builders) {
+      partials.add(builder.partials);
+      count += builder.count;
+      spills += builder.spills;
+      written += builder.written;
+    }
+    splits = partials.size();
+    pre = size;
+    return true;
+  }
+
+  /**
+   * Returns the name of the next partial index structure and registers it.
+   * @return name
+   */
+  protected final String partial() {
+    final String name = prefix + splits;
+    partials.add(name);
+    return name;
+  }
+
   /**
    * Checks if the command was interrupted, and prints some debug output.
    * @throws IOException I/O Exception
@@ -89,39 +201,101 @@ public abstract class IndexBuilder extends Job {
     return data.kind(pre) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pre, text);
   }
 
+  /**
+   * Returns the main memory budget for building index structures.
+   * @param data data reference
+   * @return number of bytes
+   */
+  public static long memory(final Data data) {
+    final int memory = data.meta.indexmemory;
+    return memory > 0 ? (long) memory << 20 : Runtime.getRuntime().maxMemory() / 2;
+  }
+
+  /**
+   * Returns the number of threads for building index structures.
+   * @param data data reference
+   * @return number of threads
+   */
+  public static int threads(final Data data) {
+    final int threads = data.meta.indexthreads;
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Runs the specified tasks in parallel and waits until all of them are finished.
+   * The tasks are run by the fork/join pool of the database context. If no context is
+   * assigned to the job, the tasks will be run sequentially.
+   * If a task fails, the job will be stopped, and the first exception will be rethrown.
+   * @param tasks tasks
+   * @param threads maximum number of threads
+   * @param job job that will be stopped if a task fails (may be {@code null})
+   * @throws IOException I/O exception
+   */
+  public static void parallel(final List<Callable<Void>> tasks, final int threads, final Job job)
+      throws IOException {
+
+    final Context ctx = job != null ? job.jc().context : null;
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    if(ctx == null || Math.min(threads, tasks.size()) < 2) {
+      for(final Callable<Void> task : tasks) {
+        try {
+          task.call();
+        } catch(final Exception ex) {
+          error.set(ex);
+          break;
+        }
+      }
+    } else {
+      // nested calls are run by the same pool: joining threads will process pending tasks
+      final ForkJoinPool pool = ctx.jobs.pool();
+      final boolean worker = ForkJoinTask.getPool() == pool;
+      final ArrayList<ForkJoinTask<?>> forks = new ArrayList<>(tasks.size());
+      for(final Callable<Void> task : tasks) {
+        final ForkJoinTask<?> fork = ForkJoinTask.adapt(() -> {
+          try {
+            task.call();
+          } catch(final Throwable ex) {
+            // remember first error and stop remaining tasks
+            if(error.compareAndSet(null, ex) && job != null) job.stop();
+          }
+        });
+        if(worker) fork.fork();
+        else pool.execute(fork);
+        forks.add(fork);
+      }
+      for(final ForkJoinTask<?> fork : forks) fork.join();
+    }
+    final Throwable ex = error.get();
+    if(ex instanceof IOException) throw (IOException) ex;
+    if(ex instanceof RuntimeException) throw (RuntimeException) ex;
+    if(ex instanceof Error) throw (Error) ex;
+    if(ex != null) throw new BaseXException((Exception) ex);
+  }
+
   /**
    * Decides whether in-memory temporary index structures are so large
    * that we must flush them to disk before continuing.
+   * @param memory estimated memory consumption of the in-memory structures (bytes)
    * @return true if structures shall be flushed to disk
-   * @throws IOException I/O Exception
    */
-  protected final boolean splitRequired() throws IOException {
-    // checks if a fixed split size has been specified
-    final boolean split;
-    if(splitSize > 0) {
-      split = count >= (splits + 1L) * splitSize;
-    } else {
-      // if not, estimate how much main memory is left
-      split = Performance.memory() >= maxMem;
-      // stop operation if index splitting degenerates
-      int gc = gcCount;
-      if(split) {
-        if(gc >= 0) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
-        gc = 30;
-      } else {
-        gc = Math.max(-1, gc - 1);
-      }
-      gcCount = gc;
+  protected final boolean splitRequired(final long memory) {
+    // checks if a fixed split size has been specified; if not, checks the memory budget
+    final boolean split = splitSize > 0 ? count >= (splits + 1L) * splitSize : memory >= budget;
+    if(split) {
+      spills++;
+      if(Prop.debug) Util.err("|");
     }
-    if(split && Prop.debug) Util.err("|");
     return split;
   }
 
   /**
-   * Performs memory cleanup after writing partial memory if necessary.
+   * Stops the operation if the in-memory structures that remain after a split
+   * still exceed the memory budget.
+   * @param memory estimated memory consumption of the remaining structures (bytes)
+   * @throws IOException I/O Exception
    */
-  protected final void clean() {
-    if(splitSize <= 0) Performance.gc(2);
+  protected final void checkSplit(final long memory) throws IOException {
+    if(splitSize <= 0 && memory >= budget) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
   }
 
   /**
@@ -132,7 +306,8 @@ public abstract class IndexBuilder extends Job {
 
     final StringBuilder sb = new StringBuilder();
     sb.append(' ').append((count / 10000) / 100.0d).append(" M operations, ");
-    sb.append(perf).append(" (").append(Performance.getMemory()).append(").");
+    sb.append(perf).append(" (").append(Performance.getMemory()).append("). ");
+    sb.append(statistics());
     if(splits > 1 && splitSize <= 0) {
       sb.append(" Recommended ").append(MainOptions.SPLITSIZE.name()).append(": ");
       sb.append((int) Math.ceil(((double) count / splits) / splitFactor())).append('.');
@@ -153,6 +328,15 @@ public abstract class IndexBuilder extends Job {
     return type == IndexType.FULLTEXT ? 1000000 : 100000;
   }
 
+  /**
+   * Returns statistics on the written index structures.
+   * @return statistics, or an empty string if nothing was written to disk
+   */
+  public final String statistics() {
+    return written == 0 ? "" : Util.info(INDEX_STATS_X_X_X_X, type, spills,
+        Performance.format(written), Performance.getTime(merging, 1));
+  }
+
   @Override
   public final String shortInfo() {
     return CREATING_INDEXES;
@@ -160,7 +344,8 @@ public abstract class IndexBuilder extends Job {
 
   @Override
   public final double progressInfo() {
-    return pre / (size + (splits > 0 ? size / 50.0d : 0.0d));
+    final int nodes = size - start;
+    return (pre - start) / (nodes + (splits > 0 ? nodes / 50.0d : 0.0d));
   }
 
   @Override
@@ -2,26 +2,47 @@ package org.basex.index;
 
 import static org.basex.util.Token.*;
 
-import java.lang.ref.*;
-import java.util.concurrent.locks.*;
+import java.util.concurrent.atomic.*;
 
-import org.basex.util.*;
+import org.basex.core.*;
 
 /**
  * This class caches sizes and offsets from index results.
  *
+ * All instances share a global store with a fixed capacity in bytes, which is assigned via
+ * {@link StaticOptions#INDEXCACHE}. The store is divided into segments with separate locks.
+ * As in the {@link org.basex.io.random.BufferPool}, each segment uses a segmented LRU
+ * replacement strategy: New entries are added to a probationary queue and promoted to a
+ * protected queue when they are requested again. Entries that are requested only once, e.g.
+ * while iterating over all index keys, will thus not displace frequently requested entries.
+ *
  * @author BaseX Team 2005-20, BSD License
  * @author Dimitar Popov
  */
 public final class IndexCache {
-  /** Queue used to collect unused keys. */
-  private final ReferenceQueue<IndexEntry> queue = new ReferenceQueue<>();
-  /** Read-write lock. */
-  private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock(true);
-  /** Hash table buckets. */
-  private BucketEntry[] buckets = new BucketEntry[Array.CAPACITY];
-  /** Number of entries in the cache. */
-  private int size;
+  /** Number of segments (must be 1 << n). */
+  private static final int SEGMENTS = 1 << 4;
+  /** Estimated memory consumption of a cached entry, excluding the key. */
+  private static final int OVERHEAD = 112;
+  /** Cache ids. */
+  private static final AtomicLong IDS = new AtomicLong();
+  /** Segments of the global store ({@code null} if caching is disabled). */
+  private static volatile Segment[] store = store(
+      (long) StaticOptions.INDEXCACHE.value() << 20);
+
+  /** Id of this cache. */
+  private final long id = IDS.incrementAndGet();
+
+  /**
+   * Initializes the global store. Cached entries will be dropped if the capacity changes.
+   * @param size capacity in bytes ({@code 0}: disable caching)
+   */
+  public static synchronized void init(final long size) {
+    final Segment[] segments = store;
+    if(segments == null ? size > 0 : capacity() != size / SEGMENTS * SEGMENTS) {
+      store = store(size);
+    }
+  }
 
   /**
    * Gets cached entry for the specified key.
@@ -29,21 +50,10 @@ public final class IndexCache {
    * @return cached entry or {@code null} if the entry is stale
    */
   public IndexEntry get(final byte[] key) {
-    final int hash = hash(key);
-    rwl.readLock().lock();
-
-    try {
-      final int i = indexFor(hash, buckets.length);
-      BucketEntry e = buckets[i];
-      while(e != null) {
-        final IndexEntry entry = e.get();
-        if(entry != null && e.hash == hash && eq(entry.key, key)) return entry;
-        e = e.next;
-      }
-    } finally {
-      rwl.readLock().unlock();
-    }
-    return null;
+    final Segment[] segments = store;
+    if(segments == null) return null;
+    final int hash = spread(key);
+    return segment(segments, hash).get(id, hash, key);
   }
 
   /**
@@ -55,32 +65,10 @@ public final class IndexCache {
    * @return cache entry
    */
   public IndexEntry add(final byte[] key, final int count, final long offset) {
-    final int hash = hash(key);
-    rwl.writeLock().lock();
-
-    try {
-      purge();
-      final int i = indexFor(hash, buckets.length);
-      BucketEntry current = buckets[i], prev = current;
-      while(current != null) {
-        final BucketEntry next = current.next;
-        final IndexEntry entry = current.get();
-        if(entry == null) {
-          delete(i, current, prev, next);
-        } else if(current.hash == hash && eq(entry.key, key)) {
-          update(entry, count, offset);
-          return entry;
-        }
-        prev = current;
-        current = next;
-      }
-
-      final IndexEntry entry = new IndexEntry(key, count, offset);
-      add(i, hash, entry);
-      return entry;
-    } finally {
-      rwl.writeLock().unlock();
-    }
+    final Segment[] segments = store;
+    if(segments == null) return new IndexEntry(key, count, offset);
+    final int hash = spread(key);
+    return segment(segments, hash).add(id, hash, key, count, offset);
   }
 
   /**
@@ -88,143 +76,380 @@ public final class IndexCache {
    * @param key key
    */
   public void delete(final byte[] key) {
-    final int hash = hash(key);
-    rwl.writeLock().lock();
-
-    try {
-      purge();
-      final int i = indexFor(hash, buckets.length);
-      BucketEntry e = buckets[i], prev = e;
-      while(e != null) {
-        final BucketEntry next = e.next;
-        final IndexEntry entry = e.get();
-        if(entry == null) {
-          delete(i, e, prev, next);
-        } else if(e.hash == hash && eq(entry.key, key)) {
-          delete(i, e, prev, next);
-          break;
-        }
-        prev = e;
-        e = next;
+    final Segment[] segments = store;
+    if(segments == null) return;
+    final int hash = spread(key);
+    segment(segments, hash).delete(id, hash, key);
+  }
+
+  /**
+   * Removes all entries of this cache.
+   */
+  public void close() {
+    final Segment[] segments = store;
+    if(segments == null) return;
+    for(final Segment segment : segments) segment.delete(id);
+  }
+
+  /**
+   * Indicates if caching is enabled.
+   * @return result of check
+   */
+  public static boolean enabled() {
+    return store != null;
+  }
+
+  /**
+   * Returns the capacity of the global store.
+   * @return capacity in bytes
+   */
+  public static long capacity() {
+    final Segment[] segments = store;
+    return segments == null ? 0 : segments[0].capacity * SEGMENTS;
+  }
+
+  /**
+   * Returns the estimated memory consumption of all cached entries.
+   * @return number of bytes
+   */
+  public static long used() {
+    long u = 0;
+    final Segment[] segments = store;
+    if(segments != null) {
+      for(final Segment segment : segments) {
+        synchronized(segment) { u += segment.used; }
       }
-    } finally {
-      rwl.writeLock().unlock();
     }
+    return u;
   }
 
   /**
-   * Purges stale entries from the cache.
+   * Returns the number of cached entries.
+   * @return number of entries
    */
-  private void purge() {
-    for(Object x; (x = queue.poll()) != null;) {
-      final BucketEntry e = (BucketEntry) x;
-      final int i = indexFor(e.hash, buckets.length);
-      BucketEntry prev = buckets[i], p = prev;
-      while(p != null) {
-        final BucketEntry next = p.next;
-        if(p == e) {
-          delete(i, e, prev, next);
-          break;
-        }
-        prev = p;
-        p = next;
+  public static int entries() {
+    int s = 0;
+    final Segment[] segments = store;
+    if(segments != null) {
+      for(final Segment segment : segments) {
+        synchronized(segment) { s += segment.size; }
       }
     }
+    return s;
   }
 
   /**
-   * Add a new index entry to the bucket with the specified index.
-   * @param i bucket index
-   * @param hash hash of the new index key
-   * @param entry index entry
+   * Returns the number of successful lookups.
+   * @return number of hits
    */
-  private void add(final int i, final int hash, final IndexEntry entry) {
-    buckets[i] = new BucketEntry(hash, buckets[i], entry, queue);
-    if(++size == buckets.length) rehash();
+  public static long hits() {
+    long h = 0;
+    final Segment[] segments = store;
+    if(segments != null) {
+      for(final Segment segment : segments) {
+        synchronized(segment) { h += segment.hits; }
+      }
+    }
+    return h;
   }
 
   /**
-   * Update an existing index entry.
-   * @param entry index entry to update
-   * @param size new size
-   * @param offset new offset
+   * Returns the number of failed lookups.
+   * @return number of misses
    */
-  private static void update(final IndexEntry entry, final int size, final long offset) {
-    entry.size = size;
-    entry.offset = offset;
+  public static long misses() {
+    long m = 0;
+    final Segment[] segments = store;
+    if(segments != null) {
+      for(final Segment segment : segments) {
+        synchronized(segment) { m += segment.misses; }
+      }
+    }
+    return m;
   }
 
   /**
-   * Deletes a cached entry from the buckets with the specified index.
-   * @param i buckets index
-   * @param e cached entry to delete
-   * @param p previous cache entry
-   * @param n next cache entry
+   * Creates the segments of a store.
+   * @param size capacity in bytes
+   * @return segments, or {@code null} if caching is disabled
    */
-  private void delete(final int i, final BucketEntry e, final BucketEntry p, final BucketEntry n) {
-    if(p == e) buckets[i] = n;
-    else p.next = n;
-    e.next = null;
-    --size;
+  private static Segment[] store(final long size) {
+    if(size <= 0) return null;
+    final Segment[] segments = new Segment[SEGMENTS];
+    final long capacity = Math.max(OVERHEAD, size / SEGMENTS);
+    for(int s = 0; s < SEGMENTS; s++) segments[s] = new Segment(capacity);
+    return segments;
   }
 
   /**
-   * Resizes the hash table.
+   * Returns the segment responsible for the specified hash value.
+   * @param segments segments
+   * @param hash hash value
+   * @return segment
    */
-  private void rehash() {
-    purge();
+  private static Segment segment(final Segment[] segments, final int hash) {
+    return segments[hash >>> 28 & SEGMENTS - 1];
+  }
 
-    final int s = size << 1;
-    final BucketEntry[] tmp = new BucketEntry[s];
+  /**
+   * Returns a hash value for the specified key, with the bits spread across the whole range.
+   * @param key key
+   * @return hash value
+   */
+  private static int spread(final byte[] key) {
+    return hash(key) * 0x9E3779B9;
+  }
 
-    final int l = buckets.length;
-    for(int i = 0; i < l; ++i) {
-      BucketEntry e = buckets[i];
-      buckets[i] = null;
-      while(e != null) {
-        final BucketEntry next = e.next;
-        final int p = indexFor(e.hash, tmp.length);
-        e.next = tmp[p];
-        tmp[p] = e;
-        e = next;
-      }
-    }
-    buckets = tmp;
+  /**
+   * Returns the memory consumption of an entry.
+   * @param key key
+   * @return number of bytes
+   */
+  private static long cost(final byte[] key) {
+    return key.length + OVERHEAD;
   }
 
   /**
-   * Returns buckets index for a hash code.
-   * @param h hash code
-   * @param n number of available buckets
-   * @return index of a buckets
+   * Segment of the store.
    */
-  private static int indexFor(final int h, final int n) {
-    return h & n - 1;
+  private static final class Segment {
+    /** Capacity in bytes. */
+    private final long capacity;
+    /** Maximum number of bytes of protected entries. */
+    private final long maxProt;
+    /** Hash buckets. */
+    private Node[] buckets = new Node[1 << 6];
+
+    /** Head and tail of the probationary queue. */
+    private Node probHead, probTail;
+    /** Head and tail of the protected queue. */
+    private Node protHead, protTail;
+    /** Estimated memory consumption of protected entries. */
+    private long protUsed;
+    /** Estimated memory consumption of all entries. */
+    private long used;
+    /** Number of cached entries. */
+    private int size;
+    /** Number of hits. */
+    private long hits;
+    /** Number of misses. */
+    private long misses;
+
+    /**
+     * Constructor.
+     * @param capacity capacity in bytes
+     */
+    private Segment(final long capacity) {
+      this.capacity = capacity;
+      maxProt = capacity - capacity / 5;
+    }
+
+    /**
+     * Returns a cached entry.
+     * @param id cache id
+     * @param hash hash value
+     * @param key key
+     * @return entry or {@code null}
+     */
+    private synchronized IndexEntry get(final long id, final int hash, final byte[] key) {
+      final Node node = find(id, hash, key);
+      if(node == null) {
+        misses++;
+        return null;
+      }
+      hits++;
+      // promote entry to protected queue, or move it to the head of the queue
+      unlink(node);
+      if(!node.prot) {
+        node.prot = true;
+        protUsed += cost(node.entry.key);
+        while(protUsed > maxProt && protTail != null) {
+          // demote least recently used protected entry
+          final Node demote = protTail;
+          unlink(demote);
+          demote.prot = false;
+          protUsed -= cost(demote.entry.key);
+          link(demote);
+        }
+      }
+      link(node);
+      return node.entry;
+    }
+
+    /**
+     * Adds or updates an entry.
+     * @param id cache id
+     * @param hash hash value
+     * @param key key
+     * @param count number of index hits
+     * @param offset offset to id list
+     * @return entry
+     */
+    private synchronized IndexEntry add(final long id, final int hash, final byte[] key,
+        final int count, final long offset) {
+
+      final Node node = find(id, hash, key);
+      if(node != null) {
+        node.entry.size = count;
+        node.entry.offset = offset;
+        return node.entry;
+      }
+
+      final IndexEntry entry = new IndexEntry(key, count, offset);
+      final long cost = cost(key);
+      if(cost > capacity) return entry;
+      // evict least recently added probationary entries, or least recently used protected entries
+      while(used + cost > capacity) delete(probTail != null ? probTail : protTail);
+
+      final Node n = new Node(id, hash, entry);
+      final int b = hash & buckets.length - 1;
+      n.chain = buckets[b];
+      buckets[b] = n;
+      link(n);
+      used += cost;
+      if(++size > buckets.length) rehash();
+      return entry;
+    }
+
+    /**
+     * Deletes an entry.
+     * @param id cache id
+     * @param hash hash value
+     * @param key key
+     */
+    private synchronized void delete(final long id, final int hash, final byte[] key) {
+      final Node node = find(id, hash, key);
+      if(node != null) delete(node);
+    }
+
+    /**
+     * Deletes all entries of the specified cache.
+     * @param id cache id
+     */
+    private synchronized void delete(final long id) {
+      for(final Node bucket : buckets) {
+        for(Node node = bucket; node != null;) {
+          final Node next = node.chain;
+          if(node.id == id) delete(node);
+          node = next;
+        }
+      }
+    }
+
+    /**
+     * Returns the node of the specified key.
+     * @param id cache id
+     * @param hash hash value
+     * @param key key
+     * @return node, or {@code null} if the key is not found
+     */
+    private Node find(final long id, final int hash, final byte[] key) {
+      Node node = buckets[hash & buckets.length - 1];
+      while(node != null && !(node.hash == hash && node.id == id && eq(node.entry.key, key))) {
+        node = node.chain;
+      }
+      return node;
+    }
+
+    /**
+     * Removes a node.
+     * @param node node
+     */
+    private void delete(final Node node) {
+      final int b = node.hash & buckets.length - 1;
+      if(buckets[b] == node) {
+        buckets[b] = node.chain;
+      } else {
+        Node n = buckets[b];
+        while(n.chain != node) n = n.chain;
+        n.chain = node.chain;
+      }
+      unlink(node);
+      final long cost = cost(node.entry.key);
+      if(node.prot) protUsed -= cost;
+      used -= cost;
+      size--;
+    }
+
+    /**
+     * Resizes the hash table.
+     */
+    private void rehash() {
+      final Node[] tmp = new Node[buckets.length << 1];
+      for(final Node bucket : buckets) {
+        for(Node node = bucket; node != null;) {
+          final Node next = node.chain;
+          final int b = node.hash & tmp.length - 1;
+          node.chain = tmp[b];
+          tmp[b] = node;
+          node = next;
+        }
+      }
+      buckets = tmp;
+    }
+
+    /**
+     * Adds a node to the head of its queue.
+     * @param node node
+     */
+    private void link(final Node node) {
+      final Node head = node.prot ? protHead : probHead;
+      node.prev = null;
+      node.next = head;
+      if(head != null) head.prev = node;
+      if(node.prot) {
+        protHead = node;
+        if(protTail == null) protTail = node;
+      } else {
+        probHead = node;
+        if(probTail == null) probTail = node;
+      }
+    }
+
+    /**
+     * Removes a node from its queue.
+     * @param node node
+     */
+    private void unlink(final Node node) {
+      final Node p = node.prev, n = node.next;
+      if(p != null) p.next = n;
+      else if(node.prot) protHead = n;
+      else probHead = n;
+      if(n != null) n.prev = p;
+      else if(node.prot) protTail = p;
+      else probTail = p;
+      node.prev = null;
+      node.next = null;
+    }
   }
 
   /**
-   * Cache buckets entry. Used to implement a linked list of cache entries for
-   * each buckets. It also stores the hash of the current entry for better
-   * performance.
+   * Cached entry, which is linked in a hash bucket and in a queue.
    */
-  private static class BucketEntry extends SoftReference<IndexEntry> {
-    /** Hash code of the stored cache entry key. */
-    final int hash;
-    /** Next buckets entry or {@code null} if the last one for this buckets. */
-    BucketEntry next;
+  private static final class Node {
+    /** Cache id. */
+    private final long id;
+    /** Hash code of the key. */
+    private final int hash;
+    /** Index entry. */
+    private final IndexEntry entry;
+    /** Next node in the hash bucket. */
+    private Node chain;
+    /** Previous and next node in the queue. */
+    private Node prev, next;
+    /** Flag for protected entries. */
+    private boolean prot;
 
     /**
      * Constructor.
-     * @param h hash code of the cache entry key
-     * @param n next buckets entry or {@code null} if the last one
-     * @param v stored cache entry
-     * @param rq reference queue
+     * @param id cache id
+     * @param hash hash code of the key
+     * @param entry index entry
      */
-    BucketEntry(final int h, final BucketEntry n, final IndexEntry v,
-        final ReferenceQueue<IndexEntry> rq) {
-      super(v, rq);
-      hash = h;
-      next = n;
+    private Node(final long id, final int hash, final IndexEntry entry) {
+      this.id = id;
+      this.hash = hash;
+      this.entry = entry;
     }
   }
 }
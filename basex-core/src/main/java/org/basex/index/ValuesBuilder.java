@@ -16,9 +16,25 @@ public abstract class ValuesBuilder extends IndexBuilder {
    * Constructor.
    * @param data reference
    * @param type index type
+   * @param budget main memory budget for the in-memory index structures (bytes)
    */
-  protected ValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
+  protected ValuesBuilder(final Data data, final IndexType type, final long budget) {
+    super(data, type, budget);
+    tokenize = type == IndexType.TOKEN;
+  }
+
+  /**
+   * Constructor for building the index structures of a partition.
+   * @param data reference
+   * @param type index type
+   * @param prefix prefix of partial index structures
+   * @param start first pre value
+   * @param end pre value after the last node
+   * @param budget main memory budget for the in-memory index structures (bytes)
+   */
+  protected ValuesBuilder(final Data data, final IndexType type, final String prefix,
+      final int start, final int end, final long budget) {
+    super(data, type, prefix, start, end, budget);
     tokenize = type == IndexType.TOKEN;
   }
 }
@@ -31,10 +31,25 @@ public final class FTBuilder extends IndexBuilder {
   /**
    * Constructor.
    * @param data data reference
+   * @param budget main memory budget for the in-memory index structures (bytes)
    * @throws IOException IOException
    */
-  public FTBuilder(final Data data) throws IOException {
-    super(data, IndexType.FULLTEXT);
+  public FTBuilder(final Data data, final long budget) throws IOException {
+    this(data, "", 0, data.meta.size, budget);
+  }
+
+  /**
+   * Constructor for building the index structures of a partition.
+   * @param data data reference
+   * @param prefix prefix of partial index structures
+   * @param start first pre value
+   * @param end pre value after the last node
+   * @param budget main memory budget for the in-memory index structures (bytes)
+   * @throws IOException IOException
+   */
+  private FTBuilder(final Data data, final String prefix, final int start, final int end,
+      final long budget) throws IOException {
+    super(data, IndexType.FULLTEXT, prefix, start, end, budget);
     final MetaData meta = data.meta;
     tree = new FTIndexTrees(data.meta.maxlen);
 
@@ -58,33 +73,16 @@ public final class FTBuilder extends IndexBuilder {
     Util.debug(detailedInfo());
 
     try {
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(!indexEntry()) continue;
-
-        // current lexer position
-        final StopWords sw = lexer.ftOpt().sw;
-        lexer.init(data.text(pre, true));
-        int pos = -1;
-        while(lexer.hasNext()) {
-          final byte[] tok = lexer.nextToken();
-          ++pos;
-          // skip too long and stopword tokens
-          if(tok.length <= data.meta.maxlen && !sw.contains(tok)) {
-            // check if main memory is exhausted
-            if((ntok++ & 0xFFFF) == 0 && splitRequired()) {
-              writeIndex(true);
-              clean();
-            }
-            tree.index(tok, pre, pos, splits);
-            count++;
-          }
-        }
+      if(partitions()) {
+        merge();
+      } else {
+        index();
+        // finalize partial or all index structures
+        final boolean partial = splits > 0;
+        writeIndex(partial);
+        if(partial) merge();
       }
 
-      // finalize partial or all index structures
-      write(splits > 0);
-
       finishIndex();
       return new FTIndex(data);
 
@@ -95,16 +93,55 @@ public final class FTBuilder extends IndexBuilder {
     }
   }
 
+  @Override
+  protected FTBuilder partition(final String name, final int first, final int last,
+      final long memory) throws IOException {
+    return new FTBuilder(data, name, first, last, memory);
+  }
+
+  @Override
+  protected void buildPartition() throws IOException {
+    index();
+    writeIndex(true);
+  }
+
   /**
-   * Writes the index data to disk.
-   * @param partial write partial index
+   * Indexes all nodes of the assigned pre range.
    * @throws IOException I/O exception
    */
-  private void write(final boolean partial) throws IOException {
-    writeIndex(partial);
-    if(!partial) return;
+  private void index() throws IOException {
+    for(pre = start; pre < size; ++pre) {
+      if((pre & 0x0FFF) == 0) check();
+      if(!indexEntry()) continue;
+
+      // current lexer position
+      final StopWords sw = lexer.ftOpt().sw;
+      lexer.init(data.text(pre, true));
+      int pos = -1;
+      while(lexer.hasNext()) {
+        final byte[] tok = lexer.nextToken();
+        ++pos;
+        // skip too long and stopword tokens
+        if(tok.length <= data.meta.maxlen && !sw.contains(tok)) {
+          // check if the memory budget is exceeded
+          if((ntok++ & 0x0FFF) == 0 && splitRequired(tree.memory())) {
+            writeIndex(true);
+            // the token trees are kept: stop if they exceed the budget
+            checkSplit(tree.memory());
+          }
+          tree.index(tok, pre, pos, splits);
+          count++;
+        }
+      }
+    }
+  }
 
-    // merges temporary index files
+  /**
+   * Merges the partial index structures.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
+    final long time = System.nanoTime();
     try(DataOutput outX = new DataOutput(data.meta.dbFile(DATAFTX + 'x'));
         DataOutput outY = new DataOutput(data.meta.dbFile(DATAFTX + 'y'));
         DataOutput outZ = new DataOutput(data.meta.dbFile(DATAFTX + 'z'))) {
@@ -113,7 +150,7 @@ public final class FTBuilder extends IndexBuilder {
 
       // open all temporary sorted lists
       final FTList[] v = new FTList[splits];
-      for(int b = 0; b < splits; ++b) v[b] = new FTList(data, b);
+      for(int b = 0; b < splits; ++b) v[b] = new FTList(data, partials.get(b));
 
       final IntList il = new IntList();
       while(check(v)) {
@@ -146,8 +183,10 @@ public final class FTBuilder extends IndexBuilder {
         // merge and write data size
         outY.write4(merge(outZ, il, v));
       }
-      writeInd(outX, ind, ind.get(ind.size() - 2) + 1, (int) outY.size());
+      writeInd(outX, ind, ind.isEmpty() ? 1 : ind.get(ind.size() - 2) + 1, (int) outY.size());
+      written += outX.size() + outY.size() + outZ.size();
     }
+    merging = System.nanoTime() - time;
   }
 
   /**
@@ -177,7 +216,7 @@ public final class FTBuilder extends IndexBuilder {
    * @throws IOException I/O exception
    */
   private void writeIndex(final boolean partial) throws IOException {
-    final String name = DATAFTX + (partial ? splits : "");
+    final String name = DATAFTX + (partial ? partial() : "");
     try(DataOutput outX = new DataOutput(data.meta.dbFile(name + 'x'));
         DataOutput outY = new DataOutput(data.meta.dbFile(name + 'y'));
         DataOutput outZ = new DataOutput(data.meta.dbFile(name + 'z'))) {
@@ -209,6 +248,7 @@ public final class FTBuilder extends IndexBuilder {
         tr = (int) outY.size();
       }
       writeInd(outX, ind, ++j, tr);
+      written += outX.size() + outY.size() + outZ.size();
     }
     tree.initFT();
 
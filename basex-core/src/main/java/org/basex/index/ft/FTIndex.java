@@ -94,7 +94,7 @@ public final class FTIndex extends ValueIndex {
   }
 
   @Override
-  public synchronized IndexCosts costs(final IndexSearch search) {
+  public IndexCosts costs(final IndexSearch search) {
     final byte[] token = search.token();
     if(token.length > data.meta.maxlen) return null;
 
@@ -105,7 +105,7 @@ public final class FTIndex extends ValueIndex {
   }
 
   @Override
-  public synchronized IndexIterator iter(final IndexSearch search) {
+  public IndexIterator iter(final IndexSearch search) {
     // current search token
     final FTLexer lexer = (FTLexer) search;
     final FTOpt opt = lexer.ftOpt();
@@ -115,18 +115,24 @@ public final class FTIndex extends ValueIndex {
     if(opt.is(WC)) {
       final FTWildcard wc = new FTWildcard(token);
       if(!wc.valid()) return FTIndexIterator.FTEMPTY;
-      if(!wc.simple()) return wildcards(wc, opt.is(DC), token);
+      if(!wc.simple()) {
+        synchronized(this) {
+          return wildcards(wc, opt.is(DC), token);
+        }
+      }
     }
 
     // fuzzy search
     if(opt.is(FZ)) {
-      return fuzzy(token, lexer.lserror(token));
+      synchronized(this) {
+        return fuzzy(token, lexer.lserror(token));
+      }
     }
 
-    // return cached or new result
+    // return cached or new result (can be run in parallel)
     final IndexEntry entry = entry(token);
     if(entry.size > 0) {
-      return iter(entry.offset, entry.size, dataZ, token);
+      return iter(entry.offset, entry.size, dataZ.reader(), token);
     }
 
     // no results
@@ -135,6 +141,7 @@ public final class FTIndex extends ValueIndex {
 
   /**
    * Returns a cached index entry.
+   * <p><em>Important:</em> This method is thread-safe.</p>
    * @param token token to be found or cached
    * @return cache entry
    */
@@ -253,6 +260,7 @@ public final class FTIndex extends ValueIndex {
 
   @Override
   public synchronized void close() {
+    cache.close();
     dataX.close();
     dataY.close();
     dataZ.close();
@@ -288,15 +296,16 @@ public final class FTIndex extends ValueIndex {
     final int x = e;
 
     // binary search
+    final DataReader dr = dataY.reader();
     final int o = tl + ENTRY;
     while(s < e) {
-      final int m = s + (e - s >> 1) / o * o, d = diff(dataY.readBytes(m, tl), token);
+      final int m = s + (e - s >> 1) / o * o, d = diff(dr.readBytes(m, tl), token);
       if(d == 0) return m;
       if(d < 0) s = m + o;
       else e = m - o;
     }
     // accept entry if pointer is inside relevant tokens
-    return e != x && s == e && eq(dataY.readBytes(s, tl), token) ? s : -1;
+    return e != x && s == e && eq(dr.readBytes(s, tl), token) ? s : -1;
   }
 
   /**
@@ -329,7 +338,7 @@ public final class FTIndex extends ValueIndex {
    * @return int pointer on ftdata
    */
   private long pointer(final long pt, final int lt) {
-    return dataY.read5(pt + lt);
+    return dataY.reader().read5(pt + lt);
   }
 
   /**
@@ -339,7 +348,7 @@ public final class FTIndex extends ValueIndex {
    * @return size of the ftdata
    */
   private int size(final long pt, final int lt) {
-    return dataY.read4(pt + lt + 5);
+    return dataY.reader().read4(pt + lt + 5);
   }
 
   /**
@@ -359,7 +368,8 @@ public final class FTIndex extends ValueIndex {
       while(t < pl && r == -1) r = positions[t++];
       while(p < r) {
         if(ls.similar(dataY.readBytes(p, s), token, k)) {
-          iter = FTIndexIterator.union(iter(pointer(p, s), size(p, s), dataZ, token), iter);
+          iter = FTIndexIterator.union(
+              iter(pointer(p, s), size(p, s), dataZ.reader(), token), iter);
         }
         p += s + ENTRY;
       }
@@ -406,17 +416,17 @@ public final class FTIndex extends ValueIndex {
    * Returns an iterator for an index entry.
    * @param off offset on entries
    * @param size number of id/pos entries
-   * @param da data source
+   * @param dr data reader
    * @param token index token
    * @return iterator
    */
-  private static FTIndexIterator iter(final long off, final int size, final DataAccess da,
+  private static FTIndexIterator iter(final long off, final int size, final DataReader dr,
       final byte[] token) {
-    da.cursor(off);
+    dr.cursor(off);
     final IntList pr = new IntList(size), ps = new IntList(size);
     for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+      pr.add(dr.readNum());
+      ps.add(dr.readNum());
     }
     return iter(new FTCache(pr, ps), token);
   }
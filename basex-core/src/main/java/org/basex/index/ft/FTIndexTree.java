@@ -45,14 +45,19 @@ final class FTIndexTree extends IndexTree {
     final int n = add(token, id, 0, index == 0);
     if(os == keys.size()) {
       final int i = index > 0 ? maps.get(Num.num(n)) : n;
-      if(poss.size() > i && poss.get(i) != null) {
-        poss.set(i, Num.add(poss.get(i), pos));
+      final byte[] old = poss.size() > i ? poss.get(i) : null;
+      if(old != null) {
+        final byte[] vs = Num.add(old, pos);
+        poss.set(i, vs);
         numpre.set(i, numpre.get(i) + 1);
+        idMemory += vs.length - old.length;
         return;
       }
     }
-    poss.add(Num.newNum(pos));
+    final byte[] vs = Num.newNum(pos);
+    poss.add(vs);
     numpre.add(1);
+    idMemory += NODE + vs.length;
   }
 
   /**
@@ -63,6 +68,7 @@ final class FTIndexTree extends IndexTree {
     ids = new TokenList(FACTOR);
     numpre = new IntList(FACTOR);
     maps = new TokenIntMap();
+    idMemory = 0;
   }
 
   /**
@@ -57,7 +57,7 @@ final class FTList {
    * @param prefix prefix
    * @throws IOException I/O exception
    */
-  FTList(final Data data, final int prefix) throws IOException {
+  FTList(final Data data, final String prefix) throws IOException {
     files = data.meta.dbFile(DATAFTX + prefix + 'y');
     filed = data.meta.dbFile(DATAFTX + prefix + 'z');
     str = new DataAccess(files);
@@ -0,0 +1,214 @@
+package org.basex.index.path;
+
+import static org.basex.util.Token.*;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.index.stats.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class contains decoded values of numeric texts or attribute values. A column is created
+ * for the texts of all elements with the same name, or for all attributes with the same name.
+ * The values of all paths are included whose statistics indicate that they are numeric.
+ * Pre values and decoded values are stored in packed arrays, which are sorted by pre values.
+ * The structure is built in main memory and needs to be discarded if the database is updated.
+ * No values are stored if the estimated size of all columns of a database exceeds the
+ * configured limit.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericColumns {
+  /** Estimated number of bytes per entry. */
+  private static final int ENTRY = 20;
+  /** Maximum size of the columns of a database (bytes). */
+  private static volatile long limit = (long) StaticOptions.NUMCOLUMNSMAX.value() << 20;
+
+  /** Pre values (sorted). */
+  private final int[] pres;
+  /** Double values. */
+  private final double[] doubles;
+  /** Integer values ({@link Long#MIN_VALUE}: no integer). */
+  private final long[] longs;
+  /** Number of entries. */
+  private final int size;
+  /**
+   * Position of the last lookup (speeds up lookups in document order). The field is shared by
+   * all threads and accessed without synchronization. Races are harmless: integer writes are
+   * atomic, only valid positions are assigned, and the entry at the position is compared with
+   * the requested pre value before it is returned.
+   */
+  private int last;
+
+  /**
+   * Constructor.
+   * @param pres pre values
+   * @param doubles double values
+   * @param longs integer values
+   */
+  private NumericColumns(final IntList pres, final DoubleList doubles, final LongList longs) {
+    this.pres = pres.finish();
+    this.doubles = doubles.finish();
+    this.longs = longs.finish();
+    size = this.pres.length;
+  }
+
+  /**
+   * Sets the maximum size of the columns of a database.
+   * @param size size in bytes
+   */
+  public static void limit(final long size) {
+    limit = size;
+  }
+
+  /**
+   * Creates the numeric column for the texts of the elements or the attributes with the
+   * specified name. Only the subtrees with numeric paths of this name will be traversed.
+   * @param data data reference
+   * @param kind node kind ({@link Data#TEXT} or {@link Data#ATTR})
+   * @param name name id of the elements or attributes
+   * @param used number of entries of the columns that have already been created
+   * @return column (empty if the estimated size of all columns exceeds the limit)
+   */
+  public static NumericColumns create(final Data data, final int kind, final int name,
+      final long used) {
+    final IntList pres = new IntList();
+    final DoubleList doubles = new DoubleList();
+    final LongList longs = new LongList();
+
+    final PathNode root = data.paths.root().get(0);
+    final HashSet<PathNode> numeric = new HashSet<>();
+    numeric(root, kind, name, numeric);
+
+    // estimate size of the columns
+    long entries = used;
+    for(final PathNode node : numeric) {
+      if(node.kind == kind) entries += node.stats.count;
+    }
+    if(entries * ENTRY > limit) return new NumericColumns(pres, doubles, longs);
+
+    // traverse all nodes, skip subtrees without numeric paths
+    final IntList pars = new IntList();
+    final ArrayList<PathNode> nodes = new ArrayList<>();
+    final int size = data.meta.size;
+    for(int pre = 0; pre < size; pre++) {
+      final int k = data.kind(pre), par = data.parent(pre, k);
+      while(!pars.isEmpty() && pars.peek() > par) {
+        pars.pop();
+        nodes.remove(nodes.size() - 1);
+      }
+
+      final PathNode parent = nodes.isEmpty() ? null : nodes.get(nodes.size() - 1);
+      if(k == Data.DOC || k == Data.ELEM) {
+        final PathNode node = k == Data.DOC ? root : child(parent, Data.ELEM, data.nameId(pre));
+        if(node == null || !numeric.contains(node)) {
+          pre += data.size(pre, k) - 1;
+        } else {
+          pars.push(pre);
+          nodes.add(node);
+        }
+      } else if(k == kind) {
+        final PathNode node = child(parent, k, k == Data.ATTR ? data.nameId(pre) : 0);
+        if(node != null && numeric.contains(node)) {
+          final byte[] value = data.text(pre, kind == Data.TEXT);
+          final double d = toDouble(value);
+          if(!Double.isNaN(d)) {
+            pres.add(pre);
+            doubles.add(d);
+            longs.add(StatsType.isInteger(node.stats.type) ? toLong(value) : Long.MIN_VALUE);
+          }
+        }
+      }
+    }
+    return new NumericColumns(pres, doubles, longs);
+  }
+
+  /**
+   * Returns the double value of the specified node.
+   * @param pre pre value
+   * @return value, or {@link Double#NaN} if no value is available
+   */
+  public double dbl(final int pre) {
+    final int i = find(pre);
+    return i < 0 ? Double.NaN : doubles[i];
+  }
+
+  /**
+   * Returns the integer value of the specified node.
+   * @param pre pre value
+   * @return value, or {@link Long#MIN_VALUE} if no value is available
+   */
+  public long itr(final int pre) {
+    final int i = find(pre);
+    return i < 0 ? Long.MIN_VALUE : longs[i];
+  }
+
+  /**
+   * Returns the number of entries.
+   * @return number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the position of the specified pre value.
+   * @param pre pre value
+   * @return position, or negative value if the pre value is not found
+   */
+  private int find(final int pre) {
+    // check position of last lookup and the subsequent position
+    int i = last;
+    if(i >= size || pres[i] != pre) {
+      i++;
+      if(i >= size || pres[i] != pre) {
+        i = Arrays.binarySearch(pres, 0, size, pre);
+        if(i < 0) return -1;
+      }
+    }
+    last = i;
+    return i;
+  }
+
+  /**
+   * Returns the child of a path node.
+   * @param node path node (can be {@code null})
+   * @param kind node kind
+   * @param name name id
+   * @return child or {@code null}
+   */
+  private static PathNode child(final PathNode node, final int kind, final int name) {
+    if(node != null) {
+      for(final PathNode child : node.children) {
+        if(child.kind == kind && child.name == name) return child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Collects all numeric path nodes with the specified name and their ancestors.
+   * @param node current node
+   * @param kind node kind ({@link Data#TEXT} or {@link Data#ATTR})
+   * @param name name id of the elements or attributes
+   * @param numeric path nodes with numeric descendants
+   * @return {@code true} if the node is numeric or has numeric descendants
+   */
+  private static boolean numeric(final PathNode node, final int kind, final int name,
+      final HashSet<PathNode> numeric) {
+    boolean found = node.kind == kind && StatsType.isNumeric(node.stats.type) &&
+        (kind == Data.ATTR ? node : node.parent).name == name;
+    for(final PathNode child : node.children) found |= numeric(child, kind, name, numeric);
+    if(found) numeric.add(node);
+    return found;
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + '[' + size + " entries]";
+  }
+}
@@ -12,6 +12,7 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.io.*;
 import org.basex.io.random.*;
 import org.basex.query.util.index.*;
 import org.basex.util.*;
@@ -22,6 +23,9 @@ import org.basex.util.list.*;
  * This class provides access to attribute values and text contents stored on disk.
  * The data structure is described in the {@link DiskValuesBuilder} class.
  *
+ * Read operations are performed via thread-local {@link DataReader} instances and can be run
+ * in parallel.
+ *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  */
@@ -36,9 +40,10 @@ public class DiskValues extends ValueIndex {
   final IntObjMap<byte[]> ctext = new IntObjMap<>();
   /** Number of current index entries. */
   final AtomicInteger size = new AtomicInteger();
-
-  /** Synchronization object. */
-  private final Object monitor = new Object();
+  /** File with the key directory. */
+  private final IOFile keys;
+  /** Key directory (lazily initialized). */
+  private volatile KeyDirectory directory;
 
   /**
    * Constructor, initializing the index structure.
@@ -62,6 +67,7 @@ public class DiskValues extends ValueIndex {
     super(data, type);
     idxl = new DataAccess(data.meta.dbFile(pref + 'l'));
     idxr = new DataAccess(data.meta.dbFile(pref + 'r'));
+    keys = data.meta.dbFile(pref + 'k');
     size.set(idxl.read4());
   }
 
@@ -72,15 +78,14 @@ public class DiskValues extends ValueIndex {
     tb.add(LI_NAMES).add(data.meta.names(type)).add(NL);
 
     final IndexStats stats = new IndexStats(options.get(MainOptions.MAXSTAT));
-    synchronized(monitor) {
-      final long l = idxl.length() + idxr.length();
-      tb.add(LI_SIZE).add(Performance.format(l)).add(NL);
-      final int entries = size();
-      for(int index = 0; index < entries; index++) {
-        final long pos = idxr.read5(index * 5L);
-        final int count = idxl.readNum(pos);
-        if(stats.adding(count)) stats.add(key(idxl.readNum()), count);
-      }
+    final long l = idxl.length() + idxr.length();
+    tb.add(LI_SIZE).add(Performance.format(l)).add(NL);
+    final DataReader rl = idxl.reader(), rr = idxr.reader();
+    final int entries = size();
+    for(int index = 0; index < entries; index++) {
+      final long pos = rr.read5(index * 5L);
+      final int count = rl.readNum(pos);
+      if(stats.adding(count)) stats.add(key(rl.readNum(), rl), count);
     }
     stats.print(tb);
     return tb.finish();
@@ -130,10 +135,10 @@ public class DiskValues extends ValueIndex {
 
   @Override
   public final void close() {
-    synchronized(monitor) {
-      idxl.close();
-      idxr.close();
-    }
+    writeDirectory();
+    cache.close();
+    idxl.close();
+    idxr.close();
   }
 
   @Override
@@ -158,6 +163,7 @@ public class DiskValues extends ValueIndex {
   public final void flush() {
     idxl.flush();
     idxr.flush();
+    writeDirectory();
   }
 
   /**
@@ -170,13 +176,17 @@ public class DiskValues extends ValueIndex {
   }
 
   /**
-   * Binary search for key in the {@code idxr} reference file.
+   * Searches for a key. The page of the key is located via the key directory, and a binary
+   * search in the {@code idxr} reference file is performed for the entries of this page.
    * <p><em>Important:</em> This method is thread-safe.</p>
    * @param key token to be found
    * @return index of the key, or (-(insertion point) - 1)
    */
   protected final int get(final byte[] key) {
-    return get(key, 0, size());
+    final KeyDirectory dir = directory();
+    final int s = dir.find(key), ds = dir.size();
+    if(s >= 0 && eq(dir.key(s), key)) return dir.index(s);
+    return get(key, s >= 0 ? dir.index(s) + 1 : 0, s + 1 < ds ? dir.index(s + 1) : size());
   }
 
   /**
@@ -189,21 +199,71 @@ public class DiskValues extends ValueIndex {
    */
   protected final int get(final byte[] key, final int first, final int last) {
     int l = first, h = last - 1;
-    synchronized(monitor) {
-      while(l <= h) {
-        final int m = l + h >>> 1;
-        final byte[] txt = indexEntry(m).key;
-        final int d = diff(txt, key);
-        if(d == 0) return m;
-        if(d < 0) l = m + 1;
-        else h = m - 1;
-      }
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      final byte[] txt = indexEntry(m).key;
+      final int d = diff(txt, key);
+      if(d == 0) return m;
+      if(d < 0) l = m + 1;
+      else h = m - 1;
     }
     return -(l + 1);
   }
 
+  /**
+   * Returns the key directory. If no up-to-date directory exists on disk, it will be created.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @return directory
+   */
+  final KeyDirectory directory() {
+    KeyDirectory dir = directory;
+    if(dir == null) {
+      synchronized(keys) {
+        dir = directory;
+        if(dir == null) {
+          final int entries = size();
+          dir = KeyDirectory.read(keys, stamp());
+          if(dir == null) {
+            dir = new KeyDirectory();
+            final DataReader rl = idxl.reader(), rr = idxr.reader();
+            for(int index = 0; index < entries; index += KeyDirectory.PAGE) {
+              rl.readNum(rr.read5(index * 5L));
+              dir.add(key(rl.readNum(), rl), index);
+            }
+            // write rebuilt directory when the index is flushed
+            dir.modify();
+          }
+          directory = dir;
+        }
+      }
+    }
+    return dir;
+  }
+
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Returns the stamp of the index.
+   * @return stamp
+   */
+  private long[] stamp() {
+    return KeyDirectory.stamp(data, size(), idxl.length(), idxr.length());
+  }
+
+  /**
+   * Writes the key directory to disk if it has been modified.
+   */
+  private void writeDirectory() {
+    final KeyDirectory dir = directory;
+    if(dir != null && dir.modified()) {
+      try {
+        dir.write(keys, stamp());
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+    }
+  }
+
   /**
    * Returns an index entry.
    * <p><em>Important:</em> This method is thread-safe.</p>
@@ -217,17 +277,11 @@ public class DiskValues extends ValueIndex {
     final long index = get(token);
     if(index < 0) return new IndexEntry(token, 0, 0);
 
-    final int count;
-    final long offset;
-
-    synchronized(monitor) {
-      // get position in heap file
-      final long pos = idxr.read5(index * 5L);
-      count = idxl.readNum(pos);
-      offset = idxl.cursor();
-    }
-
-    return cache.add(token, count, offset);
+    // get position in heap file
+    final DataReader rl = idxl.reader();
+    final long pos = idxr.reader().read5(index * 5L);
+    final int count = rl.readNum(pos);
+    return cache.add(token, count, rl.cursor());
   }
 
   /**
@@ -268,12 +322,10 @@ public class DiskValues extends ValueIndex {
       @Override
       public byte[] next() {
         if(++ix < s) {
-          synchronized(monitor) {
-            final IndexEntry entry = indexEntry(ix);
-            if(startsWith(entry.key, prefix)) {
-              count = entry.size;
-              return entry.key;
-            }
+          final IndexEntry entry = indexEntry(ix);
+          if(startsWith(entry.key, prefix)) {
+            count = entry.size;
+            return entry.key;
           }
         }
         count = -1;
@@ -301,11 +353,9 @@ public class DiskValues extends ValueIndex {
       @Override
       public byte[] next() {
         if(++ix <= last) {
-          synchronized(monitor) {
-            final IndexEntry entry = indexEntry(ix);
-            count = entry.size;
-            return entry.key;
-          }
+          final IndexEntry entry = indexEntry(ix);
+          count = entry.size;
+          return entry.key;
         }
         count = -1;
         return null;
@@ -332,11 +382,9 @@ public class DiskValues extends ValueIndex {
       @Override
       public byte[] next() {
         if(--ix >= first) {
-          synchronized(monitor) {
-            final IndexEntry entry = indexEntry(ix);
-            count = entry.size;
-            return entry.key;
-          }
+          final IndexEntry entry = indexEntry(ix);
+          count = entry.size;
+          return entry.key;
         }
         count = -1;
         return null;
@@ -351,24 +399,30 @@ public class DiskValues extends ValueIndex {
 
   /**
    * Read a key at the given position.
-   * <p><em>Important:</em> This method is NOT thread-safe, since it is used in loops.</p>
+   * <p><em>Important:</em> This method is thread-safe.</p>
    * @param index key position
    * @return index entry
    */
   private IndexEntry indexEntry(final int index) {
     // try the cache first
-    byte[] key = ctext.get(index);
+    byte[] key;
+    synchronized(ctext) {
+      key = ctext.get(index);
+    }
     if(key != null) {
       final IndexEntry entry = cache.get(key);
       if(entry != null) return entry;
     }
 
     // read text and cache result
-    final long pos = idxr.read5(index * 5L);
-    final int count = idxl.readNum(pos);
+    final DataReader rl = idxl.reader();
+    final long pos = idxr.reader().read5(index * 5L);
+    final int count = rl.readNum(pos);
     if(key == null) {
-      key = key(idxl.readNum());
-      ctext.put(index, key);
+      key = key(rl.readNum(), rl);
+      synchronized(ctext) {
+        ctext.put(index, key);
+      }
     }
     return cache.add(key, count, pos + Num.length(count));
   }
@@ -382,14 +436,13 @@ public class DiskValues extends ValueIndex {
    */
   protected IntList pres(final int sz, final long offset) {
     final IntList pres = new IntList(sz);
-    synchronized(monitor) {
-      idxl.cursor(offset);
-      for(int i = 0, id = 0; i < sz; i++) {
-        id += idxl.readNum();
-        // token index: skip position
-        if(type == IndexType.TOKEN) idxl.readNum();
-        pres.add(pre(id));
-      }
+    final DataReader rl = idxl.reader();
+    rl.cursor(offset);
+    for(int i = 0, id = 0; i < sz; i++) {
+      id += rl.readNum();
+      // token index: skip position
+      if(type == IndexType.TOKEN) rl.readNum();
+      pres.add(pre(id));
     }
     return pres;
   }
@@ -403,20 +456,19 @@ public class DiskValues extends ValueIndex {
   private IntList idRange(final StringRange tok) {
     // check if min and max are positive integers with the same number of digits
     final IntList pres = new IntList();
-    synchronized(monitor) {
-      final int i = get(tok.min);
-      final int entries = size();
-      for(int index = i < 0 ? -i - 1 : tok.mni ? i : i + 1; index < entries; index++) {
-        final int count = idxl.readNum(idxr.read5(index * 5L));
-        int id = idxl.readNum();
-        // skip traversal if value is too large
-        final int diff = diff(key(id), tok.max);
-        if(diff > 0 || !tok.mxi && diff == 0) break;
-        // add pre values
-        for(int c = 0; c < count; c++) {
-          pres.add(pre(id));
-          id += idxl.readNum();
-        }
+    final DataReader rl = idxl.reader(), rr = idxr.reader();
+    final int i = get(tok.min);
+    final int entries = size();
+    for(int index = i < 0 ? -i - 1 : tok.mni ? i : i + 1; index < entries; index++) {
+      final int count = rl.readNum(rr.read5(index * 5L));
+      int id = rl.readNum();
+      // skip traversal if value is too large
+      final int diff = diff(key(id, rl), tok.max);
+      if(diff > 0 || !tok.mxi && diff == 0) break;
+      // add pre values
+      for(int c = 0; c < count; c++) {
+        pres.add(pre(id));
+        id += rl.readNum();
       }
     }
     return pres.sort();
@@ -435,27 +487,26 @@ public class DiskValues extends ValueIndex {
     final boolean simple = len != 0 && min > 0 && (long) min == min && token(min).length == len;
 
     final IntList pres = new IntList();
-    synchronized(monitor) {
-      final int entries = size();
-      final boolean text = type == IndexType.TEXT;
-      for(int index = 0; index < entries; ++index) {
-        final int count = idxl.readNum(idxr.read5(index * 5L));
-        int id = idxl.readNum();
-        final int pre = pre(id);
-
-        final double v = data.textDbl(pre, text);
-        if(v >= min && v <= max) {
-          // value is in range
-          for(int c = 0; c < count; c++) {
-            pres.add(pre(id));
-            id += idxl.readNum();
-          }
-        } else if(simple && v > max && data.textLen(pre, text) == len) {
-          // if limits are integers, if min, max and current value have the same
-          // string length, and if current value is larger than max, test can be
-          // skipped, as all remaining values will be bigger
-          break;
+    final DataReader rl = idxl.reader(), rr = idxr.reader();
+    final int entries = size();
+    final boolean text = type == IndexType.TEXT;
+    for(int index = 0; index < entries; ++index) {
+      final int count = rl.readNum(rr.read5(index * 5L));
+      int id = rl.readNum();
+      final int pre = pre(id);
+
+      final double v = data.textDbl(pre, text);
+      if(v >= min && v <= max) {
+        // value is in range
+        for(int c = 0; c < count; c++) {
+          pres.add(pre(id));
+          id += rl.readNum();
         }
+      } else if(simple && v > max && data.textLen(pre, text) == len) {
+        // if limits are integers, if min, max and current value have the same
+        // string length, and if current value is larger than max, test can be
+        // skipped, as all remaining values will be bigger
+        break;
       }
     }
     return pres.sort();
@@ -464,11 +515,12 @@ public class DiskValues extends ValueIndex {
   /**
    * Returns the specified key, considering tokenization.
    * @param id id of key
+   * @param rl reader for the id lists (token index: positioned before the token offset)
    * @return key token
    */
-  private byte[] key(final int id) {
+  private byte[] key(final int id, final DataReader rl) {
     final byte[] text = data.text(pre(id), type == IndexType.TEXT);
-    return type == IndexType.TOKEN ? distinctTokens(text)[idxl.readNum()] : text;
+    return type == IndexType.TOKEN ? distinctTokens(text)[rl.readNum()] : text;
   }
 
   /**
@@ -480,20 +532,21 @@ public class DiskValues extends ValueIndex {
   public final String toString(final boolean all) {
     final TokenBuilder tb = new TokenBuilder();
     tb.add(type).add(" INDEX, '").add(data.meta.name).add("':\n");
+    final DataReader rl = idxl.reader(), rr = idxr.reader();
     final int entries = size();
     for(int index = 0; index < entries; index++) {
-      final long pos = idxr.read5(index * 5L);
-      final int count = idxl.readNum(pos);
-      int id = idxl.readNum();
+      final long pos = rr.read5(index * 5L);
+      final int count = rl.readNum(pos);
+      int id = rl.readNum();
       tb.add("  ").addInt(index).add(". offset: ").addLong(pos);
       if(all) {
-        tb.add(", key: \"").add(key(id)).add('"');
+        tb.add(", key: \"").add(key(id, rl)).add('"');
         tb.add(", ids").add("/pres").add(": ").addInt(id).add('/').addInt(pre(id));
       } else {
         tb.add(", ids").add(": ").addInt(id);
       }
       for(int c = 1; c < count; c++) {
-        id += idxl.readNum();
+        id += rl.readNum();
         tb.add(",").addInt(id);
         if(all) tb.add('/').addInt(pre(id));
       }
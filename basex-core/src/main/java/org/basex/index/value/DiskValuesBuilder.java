@@ -26,6 +26,9 @@ import org.basex.util.list.*;
  *   structure. Instead, they can be found by following the id references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'k'}: contains the {@link KeyDirectory}, in which every
+ *   {@link KeyDirectory#PAGE}th key is stored along with its position in the reference file.
+ * </li>
  * </ul>
  *
  * @author BaseX Team 2005-20, BSD License
@@ -39,9 +42,25 @@ public final class DiskValuesBuilder extends ValuesBuilder {
    * Constructor.
    * @param data data reference
    * @param type index type
+   * @param budget main memory budget for the in-memory index structures (bytes)
+   */
+  public DiskValuesBuilder(final Data data, final IndexType type, final long budget) {
+    super(data, type, budget);
+    index = new IndexTree(type);
+  }
+
+  /**
+   * Constructor for building the index structures of a partition.
+   * @param data data reference
+   * @param type index type
+   * @param prefix prefix of partial index structures
+   * @param start first pre value
+   * @param end pre value after the last node
+   * @param budget main memory budget for the in-memory index structures (bytes)
    */
-  public DiskValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
+  private DiskValuesBuilder(final Data data, final IndexType type, final String prefix,
+      final int start, final int end, final long budget) {
+    super(data, type, prefix, start, end, budget);
     index = new IndexTree(type);
   }
 
@@ -50,33 +69,17 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     Util.debug(detailedInfo());
 
     try {
-      final boolean updindex = data.meta.updindex;
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(indexEntry()) {
-          final int id = updindex ? data.id(pre) : pre;
-          if(tokenize) {
-            int pos = 0;
-            for(final byte[] token : distinctTokens(data.text(pre, text))) {
-              index.add(token, id, pos++);
-              count++;
-            }
-          } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-            index.add(data.text(pre, text), id, 0);
-            count++;
-          }
-        }
+      if(!partitions()) {
+        index();
+        writeIndex(splits > 0);
       }
-
-      writeIndex(splits > 0);
       if(splits > 1) {
         index = null;
-        clean();
         merge();
       }
 
       finishIndex();
-      return updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
+      return data.meta.updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
 
     } catch(final Throwable th) {
       // drop index files
@@ -85,14 +88,49 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     }
   }
 
+  @Override
+  protected DiskValuesBuilder partition(final String name, final int first, final int last,
+      final long memory) {
+    return new DiskValuesBuilder(data, type, name, first, last, memory);
+  }
+
+  @Override
+  protected void buildPartition() throws IOException {
+    index();
+    writeIndex(true);
+  }
+
+  /**
+   * Indexes all nodes of the assigned pre range.
+   * @throws IOException I/O exception
+   */
+  private void index() throws IOException {
+    final boolean updindex = data.meta.updindex;
+    for(pre = start; pre < size; ++pre) {
+      if((pre & 0x0FFF) == 0) check();
+      if(indexEntry()) {
+        final int id = updindex ? data.id(pre) : pre;
+        if(tokenize) {
+          int pos = 0;
+          for(final byte[] token : distinctTokens(data.text(pre, text))) {
+            index.add(token, id, pos++);
+            count++;
+          }
+        } else if(data.textLen(pre, text) <= data.meta.maxlen) {
+          index.add(data.text(pre, text), id, 0);
+          count++;
+        }
+      }
+    }
+  }
+
   @Override
   protected void check() throws IOException {
     super.check();
     // check if main memory is exhausted
-    if(splitRequired()) {
+    if(splitRequired(index.memory())) {
       writeIndex(true);
       index = new IndexTree(type);
-      clean();
     }
   }
 
@@ -101,8 +139,10 @@ public final class DiskValuesBuilder extends ValuesBuilder {
    * @throws IOException I/O exception
    */
   private void merge() throws IOException {
+    final long time = System.nanoTime();
     final String f = DiskValues.fileSuffix(type);
     int entries = 0;
+    final KeyDirectory dir = new KeyDirectory();
     try(DataOutput outL = new DataOutput(data.meta.dbFile(f + 'l'));
         DataOutput outR = new DataOutput(data.meta.dbFile(f + 'r'))) {
       outL.write4(0);
@@ -111,7 +151,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
       final IntList ml = new IntList();
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
       final DiskValuesMerger[] vm = new DiskValuesMerger[splits];
-      for(int i = 0; i < splits; ++i) vm[i] = new DiskValuesMerger(data, type, i);
+      for(int i = 0; i < splits; ++i) vm[i] = new DiskValuesMerger(data, type, partials.get(i));
 
       // parse through all values
       while(true) {
@@ -135,6 +175,8 @@ public final class DiskValuesBuilder extends ValuesBuilder {
           ml.add(i);
         }
 
+        if(entries % KeyDirectory.PAGE == 0) dir.add(vm[min].key, entries);
+
         // parse through all values, cache and sort id values
         final int ms = ml.size();
         for(int m = 0; m < ms; ++m) {
@@ -154,12 +196,16 @@ public final class DiskValuesBuilder extends ValuesBuilder {
         write(outL, outR, id, pos);
         ++entries;
       }
+      written += outL.size() + outR.size();
     }
 
     // write number of entries to first position
     try(DataAccess da = new DataAccess(data.meta.dbFile(f + 'l'))) {
       da.write4(entries);
     }
+    dir.write(data.meta.dbFile(f + 'k'), KeyDirectory.stamp(data, entries,
+        data.meta.dbFile(f + 'l').length(), data.meta.dbFile(f + 'r').length()));
+    merging = System.nanoTime() - time;
   }
 
   /**
@@ -169,15 +215,17 @@ public final class DiskValuesBuilder extends ValuesBuilder {
    */
   private void writeIndex(final boolean partial) throws IOException {
     // write id arrays and references
-    final String name = DiskValues.fileSuffix(type) + (partial ? splits : "");
+    final String name = DiskValues.fileSuffix(type) + (partial ? partial() : "");
+    final KeyDirectory dir = new KeyDirectory();
     try(DataOutput outL = new DataOutput(data.meta.dbFile(name + 'l'));
         DataOutput outR = new DataOutput(data.meta.dbFile(name + 'r'))) {
       outL.write4(index.size());
 
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
       index.init();
-      while(index.more()) {
-        final byte[] values = index.ids.get(index.next());
+      for(int entries = 0; index.more(); entries++) {
+        final int next = index.next();
+        final byte[] values = index.ids.get(next);
         final int vs = Num.size(values);
 
         if(partial) {
@@ -185,6 +233,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
           outR.write5(outL.size());
           outL.write(values, 0, vs);
         } else {
+          if(entries % KeyDirectory.PAGE == 0) dir.add(index.keys.get(next), entries);
           // cache and sort all values
           for(int ip = 4; ip < vs; ip += Num.length(values, ip)) {
             id.add(Num.get(values, ip));
@@ -197,6 +246,12 @@ public final class DiskValuesBuilder extends ValuesBuilder {
           write(outL, outR, id, pos);
         }
       }
+      written += outL.size() + outR.size();
+    }
+
+    if(!partial) {
+      dir.write(data.meta.dbFile(name + 'k'), KeyDirectory.stamp(data, index.size(),
+          data.meta.dbFile(name + 'l').length(), data.meta.dbFile(name + 'r').length()));
     }
 
     // temporarily write texts
@@ -204,6 +259,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
       try(DataOutput outT = new DataOutput(data.meta.dbFile(name + 't'))) {
         index.init();
         while(index.more()) outT.writeToken(index.keys.get(index.next()));
+        written += outT.size();
       }
     }
     // increase split counter
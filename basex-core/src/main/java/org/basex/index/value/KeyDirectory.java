@@ -0,0 +1,239 @@
+package org.basex.index.value;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class contains the inner level of the sorted value index: the key of every
+ * {@link #PAGE}th index entry is stored in main memory, along with its position in the
+ * reference file. A lookup is answered by a binary search in main memory, followed by a
+ * binary search on disk that is restricted to the entries of a single page.
+ *
+ * The directory is stored in the {@code DATATXT/ATV/TOK + 'k'} file:
+ * [stamp, number of samples, (index, key)*]. The stamp consists of the number of index
+ * entries, the sizes of the index files and the timestamp of the database. If it does not
+ * match the current index, the directory is outdated and will be rebuilt.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class KeyDirectory {
+  /** Number of index entries per page. */
+  static final int PAGE = 64;
+
+  /** Positions of the sampled keys in the reference file. */
+  private IntList indexes;
+  /** Sampled keys. */
+  private TokenList keys;
+  /** Modification flag. */
+  private boolean modified;
+
+  /**
+   * Constructor.
+   */
+  KeyDirectory() {
+    this(new IntList(), new TokenList());
+  }
+
+  /**
+   * Constructor.
+   * @param indexes positions of the sampled keys
+   * @param keys sampled keys
+   */
+  private KeyDirectory(final IntList indexes, final TokenList keys) {
+    this.indexes = indexes;
+    this.keys = keys;
+  }
+
+  /**
+   * Returns a stamp for the specified index.
+   * @param data data reference
+   * @param entries number of index entries
+   * @param lists size of the lists file
+   * @param refs size of the references file
+   * @return stamp
+   */
+  static long[] stamp(final Data data, final int entries, final long lists, final long refs) {
+    return new long[] { entries, lists, refs, data.meta.time };
+  }
+
+  /**
+   * Reads a directory from disk.
+   * @param file file
+   * @param stamp stamp of the current index
+   * @return directory, or {@code null} if the file does not exist or if it is outdated
+   */
+  static KeyDirectory read(final IOFile file, final long[] stamp) {
+    if(!file.exists()) return null;
+    try(DataInput in = new DataInput(file)) {
+      final int sl = in.readNum();
+      if(sl != stamp.length || !Arrays.equals(in.readLongs(sl), stamp)) return null;
+      final int size = in.readNum();
+      final IntList indexes = new IntList(size);
+      final TokenList keys = new TokenList(size);
+      for(int s = 0; s < size; s++) {
+        indexes.add(in.readNum());
+        keys.add(in.readToken());
+      }
+      return new KeyDirectory(indexes, keys);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      return null;
+    }
+  }
+
+  /**
+   * Writes the directory to disk.
+   * @param file file
+   * @param stamp stamp of the current index
+   * @throws IOException I/O exception
+   */
+  void write(final IOFile file, final long[] stamp) throws IOException {
+    try(DataOutput out = new DataOutput(file)) {
+      out.writeLongs(stamp);
+      final int size = size();
+      out.writeNum(size);
+      for(int s = 0; s < size; s++) {
+        out.writeNum(indexes.get(s));
+        out.writeToken(keys.get(s));
+      }
+    }
+    modified = false;
+  }
+
+  /**
+   * Adds a sampled key. Keys must be added in ascending order.
+   * @param key key
+   * @param index position of the key in the reference file
+   */
+  void add(final byte[] key, final int index) {
+    indexes.add(index);
+    keys.add(key);
+  }
+
+  /**
+   * Returns the number of sampled keys.
+   * @return number of keys
+   */
+  int size() {
+    return keys.size();
+  }
+
+  /**
+   * Returns the reference file position of the specified sampled key.
+   * @param s offset of the sampled key
+   * @return position
+   */
+  int index(final int s) {
+    return indexes.get(s);
+  }
+
+  /**
+   * Returns the specified sampled key.
+   * @param s offset of the sampled key
+   * @return key
+   */
+  byte[] key(final int s) {
+    return keys.get(s);
+  }
+
+  /**
+   * Returns the offset of the largest sampled key that is smaller than or equal to the
+   * specified key.
+   * @param key key
+   * @return offset, or {@code -1} if all keys are greater
+   */
+  int find(final byte[] key) {
+    int l = 0, h = size() - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      final int d = diff(keys.get(m), key);
+      if(d == 0) return m;
+      if(d < 0) l = m + 1;
+      else h = m - 1;
+    }
+    return l - 1;
+  }
+
+  /**
+   * Updates the directory after new keys have been inserted.
+   * New keys are sampled if the preceding sampled key is at least one page away.
+   * @param newKeys inserted keys (sorted)
+   * @param newIndexes new positions of the inserted keys (sorted)
+   */
+  void insert(final TokenList newKeys, final IntList newIndexes) {
+    final int size = size(), ns = newKeys.size();
+    final IntList ixs = new IntList(size + ns / PAGE);
+    final TokenList ks = new TokenList(size + ns / PAGE);
+    for(int s = 0, n = 0, last = -PAGE; s < size || n < ns;) {
+      if(s == size || n < ns && diff(newKeys.get(n), keys.get(s)) < 0) {
+        // new key: sample it if the last sample is far enough away
+        final int index = newIndexes.get(n);
+        if(index - last >= PAGE) {
+          ixs.add(index);
+          ks.add(newKeys.get(n));
+          last = index;
+        }
+        n++;
+      } else {
+        // existing key: shift position by the number of smaller new keys
+        last = indexes.get(s) + n;
+        ixs.add(last);
+        ks.add(keys.get(s++));
+      }
+    }
+    indexes = ixs;
+    keys = ks;
+    modified = true;
+  }
+
+  /**
+   * Updates the directory after keys have been deleted.
+   * @param deleted positions of the deleted keys (sorted)
+   */
+  void delete(final IntList deleted) {
+    final int size = size(), ds = deleted.size();
+    final IntList ixs = new IntList(size);
+    final TokenList ks = new TokenList(size);
+    for(int s = 0, d = 0; s < size; s++) {
+      final int index = indexes.get(s);
+      while(d < ds && deleted.get(d) < index) d++;
+      // skip deleted keys, shift positions by the number of deleted smaller keys
+      if(d < ds && deleted.get(d) == index) continue;
+      ixs.add(index - d);
+      ks.add(keys.get(s));
+    }
+    indexes = ixs;
+    keys = ks;
+    modified = true;
+  }
+
+  /**
+   * Marks the directory as modified.
+   */
+  void modify() {
+    modified = true;
+  }
+
+  /**
+   * Indicates if the directory has been modified since it was written.
+   * @return result of check
+   */
+  boolean modified() {
+    return modified;
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + '[' + size() + " keys]";
+  }
+}
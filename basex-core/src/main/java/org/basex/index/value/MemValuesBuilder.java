@@ -21,7 +21,8 @@ public class MemValuesBuilder extends ValuesBuilder {
    * @param type index type
    */
   public MemValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
+    // main-memory structures will never be split
+    super(data, type, Long.MAX_VALUE);
   }
 
   @Override
@@ -36,6 +36,7 @@ public final class UpdatableDiskValues extends DiskValues {
   @Override
   public synchronized void add(final ValueCache values) {
     // create a sorted list of the new keys and update the old keys
+    final KeyDirectory dir = directory();
     final TokenList newKeys = new TokenList();
 
     // update id lists of keys (in ascending order; speeds up binary search)
@@ -71,6 +72,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
     // insert new keys in descending order
     final int ns = newKeys.size();
+    final int[] newIndexes = new int[ns];
     for(int j = ns - 1, oldIndex = sz - 1, newIndex = sz + j; j >= 0; --j) {
       final byte[] key = newKeys.get(j);
       final int idx = -(1 + get(key, 0, oldIndex + 1));
@@ -82,14 +84,17 @@ public final class UpdatableDiskValues extends DiskValues {
         writeIndex(newIndex--, off, ctext.put(oldIndex--, null));
       }
       // add the new key and its ids
+      newIndexes[j] = newIndex;
       writeIds(key, values.ids(key), values.pos(key), newIndex--);
     }
     size(sz + ns);
+    if(ns > 0) dir.insert(newKeys, new IntList(newIndexes));
   }
 
   @Override
   public synchronized void delete(final ValueCache values) {
     // create a list of the indexes of the keys which should be completely deleted
+    final KeyDirectory dir = directory();
     final IntList keys = new IntList();
     int p = 0;
     final int sz = size();
@@ -101,6 +106,7 @@ public final class UpdatableDiskValues extends DiskValues {
       p++;
     }
     deleteKeys(keys);
+    if(!keys.isEmpty()) dir.delete(keys);
   }
 
   @Override
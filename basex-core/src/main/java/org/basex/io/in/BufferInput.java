@@ -170,6 +170,14 @@ public class BufferInput extends InputStream {
     return read + bpos;
   }
 
+  /**
+   * Checks if the buffer contains bytes that have not been read yet.
+   * @return result of check
+   */
+  public final boolean buffered() {
+    return bpos < bsize;
+  }
+
   /**
    * Returns the input length (can be {@code -1}).
    * @return input length
@@ -0,0 +1,59 @@
+package org.basex.io.out;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.random.*;
+
+/**
+ * This class writes a new file in compressed blocks (see {@link CompressedAccess}).
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedOutput extends OutputStream {
+  /** Buffer. */
+  private final byte[] buffer = new byte[CompressedAccess.BLOCKSIZE];
+  /** Compressed file. */
+  private final CompressedAccess access;
+
+  /** Number of written blocks. */
+  private long blocks;
+  /** Current buffer position. */
+  private int pos;
+
+  /**
+   * Constructor. An existing file will be overwritten.
+   * @param file file to be written
+   * @throws IOException I/O exception
+   */
+  public CompressedOutput(final IOFile file) throws IOException {
+    file.delete();
+    access = new CompressedAccess(file);
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    if(pos == buffer.length) writeBuffer();
+    buffer[pos++] = (byte) b;
+  }
+
+  /**
+   * Writes the buffer to disk.
+   * @throws IOException I/O exception
+   */
+  private void writeBuffer() throws IOException {
+    access.write(blocks * buffer.length, buffer, pos);
+    blocks++;
+    pos = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if(pos > 0) writeBuffer();
+    } finally {
+      access.close();
+    }
+  }
+}
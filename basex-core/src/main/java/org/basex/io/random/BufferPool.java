@@ -0,0 +1,405 @@
+package org.basex.io.random;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.io.*;
+
+/**
+ * This class provides a buffer pool, which is shared by all database files that are opened for
+ * random access. It serves as second-level cache: if a page is not found in the buffers of a
+ * single file, it will be looked up in the pool before it is read from disk.
+ *
+ * The pool only contains clean copies of pages. Modified pages are updated when they are
+ * written back to disk. The pool is divided into segments with separate locks. Each segment
+ * uses a segmented LRU replacement strategy (a simplified variant of 2Q): New pages are added to
+ * a probationary queue and promoted to a protected queue when they are requested again.
+ * Pages that are accessed only once, e.g. by a sequential scan, will thus not displace
+ * frequently accessed pages.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class BufferPool {
+  /** Number of segments (must be 1 << n). */
+  private static final int SEGMENTS = 1 << 4;
+  /** Number of bits reserved for page numbers in a key. */
+  private static final int PAGEBITS = 36;
+  /** File ids. */
+  private static final AtomicInteger IDS = new AtomicInteger();
+  /** Global buffer pool ({@code null} if pool is disabled). */
+  private static volatile BufferPool pool;
+
+  /** Segments. */
+  private final Segment[] segments = new Segment[SEGMENTS];
+
+  /**
+   * Constructor.
+   * @param pages maximum number of pages
+   */
+  private BufferPool(final int pages) {
+    final int capacity = Math.max(1, pages / SEGMENTS);
+    for(int s = 0; s < SEGMENTS; s++) segments[s] = new Segment(capacity);
+  }
+
+  /**
+   * Initializes the global buffer pool. The existing pool will be replaced if its size differs.
+   * @param size size in bytes ({@code 0}: disable pool)
+   */
+  public static synchronized void init(final long size) {
+    final int pages = (int) Math.min(Integer.MAX_VALUE, size / IO.BLOCKSIZE);
+    final BufferPool bp = pool;
+    if(pages < SEGMENTS) {
+      pool = null;
+    } else if(bp == null || bp.capacity() != pages / SEGMENTS * SEGMENTS) {
+      pool = new BufferPool(pages);
+    }
+  }
+
+  /**
+   * Returns the global buffer pool.
+   * @return pool, or {@code null} if the pool is disabled
+   */
+  public static BufferPool get() {
+    return pool;
+  }
+
+  /**
+   * Returns a new id for a file.
+   * @return id
+   */
+  static int id() {
+    return IDS.incrementAndGet() & (1 << 63 - PAGEBITS) - 1;
+  }
+
+  /**
+   * Copies a cached page to the specified array.
+   * @param file file id
+   * @param page page number
+   * @param data target array
+   * @return {@code true} if the page was found
+   */
+  static boolean read(final int file, final long page, final byte[] data) {
+    final BufferPool bp = pool;
+    if(bp == null) return false;
+    final long key = key(file, page);
+    return bp.segment(key).read(key, data);
+  }
+
+  /**
+   * Adds a page that has been read from disk.
+   * @param file file id
+   * @param page page number
+   * @param data page contents
+   */
+  static void add(final int file, final long page, final byte[] data) {
+    final BufferPool bp = pool;
+    if(bp == null) return;
+    final long key = key(file, page);
+    bp.segment(key).add(key, data);
+  }
+
+  /**
+   * Updates a page that has been written to disk if it is found in the pool.
+   * @param file file id
+   * @param page page number
+   * @param data page contents
+   */
+  static void update(final int file, final long page, final byte[] data) {
+    final BufferPool bp = pool;
+    if(bp == null) return;
+    final long key = key(file, page);
+    bp.segment(key).update(key, data);
+  }
+
+  /**
+   * Removes all pages of the specified file.
+   * @param file file id
+   */
+  static void remove(final int file) {
+    final BufferPool bp = pool;
+    if(bp == null) return;
+    for(final Segment segment : bp.segments) segment.remove(file);
+  }
+
+  /**
+   * Returns the maximum number of pages.
+   * @return capacity
+   */
+  public int capacity() {
+    int c = 0;
+    for(final Segment segment : segments) c += segment.keys.length;
+    return c;
+  }
+
+  /**
+   * Returns the number of cached pages.
+   * @return number of pages
+   */
+  public int size() {
+    int s = 0;
+    for(final Segment segment : segments) {
+      synchronized(segment) { s += segment.size; }
+    }
+    return s;
+  }
+
+  /**
+   * Returns the number of successful lookups.
+   * @return number of hits
+   */
+  public long hits() {
+    long h = 0;
+    for(final Segment segment : segments) {
+      synchronized(segment) { h += segment.hits; }
+    }
+    return h;
+  }
+
+  /**
+   * Returns the number of failed lookups.
+   * @return number of misses
+   */
+  public long misses() {
+    long m = 0;
+    for(final Segment segment : segments) {
+      synchronized(segment) { m += segment.misses; }
+    }
+    return m;
+  }
+
+  /**
+   * Returns the segment responsible for the specified key.
+   * @param key key
+   * @return segment
+   */
+  private Segment segment(final long key) {
+    return segments[hash(key) >>> 28 & SEGMENTS - 1];
+  }
+
+  /**
+   * Creates a key for the specified file and page.
+   * @param file file id
+   * @param page page number
+   * @return key
+   */
+  private static long key(final int file, final long page) {
+    return (long) file << PAGEBITS | page & (1L << PAGEBITS) - 1;
+  }
+
+  /**
+   * Returns a hash value for the specified key.
+   * @param key key
+   * @return hash value
+   */
+  private static int hash(final long key) {
+    final long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ h >>> 32);
+  }
+
+  /**
+   * Segment of the buffer pool.
+   */
+  private static final class Segment {
+    /** Keys of the cached pages ({@code -1}: unused slot). */
+    private final long[] keys;
+    /** Cached pages. */
+    private final byte[][] pages;
+    /** Previous slots in the queues. */
+    private final int[] prev;
+    /** Next slots in the queues, or in the list of free slots. */
+    private final int[] next;
+    /** Flags for protected pages. */
+    private final boolean[] prot;
+    /** Hash buckets (first slots). */
+    private final int[] buckets;
+    /** Next slots in the hash buckets. */
+    private final int[] chain;
+    /** Maximum number of protected pages. */
+    private final int maxProt;
+
+    /** Head and tail of the probationary queue. */
+    private int probHead = -1, probTail = -1;
+    /** Head and tail of the protected queue. */
+    private int protHead = -1, protTail = -1;
+    /** First free slot. */
+    private int free;
+    /** Number of protected pages. */
+    private int protSize;
+    /** Number of cached pages. */
+    private int size;
+    /** Number of hits. */
+    private long hits;
+    /** Number of misses. */
+    private long misses;
+
+    /**
+     * Constructor.
+     * @param capacity maximum number of pages
+     */
+    private Segment(final int capacity) {
+      keys = new long[capacity];
+      pages = new byte[capacity][];
+      prev = new int[capacity];
+      next = new int[capacity];
+      prot = new boolean[capacity];
+      chain = new int[capacity];
+      buckets = new int[Integer.highestOneBit(capacity) << 1];
+      maxProt = Math.max(1, capacity - capacity / 5);
+      Arrays.fill(keys, -1);
+      Arrays.fill(buckets, -1);
+      for(int s = 0; s < capacity; s++) next[s] = s + 1 < capacity ? s + 1 : -1;
+    }
+
+    /**
+     * Copies a cached page to the specified array.
+     * @param key key
+     * @param data target array
+     * @return {@code true} if the page was found
+     */
+    private synchronized boolean read(final long key, final byte[] data) {
+      final int slot = find(key);
+      if(slot == -1) {
+        misses++;
+        return false;
+      }
+      hits++;
+      System.arraycopy(pages[slot], 0, data, 0, IO.BLOCKSIZE);
+      // promote page to protected queue, or move it to the head of the queue
+      unlink(slot);
+      if(!prot[slot]) {
+        prot[slot] = true;
+        if(++protSize > maxProt) {
+          // demote least recently used protected page
+          final int demote = protTail;
+          unlink(demote);
+          prot[demote] = false;
+          protSize--;
+          link(demote);
+        }
+      }
+      link(slot);
+      return true;
+    }
+
+    /**
+     * Adds a page to the probationary queue.
+     * @param key key
+     * @param data page contents
+     */
+    private synchronized void add(final long key, final byte[] data) {
+      int slot = find(key);
+      if(slot == -1) {
+        if(free == -1) {
+          // evict least recently added probationary page, or least recently used protected page
+          delete(probTail != -1 ? probTail : protTail);
+        }
+        slot = free;
+        free = next[slot];
+        if(pages[slot] == null) pages[slot] = new byte[IO.BLOCKSIZE];
+        keys[slot] = key;
+        prot[slot] = false;
+        final int b = bucket(key);
+        chain[slot] = buckets[b];
+        buckets[b] = slot;
+        link(slot);
+        size++;
+      }
+      System.arraycopy(data, 0, pages[slot], 0, IO.BLOCKSIZE);
+    }
+
+    /**
+     * Updates a cached page.
+     * @param key key
+     * @param data page contents
+     */
+    private synchronized void update(final long key, final byte[] data) {
+      final int slot = find(key);
+      if(slot != -1) System.arraycopy(data, 0, pages[slot], 0, IO.BLOCKSIZE);
+    }
+
+    /**
+     * Removes all pages of the specified file.
+     * @param file file id
+     */
+    private synchronized void remove(final int file) {
+      final int kl = keys.length;
+      for(int s = 0; s < kl; s++) {
+        if(keys[s] != -1 && keys[s] >>> PAGEBITS == file) delete(s);
+      }
+    }
+
+    /**
+     * Returns the slot of the specified key.
+     * @param key key
+     * @return slot, or {@code -1} if the key is not found
+     */
+    private int find(final long key) {
+      int s = buckets[bucket(key)];
+      while(s != -1 && keys[s] != key) s = chain[s];
+      return s;
+    }
+
+    /**
+     * Removes a page and adds its slot to the list of free slots.
+     * @param slot slot
+     */
+    private void delete(final int slot) {
+      final int b = bucket(keys[slot]);
+      if(buckets[b] == slot) {
+        buckets[b] = chain[slot];
+      } else {
+        int s = buckets[b];
+        while(chain[s] != slot) s = chain[s];
+        chain[s] = chain[slot];
+      }
+      unlink(slot);
+      if(prot[slot]) protSize--;
+      keys[slot] = -1;
+      next[slot] = free;
+      free = slot;
+      size--;
+    }
+
+    /**
+     * Adds a slot to the head of its queue.
+     * @param slot slot
+     */
+    private void link(final int slot) {
+      final int head = prot[slot] ? protHead : probHead;
+      prev[slot] = -1;
+      next[slot] = head;
+      if(head != -1) prev[head] = slot;
+      if(prot[slot]) {
+        protHead = slot;
+        if(protTail == -1) protTail = slot;
+      } else {
+        probHead = slot;
+        if(probTail == -1) probTail = slot;
+      }
+    }
+
+    /**
+     * Removes a slot from its queue.
+     * @param slot slot
+     */
+    private void unlink(final int slot) {
+      final int p = prev[slot], n = next[slot];
+      if(p != -1) next[p] = n;
+      else if(prot[slot]) protHead = n;
+      else probHead = n;
+      if(n != -1) prev[n] = p;
+      else if(prot[slot]) protTail = p;
+      else probTail = p;
+    }
+
+    /**
+     * Returns the hash bucket of the specified key.
+     * @param key key
+     * @return bucket
+     */
+    private int bucket(final long key) {
+      return hash(key) & buckets.length - 1;
+    }
+  }
+}
@@ -0,0 +1,487 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides positional access to a file that is stored in compressed blocks.
+ * It is used for the heap files of databases that have been created with
+ * {@link org.basex.core.MainOptions#COMPRESSTEXTS}.
+ *
+ * All positions refer to the uncompressed contents. The contents are divided into blocks of
+ * {@link #BLOCKSIZE} bytes, which are compressed separately. A block directory maps the block
+ * numbers to the physical offsets of the compressed blocks. Recently accessed blocks are
+ * kept in a small cache. Modified blocks are compressed again when they are evicted from the
+ * cache or when the file is flushed: they are written back to their original location if they
+ * fit, or moved to a free region of the file otherwise. Free regions are tracked in memory and
+ * reused; they are computed from the block directory when the file is opened.
+ *
+ * Blocks can be read and decompressed by multiple threads in parallel. Write operations are
+ * exclusive. Blocks that have been modified can only be evicted by writing threads.
+ *
+ * The file has the following layout:
+ * <pre>
+ * - offset of the block directory (8 bytes)
+ * - compressed blocks and block directory, separated by free regions:
+ * - block directory:
+ *   - length of the uncompressed contents (8 bytes)
+ *   - number of blocks (4 bytes)
+ *   - for each block: offset (8 bytes), stored size (4 bytes; negative: uncompressed),
+ *     reserved size (4 bytes)
+ * </pre>
+ * A new block directory is never written to the region of the current directory. The region
+ * of the old directory is released after the file header has been updated.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedAccess implements Closeable {
+  /** Size of a block (must be a multiple of {@link IO#BLOCKSIZE}). */
+  public static final int BLOCKSIZE = IO.BLOCKSIZE << 4;
+  /** Size of the file header. */
+  private static final int HEADER = 8;
+  /** Size of the header of the block directory. */
+  private static final int DIRECTORY = 12;
+  /** Size of a directory entry. */
+  private static final int ENTRY = 16;
+  /** Number of cached blocks. */
+  private static final int CACHE = 1 << 3;
+
+  /** Reference to the file. */
+  private final RandomAccessFile raf;
+  /** Lock: blocks are read in parallel, write operations are exclusive. */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  /** Compressor (used by writing threads). */
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+  /** Buffer for compressed blocks (used by writing threads). */
+  private final byte[] packed = new byte[BLOCKSIZE + (BLOCKSIZE >>> 3)];
+  /** Unused decompressors. */
+  private final ArrayDeque<Inflater> inflaters = new ArrayDeque<>();
+  /** Cached blocks ({@code null}: unused slot). */
+  private final Block[] cache = new Block[CACHE];
+  /** Access counter. */
+  private long clock;
+
+  /** Physical offsets of the blocks. */
+  private long[] offsets;
+  /** Stored sizes of the blocks ({@code 0}: empty block; negative: uncompressed block). */
+  private int[] sizes;
+  /** Reserved sizes of the blocks. */
+  private int[] reserved;
+  /** Number of blocks. */
+  private int blocks;
+  /** Length of the uncompressed contents. */
+  private volatile long length;
+  /** Free regions of the file (offsets, sizes). */
+  private final TreeMap<Long, Long> free = new TreeMap<>();
+  /** End of the last used region of the file. */
+  private long end = HEADER;
+  /** Offset of the current block directory ({@code 0}: no directory). */
+  private long dirOffset;
+  /** Size of the current block directory. */
+  private long dirSize;
+  /** Indicates if the block directory has been changed. */
+  private boolean changed;
+
+  /**
+   * Constructor.
+   * @param file file
+   * @throws IOException I/O Exception
+   */
+  public CompressedAccess(final IOFile file) throws IOException {
+    RandomAccessFile f = null;
+    try {
+      f = new RandomAccessFile(file.file(), "rw");
+      if(f.length() == 0) {
+        offsets = new long[1];
+        sizes = new int[1];
+        reserved = new int[1];
+        changed = true;
+      } else {
+        f.seek(0);
+        dirOffset = f.readLong();
+        f.seek(dirOffset);
+        length = f.readLong();
+        blocks = f.readInt();
+        dirSize = DIRECTORY + (long) blocks * ENTRY;
+        final byte[] entries = new byte[blocks * ENTRY];
+        f.readFully(entries);
+        final ByteBuffer bb = ByteBuffer.wrap(entries);
+        final int bl = Math.max(1, blocks);
+        offsets = new long[bl];
+        sizes = new int[bl];
+        reserved = new int[bl];
+        // collect used regions, and register the gaps as free regions
+        final TreeMap<Long, Long> used = new TreeMap<>();
+        used.put(dirOffset, dirSize);
+        for(int b = 0; b < blocks; b++) {
+          offsets[b] = bb.getLong();
+          sizes[b] = bb.getInt();
+          reserved[b] = bb.getInt();
+          if(reserved[b] != 0) used.put(offsets[b], (long) reserved[b]);
+        }
+        for(final Map.Entry<Long, Long> entry : used.entrySet()) {
+          final long off = entry.getKey();
+          if(off > end) free.put(end, off - end);
+          end = Math.max(end, off + entry.getValue());
+        }
+      }
+      raf = f;
+    } catch(final IOException ex) {
+      if(f != null) f.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the length of the uncompressed contents.
+   * @return length
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Returns the size of the file.
+   * @return number of bytes
+   * @throws IOException I/O exception
+   */
+  public long size() throws IOException {
+    return raf.length();
+  }
+
+  /**
+   * Reads bytes from the specified position.
+   * @param pos position in the uncompressed contents
+   * @param array target array
+   * @param len number of bytes to read
+   * @throws IOException I/O exception
+   */
+  public void read(final long pos, final byte[] array, final int len) throws IOException {
+    lock.readLock().lock();
+    try {
+      long p = pos;
+      int o = 0;
+      while(o < len) {
+        final int off = (int) (p % BLOCKSIZE), l = Math.min(len - o, BLOCKSIZE - off);
+        Array.copy(block((int) (p / BLOCKSIZE), false).data, off, l, array, o);
+        p += l;
+        o += l;
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Writes bytes to the specified position.
+   * @param pos position in the uncompressed contents
+   * @param array array with the bytes to be written
+   * @param len number of bytes to write
+   * @throws IOException I/O exception
+   */
+  public void write(final long pos, final byte[] array, final int len) throws IOException {
+    lock.writeLock().lock();
+    try {
+      long p = pos;
+      int o = 0;
+      while(o < len) {
+        final int off = (int) (p % BLOCKSIZE), l = Math.min(len - o, BLOCKSIZE - off);
+        final Block block = block((int) (p / BLOCKSIZE), true);
+        Array.copy(array, o, l, block.data, off);
+        block.dirty = true;
+        p += l;
+        o += l;
+      }
+      if(p > length) {
+        length = p;
+        changed = true;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Sets the length of the uncompressed contents.
+   * Blocks beyond the new length will be discarded.
+   * @param len length
+   */
+  public void length(final long len) {
+    lock.writeLock().lock();
+    try {
+      if(len == length) return;
+      final int bl = (int) ((len + BLOCKSIZE - 1) / BLOCKSIZE);
+      for(int s = 0; s < CACHE; s++) {
+        if(cache[s] != null && cache[s].number >= bl) cache[s] = null;
+      }
+      for(int b = bl; b < blocks; b++) {
+        release(offsets[b], reserved[b]);
+        sizes[b] = 0;
+        reserved[b] = 0;
+      }
+      if(bl < blocks) blocks = bl;
+      length = len;
+      changed = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Writes all modified blocks and the block directory to disk.
+   * @throws IOException I/O exception
+   */
+  public void flush() throws IOException {
+    lock.writeLock().lock();
+    try {
+      for(final Block block : cache) {
+        if(block != null && block.dirty) writeBlock(block);
+      }
+      if(!changed) return;
+
+      // write directory to a free region; the current directory remains valid until then
+      final ByteBuffer bb = ByteBuffer.allocate(DIRECTORY + blocks * ENTRY);
+      bb.putLong(length).putInt(blocks);
+      for(int b = 0; b < blocks; b++) bb.putLong(offsets[b]).putInt(sizes[b]).putInt(reserved[b]);
+      final long size = bb.capacity(), off = allocate(size);
+      raf.seek(off);
+      raf.write(bb.array());
+      raf.seek(0);
+      raf.writeLong(off);
+
+      // release region of the old directory, discard unused regions at the end of the file
+      release(dirOffset, dirSize);
+      dirOffset = off;
+      dirSize = size;
+      if(raf.length() > end) raf.setLength(end);
+      changed = false;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    lock.writeLock().lock();
+    try {
+      flush();
+    } finally {
+      raf.close();
+      deflater.end();
+      synchronized(inflaters) {
+        for(final Inflater inflater : inflaters) inflater.end();
+        inflaters.clear();
+      }
+      lock.writeLock().unlock();
+    }
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the specified block. The block will be cached and loaded if necessary.
+   * Modified blocks will only be evicted from the cache if the calling thread holds the write
+   * lock. Otherwise, if all cached blocks are modified, the block will not be cached.
+   * @param number block number
+   * @param write write flag (indicates if the write lock is held)
+   * @return block
+   * @throws IOException I/O exception
+   */
+  private Block block(final int number, final boolean write) throws IOException {
+    Block block = null, evicted = null;
+    synchronized(cache) {
+      int slot = -1;
+      for(int s = 0; s < CACHE && block == null; s++) {
+        final Block b = cache[s];
+        if(b == null) {
+          if(slot == -1 || cache[slot] != null) slot = s;
+        } else if(b.number == number) {
+          block = b;
+        } else if((write || !b.dirty) &&
+            (slot == -1 || cache[slot] != null && b.used < cache[slot].used)) {
+          slot = s;
+        }
+      }
+      if(block == null) {
+        block = new Block(number);
+        if(slot != -1) {
+          evicted = cache[slot];
+          cache[slot] = block;
+        }
+      }
+      block.used = ++clock;
+    }
+    if(evicted != null && evicted.dirty) writeBlock(evicted);
+
+    // blocks are loaded once; other blocks can be loaded in parallel
+    synchronized(block) {
+      if(!block.loaded) {
+        readBlock(number, block.data);
+        block.loaded = true;
+      }
+    }
+    return block;
+  }
+
+  /**
+   * Reads and decompresses a block.
+   * @param block block number
+   * @param array target array
+   * @throws IOException I/O exception
+   */
+  private void readBlock(final int block, final byte[] array) throws IOException {
+    final int size = block < blocks ? sizes[block] : 0;
+    if(size == 0) {
+      Arrays.fill(array, (byte) 0);
+      return;
+    }
+
+    final byte[] input = size < 0 ? array : new byte[size];
+    synchronized(raf) {
+      raf.seek(offsets[block]);
+      raf.readFully(input, 0, Math.abs(size));
+    }
+    if(size < 0) return;
+
+    Inflater inflater;
+    synchronized(inflaters) {
+      inflater = inflaters.poll();
+    }
+    if(inflater == null) inflater = new Inflater();
+    try {
+      inflater.setInput(input, 0, size);
+      int l = 0;
+      while(!inflater.finished() && l < BLOCKSIZE) {
+        final int n = inflater.inflate(array, l, BLOCKSIZE - l);
+        if(n == 0 && inflater.needsInput()) {
+          throw new IOException("Block " + block + " is corrupt.");
+        }
+        l += n;
+      }
+    } catch(final DataFormatException ex) {
+      throw new IOException(ex);
+    } finally {
+      inflater.reset();
+      synchronized(inflaters) {
+        if(inflaters.size() < CACHE) inflaters.add(inflater);
+        else inflater.end();
+      }
+    }
+  }
+
+  /**
+   * Compresses and writes a block. Must only be called by writing threads.
+   * @param blck block
+   * @throws IOException I/O exception
+   */
+  private void writeBlock(final Block blck) throws IOException {
+    final int block = blck.number;
+    final int len = (int) Math.min(BLOCKSIZE, length - (long) block * BLOCKSIZE);
+    blck.dirty = false;
+    if(len <= 0) return;
+
+    deflater.reset();
+    deflater.setInput(blck.data, 0, len);
+    deflater.finish();
+    int size = 0;
+    while(!deflater.finished() && size < len) {
+      size += deflater.deflate(packed, size, packed.length - size);
+    }
+    // store block uncompressed if compression does not pay off
+    final boolean raw = !deflater.finished() || size >= len;
+    final byte[] array = raw ? blck.data : packed;
+    if(raw) size = len;
+
+    if(block >= blocks) {
+      if(block >= offsets.length) {
+        final int nl = Math.max(block + 1, Array.newSize(offsets.length));
+        offsets = Arrays.copyOf(offsets, nl);
+        sizes = Arrays.copyOf(sizes, nl);
+        reserved = Arrays.copyOf(reserved, nl);
+      }
+      for(int b = blocks; b <= block; b++) {
+        sizes[b] = 0;
+        reserved[b] = 0;
+      }
+      blocks = block + 1;
+    }
+    if(reserved[block] < size) {
+      // block does not fit into its original location: move it to a free region
+      release(offsets[block], reserved[block]);
+      offsets[block] = allocate(size);
+      reserved[block] = size;
+    }
+    raf.seek(offsets[block]);
+    raf.write(array, 0, size);
+    sizes[block] = raw ? -size : size;
+    changed = true;
+  }
+
+  /**
+   * Allocates a region of the file. The first free region that is large enough will be
+   * chosen. If no such region exists, the region will be appended to the end of the file.
+   * @param size size of the region
+   * @return offset of the region
+   */
+  private long allocate(final long size) {
+    for(final Map.Entry<Long, Long> entry : free.entrySet()) {
+      final long off = entry.getKey(), rest = entry.getValue() - size;
+      if(rest >= 0) {
+        free.remove(off);
+        if(rest > 0) free.put(off + size, rest);
+        return off;
+      }
+    }
+    final long off = end;
+    end += size;
+    return off;
+  }
+
+  /**
+   * Releases a region of the file. Adjacent free regions will be merged.
+   * @param offset offset of the region
+   * @param size size of the region
+   */
+  private void release(final long offset, final long size) {
+    if(size == 0) return;
+    long off = offset, sz = size;
+    final Map.Entry<Long, Long> prev = free.floorEntry(off);
+    if(prev != null && prev.getKey() + prev.getValue() == off) {
+      off = prev.getKey();
+      sz += free.remove(off);
+    }
+    final Long next = free.remove(off + sz);
+    if(next != null) sz += next;
+    if(off + sz == end) end = off;
+    else free.put(off, sz);
+  }
+
+  /** Cached block. */
+  private static final class Block {
+    /** Block number. */
+    private final int number;
+    /** Uncompressed contents. */
+    private final byte[] data = new byte[BLOCKSIZE];
+    /** Indicates if the contents have been loaded (guarded by the block). */
+    private boolean loaded;
+    /** Indicates if the block has been modified (changed by writing threads). */
+    private boolean dirty;
+    /** Last access (guarded by the cache). */
+    private long used;
+
+    /**
+     * Constructor.
+     * @param number block number
+     */
+    private Block(final int number) {
+      this.number = number;
+    }
+  }
+}
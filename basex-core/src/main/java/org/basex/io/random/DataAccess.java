@@ -1,21 +1,35 @@
 package org.basex.io.random;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.io.*;
 import org.basex.util.*;
 
 /**
  * This class allows positional read and write access to a database file.
+ * All read and write operations share a single cursor and are synchronized.
+ * Concurrent read operations should be performed via {@link #reader()}.
+ * If the file is stored in compressed blocks, pages will be read and written via
+ * {@link CompressedAccess}.
  *
  * @author BaseX Team 2005-20, BSD License
  * @author Christian Gruen
  */
 public final class DataAccess implements Closeable {
+  /** Number of cached readers (must be 1 << n). */
+  private static final int READERS = 1 << 4;
+
   /** Buffer manager. */
   private final Buffers buffers = new Buffers();
-  /** Reference to the data input stream. */
+  /** File id in the buffer pool. */
+  private final int id = BufferPool.id();
+  /** Reference to the data input stream ({@code null} if the file is compressed). */
   private final RandomAccessFile raf;
+  /** Compressed file ({@code null} if the file is not compressed). */
+  private final CompressedAccess blocks;
   /** File size. */
   private long length;
   /** Changed flag. */
@@ -23,22 +37,46 @@ public final class DataAccess implements Closeable {
   /** Offset. */
   private int off;
 
+  /** Cached readers, indexed by the ids of their threads. */
+  private final AtomicReferenceArray<DataReader> readers = new AtomicReferenceArray<>(READERS);
+  /** Modification counter (incremented whenever data is written). */
+  int version;
+  /** Indicates if the file contains changes that have not been written to disk yet. */
+  private boolean modified;
+
   /**
    * Constructor, initializing the file reader.
    * @param file the file to be read
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile file) throws IOException {
-    RandomAccessFile f = null;
-    try {
-      f = new RandomAccessFile(file.file(), "rw");
-      length = f.length();
+    this(file, false);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param file the file to be read
+   * @param compressed indicates if the file is stored in compressed blocks
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final boolean compressed) throws IOException {
+    if(compressed) {
+      raf = null;
+      blocks = new CompressedAccess(file);
+      length = blocks.length();
+    } else {
+      RandomAccessFile f = null;
+      try {
+        f = new RandomAccessFile(file.file(), "rw");
+        length = f.length();
+      } catch(final IOException ex) {
+        if(f != null) f.close();
+        throw ex;
+      }
       raf = f;
-      cursor(0);
-    } catch(final IOException ex) {
-      if(f != null) f.close();
-      throw ex;
+      blocks = null;
     }
+    cursor(0);
   }
 
   /**
@@ -50,9 +88,12 @@ public final class DataAccess implements Closeable {
         if(buffer.dirty) writeBlock(buffer);
       }
       if(changed) {
-        raf.setLength(length);
+        if(blocks != null) blocks.length(length);
+        else raf.setLength(length);
         changed = false;
       }
+      if(blocks != null) blocks.flush();
+      modified = false;
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -62,10 +103,29 @@ public final class DataAccess implements Closeable {
   public synchronized void close() {
     flush();
     try {
-      raf.close();
+      if(blocks != null) blocks.close();
+      else raf.close();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
+    BufferPool.remove(id);
+  }
+
+  /**
+   * Returns the reader of the current thread. Readers are cached in a small table. A reader is
+   * only returned to the thread it was created for. If the table slot is occupied by the
+   * reader of another thread, it will be replaced.
+   * @return reader
+   */
+  public DataReader reader() {
+    final long thread = Thread.currentThread().getId();
+    final int r = (int) (thread ^ thread >>> 32) & READERS - 1;
+    DataReader reader = readers.get(r);
+    if(reader == null || reader.thread != thread) {
+      reader = new DataReader(this, thread);
+      readers.set(r, reader);
+    }
+    return reader;
   }
 
   /**
@@ -221,9 +281,17 @@ public final class DataAccess implements Closeable {
     try {
       if(buffer.dirty) writeBlock(buffer);
       buffer.pos = b;
-      raf.seek(buffer.pos);
-      if(buffer.pos < raf.length())
-        raf.readFully(buffer.data, 0, (int) Math.min(length - buffer.pos, IO.BLOCKSIZE));
+      final long page = b / IO.BLOCKSIZE;
+      if(buffer.pos < stored() && !BufferPool.read(id, page, buffer.data)) {
+        final int len = (int) Math.min(length - buffer.pos, IO.BLOCKSIZE);
+        if(blocks != null) {
+          blocks.read(buffer.pos, buffer.data, len);
+        } else {
+          raf.seek(buffer.pos);
+          raf.readFully(buffer.data, 0, len);
+        }
+        BufferPool.add(id, page, buffer.data);
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -314,6 +382,7 @@ public final class DataAccess implements Closeable {
       final int l = Math.min(last - o, IO.BLOCKSIZE - off);
       Array.copy(data, o, l, buffer.data, off);
       buffer.dirty = true;
+      modified();
       off += l;
       o += l;
       // adjust file size
@@ -380,6 +449,28 @@ public final class DataAccess implements Closeable {
     if(len != length) {
       changed = true;
       length = len;
+      modified();
+    }
+  }
+
+  /**
+   * Copies the page at the specified position to the specified array.
+   * Pages are read without synchronization unless the file has been modified.
+   * @param pos position of the page
+   * @param data target array
+   */
+  void page(final long pos, final byte[] data) {
+    if(modified) {
+      synchronized(this) {
+        final Buffer buffer = buffers.get(pos);
+        if(buffer != null) {
+          Array.copyFromStart(buffer.data, IO.BLOCKSIZE, data, 0);
+          return;
+        }
+        readPage(pos, data);
+      }
+    } else {
+      readPage(pos, data);
     }
   }
 
@@ -401,6 +492,7 @@ public final class DataAccess implements Closeable {
   private void write(final int value) {
     final Buffer buffer = buffer();
     buffer.dirty = true;
+    modified();
     buffer.data[off++] = (byte) value;
     final long nl = buffer.pos + off;
     if(nl > length) length(nl);
@@ -413,9 +505,57 @@ public final class DataAccess implements Closeable {
    */
   private void writeBlock(final Buffer buffer) throws IOException {
     final long pos = buffer.pos, len = Math.min(IO.BLOCKSIZE, length - pos);
-    raf.seek(pos);
-    raf.write(buffer.data, 0, (int) len);
+    if(blocks != null) {
+      blocks.write(pos, buffer.data, (int) len);
+    } else {
+      raf.seek(pos);
+      raf.write(buffer.data, 0, (int) len);
+    }
     buffer.dirty = false;
+    BufferPool.update(id, pos / IO.BLOCKSIZE, buffer.data);
+  }
+
+  /**
+   * Reads a page from disk, or from the buffer pool. The shared cursor will not be changed.
+   * @param pos position of the page
+   * @param data target array
+   */
+  private void readPage(final long pos, final byte[] data) {
+    final long page = pos / IO.BLOCKSIZE;
+    if(BufferPool.read(id, page, data)) return;
+
+    final long len = Math.min(length - pos, IO.BLOCKSIZE);
+    if(len <= 0) return;
+    try {
+      if(blocks != null) {
+        blocks.read(pos, data, (int) len);
+        BufferPool.add(id, page, data);
+        return;
+      }
+      final FileChannel fc = raf.getChannel();
+      final ByteBuffer bb = ByteBuffer.wrap(data, 0, (int) len);
+      while(bb.hasRemaining() && fc.read(bb, pos + bb.position()) != -1);
+      BufferPool.add(id, page, data);
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Returns the number of bytes that have been written to the file.
+   * @return number of bytes
+   * @throws IOException I/O exception
+   */
+  private long stored() throws IOException {
+    return blocks != null ? blocks.length() : raf.length();
+  }
+
+  /**
+   * Registers a modification.
+   */
+  private void modified() {
+    modified = true;
+    version++;
   }
 
   /**
@@ -0,0 +1,208 @@
+package org.basex.io.random;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides positional read access to a database file. A reader belongs to a single
+ * thread (see {@link DataAccess#reader()}) and has its own cursor and buffers. Readers can thus
+ * be used concurrently without synchronization.
+ *
+ * Pages are fetched via {@link DataAccess#page(long, byte[])}. If the file is modified, all
+ * buffered pages of the reader will be invalidated.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class DataReader {
+  /** Number of buffers (must be 1 << n). */
+  private static final int BUFFERS = 1 << 2;
+
+  /** Buffer manager. */
+  private final Buffers buffers = new Buffers(BUFFERS);
+  /** Data access. */
+  private final DataAccess da;
+  /** Id of the thread that owns this reader. */
+  final long thread;
+  /** Modification counter of the data access. */
+  private int version;
+  /** Offset in the current buffer. */
+  private int off;
+
+  /**
+   * Constructor.
+   * @param da data access
+   * @param thread id of the thread that owns this reader
+   */
+  DataReader(final DataAccess da, final long thread) {
+    this.da = da;
+    this.thread = thread;
+    version = da.version;
+  }
+
+  /**
+   * Returns the current file position.
+   * @return position in the file
+   */
+  public long cursor() {
+    return buffers.current().pos + off;
+  }
+
+  /**
+   * Sets the cursor.
+   * @param pos read position
+   */
+  public void cursor(final long pos) {
+    final int v = da.version;
+    if(v != version) {
+      buffers.invalidate();
+      version = v;
+    }
+    off = (int) (pos & IO.BLOCKSIZE - 1);
+    final long b = pos - off;
+    if(!buffers.cursor(b)) return;
+
+    final Buffer buffer = buffers.current();
+    buffer.pos = b;
+    da.page(b, buffer.data);
+  }
+
+  /**
+   * Reads a byte value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  public byte read1(final long pos) {
+    cursor(pos);
+    return (byte) read();
+  }
+
+  /**
+   * Reads an integer value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  public int read4(final long pos) {
+    cursor(pos);
+    return read4();
+  }
+
+  /**
+   * Reads an integer value.
+   * @return integer value
+   */
+  public int read4() {
+    return (read() << 24) + (read() << 16) + (read() << 8) + read();
+  }
+
+  /**
+   * Reads a 5-byte value from the specified file offset.
+   * @param pos position
+   * @return long value
+   */
+  public long read5(final long pos) {
+    cursor(pos);
+    return read5();
+  }
+
+  /**
+   * Reads a 5-byte value.
+   * @return long value
+   */
+  public long read5() {
+    return ((long) read() << 32) + ((long) read() << 24) + (read() << 16) + (read() << 8) + read();
+  }
+
+  /**
+   * Reads a {@link Num} value from the specified position.
+   * @param pos position
+   * @return read num
+   */
+  public int readNum(final long pos) {
+    cursor(pos);
+    return readNum();
+  }
+
+  /**
+   * Reads the next compressed number and returns it as integer.
+   * @return next integer
+   */
+  public int readNum() {
+    final int value = read();
+    switch(value & 0xC0) {
+    case 0:
+      return value;
+    case 0x40:
+      return (value - 0x40 << 8) + read();
+    case 0x80:
+      return (value - 0x80 << 24) + (read() << 16) + (read() << 8) + read();
+    default:
+      return (read() << 24) + (read() << 16) + (read() << 8) + read();
+    }
+  }
+
+  /**
+   * Reads a token from the specified position.
+   * @param pos position
+   * @return text as byte array
+   */
+  public byte[] readToken(final long pos) {
+    cursor(pos);
+    return readToken();
+  }
+
+  /**
+   * Reads the next token.
+   * @return text as byte array
+   */
+  public byte[] readToken() {
+    return readBytes(readNum());
+  }
+
+  /**
+   * Reads a number of bytes from the specified offset.
+   * @param pos position
+   * @param len length
+   * @return byte array
+   */
+  public byte[] readBytes(final long pos, final int len) {
+    cursor(pos);
+    return readBytes(len);
+  }
+
+  /**
+   * Reads a number of bytes.
+   * @param len length
+   * @return byte array
+   */
+  public byte[] readBytes(final int len) {
+    final byte[] data = new byte[len];
+    int l = 0;
+    while(l < len) {
+      if(off == IO.BLOCKSIZE) next();
+      final int n = Math.min(len - l, IO.BLOCKSIZE - off);
+      Array.copy(buffers.current().data, off, n, data, l);
+      off += n;
+      l += n;
+    }
+    return data;
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Reads the next byte.
+   * @return next byte
+   */
+  private int read() {
+    if(off == IO.BLOCKSIZE) next();
+    return buffers.current().data[off++] & 0xFF;
+  }
+
+  /**
+   * Moves the cursor to the next page.
+   */
+  private void next() {
+    cursor(buffers.current().pos + IO.BLOCKSIZE);
+  }
+}
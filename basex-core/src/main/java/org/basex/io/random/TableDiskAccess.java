@@ -20,24 +20,26 @@ import org.basex.util.*;
  * @author Christian Gruen
  * @author Tim Petrowsky
  */
-public final class TableDiskAccess extends TableAccess {
+public class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
   private final Buffers buffers = new Buffers();
+  /** File id in the buffer pool. */
+  private final int id = BufferPool.id();
   /** File storing all pages. */
-  private final RandomAccessFile file;
+  final RandomAccessFile file;
   /** Bitmap storing free (=0) and used (=1) pages. */
   private BitArray usedPages;
   /** File lock. */
   private FileLock lock;
 
   /** First pre values (ascending order); will be initialized with the first update. */
-  private int[] fPreIndex;
+  int[] fPreIndex;
   /** Page index; will be initialized with the first update. */
-  private int[] pageIndex;
+  int[] pageIndex;
   /** Total number of pages. */
   private int pages;
   /** Number of used pages. */
-  private int used;
+  int used;
 
   /** Pointer to current page. */
   private int page = -1;
@@ -137,6 +139,7 @@ public final class TableDiskAccess extends TableAccess {
   public synchronized void close() throws IOException {
     flush(true);
     file.close();
+    BufferPool.remove(id);
   }
 
   @Override
@@ -524,9 +527,10 @@ public final class TableDiskAccess extends TableAccess {
       buffer.pos = pre;
       if(pre >= pages) {
         pages = pre + 1;
-      } else {
+      } else if(!BufferPool.read(id, pre, buffer.data)) {
         file.seek(buffer.pos * IO.BLOCKSIZE);
         file.readFully(buffer.data);
+        BufferPool.add(id, pre, buffer.data);
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -544,6 +548,7 @@ public final class TableDiskAccess extends TableAccess {
     file.seek(buffer.pos * IO.BLOCKSIZE);
     file.write(buffer.data);
     buffer.dirty = false;
+    BufferPool.update(id, buffer.pos, buffer.data);
   }
 
   /**
@@ -0,0 +1,261 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class maps the table into memory and reads its entries without locking.
+ *
+ * The file is split into segments with a maximum size of 1 GB, as a single {@link ByteBuffer}
+ * can address at most 2 GB. As pages never span two segments, all entries of a node can be read
+ * from the same segment. The page mapping (first pre values, page index) is the same as in
+ * {@link TableDiskAccess}: As soon as an update is performed, the mapping is dropped and the
+ * buffered implementation takes over. The file will be mapped again after the next flush:
+ * segments with unchanged sizes are reused, and only the grown segments will be remapped.
+ * Replaced segments are released immediately instead of waiting for garbage collection.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class TableMappedAccess extends TableDiskAccess {
+  /** Power of a segment size. */
+  private static final int SEGMENTPOWER = 30;
+  /** Maximum size of a segment. */
+  private static final long SEGMENTSIZE = 1L << SEGMENTPOWER;
+
+  /** Unsafe instance (Java 9 and later, otherwise {@code null}). */
+  private static final Object UNSAFE;
+  /** Method for releasing a buffer (Java 9 and later, otherwise {@code null}). */
+  private static final Method INVOKE_CLEANER;
+  /** Method for retrieving the cleaner of a buffer (Java 8, otherwise {@code null}). */
+  private static final Method CLEANER;
+  /** Method for releasing a buffer via its cleaner (Java 8, otherwise {@code null}). */
+  private static final Method CLEAN;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null, cleaner = null, clean = null;
+    if(Prop.JAVA8) {
+      cleaner = Reflect.method(Reflect.find("sun.nio.ch.DirectBuffer"), "cleaner");
+      clean = Reflect.method(Reflect.find("sun.misc.Cleaner"), "clean");
+    } else {
+      final Class<?> clazz = Reflect.find("sun.misc.Unsafe");
+      invokeCleaner = Reflect.method(clazz, "invokeCleaner", ByteBuffer.class);
+      try {
+        final Field field = clazz.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        unsafe = field.get(null);
+      } catch(final Throwable ex) {
+        Util.debug(ex);
+      }
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+    CLEANER = cleaner;
+    CLEAN = clean;
+  }
+
+  /** Mapped segments ({@code null} if file is currently updated). */
+  private volatile MappedByteBuffer[] segments;
+  /** Segments that have been mapped last (retained while the file is updated). */
+  private MappedByteBuffer[] mapped = new MappedByteBuffer[0];
+
+  /**
+   * Constructor.
+   * @param meta meta data
+   * @param write write lock
+   * @throws IOException I/O exception
+   */
+  public TableMappedAccess(final MetaData meta, final boolean write) throws IOException {
+    super(meta, write);
+    map();
+  }
+
+  @Override
+  public synchronized void flush(final boolean all) throws IOException {
+    super.flush(all);
+    map();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    super.close();
+    segments = null;
+    for(final MappedByteBuffer segment : mapped) release(segment);
+    mapped = new MappedByteBuffer[0];
+  }
+
+  @Override
+  public int read1(final int pre, final int offset) {
+    final MappedByteBuffer[] segs = segments;
+    if(segs == null) return super.read1(pre, offset);
+    final long pos = pos(pre) + offset;
+    return segs[segment(pos)].get(offset(pos)) & 0xFF;
+  }
+
+  @Override
+  public int read2(final int pre, final int offset) {
+    final MappedByteBuffer[] segs = segments;
+    if(segs == null) return super.read2(pre, offset);
+    final long pos = pos(pre) + offset;
+    return segs[segment(pos)].getShort(offset(pos)) & 0xFFFF;
+  }
+
+  @Override
+  public int read4(final int pre, final int offset) {
+    final MappedByteBuffer[] segs = segments;
+    if(segs == null) return super.read4(pre, offset);
+    final long pos = pos(pre) + offset;
+    return segs[segment(pos)].getInt(offset(pos));
+  }
+
+  @Override
+  public long read5(final int pre, final int offset) {
+    final MappedByteBuffer[] segs = segments;
+    if(segs == null) return super.read5(pre, offset);
+    final long pos = pos(pre) + offset;
+    final MappedByteBuffer segment = segs[segment(pos)];
+    final int o = offset(pos);
+    return (segment.get(o) & 0xFFL) << 32 | segment.getInt(o + 1) & 0xFFFFFFFFL;
+  }
+
+  @Override
+  public void write1(final int pre, final int offset, final int value) {
+    unmap();
+    super.write1(pre, offset, value);
+  }
+
+  @Override
+  public void write2(final int pre, final int offset, final int value) {
+    unmap();
+    super.write2(pre, offset, value);
+  }
+
+  @Override
+  public void write4(final int pre, final int offset, final int value) {
+    unmap();
+    super.write4(pre, offset, value);
+  }
+
+  @Override
+  public void write5(final int pre, final int offset, final long value) {
+    unmap();
+    super.write5(pre, offset, value);
+  }
+
+  @Override
+  protected void copy(final byte[] entries, final int pre, final int last) {
+    unmap();
+    super.copy(entries, pre, last);
+  }
+
+  @Override
+  public void delete(final int pre, final int count) {
+    unmap();
+    super.delete(pre, count);
+  }
+
+  @Override
+  public void insert(final int pre, final byte[] entries) {
+    unmap();
+    super.insert(pre, entries);
+  }
+
+  @Override
+  protected void dirty() {
+    unmap();
+    super.dirty();
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Maps the file into memory. Segments with unchanged sizes are reused.
+   * @throws IOException I/O exception
+   */
+  private void map() throws IOException {
+    final FileChannel fc = file.getChannel();
+    final long size = fc.size();
+    final int sl = (int) ((size + SEGMENTSIZE - 1) >>> SEGMENTPOWER), ml = mapped.length;
+    final MappedByteBuffer[] segs = new MappedByteBuffer[sl];
+    for(int s = 0; s < sl; s++) {
+      final long start = (long) s << SEGMENTPOWER, length = Math.min(SEGMENTSIZE, size - start);
+      final MappedByteBuffer segment = s < ml ? mapped[s] : null;
+      if(segment != null && segment.capacity() == length) {
+        segs[s] = segment;
+      } else {
+        release(segment);
+        segs[s] = fc.map(MapMode.READ_ONLY, start, length);
+      }
+    }
+    for(int s = sl; s < ml; s++) release(mapped[s]);
+    mapped = segs;
+    segments = segs;
+  }
+
+  /**
+   * Drops the mapping. Subsequent read operations will be performed by the buffered
+   * implementation until the table is flushed.
+   */
+  private void unmap() {
+    segments = null;
+  }
+
+  /**
+   * Releases a mapped segment. Must only be called if no other thread accesses the segment.
+   * @param segment segment (can be {@code null})
+   */
+  private static void release(final MappedByteBuffer segment) {
+    if(segment == null) return;
+    if(INVOKE_CLEANER != null) {
+      Reflect.invoke(INVOKE_CLEANER, UNSAFE, segment);
+    } else if(CLEANER != null) {
+      Reflect.invoke(CLEAN, Reflect.invoke(CLEANER, segment));
+    }
+  }
+
+  /**
+   * Returns the file offset of the entry with the specified pre value.
+   * @param pre pre value
+   * @return file offset
+   */
+  private long pos(final int pre) {
+    // regular page mapping: entries are stored in ascending order
+    final int[] fpres = fPreIndex;
+    if(fpres == null) return (long) pre << IO.NODEPOWER;
+
+    // find page containing the pre value
+    int l = 0, h = used - 1;
+    while(l < h) {
+      final int m = l + h + 1 >>> 1;
+      if(fpres[m] <= pre) l = m;
+      else h = m - 1;
+    }
+    return (long) pageIndex[l] * IO.BLOCKSIZE + (pre - fpres[l] << IO.NODEPOWER);
+  }
+
+  /**
+   * Returns the index of the segment containing the specified file offset.
+   * @param pos file offset
+   * @return segment index
+   */
+  private static int segment(final long pos) {
+    return (int) (pos >>> SEGMENTPOWER);
+  }
+
+  /**
+   * Returns the offset of the specified file offset in its segment.
+   * @param pos file offset
+   * @return segment offset
+   */
+  private static int offset(final long pos) {
+    return (int) (pos & SEGMENTSIZE - 1);
+  }
+}
@@ -0,0 +1,148 @@
+package org.basex.query;
+
+import java.util.*;
+import java.util.Map.*;
+
+import org.basex.core.*;
+
+/**
+ * This class caches compiled queries, which can then be evaluated again without being parsed
+ * and compiled. The maximum number of cached queries is assigned via
+ * {@link StaticOptions#QUERYCACHE}.
+ *
+ * Queries are looked up by their query string, base URI, the global options, the current user
+ * and the currently opened database (see {@link QueryProcessor}). Values of external variables
+ * are not inlined when a cached query is compiled; they will be bound again for each execution.
+ * A query is only cached if it is not updating, and if it has accessed no other resources than
+ * persistent databases at compile time. A cached query will be discarded if one of these
+ * databases has been updated, if indexes have been created or dropped, or if the user is no
+ * longer permitted to read them. As queries are looked up before their locks are acquired,
+ * the databases are checked again before a cached query is evaluated.
+ *
+ * A cached query is removed from the cache while it is evaluated. The databases opened by
+ * cached queries remain pinned; they will be released by {@link #invalidate(String)} before
+ * a database is dropped, renamed or overwritten.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCache {
+  /** Cached queries, ordered by their last access. */
+  private final LinkedHashMap<String, QueryContext> queries = new LinkedHashMap<>(16, 0.75f, true);
+  /** Maximum number of cached queries. */
+  private final int max;
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
+
+  /**
+   * Constructor.
+   * @param sopts static options
+   */
+  public QueryCache(final StaticOptions sopts) {
+    max = sopts.get(StaticOptions.QUERYCACHE);
+  }
+
+  /**
+   * Indicates if queries will be cached.
+   * @return result of check
+   */
+  public boolean enabled() {
+    return max > 0;
+  }
+
+  /**
+   * Removes and returns a cached query.
+   * @param key key
+   * @return query context, or {@code null} if no valid query was found
+   */
+  QueryContext get(final String key) {
+    final QueryContext qc;
+    synchronized(this) {
+      qc = queries.remove(key);
+      if(qc != null && qc.valid()) {
+        hits++;
+        return qc;
+      }
+      misses++;
+    }
+    if(qc != null) qc.close();
+    return null;
+  }
+
+  /**
+   * Caches a query that has been evaluated. If the cache is full, the least recently used query
+   * will be closed and discarded.
+   * @param key key
+   * @param qc query context
+   */
+  void put(final String key, final QueryContext qc) {
+    final ArrayList<QueryContext> closed = new ArrayList<>(1);
+    synchronized(this) {
+      final QueryContext old = queries.put(key, qc);
+      if(old != null && old != qc) closed.add(old);
+      final Iterator<QueryContext> iter = queries.values().iterator();
+      while(queries.size() > max) {
+        closed.add(iter.next());
+        iter.remove();
+      }
+    }
+    for(final QueryContext cached : closed) cached.close();
+  }
+
+  /**
+   * Closes and discards all cached queries that have opened the specified database.
+   * @param db name of database
+   */
+  public void invalidate(final String db) {
+    final ArrayList<QueryContext> closed = new ArrayList<>(0);
+    synchronized(this) {
+      final Iterator<Entry<String, QueryContext>> iter = queries.entrySet().iterator();
+      while(iter.hasNext()) {
+        final QueryContext qc = iter.next().getValue();
+        if(qc.resources.opened(db)) {
+          closed.add(qc);
+          iter.remove();
+        }
+      }
+    }
+    for(final QueryContext qc : closed) qc.close();
+  }
+
+  /**
+   * Closes and discards all cached queries.
+   */
+  public void close() {
+    final ArrayList<QueryContext> closed;
+    synchronized(this) {
+      closed = new ArrayList<>(queries.values());
+      queries.clear();
+    }
+    for(final QueryContext qc : closed) qc.close();
+  }
+
+  /**
+   * Returns the number of cached queries.
+   * @return number of queries
+   */
+  public synchronized int size() {
+    return queries.size();
+  }
+
+  /**
+   * Returns the number of cache hits.
+   * @return number of hits
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of cache misses.
+   * @return number of misses
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+}
@@ -16,8 +16,10 @@ import org.basex.core.jobs.*;
 import org.basex.core.locks.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
+import org.basex.io.*;
 import org.basex.io.parse.json.*;
 import org.basex.io.serial.*;
+import org.basex.query.expr.index.*;
 import org.basex.query.func.*;
 import org.basex.query.func.java.*;
 import org.basex.query.iter.*;
@@ -37,6 +39,7 @@ import org.basex.util.*;
 import org.basex.util.ft.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
+import org.basex.util.options.*;
 
 /**
  * This class organizes both static and dynamic properties that are specific to a
@@ -46,6 +49,11 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class QueryContext extends Job implements Closeable {
+  /** Options that are consulted while a query is parsed. */
+  private static final BooleanOption[] PARSING = {
+    MainOptions.QUERYINFO, MainOptions.MIXUPDATES, MainOptions.WITHDB
+  };
+
   /** The evaluation stack. */
   public final QueryStack stack = new QueryStack();
   /** Static variables. */
@@ -60,9 +68,9 @@ public final class QueryContext extends Job implements Closeable {
   /** Parent query context. */
   public final QueryContext parent;
   /** Query info. */
-  public final QueryInfo info;
-  /** Database context. */
-  public final Context context;
+  public QueryInfo info;
+  /** Database context (will only be reassigned before compilation, see {@link #attach}). */
+  public Context context;
 
   /** Query resources. */
   public QueryResources resources;
@@ -107,6 +115,8 @@ public final class QueryContext extends Job implements Closeable {
   private XQFunction tailFunc;
   /** Arguments for the next tail call. */
   private Value[] args;
+  /** Index accesses that have counted their results (will be reset if the query is reused). */
+  private final ArrayList<IndexAccess> counted = new ArrayList<>(0);
   /** Counter for variable IDs. */
   public int varIDs;
 
@@ -132,6 +142,17 @@ public final class QueryContext extends Job implements Closeable {
   /** Indicates if the query context has been closed. */
   private boolean closed;
 
+  /** Indicates if the compiled query will be evaluated repeatedly (see {@link QueryCache}). */
+  public boolean reuse;
+  /** Indicates if the query has been taken from the query cache. */
+  private boolean cached;
+  /** Locks of the parsed query. */
+  private Locks locks;
+  /** Timestamps of the parsed module files (assigned if the query will be reused). */
+  private long[] modTimes;
+  /** Initial context value (assigned if the query will be reused). */
+  private Value ctxValue;
+
   /**
    * Constructor.
    * @param parent parent context
@@ -253,30 +274,28 @@ public final class QueryContext extends Job implements Closeable {
    */
   public void compile() throws QueryException {
     checkStop();
-    if(compiled) return;
+    if(compiled) {
+      if(cached) prepare();
+      return;
+    }
     info.runtime = false;
 
     final CompileContext cc = new CompileContext(this);
+    boolean ok = false;
     try {
       // bind external variables of global option (if not assigned yet by other APIs)
-      final MainOptions mopts = context.options;
-      if(root != null && parent == null) {
-        for(final Entry<String, String> entry : mopts.toMap(MainOptions.BINDINGS).entrySet()) {
-          final String key = entry.getKey();
-          final Atm value = new Atm(entry.getValue());
-          if(key.isEmpty()) {
-            if(ctxItem == null) context(value, root.sc);
-          } else {
-            final QNm name = qname(key, root.sc);
-            if(!bindings.containsKey(name)) bind(name, value);
-          }
-        }
+      bindOptions();
+
+      // query will be reused: external variables will not be inlined
+      if(reuse) {
+        reuse = parent == null && root != null && ctxItem == null && locks != null && !updating;
+        if(reuse) vars.reuse();
       }
 
       // set database options
       options.compile();
       // set tail call option after assigning database options
-      maxCalls = mopts.get(MainOptions.TAILCALLS);
+      maxCalls = context.options.get(MainOptions.TAILCALLS);
 
       // bind external variables
       vars.bindExternal(this, bindings);
@@ -316,12 +335,150 @@ public final class QueryContext extends Job implements Closeable {
         Util.debug(ex);
         throw BASEX_OVERFLOW.get(null, ex);
       }
+
+      // query will be reused: check if only databases and module files have been accessed
+      if(reuse) {
+        reuse = dateTime == null && !updating && resources.reuse();
+        if(reuse) {
+          modTimes = modTimes();
+          ctxValue = focus.value;
+        }
+      }
+      ok = true;
     } finally {
+      // queries that could not be compiled will not be reused
+      if(!ok) reuse = false;
       info.runtime = true;
       compiled = true;
     }
   }
 
+  /**
+   * Binds the external variables and the context value of the global option.
+   * @throws QueryException query exception
+   */
+  private void bindOptions() throws QueryException {
+    if(root == null || parent != null) return;
+    for(final Entry<String, String> entry :
+      context.options.toMap(MainOptions.BINDINGS).entrySet()) {
+      final String key = entry.getKey();
+      final Atm value = new Atm(entry.getValue());
+      if(key.isEmpty()) {
+        if(ctxItem == null) context(value, root.sc);
+      } else {
+        final QNm name = qname(key, root.sc);
+        if(!bindings.containsKey(name)) bind(name, value);
+      }
+    }
+  }
+
+  /**
+   * Assigns another database context to a query that has been parsed in advance.
+   * The user and the opened database are only consulted when the query is compiled and evaluated.
+   * The context will not be assigned if it differs in options that have already been consulted
+   * while the query was parsed (see {@link QueryInfo} and {@link StaticContext}).
+   * @param ctx database context
+   * @return {@code true} if the context has been assigned
+   */
+  public boolean attach(final Context ctx) {
+    if(compiled || parent != null) throw Util.notExpected();
+    for(final BooleanOption option : PARSING) {
+      if(context.options.get(option) != ctx.options.get(option)) return false;
+    }
+    context = ctx;
+    return true;
+  }
+
+  /**
+   * Adopts the variable bindings and properties of the specified query context.
+   * @param qc query context
+   */
+  void adopt(final QueryContext qc) {
+    bindings.clear();
+    bindings.putAll(qc.bindings);
+    props.clear();
+    props.putAll(qc.props);
+  }
+
+  /**
+   * Prepares a query that has been taken from the query cache for another evaluation.
+   * The database context of the new evaluation will be assigned.
+   * @param qc query context that was created for the new evaluation
+   */
+  void reuse(final QueryContext qc) {
+    context = qc.context;
+    adopt(qc);
+    info = new QueryInfo(info);
+    cached = true;
+  }
+
+  /**
+   * Prepares a cached query for evaluation.
+   * @throws QueryException query exception
+   */
+  private void prepare() throws QueryException {
+    cached = false;
+    bindOptions();
+    options.compile();
+    maxCalls = context.options.get(MainOptions.TAILCALLS);
+    vars.rebind(this, bindings);
+  }
+
+  /**
+   * Releases the resources of the last evaluation if the query can be reused.
+   * @return {@code true} if the query can be cached
+   */
+  boolean release() {
+    if(!reuse || !compiled || closed || updates != null || stopped()) return false;
+    threads.close();
+    options.close();
+    resources.release();
+    stack.clear();
+    focus = new QueryFocus();
+    focus.value = ctxValue;
+    dateTime = null;
+    tailCalls = 0;
+    tailFunc = null;
+    args = null;
+    ftPosData = Prop.gui ? new FTPosData() : null;
+    ftPos = 0;
+    synchronized(counted) {
+      for(final IndexAccess ia : counted) ia.reset();
+      counted.clear();
+    }
+    return true;
+  }
+
+  /**
+   * Registers an index access that has counted its results at runtime.
+   * @param ia index access
+   */
+  public void counted(final IndexAccess ia) {
+    if(parent != null) {
+      parent.counted(ia);
+    } else {
+      synchronized(counted) { counted.add(ia); }
+    }
+  }
+
+  /**
+   * Checks if a cached query can be evaluated again.
+   * @return result of check
+   */
+  boolean valid() {
+    return resources.valid() && Arrays.equals(modTimes, modTimes());
+  }
+
+  /**
+   * Returns the timestamps of all parsed module files.
+   * @return timestamps
+   */
+  private long[] modTimes() {
+    final LongList times = new LongList(modParsed.size());
+    for(final byte[] path : modParsed) times.add(IO.get(string(path)).timeStamp());
+    return times.finish();
+  }
+
   /**
    * Returns a result iterator.
    * @return result iterator
@@ -364,15 +521,22 @@ public final class QueryContext extends Job implements Closeable {
 
   @Override
   public void addLocks() {
-    final Locks locks = jc().locks;
-    final LockList read = locks.reads, write = locks.writes;
-    read.add(readLocks);
-    write.add(writeLocks);
-    // use global locking if referenced databases cannot be statically determined
-    if(root == null || !root.databases(locks, this) ||
-       ctxItem != null && !ctxItem.databases(locks, this)) {
-      (updating ? write : read).addGlobal();
+    // locks of cached queries are computed once, as the compiled query may differ
+    if(locks == null) {
+      final Locks lcks = new Locks();
+      final LockList read = lcks.reads, write = lcks.writes;
+      read.add(readLocks);
+      write.add(writeLocks);
+      // use global locking if referenced databases cannot be statically determined
+      if(root == null || !root.databases(lcks, this) ||
+         ctxItem != null && !ctxItem.databases(lcks, this)) {
+        (updating ? write : read).addGlobal();
+      }
+      locks = lcks;
     }
+    final Locks jl = jc().locks;
+    jl.reads.add(locks.reads);
+    jl.writes.add(locks.writes);
   }
 
   /**
@@ -539,7 +703,7 @@ public final class QueryContext extends Job implements Closeable {
     } else {
       // otherwise, adopt update reference (may have been initialized by sub query)
       parent.updates = updates;
-      parent.popJob();
+      parent.popJob(this);
     }
     options.close();
   }
@@ -53,6 +53,17 @@ public final class QueryInfo {
     verbose = qc.context.options.get(MainOptions.QUERYINFO) || Prop.debug;
   }
 
+  /**
+   * Constructor for a cached query, which adopts the compilation info of the original query.
+   * @param info original query info
+   */
+  QueryInfo(final QueryInfo info) {
+    verbose = info.verbose;
+    query = info.query;
+    compile.add(info.compile);
+    runtime = true;
+  }
+
   /**
    * Adds some compilation info.
    * @param string evaluation info
@@ -77,5 +77,6 @@ final class QueryOptions {
    */
   void close() {
     cachedOpts.forEach(qc.context.options::put);
+    cachedOpts.clear();
   }
 }
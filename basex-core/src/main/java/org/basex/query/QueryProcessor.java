@@ -26,13 +26,27 @@ public final class QueryProcessor extends Job implements Closeable {
   "^(xquery( version ['\"].*?['\"])?( encoding ['\"].*?['\"])? ?; ?)?module namespace.*");
 
   /** Static context. */
-  public final StaticContext sc;
+  public StaticContext sc;
   /** Expression context. */
-  public final QueryContext qc;
+  public QueryContext qc;
   /** Query. */
   private final String query;
+  /** Base URI (can be {@code null}). */
+  private final String uri;
   /** Parsed flag. */
   private boolean parsed;
+  /** Closed flag. */
+  private boolean closed;
+  /** Indicates if the static context has been customized. */
+  private boolean custom;
+  /** Key of the query in the query cache (assigned if the query is cached). */
+  private String key;
+  /** Query context that was created for this processor (assigned if a cached query is used). */
+  private QueryContext freshQc;
+  /** Static context that was created for this processor (assigned if a cached query is used). */
+  private StaticContext freshSc;
+  /** Indicates if an assigned cached query has been checked again before its evaluation. */
+  private boolean checked;
 
   /**
    * Default constructor.
@@ -51,6 +65,7 @@ public final class QueryProcessor extends Job implements Closeable {
    */
   public QueryProcessor(final String query, final String uri, final Context ctx) {
     this.query = query;
+    this.uri = uri;
     qc = pushJob(new QueryContext(ctx));
     sc = new StaticContext(qc);
     sc.baseURI(uri);
@@ -63,6 +78,24 @@ public final class QueryProcessor extends Job implements Closeable {
   public void parse() throws QueryException {
     if(parsed) return;
     try {
+      final Context ctx = qc.context;
+      final QueryCache queries = ctx.queries;
+      key = null;
+      if(queries.enabled() && !custom && qc.ctxItem == null && (ctx.data() == null || ctx.root())) {
+        key = key(ctx);
+        final QueryContext cached = queries.get(key);
+        if(cached != null) {
+          // evaluate cached query
+          cached.reuse(qc);
+          freshQc = qc;
+          freshSc = sc;
+          popJob(qc);
+          qc = pushJob(cached);
+          sc = cached.root.sc;
+          return;
+        }
+      }
+      qc.reuse = key != null;
       qc.parseMain(query, null, sc);
     } finally {
       parsed = true;
@@ -75,7 +108,7 @@ public final class QueryProcessor extends Job implements Closeable {
    * @throws QueryException query exception
    */
   public void compile() throws QueryException {
-    parse();
+    check();
     qc.compile();
   }
 
@@ -86,7 +119,7 @@ public final class QueryProcessor extends Job implements Closeable {
    * @throws QueryException query exception
    */
   public Iter iter() throws QueryException {
-    parse();
+    check();
     return qc.iter();
   }
 
@@ -96,7 +129,7 @@ public final class QueryProcessor extends Job implements Closeable {
    * @throws QueryException query exception
    */
   public Value value() throws QueryException {
-    parse();
+    check();
     return qc.value();
   }
 
@@ -109,7 +142,7 @@ public final class QueryProcessor extends Job implements Closeable {
    * @throws QueryException query exception
    */
   public Value cache(final int max) throws QueryException {
-    parse();
+    check();
     return qc.cache(max);
   }
 
@@ -170,6 +203,7 @@ public final class QueryProcessor extends Job implements Closeable {
    * @return self reference
    */
   public QueryProcessor context(final Value value) {
+    uncache();
     qc.context(value, sc);
     return this;
   }
@@ -183,6 +217,7 @@ public final class QueryProcessor extends Job implements Closeable {
    * @throws QueryException query exception
    */
   public QueryProcessor context(final Object value, final String type) throws QueryException {
+    uncache();
     qc.context(value, type, sc);
     return this;
   }
@@ -197,6 +232,7 @@ public final class QueryProcessor extends Job implements Closeable {
    * @throws QueryException query exception
    */
   public QueryProcessor namespace(final String prefix, final String uri) throws QueryException {
+    custom = true;
     sc.namespace(prefix, uri);
     return this;
   }
@@ -207,6 +243,7 @@ public final class QueryProcessor extends Job implements Closeable {
    * @return self reference
    */
   public QueryProcessor uriResolver(final UriResolver resolver) {
+    custom = true;
     sc.resolver = resolver;
     return this;
   }
@@ -235,6 +272,7 @@ public final class QueryProcessor extends Job implements Closeable {
    * @param file file name
    */
   public void module(final String uri, final String file) {
+    custom = true;
     qc.modDeclared.put(uri, file);
   }
 
@@ -248,7 +286,72 @@ public final class QueryProcessor extends Job implements Closeable {
 
   @Override
   public void close() {
-    qc.close();
+    if(closed) return;
+    closed = true;
+    if(key != null && qc.release()) qc.context.queries.put(key, qc);
+    else qc.close();
+  }
+
+  /**
+   * Returns the key of this query in the query cache.
+   * @param ctx database context
+   * @return key
+   */
+  private String key(final Context ctx) {
+    final StringBuilder sb = new StringBuilder(query).append('\0');
+    if(uri != null) sb.append(uri);
+    sb.append('\0').append(ctx.user().name()).append('\0');
+    if(ctx.data() != null) sb.append(ctx.data().meta.name);
+    return sb.append('\0').append(ctx.options).toString();
+  }
+
+  /**
+   * Ensures that a query with a bound context value will neither be taken from nor be
+   * added to the query cache. If a cached query has already been assigned, it will be put back
+   * to the cache, and the query will be parsed again.
+   */
+  private void uncache() {
+    if(key == null) return;
+    if(freshQc != null) {
+      restore(true);
+    } else {
+      qc.reuse = false;
+    }
+    key = null;
+  }
+
+  /**
+   * Parses the query. If a cached query has been assigned, it will be checked again before it is
+   * evaluated: the opened databases may have been updated, or the permissions of the user may
+   * have changed, before the locks were acquired. If the query has become invalid, it will be
+   * discarded, and the query will be parsed again.
+   * @throws QueryException query exception
+   */
+  private void check() throws QueryException {
+    parse();
+    if(freshQc == null || checked) return;
+    checked = true;
+    if(!qc.resources.valid()) {
+      restore(false);
+      parse();
+    }
+  }
+
+  /**
+   * Replaces an assigned cached query with the query context that was created for this processor.
+   * @param cache put the cached query back to the cache if it can be reused
+   */
+  private void restore(final boolean cache) {
+    final QueryContext cached = qc;
+    freshQc.adopt(cached);
+    popJob(cached);
+    qc = pushJob(freshQc);
+    sc = freshSc;
+    freshQc = null;
+    freshSc = null;
+    parsed = false;
+    if(cache && cached.release()) cached.context.queries.put(key, cached);
+    else cached.close();
   }
 
   @Override
@@ -54,6 +54,13 @@ public final class QueryResources {
   /** Input references. */
   private final ArrayList<InputStream> inputs = new ArrayList<>(1);
 
+  /** Indicates if textual resources have been requested. */
+  private boolean textual;
+  /** Versions of the databases opened at compile time (assigned if the query will be reused). */
+  private long[] versions;
+  /** Number of collections opened at compile time. */
+  private int collections;
+
   /**
    * Constructor.
    * @param qc query context
@@ -91,6 +98,87 @@ public final class QueryResources {
   void close() {
     for(final Data data : datas) Close.close(data, qc.context);
     datas.clear();
+    closeExternal();
+  }
+
+  /**
+   * Prepares the resources of a compiled query for repeated evaluation. The query can only be
+   * reused if no other resources than persistent databases have been accessed so far.
+   * @return success flag
+   */
+  boolean reuse() {
+    if(textual || modules != null || !external.isEmpty() || !inputs.isEmpty()) return false;
+    final int ds = datas.size();
+    final long[] vrsns = new long[ds];
+    for(int d = 0; d < ds; d++) {
+      final Data data = datas.get(d);
+      if(data.inMemory()) return false;
+      vrsns[d] = version(data);
+    }
+    versions = vrsns;
+    collections = colls.size();
+    return true;
+  }
+
+  /**
+   * Closes all resources that have been opened after the query was compiled.
+   */
+  synchronized void release() {
+    for(int d = datas.size() - 1; d >= versions.length; d--) {
+      Close.close(datas.remove(d), qc.context);
+    }
+    for(int c = colls.size() - 1; c >= collections; c--) {
+      colls.remove(c);
+      collNames.remove(c);
+    }
+    closeExternal();
+  }
+
+  /**
+   * Checks if the databases that have been opened at compile time are unchanged, and if the
+   * current user is still permitted to read them. The result is only reliable if the locks
+   * of the query have been acquired.
+   * @return result of check
+   */
+  boolean valid() {
+    final Context ctx = qc.context;
+    final int ds = versions.length;
+    for(int d = 0; d < ds; d++) {
+      final Data data = datas.get(d);
+      if(version(data) != versions[d] || !ctx.perm(Perm.READ, data.meta.name)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Checks if the specified database has been opened.
+   * @param name name of database
+   * @return result of check
+   */
+  synchronized boolean opened(final String name) {
+    for(final Data data : datas) {
+      final String n = data.meta.name;
+      if(!data.inMemory() && (Prop.CASE ? n.equals(name) : n.equalsIgnoreCase(name))) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the version of a database. The version changes whenever the database is updated,
+   * or when indexes are created or dropped.
+   * @param data data reference
+   * @return version
+   */
+  private static long version(final Data data) {
+    final MetaData meta = data.meta;
+    return (long) meta.changes << 5 | (meta.uptodate ? 1 : 0) | (meta.textindex ? 2 : 0) |
+      (meta.attrindex ? 4 : 0) | (meta.tokenindex ? 8 : 0) | (meta.ftindex ? 16 : 0);
+  }
+
+  /**
+   * Closes modules, external resources and input streams.
+   */
+  private void closeExternal() {
     // close dynamically loaded JAR files
     if(modules != null) modules.close();
     modules = null;
@@ -289,6 +377,7 @@ public final class QueryResources {
    * @return path and encoding or {@code null}
    */
   public String[] text(final String uri) {
+    textual = true;
     return texts == null ? null : texts.get(uri);
   }
 
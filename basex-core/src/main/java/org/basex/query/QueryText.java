@@ -384,6 +384,9 @@ public interface QueryText {
   /** Query Info. */ String DIR = "dir";
   /** Query Info. */ String PRE = "pre";
   /** Query Info. */ String SIZE = "size";
+  /** Query Info. */ String ESTIMATED = "estimated";
+  /** Query Info. */ String RESULTS = "results";
+  /** Query Info. */ String SCAN = "scan";
   /** Query Info. */ String AXIS = "axis";
   /** Query Info. */ String TEST = "test";
   /** Query Info. */ String MIN = "min";
@@ -427,9 +430,12 @@ public interface QueryText {
   /** Optimization info. */ String OPTPATH_X = "remove path without results: %";
   /** Optimization info. */ String OPTINDEX_X_X = "apply % index for %";
   /** Optimization info. */ String OPTNORESULTS_X = "no index results: %";
+  /** Optimization info. */ String OPTSCAN_X_X =
+      "skip index access, scan is cheaper (% index results, % scanned nodes)";
   /** Optimization info. */ String OPTCHILD_X = "convert to child steps: %";
   /** Optimization info. */ String OPTUNROLL_X = "unroll: %";
   /** Optimization info. */ String OPTOPEN_X = "open database \"%\"";
+  /** Optimization info. */ String OPTJOIN_X = "rewrite to hash join: %";
 
   // MISCELLANEOUS ================================================================================
 
@@ -48,6 +48,15 @@ public abstract class Cmp extends Arr {
     this.sc = sc;
   }
 
+  /**
+   * Checks if the comparison can be evaluated by hashing the operands: this is the case if
+   * items are tested for equality, and if the default collation is used.
+   * @return result of check
+   */
+  public final boolean hashable() {
+    return coll == null && opV() == OpV.EQ;
+  }
+
   /**
    * Swaps the operands of the expression if this might improve performance.
    * The operator itself needs to be swapped by the calling expression.
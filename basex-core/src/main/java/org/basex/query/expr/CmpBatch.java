@@ -0,0 +1,224 @@
+package org.basex.query.expr;
+
+import org.basex.data.*;
+import org.basex.index.name.*;
+import org.basex.query.*;
+import org.basex.query.expr.CmpG.*;
+import org.basex.query.expr.path.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Batch evaluation of predicates with comparisons for database nodes.
+ *
+ * Numeric range comparisons (see {@link CmpR}) and string equality tests are evaluated for
+ * arrays of pre values. The compared values are directly retrieved from the database, and no
+ * node or item instances are created. The operand of the comparison must be the context node,
+ * or a single child or attribute step without predicates.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class CmpBatch {
+  /** Range comparison ({@code null} if a string is compared). */
+  private final CmpR range;
+  /** String to be compared ({@code null} if a range is compared). */
+  private final byte[] string;
+  /** Step of the operand ({@code null}: context node). */
+  private final Step step;
+  /** Input info. */
+  private final InputInfo info;
+
+  /**
+   * Constructor.
+   * @param range range comparison (can be {@code null})
+   * @param string string to be compared (can be {@code null})
+   * @param step step (can be {@code null})
+   * @param info input info
+   */
+  private CmpBatch(final CmpR range, final byte[] string, final Step step, final InputInfo info) {
+    this.range = range;
+    this.string = string;
+    this.step = step;
+    this.info = info;
+  }
+
+  /**
+   * Returns a batch evaluator for the specified predicate.
+   * @param pred predicate
+   * @return batch evaluator or {@code null}
+   */
+  public static CmpBatch get(final Expr pred) {
+    final Expr operand;
+    final InputInfo info;
+    CmpR range = null;
+    byte[] string = null;
+    if(pred instanceof CmpR) {
+      range = (CmpR) pred;
+      operand = range.expr;
+      info = range.info;
+    } else if(pred instanceof CmpG) {
+      final CmpG cmp = (CmpG) pred;
+      if(cmp.op != OpG.EQ || cmp.coll != null || !(cmp.exprs[1] instanceof Str)) return null;
+      string = ((Str) cmp.exprs[1]).string();
+      operand = cmp.exprs[0];
+      info = cmp.info;
+    } else {
+      return null;
+    }
+
+    if(operand instanceof ContextValue) return new CmpBatch(range, string, null, info);
+    if(operand instanceof AxisPath) {
+      final AxisPath path = (AxisPath) operand;
+      if(path.root != null || path.steps.length != 1) return null;
+      final Step step = path.step(0);
+      final Test test = step.test;
+      final boolean name = test instanceof NameTest && ((NameTest) test).part == NamePart.LOCAL;
+      if(step.exprs.length == 0 && (step.axis == Axis.ATTRIBUTE ? name :
+        step.axis == Axis.CHILD && (name || test == KindTest.TXT))) {
+        return new CmpBatch(range, string, step, info);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the pre values of all nodes that match the comparison.
+   * @param pres pre values of the nodes to be filtered
+   * @param data data reference
+   * @param qc query context
+   * @return pre values of the matching nodes
+   * @throws QueryException query exception
+   */
+  public int[] filter(final int[] pres, final Data data, final QueryContext qc)
+      throws QueryException {
+
+    final boolean[] names = step != null && step.test instanceof NameTest ?
+      names((NameTest) step.test, data) : null;
+    final IntList list = new IntList();
+    for(final int pre : pres) {
+      qc.checkStop();
+      if(step == null ? match(pre, data) : match(pre, data, names)) list.add(pre);
+    }
+    return list.finish();
+  }
+
+  /**
+   * Checks if a child or attribute of the specified node matches the comparison.
+   * @param pre pre value of the context node
+   * @param data data reference
+   * @param names matching name ids (can be {@code null})
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  private boolean match(final int pre, final Data data, final boolean[] names)
+      throws QueryException {
+
+    final int kind = data.kind(pre);
+    if(kind != Data.ELEM && kind != Data.DOC) return false;
+
+    final int as = pre + data.attSize(pre, kind);
+    if(step.axis == Axis.ATTRIBUTE) {
+      for(int p = pre + 1; p < as; p++) {
+        if(names[data.nameId(p)] && match(p, data)) return true;
+      }
+      return false;
+    }
+
+    final int end = pre + data.size(pre, kind);
+    for(int p = as; p < end;) {
+      final int k = data.kind(p);
+      if((names == null ? k == Data.TEXT : k == Data.ELEM && names[data.nameId(p)]) &&
+          match(p, data)) return true;
+      p += data.size(p, k);
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the value of the specified node matches the comparison.
+   * @param pre pre value
+   * @param data data reference
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  private boolean match(final int pre, final Data data) throws QueryException {
+    if(string != null) return Token.eq(data.atom(pre), string);
+
+    // try to directly retrieve inlined numeric value (see DBNode#dbl)
+    final int kind = data.kind(pre);
+    double d = Double.NaN;
+    if(kind == Data.ELEM) {
+      final int as = data.attSize(pre, kind);
+      if(data.size(pre, kind) - as == 1 && data.kind(pre + as) == Data.TEXT) {
+        d = data.textDbl(pre + as, true);
+      }
+    } else if(kind == Data.TEXT || kind == Data.ATTR) {
+      d = data.textDbl(pre, kind == Data.TEXT);
+    }
+    return range.inRange(Double.isNaN(d) ? Dbl.parse(data.atom(pre), info) : d);
+  }
+
+  /**
+   * Returns the pre values of the elements that are returned by a child or descendant step
+   * (ignoring its predicates) for the specified database nodes.
+   * @param step step
+   * @param value context nodes
+   * @param data data reference of the context nodes
+   * @return pre values in distinct document order, or {@code null} if the step is not supported
+   */
+  public static int[] pres(final Step step, final Value value, final Data data) {
+    final Test test = step.test;
+    final boolean desc = step.axis == Axis.DESCENDANT;
+    final boolean[] names = test instanceof NameTest && ((NameTest) test).part == NamePart.LOCAL ?
+      names((NameTest) test, data) : null;
+    if(names == null && test != KindTest.ELM || !desc && step.axis != Axis.CHILD) return null;
+
+    final int[] input;
+    if(value instanceof DBNodeSeq) {
+      input = ((DBNodeSeq) value).pres();
+    } else if(value instanceof DBNode) {
+      input = new int[] { ((DBNode) value).pre() };
+    } else {
+      return null;
+    }
+
+    final IntList list = new IntList();
+    int last = -1;
+    boolean ddo = true;
+    for(final int pre : input) {
+      final int kind = data.kind(pre);
+      if(kind != Data.ELEM && kind != Data.DOC) continue;
+      final int end = pre + data.size(pre, kind);
+      if(pre < last) ddo = false;
+      for(int p = pre + data.attSize(pre, kind); p < end;) {
+        final int k = data.kind(p);
+        if(k == Data.ELEM && (names == null || names[data.nameId(p)])) list.add(p);
+        p += !desc ? data.size(p, k) : k == Data.ELEM ? data.attSize(p, k) : 1;
+      }
+      last = end;
+    }
+    // nested context nodes: sort results and remove duplicates
+    if(!ddo) list.ddo();
+    return list.finish();
+  }
+
+  /**
+   * Returns the ids of the element or attribute names that match a local name test.
+   * @param test name test
+   * @param data data reference
+   * @return flags for all name ids
+   */
+  public static boolean[] names(final NameTest test, final Data data) {
+    final Names nms = test.type == NodeType.ATT ? data.attrNames : data.elemNames;
+    final int ns = nms.size();
+    final boolean[] names = new boolean[ns + 1];
+    for(int n = 1; n <= ns; n++) names[n] = Token.eq(test.local, Token.local(nms.key(n)));
+    return names;
+  }
+}
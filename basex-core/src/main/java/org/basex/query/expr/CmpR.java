@@ -158,7 +158,7 @@ public final class CmpR extends Single {
    * @param value double value
    * @return result of check
    */
-  private boolean inRange(final double value) {
+  boolean inRange(final double value) {
     return value >= min && value <= max;
   }
 
@@ -200,9 +200,12 @@ public final class CmpR extends Single {
       return true;
     }
 
-    // estimate costs
-    ii.costs = ii.costs(data, nr);
-    if(ii.costs == null) return false;
+    // estimate costs via the distribution of the values in the statistics
+    if(ii.costs(data, nr) == null) return false;
+    final double all = key.max - key.min, sel = nr.max - nr.min;
+    final double part = StatsType.isInteger(key.type) ? (sel + 1) / (all + 1) :
+      all > 0 ? sel / all : 1;
+    ii.costs = IndexCosts.get((int) Math.max(1, Math.ceil(key.count * part)));
 
     // skip if numbers are negative, doubles, or of different string length
     final int mnl = min >= 0 && (long) min == min ? token(min).length : -1;
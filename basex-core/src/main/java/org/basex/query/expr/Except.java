@@ -2,6 +2,7 @@ package org.basex.query.expr;
 
 import static org.basex.query.QueryText.*;
 
+import java.util.*;
 import java.util.function.*;
 
 import org.basex.query.*;
@@ -17,6 +18,7 @@ import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Except expression.
@@ -83,8 +85,8 @@ public final class Except extends Set {
   }
 
   @Override
-  protected NodeIter iterate(final QueryContext qc) throws QueryException {
-    return new SetIter(qc, iters(qc)) {
+  protected NodeIter iterate(final Iter[] iters, final QueryContext qc) {
+    return new SetIter(qc, iters) {
       @Override
       public ANode next() throws QueryException {
         if(nodes == null) {
@@ -113,6 +115,32 @@ public final class Except extends Set {
     };
   }
 
+  @Override
+  int[] combine(final int[][] pres) {
+    int[] result = pres[0];
+    final int pl = pres.length;
+    for(int p = 1; p < pl && result.length > 0; p++) {
+      final int[] remove = pres[p];
+      final int rl = remove.length;
+      final IntList list = new IntList(result.length);
+      int r = 0;
+      for(final int value : result) {
+        // galloping search for the value to be removed (see Intersect)
+        int bound = 1;
+        while(r + bound < rl && remove[r + bound] < value) bound <<= 1;
+        final int i = Arrays.binarySearch(remove, r, Math.min(r + bound + 1, rl), value);
+        if(i >= 0) {
+          r = i + 1;
+        } else {
+          list.add(value);
+          r = -i - 1;
+        }
+      }
+      result = list.finish();
+    }
+    return result;
+  }
+
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
     final Except ex = new Except(info, copyAll(cc, vm, exprs));
@@ -2,6 +2,7 @@ package org.basex.query.expr;
 
 import static org.basex.query.QueryText.*;
 
+import java.util.*;
 import java.util.function.*;
 
 import org.basex.query.*;
@@ -17,6 +18,7 @@ import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Intersect expression.
@@ -84,8 +86,8 @@ public final class Intersect extends Set {
   }
 
   @Override
-  protected NodeIter iterate(final QueryContext qc) throws QueryException {
-    return new SetIter(qc, iters(qc)) {
+  protected NodeIter iterate(final Iter[] iters, final QueryContext qc) {
+    return new SetIter(qc, iters) {
       @Override
       public ANode next() throws QueryException {
         final int irl = iter.length;
@@ -112,6 +114,44 @@ public final class Intersect extends Set {
     };
   }
 
+  @Override
+  int[] combine(final int[][] pres) {
+    // start with the smallest array
+    final int[][] sorted = pres.clone();
+    Arrays.sort(sorted, (p1, p2) -> p1.length - p2.length);
+    int[] result = sorted[0];
+    final int pl = sorted.length;
+    for(int p = 1; p < pl && result.length > 0; p++) result = intersect(result, sorted[p]);
+    return result;
+  }
+
+  /**
+   * Intersects two sorted arrays. The values of the smaller array are looked up in the
+   * larger array via galloping (exponential) search.
+   * @param small smaller array
+   * @param large larger array
+   * @return values contained in both arrays
+   */
+  private static int[] intersect(final int[] small, final int[] large) {
+    final IntList list = new IntList(small.length);
+    final int ll = large.length;
+    int l = 0;
+    for(final int value : small) {
+      // double the distance until the searched value is exceeded, then search the last interval
+      int bound = 1;
+      while(l + bound < ll && large[l + bound] < value) bound <<= 1;
+      final int i = Arrays.binarySearch(large, l, Math.min(l + bound + 1, ll), value);
+      if(i >= 0) {
+        list.add(value);
+        l = i + 1;
+      } else {
+        l = -i - 1;
+      }
+      if(l == ll) break;
+    }
+    return list.finish();
+  }
+
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
     final Intersect is = new Intersect(info, copyAll(cc, vm, exprs));
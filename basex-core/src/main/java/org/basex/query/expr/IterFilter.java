@@ -1,9 +1,12 @@
 package org.basex.query.expr;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
@@ -46,7 +49,33 @@ public final class IterFilter extends Filter {
   @Override
   public Value value(final QueryContext qc) throws QueryException {
     final ValueBuilder vb = new ValueBuilder(qc);
-    final Iter iter = root.iter(qc);
+    final CmpBatch batch = exprs.length == 1 ? CmpBatch.get(exprs[0]) : null;
+    final boolean parallel = Parallel.enabled(qc, exprs);
+    final Iter iter;
+    if(batch != null || parallel) {
+      final Value input = root.value(qc);
+      if(batch != null && input instanceof DBNodeSeq) {
+        // database nodes: evaluate comparison for all pre values
+        final DBNodeSeq nodes = (DBNodeSeq) input;
+        final Data data = nodes.data();
+        return DBNodeSeq.get(batch.filter(nodes.pres(), data, qc), data, this);
+      }
+      if(parallel && input.size() >= Parallel.MIN) {
+        // large input: filter chunks in parallel
+        for(final Value value : Parallel.eval(input, (in, cqc) -> {
+          final ValueBuilder cvb = new ValueBuilder(cqc);
+          for(final Item item : in) {
+            if(match(item, cqc)) cvb.add(item);
+          }
+          return cvb.value();
+        }, qc)) vb.add(value);
+        return vb.value(this);
+      }
+      iter = input.iter();
+    } else {
+      iter = root.iter(qc);
+    }
+
     for(Item item; (item = qc.next(iter)) != null;) {
       if(match(item, qc)) vb.add(item);
     }
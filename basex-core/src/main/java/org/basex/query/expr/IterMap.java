@@ -1,7 +1,10 @@
 package org.basex.query.expr;
 
+import java.util.*;
+
 import org.basex.query.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.var.*;
@@ -70,6 +73,27 @@ public final class IterMap extends SimpleMap {
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
+    final Expr[] next = Arrays.copyOfRange(exprs, 1, exprs.length);
+    if(Parallel.enabled(qc, next)) {
+      final Value input = exprs[0].value(qc);
+      if(input.size() >= Parallel.MIN) {
+        // large input: map chunks in parallel
+        final Expr expr = next.length == 1 ? next[0] : new IterMap(info, next);
+        final ValueBuilder vb = new ValueBuilder(qc);
+        for(final Value value : Parallel.eval(input, (in, cqc) -> {
+          final ValueBuilder cvb = new ValueBuilder(cqc);
+          for(final Item item : in) {
+            cqc.focus.value = item;
+            cvb.add(expr.value(cqc));
+          }
+          return cvb.value();
+        }, qc)) vb.add(value);
+        return vb.value(this);
+      }
+      final Expr[] ex = exprs.clone();
+      ex[0] = input;
+      return new IterMap(info, ex).iter(qc).value(qc, this);
+    }
     return iter(qc).value(qc, this);
   }
 
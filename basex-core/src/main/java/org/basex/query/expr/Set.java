@@ -6,10 +6,13 @@ import java.util.*;
 
 import org.basex.data.*;
 import org.basex.query.*;
+import org.basex.query.expr.index.*;
+import org.basex.query.expr.path.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
 
@@ -48,25 +51,53 @@ abstract class Set extends Arr {
 
   @Override
   public final Iter iter(final QueryContext qc) throws QueryException {
-    return iterative ? iterate(qc) : nodes(qc).iter();
+    if(!iterative) return nodes(qc).iter();
+    // results of index requests are materialized anyway: combine pre values
+    if(((Checks<Expr>) ex -> ex instanceof IndexAccess ||
+        ex instanceof Path && ((Path) ex).root instanceof IndexAccess).all(exprs)) {
+      return value(qc).iter();
+    }
+
+    final int el = exprs.length;
+    final Iter[] iters = new Iter[el];
+    for(int e = 0; e < el; e++) iters[e] = exprs[e].iter(qc);
+    return iterate(iters, qc);
   }
 
   @Override
   public final Value value(final QueryContext qc) throws QueryException {
-    return iterative ? iterate(qc).value(qc, this) : nodes(qc);
-  }
+    if(!iterative) return nodes(qc);
 
-  /**
-   * Creates iterators for all expressions.
-   * @param qc query context
-   * @return iterators
-   * @throws QueryException query exception
-   */
-  Iter[] iters(final QueryContext qc) throws QueryException {
+    // evaluate operands, check if all nodes are stored in the same database
     final int el = exprs.length;
+    final Value[] values = new Value[el];
+    Data data = null;
+    boolean db = true;
+    for(int e = 0; e < el; e++) {
+      final Value value = exprs[e].value(qc);
+      if(value instanceof DBNodeSeq || value instanceof DBNode) {
+        if(data == null) data = value.data();
+        else if(data != value.data()) db = false;
+      } else if(!value.isEmpty()) {
+        db = false;
+      }
+      values[e] = value;
+    }
+
+    // database nodes: combine sorted pre values
+    if(db && data != null) {
+      final int[][] pres = new int[el][];
+      for(int e = 0; e < el; e++) {
+        final Value value = values[e];
+        pres[e] = value instanceof DBNodeSeq ? ((DBNodeSeq) value).pres() :
+          value instanceof DBNode ? new int[] { ((DBNode) value).pre() } : new int[0];
+      }
+      return DBNodeSeq.get(combine(pres), data, this);
+    }
+
     final Iter[] iters = new Iter[el];
-    for(int e = 0; e < el; e++) iters[e] = exprs[e].iter(qc);
-    return iters;
+    for(int e = 0; e < el; e++) iters[e] = values[e].iter();
+    return iterate(iters, qc).value(qc, this);
   }
 
   /**
@@ -79,11 +110,18 @@ abstract class Set extends Arr {
 
   /**
    * Evaluates the specified iterators in an iterative manner.
+   * @param iters iterators of the operands
    * @param qc query context
    * @return resulting iterator
-   * @throws QueryException query exception
    */
-  protected abstract Iter iterate(QueryContext qc) throws QueryException;
+  protected abstract Iter iterate(Iter[] iters, QueryContext qc);
+
+  /**
+   * Combines the sorted and distinct pre values of the operands.
+   * @param pres pre values of the operands (the arrays must not be modified)
+   * @return resulting pre values
+   */
+  abstract int[] combine(int[][] pres);
 
   @Override
   public final boolean ddo() {
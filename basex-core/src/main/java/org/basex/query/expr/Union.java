@@ -19,6 +19,7 @@ import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Union expression.
@@ -113,8 +114,8 @@ public final class Union extends Set {
   }
 
   @Override
-  protected NodeIter iterate(final QueryContext qc) throws QueryException {
-    return new SetIter(qc, iters(qc)) {
+  protected NodeIter iterate(final Iter[] iters, final QueryContext qc) {
+    return new SetIter(qc, iters) {
       @Override
       public ANode next() throws QueryException {
         if(nodes == null) {
@@ -143,6 +144,27 @@ public final class Union extends Set {
     };
   }
 
+  @Override
+  int[] combine(final int[][] pres) {
+    int[] result = pres[0];
+    final int pl = pres.length;
+    for(int p = 1; p < pl; p++) {
+      final int[] add = pres[p];
+      final int rl = result.length, al = add.length;
+      final IntList list = new IntList(rl + al);
+      int r = 0, a = 0;
+      while(r < rl && a < al) {
+        final int diff = result[r] - add[a];
+        list.add(diff <= 0 ? result[r++] : add[a++]);
+        if(diff == 0) a++;
+      }
+      while(r < rl) list.add(result[r++]);
+      while(a < al) list.add(add[a++]);
+      result = list.finish();
+    }
+    return result;
+  }
+
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
     final Union un = new Union(info, copyAll(cc, vm, exprs));
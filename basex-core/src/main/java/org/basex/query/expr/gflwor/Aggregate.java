@@ -0,0 +1,124 @@
+package org.basex.query.expr.gflwor;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.util.list.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+
+/**
+ * Running aggregate of a non-grouping variable that is only referenced as single argument of
+ * {@code fn:count}, {@code fn:sum}, {@code fn:avg}, {@code fn:min} or {@code fn:max}.
+ * Instead of the complete value, a few items are kept for each group, from which the same result
+ * will be computed by the function call.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+final class Aggregate {
+  /** Maximum number of buffered items. */
+  private static final int MAX = 8;
+  /** Aggregate functions. */
+  private static final Function[] FUNCTIONS = {
+    Function.COUNT, Function.SUM, Function.AVG, Function.MIN, Function.MAX
+  };
+
+  /** Function call that references the variable. */
+  private final StandardFunc func;
+  /** Aggregate function. */
+  private final Function function;
+  /** Buffered items (atomized items or partial results). */
+  private final ItemList items = new ItemList();
+  /** Number of items (for fn:count: first item). */
+  private long count;
+  /** Indicates if the buffered items could not be combined. */
+  private boolean raw;
+
+  /**
+   * Constructor.
+   * @param func function call that references the variable
+   */
+  Aggregate(final StandardFunc func) {
+    this.func = func;
+    function = function(func);
+  }
+
+  /**
+   * Returns the aggregate function of the specified function call.
+   * @param func function call
+   * @return function or {@code null}
+   */
+  static Function function(final StandardFunc func) {
+    for(final Function function : FUNCTIONS) {
+      if(function.is(func)) return function;
+    }
+    return null;
+  }
+
+  /**
+   * Adds a value.
+   * @param value value
+   * @param qc query context
+   * @throws QueryException query exception
+   */
+  void add(final Value value, final QueryContext qc) throws QueryException {
+    if(function == Function.COUNT) {
+      if(count == 0 && !value.isEmpty()) items.add(value.itemAt(0));
+      count += value.size();
+    } else {
+      final Value atoms = value.atomValue(qc, func.info);
+      items.add(atoms);
+      count += atoms.size();
+      if(!raw && items.size() >= MAX) {
+        final Item item = combine(qc);
+        if(item != null) {
+          items.reset();
+          items.add(item);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns a value for which the function call yields the aggregated result.
+   * @param qc query context
+   * @return value
+   * @throws QueryException query exception
+   */
+  Value value(final QueryContext qc) throws QueryException {
+    if(function == Function.COUNT) return count == 0 ? Empty.VALUE :
+      SingletonSeq.get(items.get(0), count);
+
+    // average: return result, or all items if the original items are still buffered
+    if(function == Function.AVG && !raw && count != items.size()) {
+      final Item item = combine(qc);
+      if(item != null) {
+        try {
+          return Calc.DIV.eval(item, Int.get(count), func.info);
+        } catch(final QueryException ex) {
+          raw = true;
+        }
+      }
+    }
+    return items.value();
+  }
+
+  /**
+   * Combines the buffered items. If an error is raised, the items are kept and the error
+   * will be raised again when the function is invoked.
+   * @param qc query context
+   * @return resulting item, or {@code null} if the items could not be combined
+   */
+  private Item combine(final QueryContext qc) {
+    final Function combine = function == Function.AVG ? Function.SUM : function;
+    try {
+      final Item item = combine.get(func.sc, func.info, items.value()).item(qc, func.info);
+      if(item != Empty.VALUE) return item;
+    } catch(final QueryException ex) {
+      raw = true;
+    }
+    return null;
+  }
+}
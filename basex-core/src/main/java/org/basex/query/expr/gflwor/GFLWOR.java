@@ -46,18 +46,42 @@ public final class GFLWOR extends ParseExpr {
 
   /**
    * Creates a new evaluator for this FLWOR expression.
+   * @param limit maximum number of results that will be requested
    * @return the evaluator
    */
-  private Eval newEval() {
+  private Eval newEval(final long limit) {
     Eval eval = new StartEval();
-    for(final Clause clause : clauses) eval = clause.eval(eval);
+    int c = 0;
+    for(final Clause clause : clauses) {
+      if(clause instanceof GroupBy) {
+        // pass on subsequent clauses to detect aggregated variables
+        eval = ((GroupBy) clause).eval(eval, clauses.subList(c + 1, clauses.size()), rtrn);
+      } else if(clause == clauses.getLast() && clause instanceof OrderBy &&
+        limit < Long.MAX_VALUE && rtrn.seqType().oneOrMore()) {
+        // only the first tuples need to be sorted if each of them yields at least one item
+        eval = ((OrderBy) clause).eval(eval, limit);
+      } else {
+        eval = clause.eval(eval);
+      }
+      c++;
+    }
     return eval;
   }
 
   @Override
   public Iter iter(final QueryContext qc) {
+    return iter(qc, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns an iterator, of which only the specified number of items will be requested.
+   * @param qc query context
+   * @param limit maximum number of items that will be requested
+   * @return iterator
+   */
+  public Iter iter(final QueryContext qc, final long limit) {
     return new Iter() {
-      private final Eval ev = newEval();
+      private final Eval ev = newEval(limit);
       private Iter sub = Empty.ITER;
 
       @Override
@@ -77,7 +101,7 @@ public final class GFLWOR extends ParseExpr {
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
-    final Eval eval = newEval();
+    final Eval eval = newEval(Long.MAX_VALUE);
     final ValueBuilder vb = new ValueBuilder(qc);
     while(eval.next(qc)) vb.add(rtrn.value(qc));
     return vb.value(this);
@@ -109,7 +133,9 @@ public final class GFLWOR extends ParseExpr {
         slideLetsOut(cc) | unusedVars(cc) | cleanDeadVars() | optimizeWhere(cc) | optimizePos(cc) |
         unnestLets(cc) | mergeLastClause() | ifToWhere(cc));
 
+    joins(cc);
     mergeWheres();
+    splitAggregates(cc);
 
     // replace with expression of 'return' clause if all clauses were removed
     Expr expr;
@@ -550,6 +576,50 @@ public final class GFLWOR extends ParseExpr {
     return changed;
   }
 
+  /**
+   * Rewrites for clauses with equality predicates to hash joins, and reverts joins that have
+   * become dependent on the variables of preceding clauses.
+   * @param cc compilation context
+   * @throws QueryException query exception
+   */
+  private void joins(final CompileContext cc) throws QueryException {
+    final ArrayList<Var> vars = new ArrayList<>();
+    final long[] minMax = { 1, 1 };
+    final ListIterator<Clause> iter = clauses.listIterator();
+    while(iter.hasNext()) {
+      Clause clause = iter.next();
+      if(clause instanceof Join) {
+        final Join join = (Join) clause;
+        if(!join.valid(vars)) {
+          clause = join.toFor(cc);
+          iter.set(clause);
+        }
+      } else if(clause instanceof For && (minMax[1] < 0 || minMax[1] > 1)) {
+        // no join if preceding clauses yield a single tuple
+        final Join join = Join.get((For) clause, vars, cc);
+        if(join != null) {
+          cc.info(QueryText.OPTJOIN_X, clause);
+          clause = join;
+          iter.set(clause);
+        }
+      }
+      // variables bound to a single tuple are constant
+      clause.calcSize(minMax);
+      if(minMax[1] != 1) Collections.addAll(vars, clause.vars());
+    }
+
+    // filter in return clause: for $a in A return B[@id = $a]  ->  ... for $b in B ... return $b
+    if((minMax[1] < 0 || minMax[1] > 1) && (rtrn instanceof Filter || rtrn instanceof AxisPath)) {
+      final Var var = cc.vs().addNew(new QNm("join"), null, false, cc.qc, info);
+      final Join join = Join.get(new For(var, null, null, rtrn, false).optimize(cc), vars, cc);
+      if(join != null) {
+        cc.info(QueryText.OPTJOIN_X, rtrn);
+        clauses.add(join);
+        rtrn = new VarRef(info, var).optimize(cc);
+      }
+    }
+  }
+
   /**
    * Rewrites positional variables to predicates.
    * @param cc compilation context
@@ -777,6 +847,24 @@ public final class GFLWOR extends ParseExpr {
     }
   }
 
+  /**
+   * Introduces separate non-grouping variables for different aggregate functions.
+   * @param cc compilation context
+   */
+  private void splitAggregates(final CompileContext cc) {
+    boolean changed = false;
+    int c = 0;
+    for(final Clause clause : clauses) {
+      if(clause instanceof GroupBy) {
+        changed |= ((GroupBy) clause).splitAggregates(clauses.subList(c + 1, clauses.size()),
+            rtrn, cc);
+      }
+      c++;
+    }
+    // pass on new variables to subsequent clauses
+    if(changed) cleanDeadVars();
+  }
+
   @Override
   public boolean isVacuous() {
     return rtrn.isVacuous();
@@ -885,7 +973,8 @@ public final class GFLWOR extends ParseExpr {
     // check if an outer clause can prevent the error
     while(iter.hasPrevious()) {
       final Clause b4 = iter.previous();
-      if(b4 instanceof For || b4 instanceof Window || b4 instanceof Where) {
+      if(b4 instanceof For || b4 instanceof Join || b4 instanceof Window ||
+          b4 instanceof Where) {
         iter.next();
         while(iter.hasNext()) {
           iter.next();
@@ -14,6 +14,8 @@ final class Group {
   final Item[] key;
   /** Non-grouping variables. */
   final ValueBuilder[] ngv;
+  /** Aggregated non-grouping variables. */
+  final Aggregate[] aggrs;
   /** Overflow list. */
   Group next;
 
@@ -21,9 +23,11 @@ final class Group {
    * Constructor.
    * @param k grouping key
    * @param ng non-grouping variables
+   * @param ag aggregated non-grouping variables
    */
-  Group(final Item[] k, final ValueBuilder[] ng) {
+  Group(final Item[] k, final ValueBuilder[] ng, final Aggregate[] ag) {
     key = k;
     ngv = ng;
+    aggrs = ag;
   }
 }
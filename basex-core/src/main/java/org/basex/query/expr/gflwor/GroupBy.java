@@ -3,9 +3,11 @@ package org.basex.query.expr.gflwor;
 import static org.basex.query.QueryText.*;
 
 import java.util.*;
+import java.util.List;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.func.*;
 import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.value.*;
@@ -31,6 +33,8 @@ public final class GroupBy extends Clause {
   private Var[] post;
   /** Number of non-occluded grouping variables. */
   private final int nonOcc;
+  /** Aggregate function calls of non-grouping variables (assigned at evaluation time). */
+  private StandardFunc[] aggrs;
 
   /**
    * Constructor.
@@ -86,6 +90,19 @@ public final class GroupBy extends Clause {
 
   @Override
   Eval eval(final Eval sub) {
+    return eval(sub, Collections.emptyList(), null);
+  }
+
+  /**
+   * Evaluates the clause.
+   * @param sub wrapped evaluator
+   * @param clauses clauses that follow this clause
+   * @param rtrn return expression (can be {@code null})
+   * @return evaluator
+   */
+  Eval eval(final Eval sub, final List<Clause> clauses, final Expr rtrn) {
+    if(aggrs == null) aggrs = aggregates(clauses, rtrn);
+    final StandardFunc[] funcs = aggrs;
     return new Eval() {
       /** Groups to iterate over. */
       private Group[] groups;
@@ -109,7 +126,9 @@ public final class GroupBy extends Clause {
           }
         }
         final int pl = post.length;
-        for(int i = 0; i < pl; i++) qc.set(post[i], curr.ngv[i].value());
+        for(int i = 0; i < pl; i++) {
+          qc.set(post[i], funcs[i] != null ? curr.aggrs[i].value(qc) : curr.ngv[i].value());
+        }
         return true;
       }
 
@@ -157,9 +176,12 @@ public final class GroupBy extends Clause {
           if(grp == null) {
             // new group, add it to the list
             final ValueBuilder[] ngs = new ValueBuilder[pl];
-            final int nl = ngs.length;
-            for(int n = 0; n < nl; n++) ngs[n] = new ValueBuilder(qc);
-            grp = new Group(key, ngs);
+            final Aggregate[] ags = new Aggregate[pl];
+            for(int n = 0; n < pl; n++) {
+              if(funcs[n] != null) ags[n] = new Aggregate(funcs[n]);
+              else ngs[n] = new ValueBuilder(qc);
+            }
+            grp = new Group(key, ngs, ags);
             grps.add(grp);
 
             // insert the group into the hash table
@@ -174,7 +196,9 @@ public final class GroupBy extends Clause {
 
           // add values of non-grouping variables to the group
           for(int g = 0; g < pl; g++) {
-            grp.ngv[g].add(preExpr[g].value(qc));
+            final Value value = preExpr[g].value(qc);
+            if(funcs[g] != null) grp.aggrs[g].add(value, qc);
+            else grp.ngv[g].add(value);
           }
         }
 
@@ -184,6 +208,128 @@ public final class GroupBy extends Clause {
     };
   }
 
+  /**
+   * Returns the aggregate function calls of non-grouping variables. A variable will be
+   * aggregated if all its references are arguments of the same aggregate function.
+   * @param clauses clauses that follow this clause
+   * @param rtrn return expression (can be {@code null})
+   * @return function calls (entries are {@code null} if variables are not aggregated)
+   */
+  private StandardFunc[] aggregates(final List<Clause> clauses, final Expr rtrn) {
+    final ArrayList<ArrayList<StandardFunc>> calls = calls(clauses, rtrn);
+    final int pl = post.length;
+    final StandardFunc[] funcs = new StandardFunc[pl];
+    for(int p = 0; p < pl; p++) {
+      final ArrayList<StandardFunc> list = calls.get(p);
+      if(list == null || list.isEmpty()) continue;
+      final StandardFunc func = list.get(0);
+      boolean same = true;
+      for(final StandardFunc sf : list) same &= sf.definition == func.definition;
+      if(same) funcs[p] = func;
+    }
+    return funcs;
+  }
+
+  /**
+   * Introduces separate non-grouping variables for different aggregate functions that
+   * reference the same variable. Example:
+   * {@code group by $k := ... return (count($v), sum($v))} is rewritten to
+   * {@code group by $k := ... return (count($v), sum($v2))}.
+   * @param clauses clauses that follow this clause
+   * @param rtrn return expression
+   * @param cc compilation context
+   * @return {@code true} if variables were added
+   */
+  boolean splitAggregates(final List<Clause> clauses, final Expr rtrn,
+      final CompileContext cc) {
+    final ArrayList<ArrayList<StandardFunc>> calls = calls(clauses, rtrn);
+    final int pl = post.length;
+    boolean changed = false;
+    for(int p = 0; p < pl; p++) {
+      final ArrayList<StandardFunc> list = calls.get(p);
+      if(list == null) continue;
+      // assign a new variable to each additional aggregate function
+      final ArrayList<FuncDefinition> defs = new ArrayList<>();
+      final ArrayList<Var> vs = new ArrayList<>();
+      for(final StandardFunc func : list) {
+        int d = defs.indexOf(func.definition);
+        if(d == -1) {
+          d = defs.size();
+          defs.add(func.definition);
+          if(d == 0) {
+            vs.add(post[p]);
+          } else {
+            final Var var = cc.copy(post[p], null);
+            preExpr = Array.add(preExpr, preExpr[p].copy(cc, new IntObjMap<>()));
+            post = Array.add(post, var);
+            vs.add(var);
+            changed = true;
+          }
+        }
+        if(d != 0) func.exprs[0] = new VarRef(func.info, vs.get(d));
+      }
+    }
+    if(changed) {
+      vars = vars(specs, post);
+      aggrs = null;
+    }
+    return changed;
+  }
+
+  /**
+   * Collects the aggregate function calls that reference non-grouping variables.
+   * @param clauses clauses that follow this clause
+   * @param rtrn return expression (can be {@code null})
+   * @return function calls for each variable
+   *   ({@code null} if a variable is also referenced by other expressions)
+   */
+  private ArrayList<ArrayList<StandardFunc>> calls(final List<Clause> clauses,
+      final Expr rtrn) {
+    final int pl = post.length;
+    final ArrayList<ArrayList<StandardFunc>> calls = new ArrayList<>(pl);
+    for(int p = 0; p < pl; p++) calls.add(new ArrayList<>(1));
+    final int[] refs = new int[pl];
+    final ASTVisitor visitor = new ASTVisitor() {
+      @Override
+      public boolean used(final VarRef ref) {
+        final int p = index(ref);
+        if(p != -1) refs[p]++;
+        return true;
+      }
+
+      @Override
+      public boolean standardFunc(final StandardFunc func) {
+        if(func.exprs.length == 1 && Aggregate.function(func) != null) {
+          final int p = index(func.exprs[0]);
+          if(p != -1) calls.get(p).add(func);
+        }
+        return true;
+      }
+
+      /**
+       * Returns the index of a referenced non-grouping variable.
+       * @param expr expression
+       * @return index or {@code -1}
+       */
+      private int index(final Expr expr) {
+        if(expr instanceof VarRef) {
+          final Var var = ((VarRef) expr).var;
+          for(int p = 0; p < pl; p++) {
+            if(var.is(post[p])) return p;
+          }
+        }
+        return -1;
+      }
+    };
+    for(final Clause clause : clauses) clause.accept(visitor);
+    if(rtrn != null) rtrn.accept(visitor);
+
+    for(int p = 0; p < pl; p++) {
+      if(refs[p] != calls.get(p).size()) calls.set(p, null);
+    }
+    return calls;
+  }
+
   /**
    * Checks two keys for equality.
    * @param its1 first keys
@@ -290,6 +436,7 @@ public final class GroupBy extends Clause {
         post = Array.remove(post, p--);
       }
     }
+    aggrs = null;
     return preExpr.length < len;
   }
 
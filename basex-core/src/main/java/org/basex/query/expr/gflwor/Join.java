@@ -0,0 +1,521 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.expr.path.*;
+import org.basex.query.util.*;
+import org.basex.query.util.list.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * FLWOR {@code for} clause with an equality predicate, which is evaluated as hash join:
+ * {@code for $var in EXPR[KEY = PROBE]}. {@code EXPR} and {@code KEY} must be independent of
+ * the preceding clauses. The items of the bound expression are hashed by their keys once,
+ * and the items with matching keys are looked up for each incoming tuple.
+ *
+ * Keys are hashed if they are strings or untyped, or if they are numeric. For all other keys,
+ * the predicate is evaluated for each item.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class Join extends Clause {
+  /** Key type: strings and untyped atomic items. */
+  private static final int STRING = 1;
+  /** Key type: numbers (except for floats). */
+  private static final int NUMBER = 2;
+  /** Key type: floats (compared with other numbers at float precision). */
+  private static final int FLOAT = 3;
+  /** Key type: other items (no hashing). */
+  private static final int OTHER = 4;
+
+  /** Item variable. */
+  private final Var var;
+  /** Bound expression. */
+  private Expr expr;
+  /** Join predicate (equality comparison). */
+  private Expr pred;
+
+  /**
+   * Constructor.
+   * @param var item variable
+   * @param expr bound expression
+   * @param pred join predicate
+   */
+  private Join(final Var var, final Expr expr, final Expr pred) {
+    super(var.info, SeqType.ITEM_ZO, var);
+    this.var = var;
+    this.expr = expr;
+    this.pred = pred;
+  }
+
+  /**
+   * Tries to rewrite a for clause to a hash join.
+   * @param fr for clause
+   * @param vars variables declared by the preceding clauses
+   * @param cc compilation context
+   * @return join or {@code null}
+   * @throws QueryException query exception
+   */
+  static Join get(final For fr, final ArrayList<Var> vars, final CompileContext cc)
+      throws QueryException {
+
+    if(fr.vars.length != 1 || fr.empty || fr.scoring) return null;
+
+    // choose predicates of filter expression or last step
+    final Expr ex = fr.expr;
+    final Expr[] preds;
+    if(ex instanceof Filter) {
+      preds = ((Filter) ex).exprs;
+    } else if(ex instanceof AxisPath) {
+      final AxisPath path = (AxisPath) ex;
+      preds = path.step(path.steps.length - 1).exprs;
+    } else {
+      return null;
+    }
+
+    // skip positional predicates, find join predicate
+    int p = -1;
+    final int pl = preds.length;
+    for(int e = 0; e < pl; e++) {
+      final Expr prd = preds[e];
+      if(prd.seqType().mayBeNumber() || prd.has(Flag.POS)) return null;
+      if(p == -1 && key(prd) != -1) p = e;
+    }
+    if(p == -1) return null;
+
+    // create bound expression without join predicate
+    final ExprList list = new ExprList(pl - 1);
+    for(int e = 0; e < pl; e++) {
+      if(e != p) list.add(preds[e]);
+    }
+    final Expr[] other = list.finish();
+    Expr input;
+    if(ex instanceof Filter) {
+      final Filter filter = (Filter) ex;
+      input = Filter.get(filter.info, filter.root, other);
+    } else {
+      final AxisPath path = (AxisPath) ex;
+      final Expr[] steps = path.steps.clone();
+      final int sl = steps.length - 1;
+      final Step step = path.step(sl);
+      steps[sl] = Step.get(step.info, step.axis, step.test, other);
+      input = Path.get(path.info, path.root, steps);
+    }
+
+    final Expr pred = preds[p];
+    if(!independent(input, pred, vars)) return null;
+    input = input.optimize(cc);
+    return new Join(fr.var, input, pred).optimize(cc);
+  }
+
+  /**
+   * Returns the offset of the join key in the operands of a join predicate.
+   * @param pred predicate
+   * @return offset of the operand that depends on the context, or {@code -1}
+   */
+  private static int key(final Expr pred) {
+    if(pred instanceof Cmp && ((Cmp) pred).hashable() && !pred.has(Flag.NDT, Flag.POS)) {
+      final Expr[] ops = ((Cmp) pred).exprs;
+      for(int o = 0; o < 2; o++) {
+        if(ops[o].has(Flag.CTX) && !ops[1 - o].has(Flag.CTX)) return o;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Checks if the bound expression and the join key are independent of the specified variables,
+   * and if the probed values depend on them. The bound expression must neither be
+   * nondeterministic nor construct new nodes, as it will only be evaluated once.
+   * @param expr bound expression
+   * @param pred join predicate
+   * @param vars variables
+   * @return result of check
+   */
+  private static boolean independent(final Expr expr, final Expr pred,
+      final ArrayList<Var> vars) {
+    final Expr[] ops = ((Arr) pred).exprs;
+    final int k = key(pred);
+    boolean probe = false;
+    for(final Var vr : vars) {
+      if(expr.uses(vr) || ops[k].uses(vr)) return false;
+      probe |= ops[1 - k].uses(vr);
+    }
+    return probe && !expr.has(Flag.NDT, Flag.CNS);
+  }
+
+  /**
+   * Checks if the join is still valid for the specified variables.
+   * @param vars variables declared by the preceding clauses
+   * @return result of check
+   */
+  boolean valid(final ArrayList<Var> vars) {
+    return key(pred) != -1 && independent(expr, pred, vars);
+  }
+
+  /**
+   * Rewrites the join to a for clause.
+   * @param cc compilation context
+   * @return for clause
+   * @throws QueryException query exception
+   */
+  For toFor(final CompileContext cc) throws QueryException {
+    final Expr ex = Filter.get(info, expr, pred).optimize(cc);
+    return new For(var, null, null, ex, false).optimize(cc);
+  }
+
+  @Override
+  Eval eval(final Eval sub) {
+    return new Eval() {
+      /** Hash table (created for the first incoming tuple). */
+      private Table table;
+      /** Positions of the items to be returned. */
+      private IntList positions;
+      /** Current position. */
+      private int p;
+
+      @Override
+      public boolean next(final QueryContext qc) throws QueryException {
+        while(true) {
+          if(positions != null && p < positions.size()) {
+            qc.set(var, table.items.itemAt(positions.get(p++)));
+            return true;
+          }
+          if(!sub.next(qc)) return false;
+          if(table == null) table = new Table(qc);
+          positions = table.lookup(qc);
+          p = 0;
+        }
+      }
+    };
+  }
+
+  @Override
+  public Join compile(final CompileContext cc) throws QueryException {
+    expr = expr.compile(cc);
+    cc.pushFocus(expr);
+    try {
+      pred = pred.compile(cc);
+    } finally {
+      cc.removeFocus();
+    }
+    return optimize(cc);
+  }
+
+  @Override
+  public Join optimize(final CompileContext cc) throws QueryException {
+    exprType.assign(expr.seqType().type, Occ.ONE);
+    var.refineType(seqType(), 1, cc);
+    var.data = expr.data();
+    return this;
+  }
+
+  @Override
+  public boolean has(final Flag... flags) {
+    if(expr.has(flags)) return true;
+    final Flag[] flgs = Flag.POS.remove(Flag.CTX.remove(flags));
+    return flgs.length != 0 && pred.has(flgs);
+  }
+
+  @Override
+  public boolean inlineable(final Var v) {
+    return expr.inlineable(v) && pred.inlineable(v);
+  }
+
+  @Override
+  public VarUsage count(final Var v) {
+    final VarUsage inPred = pred.count(v), inExpr = expr.count(v);
+    return inPred == VarUsage.NEVER ? inExpr : VarUsage.MORE_THAN_ONCE;
+  }
+
+  @Override
+  public Clause inline(final Var v, final Expr ex, final CompileContext cc)
+      throws QueryException {
+
+    boolean changed = false;
+    final Expr inlined = expr.inline(v, ex, cc);
+    if(inlined != null) {
+      expr = inlined;
+      changed = true;
+    }
+    if(v != null) {
+      cc.pushFocus(expr);
+      try {
+        final Expr prd = pred.inline(v, ex, cc);
+        if(prd != null) {
+          pred = prd;
+          changed = true;
+        }
+      } finally {
+        cc.removeFocus();
+      }
+    }
+    if(!changed) return null;
+    return key(pred) != -1 ? optimize(cc) : toFor(cc);
+  }
+
+  @Override
+  public Join copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    return copyType(new Join(cc.copy(var, vm), expr.copy(cc, vm), pred.copy(cc, vm)));
+  }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    if(!expr.accept(visitor)) return false;
+    visitor.enterFocus();
+    if(!pred.accept(visitor)) return false;
+    visitor.exitFocus();
+    return visitor.declared(var);
+  }
+
+  @Override
+  public void checkUp() throws QueryException {
+    checkNoneUp(expr, pred);
+  }
+
+  @Override
+  void calcSize(final long[] minMax) {
+    final long size = expr.size(), max = minMax[1];
+    minMax[0] = 0;
+    if(max > 0) minMax[1] = size >= 0 ? max * size : -1;
+  }
+
+  @Override
+  public int exprSize() {
+    return expr.exprSize() + pred.exprSize();
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if(this == obj) return true;
+    if(!(obj instanceof Join)) return false;
+    final Join j = (Join) obj;
+    return var.equals(j.var) && expr.equals(j.expr) && pred.equals(j.pred);
+  }
+
+  @Override
+  public void plan(final QueryPlan plan) {
+    final FElem elem = plan.attachVariable(plan.create(this), var, false);
+    plan.add(elem, expr, pred);
+  }
+
+  @Override
+  public String toString() {
+    return FOR + ' ' + var + ' ' + IN + " (" + expr + ")[" + pred + ']';
+  }
+
+  /**
+   * Hash table with the items of the bound expression.
+   */
+  private final class Table {
+    /** Items of the bound expression. */
+    final Value items;
+    /** Key entries, indexed by their hash values. */
+    private final IntObjMap<Entry> map = new IntObjMap<>();
+    /** Operands of the join predicate. */
+    private final Expr key, probe;
+    /** General comparison. */
+    private final boolean general;
+    /** Type of the hashed keys ({@code 0}: no keys, {@link #OTHER}: hashing is disabled). */
+    private int type;
+
+    /**
+     * Constructor, hashing the items of the bound expression.
+     * @param qc query context
+     * @throws QueryException query exception
+     */
+    Table(final QueryContext qc) throws QueryException {
+      final Expr[] ops = ((Arr) pred).exprs;
+      final int k = key(pred);
+      key = ops[k];
+      probe = ops[1 - k];
+      general = pred instanceof CmpG;
+      items = expr.value(qc);
+
+      final QueryFocus qf = qc.focus;
+      final Value cv = qf.value;
+      try {
+        final long size = items.size();
+        for(int i = 0; i < size && type != OTHER; i++) {
+          qc.checkStop();
+          qf.value = items.itemAt(i);
+          final Value keys = key.atomValue(qc, info);
+          if(!general && keys.size() > 1) {
+            // value comparison with more than one key: evaluate predicate for each item
+            type = OTHER;
+          } else {
+            for(final Item item : keys) {
+              add(item, i);
+              if(type == OTHER) break;
+            }
+          }
+        }
+      } finally {
+        qf.value = cv;
+      }
+    }
+
+    /**
+     * Adds a key.
+     * @param item key
+     * @param pos position of the item in the bound expression
+     * @throws QueryException query exception
+     */
+    private void add(final Item item, final int pos) throws QueryException {
+      final int t = type(item);
+      type = type == 0 || type == t ? t : OTHER;
+      if(type == OTHER || nan(item)) return;
+
+      final int hash = hash(item);
+      final Entry first = map.get(hash);
+      for(Entry entry = first; entry != null; entry = entry.next) {
+        if(entry.key.eq(item, null, null, info)) {
+          // add position (once)
+          if(entry.positions.peek() != pos) entry.positions.add(pos);
+          return;
+        }
+      }
+      final Entry entry = new Entry(item, pos);
+      if(first == null) {
+        map.put(hash, entry);
+      } else {
+        entry.next = first.next;
+        first.next = entry;
+      }
+    }
+
+    /**
+     * Returns the positions of all items with matching keys.
+     * @param qc query context
+     * @return positions (sorted)
+     * @throws QueryException query exception
+     */
+    IntList lookup(final QueryContext qc) throws QueryException {
+      if(type != OTHER) {
+        final Value value = probe.atomValue(qc, info);
+        final long size = value.size();
+        if(general || size <= 1) {
+          if(size == 0 || type == 0) return new IntList(0);
+          IntList list = null;
+          boolean single = true;
+          for(final Item item : value) {
+            if(type(item) != type) {
+              list = null;
+              break;
+            }
+            final IntList positions = find(item);
+            if(positions != null) {
+              if(list == null) {
+                list = positions;
+              } else {
+                if(single) list = new IntList(list.toArray());
+                list.add(positions.toArray());
+                single = false;
+              }
+            } else if(list == null) {
+              list = new IntList(0);
+            }
+          }
+          if(list != null) return single ? list : list.ddo();
+        }
+      }
+
+      // fallback: evaluate predicate for each item
+      final IntList list = new IntList();
+      final QueryFocus qf = qc.focus;
+      final Value cv = qf.value;
+      try {
+        final long size = items.size();
+        for(int i = 0; i < size; i++) {
+          qc.checkStop();
+          qf.value = items.itemAt(i);
+          if(pred.test(qc, info) != null) list.add(i);
+        }
+      } finally {
+        qf.value = cv;
+      }
+      return list;
+    }
+
+    /**
+     * Returns the positions of the items with the specified key.
+     * @param item key
+     * @return positions or {@code null}
+     * @throws QueryException query exception
+     */
+    private IntList find(final Item item) throws QueryException {
+      if(nan(item)) return null;
+      for(Entry entry = map.get(hash(item)); entry != null; entry = entry.next) {
+        if(entry.key.eq(item, null, null, info)) return entry.positions;
+      }
+      return null;
+    }
+
+    /**
+     * Returns the hash value of a key. Numbers are hashed by their double values, as equal
+     * numbers may have different types. Negative zero is hashed as positive zero.
+     * @param item key
+     * @return hash value
+     * @throws QueryException query exception
+     */
+    private int hash(final Item item) throws QueryException {
+      if(type == STRING) return item.hash(info);
+      final double d = item.dbl(info);
+      return Double.hashCode(d == 0 ? 0 : d);
+    }
+
+    /**
+     * Checks if a key is NaN. NaN is not equal to any other value.
+     * @param item key
+     * @return result of check
+     * @throws QueryException query exception
+     */
+    private boolean nan(final Item item) throws QueryException {
+      return type != STRING && Double.isNaN(item.dbl(info));
+    }
+
+    /**
+     * Returns the key type of an item.
+     * @param item item
+     * @return type
+     */
+    private int type(final Item item) {
+      return item.type.isStringOrUntyped() ? STRING : item.type == AtomType.FLT ? FLOAT :
+        item instanceof ANum ? NUMBER : OTHER;
+    }
+  }
+
+  /**
+   * Key entry.
+   */
+  private static final class Entry {
+    /** Key. */
+    final Item key;
+    /** Positions of the items with this key. */
+    final IntList positions = new IntList(1);
+    /** Next entry with the same hash value. */
+    Entry next;
+
+    /**
+     * Constructor.
+     * @param key key
+     * @param pos position of the first item
+     */
+    Entry(final Item key, final int pos) {
+      this.key = key;
+      positions.add(pos);
+    }
+  }
+}
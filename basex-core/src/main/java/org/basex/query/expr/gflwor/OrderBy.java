@@ -4,11 +4,11 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
 import java.util.*;
-import java.util.List;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.util.*;
+import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
@@ -43,14 +43,28 @@ public final class OrderBy extends Clause {
 
   @Override
   Eval eval(final Eval sub) {
+    return eval(sub, Long.MAX_VALUE);
+  }
+
+  /**
+   * Evaluates the clause. If only the first tuples will be requested, the tuples with the
+   * smallest keys will be retained in a bounded heap.
+   * @param sub wrapped evaluator
+   * @param limit maximum number of tuples that will be requested
+   * @return evaluator
+   */
+  Eval eval(final Eval sub, final long limit) {
     return new Eval() {
       private Value[][] tpls;
-      private Integer[] perm;
+      private int[] perm;
       int pos;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(tpls == null) sort(qc);
+        if(tpls == null) {
+          if(limit <= Sorter.TOPK) top(qc, (int) limit);
+          else sort(qc);
+        }
         if(pos == tpls.length) return false;
         final int p = perm[pos++];
         final Value[] tuple = tpls[p];
@@ -67,61 +81,107 @@ public final class OrderBy extends Clause {
        * @throws QueryException evaluation exception
        */
       private void sort(final QueryContext qc) throws QueryException {
-        // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<>();
+        // cache keys column-wise
+        final int kl = keys.length;
+        final ItemList[] ks = new ItemList[kl];
+        for(int k = 0; k < kl; k++) ks[k] = new ItemList();
+        final ArrayList<Value[]> tuples = new ArrayList<>();
         while(sub.next(qc)) {
-          final int kl = keys.length;
-          final Item[] key = new Item[kl];
-          for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info);
-          tuples.add(key);
-
-          final int rl = refs.length;
-          final Value[] vals = new Value[rl];
-          for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
-          tuples.add(vals);
+          for(int k = 0; k < kl; k++) ks[k].add(keys[k].expr.atomItem(qc, keys[k].info));
+          tuples.add(tuple(qc));
         }
 
-        final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
-        tpls = new Value[len][];
-        for(int i = 0; i < len; i++) {
-          perm[i] = i;
-          tpls[i] = tuples.get(i << 1 | 1);
-          ks[i] = (Item[]) tuples.get(i << 1);
+        final int len = tuples.size();
+        tpls = tuples.toArray(new Value[len][]);
+        final Sorter sorter = new Sorter(len, qc);
+        for(int k = 0; k < kl; k++) {
+          final OrderKey key = keys[k];
+          sorter.add(ks[k].list, key.desc, key.least, key.coll, key.info);
+          // be nice to the garbage collector
+          ks[k] = null;
         }
-        // be nice to the garbage collector
-        tuples = null;
+        perm = sorter.sort();
+      }
+
+      /**
+       * Retains and sorts the tuples with the smallest keys.
+       * @param qc query context
+       * @param max maximum number of tuples
+       * @throws QueryException evaluation exception
+       */
+      private void top(final QueryContext qc, final int max) throws QueryException {
+        // the heap root is the tuple that will be discarded first:
+        // the one with the largest keys, or the later one if the keys are equal
+        final MinHeap<TopKey, Value[]> heap = new MinHeap<>((tk1, tk2) -> {
+          try {
+            final int c = compare(tk2.keys, tk1.keys);
+            return c != 0 ? c : Long.compare(tk2.pos, tk1.pos);
+          } catch(final QueryException ex) {
+            throw new QueryRTException(ex);
+          }
+        });
+
+        final int kl = keys.length;
         try {
-          Arrays.sort(perm, (x, y) -> {
-            try {
-              final Item[] a = ks[x], b = ks[y];
-              final int kl = keys.length;
-              for(int k = 0; k < kl; k++) {
-                final OrderKey key = keys[k];
-                Item m = a[k], n = b[k];
-                if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
-                if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
-                if(m != Empty.VALUE && n != Empty.VALUE && !m.comparable(n))
-                  throw typeError(n, m.type, key.info);
-
-                final int c = m == Empty.VALUE
-                    ? n == Empty.VALUE ? 0                 : key.least ? -1 : 1
-                    : n == Empty.VALUE ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info);
-                if(c != 0) return key.desc ? -c : c;
-              }
-              return 0;
-            } catch(final QueryException ex) {
-              throw new QueryRTException(ex);
-            }
-          });
+          for(long p = 0; max > 0 && sub.next(qc); p++) {
+            final Item[] ks = new Item[kl];
+            for(int k = 0; k < kl; k++) ks[k] = keys[k].expr.atomItem(qc, keys[k].info);
+            heap.insert(new TopKey(ks, p), tuple(qc));
+            if(heap.size() > max) heap.removeMin();
+          }
         } catch(final QueryRTException ex) {
           throw ex.getCause();
         }
+
+        final int len = heap.size();
+        tpls = new Value[len][];
+        perm = new int[len];
+        for(int l = len; --l >= 0;) {
+          tpls[l] = heap.removeMin();
+          perm[l] = l;
+        }
       }
     };
   }
 
+  /**
+   * Returns the values of the variables of the current tuple.
+   * @param qc query context
+   * @return values
+   * @throws QueryException query exception
+   */
+  private Value[] tuple(final QueryContext qc) throws QueryException {
+    final int rl = refs.length;
+    final Value[] vals = new Value[rl];
+    for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
+    return vals;
+  }
+
+  /**
+   * Compares the sort keys of two tuples.
+   * @param keys1 keys of the first tuple
+   * @param keys2 keys of the second tuple
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  private int compare(final Item[] keys1, final Item[] keys2) throws QueryException {
+    final int kl = keys.length;
+    for(int k = 0; k < kl; k++) {
+      final OrderKey key = keys[k];
+      Item m = keys1[k], n = keys2[k];
+      if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
+      if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
+      if(m != Empty.VALUE && n != Empty.VALUE && !m.comparable(n))
+        throw typeError(n, m.type, key.info);
+
+      final int c = m == Empty.VALUE
+          ? n == Empty.VALUE ? 0                 : key.least ? -1 : 1
+          : n == Empty.VALUE ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info);
+      if(c != 0) return key.desc ? -c : c;
+    }
+    return 0;
+  }
+
   @Override
   public boolean has(final Flag... flags) {
     for(final OrderKey key : keys) {
@@ -232,4 +292,24 @@ public final class OrderBy extends Clause {
     for(int k = 0; k < kl; k++) sb.append(k == 0 ? " " : SEP).append(keys[k]);
     return sb.toString();
   }
+
+  /**
+   * Sort keys and position of a tuple.
+   */
+  private static final class TopKey {
+    /** Sort keys. */
+    private final Item[] keys;
+    /** Position of the tuple. */
+    private final long pos;
+
+    /**
+     * Constructor.
+     * @param keys sort keys
+     * @param pos position of the tuple
+     */
+    private TopKey(final Item[] keys, final long pos) {
+      this.keys = keys;
+      this.pos = pos;
+    }
+  }
 }
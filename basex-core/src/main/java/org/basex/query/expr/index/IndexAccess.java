@@ -1,10 +1,14 @@
 package org.basex.query.expr.index;
 
+import java.util.concurrent.atomic.*;
+
 import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.util.*;
+import org.basex.query.util.index.*;
+import org.basex.query.value.node.*;
 import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
@@ -18,6 +22,12 @@ import org.basex.util.*;
 public abstract class IndexAccess extends Simple {
   /** Index database. */
   IndexDb db;
+  /** Number of index results that have been retrieved at runtime ({@code -1}: none). */
+  private final AtomicLong results = new AtomicLong(-1);
+  /** Estimated number of index results ({@code -1}: unknown). */
+  private long estimated = -1;
+  /** Estimated number of nodes that would be visited by a sequential scan ({@code -1}: unknown). */
+  private long scan = -1;
 
   /**
    * Constructor.
@@ -31,6 +41,59 @@ public abstract class IndexAccess extends Simple {
     this.db = db;
   }
 
+  /**
+   * Assigns the estimated costs, which will be shown in the query plan.
+   * @param costs costs of the index access
+   * @param nodes estimated number of nodes visited by a sequential scan ({@code -1}: unknown)
+   */
+  public final void costs(final IndexCosts costs, final long nodes) {
+    estimated = costs.results();
+    scan = nodes;
+  }
+
+  /**
+   * Registers the number of retrieved index results.
+   * @param count number of results
+   * @param qc query context
+   */
+  final void results(final long count, final QueryContext qc) {
+    if(results.getAndAccumulate(count, (old, c) -> Math.max(0, old) + c) < 0) qc.counted(this);
+  }
+
+  /**
+   * Resets the number of retrieved index results.
+   */
+  public final void reset() {
+    results.set(-1);
+  }
+
+  /**
+   * Attaches the estimated costs and the number of retrieved results to a query plan element.
+   * @param elem plan element
+   * @param plan query plan
+   * @return plan element
+   */
+  final FElem costs(final FElem elem, final QueryPlan plan) {
+    final long r = results.get();
+    plan.addAttribute(elem, QueryText.ESTIMATED, estimated >= 0 ? estimated : null);
+    plan.addAttribute(elem, QueryText.SCAN, scan >= 0 ? scan : null);
+    plan.addAttribute(elem, QueryText.RESULTS, r >= 0 ? r : null);
+    return elem;
+  }
+
+  /**
+   * Copies the estimated costs to the specified index access.
+   * @param <T> expression type
+   * @param ia index access
+   * @return specified index access
+   */
+  final <T extends IndexAccess> T copyCosts(final T ia) {
+    final IndexAccess access = ia;
+    access.estimated = estimated;
+    access.scan = scan;
+    return ia;
+  }
+
   @Override
   public boolean has(final Flag... flags) {
     return db.has(flags);
@@ -43,10 +43,11 @@ public final class RangeAccess extends IndexAccess {
   public Iter iter(final QueryContext qc) throws QueryException {
     final IndexType type = index.type();
     final Data data = db.data(qc, type);
+    final IndexIterator ii = data.iter(index);
+    results(ii.size(), qc);
 
     return new DBNodeIter(data) {
       final byte kind = type == IndexType.TEXT ? Data.TEXT : Data.ATTR;
-      final IndexIterator ii = data.iter(index);
 
       @Override
       public DBNode next() {
@@ -61,6 +62,7 @@ public final class RangeAccess extends IndexAccess {
     final Data data = db.data(qc, it);
 
     final IndexIterator ii = data.iter(index);
+    results(ii.size(), qc);
     final IntList list = new IntList();
     while(ii.more()) list.add(ii.pre());
     return DBNodeSeq.get(list.finish(), data, this);
@@ -68,7 +70,7 @@ public final class RangeAccess extends IndexAccess {
 
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
-    return new RangeAccess(info, index, db.copy(cc, vm));
+    return copyCosts(new RangeAccess(info, index, db.copy(cc, vm)));
   }
 
   @Override
@@ -79,7 +81,8 @@ public final class RangeAccess extends IndexAccess {
 
   @Override
   public void plan(final QueryPlan plan) {
-    plan.add(plan.create(this, INDEX, index.type(), MIN, index.min, MAX, index.max), db);
+    plan.add(costs(plan.create(this, INDEX, index.type(), MIN, index.min, MAX, index.max),
+        plan), db);
   }
 
   @Override
@@ -43,11 +43,10 @@ public final class StringRangeAccess extends IndexAccess {
   public Iter iter(final QueryContext qc) throws QueryException {
     final IndexType type = index.type();
     final Data data = db.data(qc, type);
+    final IndexIterator ii = iter(data, qc);
 
     return new DBNodeIter(data) {
       final byte kind = type == IndexType.TEXT ? Data.TEXT : Data.ATTR;
-      final IndexIterator ii = index.min.length <= data.meta.maxlen &&
-          index.max.length <= data.meta.maxlen ? data.iter(index) : scan(data);
 
       @Override
       public DBNode next() {
@@ -61,13 +60,27 @@ public final class StringRangeAccess extends IndexAccess {
     final IndexType it = index.type();
     final Data data = db.data(qc, it);
 
-    final IndexIterator ii = index.min.length <= data.meta.maxlen &&
-        index.max.length <= data.meta.maxlen ? data.iter(index) : scan(data);
+    final IndexIterator ii = iter(data, qc);
     final IntList list = new IntList();
     while(ii.more()) list.add(ii.pre());
     return DBNodeSeq.get(list.finish(), data, this);
   }
 
+  /**
+   * Returns an index iterator, or a scan-based iterator if the range bounds are too long.
+   * @param data data reference
+   * @param qc query context
+   * @return index iterator
+   */
+  private IndexIterator iter(final Data data, final QueryContext qc) {
+    if(index.min.length > data.meta.maxlen || index.max.length > data.meta.maxlen) {
+      return scan(data);
+    }
+    final IndexIterator ii = data.iter(index);
+    results(ii.size(), qc);
+    return ii;
+  }
+
   /**
    * Returns scan-based iterator.
    * @param data data reference
@@ -103,7 +116,7 @@ public final class StringRangeAccess extends IndexAccess {
 
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
-    return new StringRangeAccess(info, index, db.copy(cc, vm));
+    return copyCosts(new StringRangeAccess(info, index, db.copy(cc, vm)));
   }
 
   @Override
@@ -114,7 +127,8 @@ public final class StringRangeAccess extends IndexAccess {
 
   @Override
   public void plan(final QueryPlan plan) {
-    plan.add(plan.create(this, INDEX, index.type(), MIN, index.min, MAX, index.max), db);
+    plan.add(costs(plan.create(this, INDEX, index.type(), MIN, index.min, MAX, index.max),
+        plan), db);
   }
 
   @Override
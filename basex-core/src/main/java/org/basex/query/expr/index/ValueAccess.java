@@ -102,12 +102,12 @@ public final class ValueAccess extends IndexAccess {
 
     // single search term: return single iterator
     final Data data = db.data(qc, type);
-    if(c == 1) return iter(cache.key(1), data);
+    if(c == 1) return iter(cache.key(1), data, qc);
 
     // multiple search terms: collect results, return result iterator
     final ANodeBuilder nodes = new ANodeBuilder();
     for(final byte[] token : cache) {
-      for(final ANode node : iter(token, data)) {
+      for(final ANode node : iter(token, data, qc)) {
         qc.checkStop();
         nodes.add(node);
       }
@@ -124,9 +124,10 @@ public final class ValueAccess extends IndexAccess {
    * Returns an index iterator.
    * @param term search term
    * @param data data reference
+   * @param qc query context
    * @return iterator
    */
-  private BasicNodeIter iter(final byte[] term, final Data data) {
+  private BasicNodeIter iter(final byte[] term, final Data data, final QueryContext qc) {
     // special case: empty text node
     // - no element name: return 0 results (empty text nodes are non-existent)
     // - otherwise, return scan-based element iterator
@@ -142,6 +143,7 @@ public final class ValueAccess extends IndexAccess {
     );
 
     final IndexIterator ii = index ? data.iter(new StringToken(type, term)) : scan(term, data);
+    if(index) results(ii.size(), qc);
     final int kind = type == IndexType.TEXT ? Data.TEXT : Data.ATTR;
     final DBNode tmp = new DBNode(data, 0, test == null ? kind : Data.ELEM);
     return new DBNodeIter(data) {
@@ -250,7 +252,8 @@ public final class ValueAccess extends IndexAccess {
 
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
-    return copyType(new ValueAccess(info, type, test, db.copy(cc, vm), expr.copy(cc, vm), tokens));
+    return copyType(copyCosts(new ValueAccess(info, type, test, db.copy(cc, vm),
+        expr.copy(cc, vm), tokens)));
   }
 
   @Override
@@ -273,7 +276,7 @@ public final class ValueAccess extends IndexAccess {
 
   @Override
   public void plan(final QueryPlan plan) {
-    plan.add(plan.create(this, INDEX, type, NAME, test), db, toExpr());
+    plan.add(costs(plan.create(this, INDEX, type, NAME, test), plan), db, toExpr());
   }
 
   @Override
@@ -1,13 +1,22 @@
 package org.basex.query.expr.path;
 
+import static org.basex.query.QueryError.*;
+
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.index.*;
 import org.basex.query.expr.path.PathCache.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
+import org.basex.query.util.list.*;
 import org.basex.query.value.*;
+import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Abstract axis path expression.
@@ -34,10 +43,214 @@ public abstract class AxisPath extends Path {
 
   @Override
   public final Value value(final QueryContext qc) throws QueryException {
-    final Value result = cache(qc);
+    Value result = cache(qc);
+    if(result == null) result = parallel(qc);
+    if(result == null) result = batch(qc);
+    if(result == null) result = index(qc);
     return result != null ? result : nodes(qc);
   }
 
+  /**
+   * Evaluates the predicate of the last step in a batch if it is a comparison that can be
+   * evaluated for the pre values of database nodes (see {@link CmpBatch}).
+   * @param qc query context
+   * @return resulting nodes, or {@code null} if the predicate cannot be evaluated in a batch
+   * @throws QueryException query exception
+   */
+  private Value batch(final QueryContext qc) throws QueryException {
+    final int sl = steps.length;
+    final Step last = step(sl - 1);
+    if(!(last instanceof IterStep) || last.exprs.length != 1 || root == null &&
+        qc.focus.value == null) return null;
+    final CmpBatch batch = CmpBatch.get(last.exprs[0]);
+    if(batch == null) return null;
+
+    // database nodes: retrieve pre values of last step, filter pre values
+    final Value input = root != null ? root.value(qc) : qc.focus.value;
+    final Value context = steps(input, 0, sl - 1, qc);
+    final Data data = context.data();
+    final int[] pres = data != null ? CmpBatch.pres(last, context, data) : null;
+    if(pres != null) return DBNodeSeq.get(batch.filter(pres, data, qc), data, this);
+
+    // other nodes: evaluate last step without predicate, filter nodes
+    final Value value = steps(context, sl - 1, Step.get(info, last.axis, last.test), qc);
+    final ValueBuilder vb = new ValueBuilder(qc);
+    for(final Item item : value) {
+      if(last.matches((ANode) item, qc)) vb.add(item);
+    }
+    return vb.value(this);
+  }
+
+  /**
+   * Evaluates parent and self steps for the results of an index access. The steps are evaluated
+   * for the pre values of the returned database nodes.
+   * @param qc query context
+   * @return resulting nodes, or {@code null} if the path cannot be evaluated on pre values
+   * @throws QueryException query exception
+   */
+  private Value index(final QueryContext qc) throws QueryException {
+    if(!(root instanceof IndexAccess)) return null;
+    final int sl = steps.length;
+    for(int s = 0; s < sl; s++) {
+      final Step step = step(s);
+      final Test test = step.test;
+      if(step.exprs.length != 0 || step.axis != Axis.PARENT && step.axis != Axis.SELF ||
+        !(test instanceof KindTest || test instanceof NameTest &&
+        ((NameTest) test).part == NamePart.LOCAL && test.type.oneOf(NodeType.ELM, NodeType.ATT))
+      ) return null;
+    }
+
+    final Value input = root.value(qc);
+    final Data data = input.data();
+    int[] pres = input instanceof DBNodeSeq ? ((DBNodeSeq) input).pres() :
+      input instanceof DBNode ? new int[] { ((DBNode) input).pre() } : null;
+    if(pres == null || data == null) return steps(input, 0, sl, qc);
+
+    for(int s = 0; s < sl && pres.length > 0; s++) {
+      final Step step = step(s);
+      final Test test = step.test;
+      final boolean parent = step.axis == Axis.PARENT;
+      final int kind = ANode.kind(test.type);
+      final boolean[] names = test instanceof NameTest ? CmpBatch.names((NameTest) test, data) :
+        null;
+      final IntList list = new IntList(pres.length);
+      boolean ddo = true;
+      for(final int pre : pres) {
+        final int p = parent ? data.parent(pre, data.kind(pre)) : pre;
+        if(p < 0) continue;
+        final int k = data.kind(p);
+        if(kind != -1 && k != kind || names != null && !names[data.nameId(p)]) continue;
+        // parents of sibling nodes are identical, parents of nested nodes may be unordered
+        if(!list.isEmpty() && list.peek() >= p) ddo = false;
+        list.add(p);
+      }
+      if(!ddo) list.ddo();
+      pres = list.finish();
+    }
+    return DBNodeSeq.get(pres, data, this);
+  }
+
+  /**
+   * Evaluates the path in parallel (see {@link Parallel}). The steps are evaluated one by one.
+   * As soon as a step yields enough nodes, the remaining steps are evaluated in parallel for
+   * chunks of these nodes. The predicates of iterative steps are evaluated in parallel if the
+   * step itself yields enough nodes.
+   * @param qc query context
+   * @return resulting nodes, or {@code null} if the path will not be evaluated in parallel
+   * @throws QueryException query exception
+   */
+  private Value parallel(final QueryContext qc) throws QueryException {
+    if(root == null && qc.focus.value == null || !large(qc) || !Parallel.enabled(qc, steps)) {
+      return null;
+    }
+
+    Value value = root != null ? root.value(qc) : qc.focus.value;
+    final int sl = steps.length;
+    for(int s = 0; s < sl; s++) {
+      final int st = s;
+      if(value.size() >= Parallel.MIN) {
+        final ANodeBuilder list = new ANodeBuilder();
+        for(final Value nodes : Parallel.eval(value, (in, cqc) -> steps(in, st, sl, cqc), qc)) {
+          for(final Item item : nodes) list.add((ANode) item);
+        }
+        return list.value(this);
+      }
+
+      final Step step = step(s);
+      if(step instanceof IterStep && step.exprs.length != 0) {
+        // evaluate step without predicates, filter large results in parallel
+        final Step test = Step.get(info, step.axis, step.test);
+        value = steps(value, s, test, qc);
+        if(value.size() >= Parallel.MIN) {
+          final ValueBuilder vb = new ValueBuilder(qc);
+          for(final Value nodes : Parallel.eval(value, (in, cqc) -> {
+            final ValueBuilder cvb = new ValueBuilder(cqc);
+            for(final Item item : in) {
+              if(step.matches((ANode) item, cqc)) cvb.add(item);
+            }
+            return cvb.value();
+          }, qc)) vb.add(nodes);
+          value = vb.value(this);
+        } else {
+          final ValueBuilder vb = new ValueBuilder(qc);
+          for(final Item item : value) {
+            if(step.matches((ANode) item, qc)) vb.add(item);
+          }
+          value = vb.value(this);
+        }
+      } else {
+        value = steps(value, s, step, qc);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Checks if the input of the path may be large enough to be evaluated in parallel. This is the
+   * case if the input has enough items, or if it contains nodes of a database with enough nodes.
+   * If the root expression is no value, only its database will be checked, if it is known.
+   * @param qc query context
+   * @return result of check
+   */
+  private boolean large(final QueryContext qc) {
+    final Value input = root == null ? qc.focus.value : root instanceof Value ? (Value) root : null;
+    if(input == null) {
+      final Data data = root.data();
+      return data == null || data.meta.size >= Parallel.MIN;
+    }
+    if(input.size() >= Parallel.MIN) return true;
+    for(final Item item : input) {
+      if(item instanceof DBNode && item.data().meta.size >= Parallel.MIN) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Evaluates the specified steps for the given nodes.
+   * @param value nodes
+   * @param start index of first step
+   * @param end index of last step (exclusive)
+   * @param qc query context
+   * @return resulting nodes
+   * @throws QueryException query exception
+   */
+  private Value steps(final Value value, final int start, final int end, final QueryContext qc)
+      throws QueryException {
+    Value nodes = value;
+    for(int s = start; s < end; s++) nodes = steps(nodes, s, step(s), qc);
+    return nodes;
+  }
+
+  /**
+   * Evaluates a step for the given nodes.
+   * @param value nodes
+   * @param index index of the step
+   * @param step step to be evaluated
+   * @param qc query context
+   * @return resulting nodes in distinct document order
+   * @throws QueryException query exception
+   */
+  private Value steps(final Value value, final int index, final Step step,
+      final QueryContext qc) throws QueryException {
+
+    final ANodeBuilder list = new ANodeBuilder();
+    final QueryFocus qf = qc.focus, focus = new QueryFocus();
+    qc.focus = focus;
+    try {
+      for(final Item item : value) {
+        // ensure that the root expression yields nodes
+        if(index == 0 && root != null && !(item instanceof ANode))
+          throw PATHNODE_X_X_X.get(info, steps[0], item.type, item);
+        focus.value = item;
+        final Iter iter = step.iter(qc);
+        for(Item node; (node = qc.next(iter)) != null;) list.add((ANode) node);
+      }
+    } finally {
+      qc.focus = qf;
+    }
+    return list.value(this);
+  }
+
   /**
    * Updates the cache and returns a cached value.
    * @param qc query context
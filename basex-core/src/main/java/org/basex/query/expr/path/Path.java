@@ -7,6 +7,7 @@ import java.util.function.*;
 
 import org.basex.core.locks.*;
 import org.basex.data.*;
+import org.basex.index.*;
 import org.basex.index.path.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
@@ -647,6 +648,8 @@ public abstract class Path extends ParseExpr {
 
     // cache index access costs
     IndexInfo index = null;
+    // index requests for all predicates of the step with the cheapest request
+    IndexInfo[] indexInfos = null;
     // cheapest predicate and step
     int indexPred = 0, indexStep = 0;
 
@@ -666,6 +669,7 @@ public abstract class Path extends ParseExpr {
           new IndexDynDb(root == null ? new ContextValue(info) : root, info);
 
         // choose cheapest index access
+        final IndexInfo[] infos = new IndexInfo[el];
         for(int e = 0; e < el; e++) {
           final IndexInfo ii = new IndexInfo(db, cc, step);
           if(!step.exprs[e].indexAccessible(ii)) continue;
@@ -676,8 +680,10 @@ public abstract class Path extends ParseExpr {
             return Empty.VALUE;
           }
 
+          infos[e] = ii;
           if(index == null || index.costs.compareTo(ii.costs) > 0) {
             index = ii;
+            indexInfos = infos;
             indexPred = e;
             indexStep = s;
           }
@@ -690,14 +696,48 @@ public abstract class Path extends ParseExpr {
     // skip optimization if it is not enforced
     if(rt instanceof Dummy && !index.enforce()) return this;
 
+    // check if steps before the index step need to be inverted
+    final Test rootTest = InvDocTest.get(rt);
+    final boolean invert = rootTest != KindTest.DOC || data == null || !data.meta.uptodate ||
+        invertSteps(indexStep);
+
+    // compare costs of index access and sequential scan (full-text costs are no result counts)
+    final long scan = scanCosts(indexStep);
+    if(!index.enforce() && index.type != IndexType.FULLTEXT) {
+      // checks per index result: parent test, inverted steps, remaining predicates
+      final int checks = (invert ? indexStep + 2 : 1) + index.step.exprs.length - 1;
+      if(index.costs.scanCheaper(scan, checks)) {
+        cc.info(QueryText.OPTSCAN_X_X, index.costs.results(), scan);
+        return this;
+      }
+    }
+
     // rewrite for index access
     cc.info(index.optInfo);
 
+    // intersect the results of cheap index requests for other predicates of the same step
+    final Expr[] preds = index.step.exprs;
+    final int pl = preds.length;
+    final boolean[] indexed = new boolean[pl];
+    indexed[indexPred] = true;
+    final ExprList intersect = new ExprList(pl).add(index.expr);
+    index.costs(index.expr, scan);
+    for(int p = 0; p < pl; p++) {
+      final IndexInfo ii = indexInfos[p];
+      if(ii != null && !indexed[p] && index.costs.intersect(ii.costs)) {
+        cc.info(ii.optInfo);
+        ii.costs(ii.expr, scan);
+        intersect.add(ii.expr);
+        indexed[p] = true;
+      }
+    }
+    final Expr indexExpr = intersect.size() == 1 ? index.expr :
+      new Intersect(info, intersect.finish()).optimize(cc);
+
     // invert steps that occur before index step and add them as predicate
     final ExprList newPreds = new ExprList();
-    final Test rootTest = InvDocTest.get(rt);
     final ExprList invSteps = new ExprList();
-    if(rootTest != KindTest.DOC || data == null || !data.meta.uptodate || invertSteps(indexStep)) {
+    if(invert) {
       for(int s = indexStep; s >= 0; s--) {
         final Axis invAxis = axisStep(s).axis.invert();
         if(s == 0) {
@@ -717,21 +757,19 @@ public abstract class Path extends ParseExpr {
     if(!invSteps.isEmpty()) newPreds.add(get(info, null, invSteps.finish()));
 
     // add remaining predicates
-    final Expr[] preds = index.step.exprs;
-    final int pl = preds.length;
     for(int p = 0; p < pl; p++) {
-      if(p != indexPred) newPreds.add(preds[p]);
+      if(!indexed[p]) newPreds.add(preds[p]);
     }
 
     // create resulting expression
     final ExprList resultSteps = new ExprList();
     final Expr resultRoot;
-    if(index.expr instanceof Path) {
-      final Path path = (Path) index.expr;
+    if(indexExpr instanceof Path) {
+      final Path path = (Path) indexExpr;
       resultRoot = path.root;
       resultSteps.add(path.steps);
     } else {
-      resultRoot = index.expr;
+      resultRoot = indexExpr;
     }
 
     // only one hit: update sequence type
@@ -744,8 +782,9 @@ public abstract class Path extends ParseExpr {
       int ls = resultSteps.size() - 1;
       final Expr step;
       if(ls < 0 || !(resultSteps.get(ls) instanceof Step)) {
-        // add at least one self axis step
-        step = new StepBuilder(info).preds(newPreds.finish()).finish(cc, root);
+        // add at least one self axis step (with the index results as context)
+        final Expr ctx = ls < 0 ? resultRoot : root;
+        step = new StepBuilder(info).preds(newPreds.finish()).finish(cc, ctx);
         ls++;
       } else {
         step = ((Step) resultSteps.get(ls)).addPreds(newPreds.finish());
@@ -759,6 +798,41 @@ public abstract class Path extends ParseExpr {
     return resultSteps.isEmpty() ? resultRoot : get(info, resultRoot, resultSteps.finish());
   }
 
+  /**
+   * Estimates the costs for sequentially evaluating all steps up to the specified step.
+   * The costs are computed via the path index and represent the number of nodes that will be
+   * visited by the steps and their predicates.
+   * @param last last step to be evaluated
+   * @return costs, or {@code -1} if the costs cannot be estimated
+   */
+  private long scanCosts(final int last) {
+    if(data == null || !data.meta.uptodate) return -1;
+
+    ArrayList<PathNode> nodes = data.paths.root();
+    long costs = 0;
+    for(int s = 0; s <= last; s++) {
+      final Step step = axisStep(s);
+      final Axis axis = step.axis;
+      final boolean attr = axis == ATTRIBUTE;
+      if(!attr && axis != CHILD && axis != DESCENDANT && axis != DESCENDANT_OR_SELF) return -1;
+
+      // nodes visited by the step, nodes visited by each predicate
+      for(final PathNode pn : PathIndex.desc(nodes, !attr && axis != CHILD)) {
+        if(pn.kind != Data.ATTR ^ attr) costs += pn.stats.count;
+      }
+      nodes = Step.get(step.info, axis, step.test).nodes(nodes, data);
+      if(nodes == null) return -1;
+      final int pl = step.exprs.length;
+      if(pl > 0) {
+        long count = 0;
+        for(final PathNode pn : nodes) count += pn.stats.count;
+        for(final PathNode pn : PathIndex.desc(nodes, false)) count += pn.stats.count;
+        costs += count * pl;
+      }
+    }
+    return costs;
+  }
+
   /**
    * Checks if steps before index step need to be inverted and traversed.
    * @param i index step
@@ -289,6 +289,17 @@ public abstract class Step extends Preds {
     return copyType(get(info, axis, test, ExprList.concat(exprs, add)));
   }
 
+  /**
+   * Checks if the specified node matches the predicates of this step.
+   * @param node node to be checked
+   * @param qc query context
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  final boolean matches(final ANode node, final QueryContext qc) throws QueryException {
+    return match(node, qc);
+  }
+
   /**
    * Throws an exception if the context value is not a node.
    * @param qc query context
@@ -1306,7 +1306,7 @@ public enum Function implements AFunction {
   _USER_GRANT(UserGrant.class, "grant(name,permissions[,patterns])",
       arg(STR_O, STR_ZM, STR_ZM), EMP, flag(UPD), USER_URI),
   /** XQuery function. */
-  _USER_INFO(UserInfo.class, "info([name])", arg(STR_O), ELM_O, USER_URI),
+  _USER_INFO(UserInfo.class, "info([name])", arg(STR_O), ELM_O, flag(NDT), USER_URI),
   /** XQuery function. */
   _USER_LIST(UserList.class, "list()", arg(), ELM_ZM, flag(NDT), USER_URI),
   /** XQuery function. */
@@ -20,6 +20,8 @@ import org.basex.io.serial.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
+import org.basex.query.func.fn.*;
 import org.basex.query.func.xquery.XQueryEval.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
@@ -200,6 +202,11 @@ public abstract class StandardFunc extends Arr {
     return flgs.length != 0 && super.has(flgs);
   }
 
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return visitor.standardFunc(this) && super.accept(visitor);
+  }
+
   @Override
   public boolean isVacuous() {
     return !has(Flag.UPD) && size() == 0;
@@ -566,6 +573,21 @@ public abstract class StandardFunc extends Arr {
     return visitor.lock(db, false);
   }
 
+  /**
+   * Returns an iterator for the specified expression, of which only the first items will be
+   * requested. If the expression sorts its results, only the smallest items will be sorted.
+   * @param expr expression
+   * @param limit maximum number of items that will be requested
+   * @param qc query context
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  protected static Iter iter(final Expr expr, final long limit, final QueryContext qc)
+      throws QueryException {
+    return expr instanceof GFLWOR ? ((GFLWOR) expr).iter(qc, limit) :
+      Function.SORT.is(expr) ? ((FnSort) expr).iter(qc, limit) : expr.iter(qc);
+  }
+
   /**
    * Returns the arguments of a standard function.
    * @param func functions argument
@@ -19,7 +19,7 @@ import org.basex.util.*;
 public final class FnHead extends StandardFunc {
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
-    final Item item = exprs[0].iter(qc).next();
+    final Item item = iter(exprs[0], 1, qc).next();
     return item == null ? Empty.VALUE : item;
   }
 
@@ -2,18 +2,18 @@ package org.basex.query.func.fn;
 
 import static org.basex.query.QueryError.*;
 
-import java.util.*;
-
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
+import org.basex.util.*;
 
 /**
  * Function implementation.
@@ -34,6 +34,19 @@ public final class FnSort extends StandardFunc {
     return v != null ? v : iter(value, qc).value(qc, this);
   }
 
+  /**
+   * Returns an iterator, of which only the specified number of items will be requested.
+   * @param qc query context
+   * @param limit maximum number of items that will be requested
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  public Iter iter(final QueryContext qc, final long limit) throws QueryException {
+    final Value value = exprs[0].value(qc), v = quickValue(value);
+    return v != null ? v.iter() : limit <= Sorter.TOPK && limit < value.size() ?
+      top(value, (int) limit, qc) : iter(value, qc);
+  }
+
   /**
    * Sort the input data and returns an iterator.
    * @param value value
@@ -42,12 +55,8 @@ public final class FnSort extends StandardFunc {
    * @throws QueryException query exception
    */
   private Iter iter(final Value value, final QueryContext qc) throws QueryException {
-    Collation coll = sc.collation;
-    if(exprs.length > 1) {
-      final byte[] token = toTokenOrNull(exprs[1], qc);
-      if(token != null) coll = Collation.get(token, qc, sc, info, WHICHCOLL_X);
-    }
-    final FItem key = exprs.length > 2 ? checkArity(exprs[2], 1, qc) : null;
+    final Collation coll = collation(qc);
+    final FItem key = key(qc);
 
     final long size = value.size();
     final ValueList values = new ValueList(size);
@@ -56,7 +65,7 @@ public final class FnSort extends StandardFunc {
       values.add((key == null ? item : key.invokeValue(qc, info, item)).atomValue(qc, info));
     }
 
-    final Integer[] order = sort(values, this, coll, qc);
+    final int[] order = sort(values, this, coll, qc);
     return new BasicIter<Item>(size) {
       @Override
       public Item get(final long i) {
@@ -65,6 +74,71 @@ public final class FnSort extends StandardFunc {
     };
   }
 
+  /**
+   * Returns the smallest items of the input data in sorted order.
+   * @param value value
+   * @param max maximum number of items
+   * @param qc query context
+   * @return iterator with ordered items
+   * @throws QueryException query exception
+   */
+  private Iter top(final Value value, final int max, final QueryContext qc)
+      throws QueryException {
+
+    final Collation coll = collation(qc);
+    final FItem key = key(qc);
+    // the heap root is the item that will be discarded first:
+    // the one with the largest key, or the later one if the keys are equal
+    final MinHeap<TopKey, Item> heap = new MinHeap<>((tk1, tk2) -> {
+      try {
+        final int c = Sorter.compare(tk2.key, tk1.key, coll, info);
+        return c != 0 ? c : Long.compare(tk2.pos, tk1.pos);
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+    });
+
+    final Iter iter = value.iter();
+    try {
+      long p = 0;
+      for(Item item; (item = qc.next(iter)) != null; p++) {
+        final Value k = (key == null ? item : key.invokeValue(qc, info, item)).atomValue(qc, info);
+        heap.insert(new TopKey(k, p), item);
+        if(heap.size() > max) heap.removeMin();
+      }
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+
+    final ValueBuilder vb = new ValueBuilder(qc);
+    while(!heap.isEmpty()) vb.addFront(heap.removeMin());
+    return vb.value(this).iter();
+  }
+
+  /**
+   * Returns the collation.
+   * @param qc query context
+   * @return collation (can be {@code null})
+   * @throws QueryException query exception
+   */
+  private Collation collation(final QueryContext qc) throws QueryException {
+    if(exprs.length > 1) {
+      final byte[] token = toTokenOrNull(exprs[1], qc);
+      if(token != null) return Collation.get(token, qc, sc, info, WHICHCOLL_X);
+    }
+    return sc.collation;
+  }
+
+  /**
+   * Returns the key function.
+   * @param qc query context
+   * @return function or {@code null}
+   * @throws QueryException query exception
+   */
+  private FItem key(final QueryContext qc) throws QueryException {
+    return exprs.length > 2 ? checkArity(exprs[2], 1, qc) : null;
+  }
+
   /**
    * Sort the input data and returns integers representing the item order.
    * @param values value list
@@ -74,38 +148,12 @@ public final class FnSort extends StandardFunc {
    * @return item order
    * @throws QueryException query exception
    */
-  public static Integer[] sort(final ValueList values, final StandardFunc sf, final Collation coll,
+  public static int[] sort(final ValueList values, final StandardFunc sf, final Collation coll,
       final QueryContext qc) throws QueryException {
 
-    final int al = values.size();
-    final Integer[] order = new Integer[al];
-    for(int o = 0; o < al; o++) order[o] = o;
-    try {
-      Arrays.sort(order, (i1, i2) -> {
-        qc.checkStop();
-        try {
-          final Value value1 = values.get(i1), value2 = values.get(i2);
-          final long size1 = value1.size(), size2 = value2.size(), il = Math.min(size1, size2);
-          for(int i = 0; i < il; i++) {
-            Item item1 = value1.itemAt(i), item2 = value2.itemAt(i);
-            if(item1 == Dbl.NAN || item1 == Flt.NAN) item1 = null;
-            if(item2 == Dbl.NAN || item2 == Flt.NAN) item2 = null;
-            if(item1 != null && item2 != null && !item1.comparable(item2))
-              throw diffError(item1, item2, sf.info);
-
-            final int diff = item1 == null ? item2 == null ? 0 : -1 : item2 == null ? 1 :
-              item1.diff(item2, coll, sf.info);
-            if(diff != 0 && diff != Item.UNDEF) return diff;
-          }
-          return (int) (size1 - size2);
-        } catch(final QueryException ex) {
-          throw new QueryRTException(ex);
-        }
-      });
-    } catch(final QueryRTException ex) {
-      throw ex.getCause();
-    }
-    return order;
+    final Sorter sorter = new Sorter(values.size(), qc);
+    sorter.add(values.list, coll, sf.info);
+    return sorter.sort();
   }
 
   @Override
@@ -145,4 +193,24 @@ public final class FnSort extends StandardFunc {
     // no quick evaluation possible
     return null;
   }
+
+  /**
+   * Sort key and position of an item.
+   */
+  private static final class TopKey {
+    /** Sort key. */
+    private final Value key;
+    /** Position of the item. */
+    private final long pos;
+
+    /**
+     * Constructor.
+     * @param key sort key
+     * @param pos position of the item
+     */
+    private TopKey(final Value key, final long pos) {
+      this.key = key;
+      this.pos = pos;
+    }
+  }
 }
@@ -30,7 +30,7 @@ public class FnSubsequence extends StandardFunc {
     if(sr == EMPTY) return Empty.ITER;
 
     // return iterator if all results are returned, of it iterator yields no items
-    final Iter iter = exprs[0].iter(qc);
+    final Iter iter = iter(exprs[0], sr.end, qc);
     if(sr == ALL) return iter;
 
     // return subsequence iterator if iterator is value-based
@@ -82,7 +82,7 @@ public class FnSubsequence extends StandardFunc {
 
     final Expr expr = exprs[0];
     if(sr == ALL) return expr.value(qc);
-    final Iter iter = expr.iter(qc);
+    final Iter iter = iter(expr, sr.end, qc);
 
     final long size = sr.adjust(iter.size());
     if(sr.length == 0) return Empty.VALUE;
@@ -29,7 +29,7 @@ public final class UtilItem extends StandardFunc {
     if(expr.seqType().zeroOrOne()) return pos == 0 ? expr.item(qc, info) : Empty.VALUE;
 
     // fast route if the size is known
-    final Iter iter = expr.iter(qc);
+    final Iter iter = iter(expr, pos + 1, qc);
     final long size = iter.size();
     if(size >= 0) return pos < size ? iter.get(pos) : Empty.VALUE;
 
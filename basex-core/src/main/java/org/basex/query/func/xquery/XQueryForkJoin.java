@@ -2,11 +2,10 @@ package org.basex.query.func.xquery;
 
 import static org.basex.query.QueryError.*;
 
-import java.util.concurrent.*;
-
 import org.basex.core.jobs.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
@@ -32,19 +31,16 @@ public final class XQueryForkJoin extends StandardFunc {
     // single function: invoke directly
     if(size == 1) return ((FItem) funcs).invokeValue(qc, info);
 
-    final ForkJoinPool pool = new ForkJoinPool();
-    final XQueryTask task = new XQueryTask(funcs, qc, info);
+    // evaluate functions in the shared pool, limit number of parallel tasks
+    final int groups = (int) Math.min(size, Parallel.tasks(qc));
     try {
-      return pool.invoke(task);
+      return qc.context.jobs.pool().invoke(new XQueryTask(funcs, qc, info, groups));
     } catch(final Exception ex) {
       // pass on query and job exceptions
       final Throwable e = Util.rootException(ex);
       if(e instanceof QueryException) throw (QueryException) e;
       if(e instanceof JobException) throw (JobException) e;
       throw XQUERY_UNEXPECTED_X.get(info, e);
-    } finally {
-      // required?
-      pool.shutdown();
     }
   }
 }
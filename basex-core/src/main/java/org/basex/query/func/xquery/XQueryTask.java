@@ -9,6 +9,9 @@ import org.basex.util.*;
 
 /**
  * Forks a set of tasks, performing their computation in parallel followed by rejoining the results.
+ * The functions are distributed to a limited number of groups. The functions of a group are
+ * evaluated one after another by a separate query context, which will be interrupted if the
+ * query is stopped or times out.
  *
  * @author James Wright
  */
@@ -19,9 +22,11 @@ final class XQueryTask extends RecursiveTask<Value> {
   private final QueryContext qc;
   /** Input info. */
   private final InputInfo ii;
-  /** First function to evaluate. */
+  /** Number of groups. */
+  private final int groups;
+  /** First group to evaluate. */
   private final int start;
-  /** Last function to evaluate. */
+  /** Last group to evaluate (exclusive). */
   private final int end;
 
   /**
@@ -29,9 +34,10 @@ final class XQueryTask extends RecursiveTask<Value> {
    * @param funcs functions to evaluate
    * @param qc query context
    * @param ii input info
+   * @param groups number of groups
    */
-  XQueryTask(final Value funcs, final QueryContext qc, final InputInfo ii) {
-    this(funcs, qc, ii, 0, (int) funcs.size());
+  XQueryTask(final Value funcs, final QueryContext qc, final InputInfo ii, final int groups) {
+    this(funcs, qc, ii, groups, 0, groups);
   }
 
   /**
@@ -39,40 +45,49 @@ final class XQueryTask extends RecursiveTask<Value> {
    * @param funcs functions to evaluate
    * @param qc query context
    * @param ii input info
-   * @param start first function to evaluate
-   * @param end last function to evaluate
+   * @param groups number of groups
+   * @param start first group to evaluate
+   * @param end last group to evaluate (exclusive)
    */
   private XQueryTask(final Value funcs, final QueryContext qc, final InputInfo ii,
-      final int start, final int end) {
+      final int groups, final int start, final int end) {
     this.funcs = funcs;
-    this.qc = new QueryContext(qc);
+    this.qc = qc;
     this.ii = ii;
+    this.groups = groups;
     this.start = start;
     this.end = end;
   }
 
   @Override
   protected Value compute() {
-    final ValueBuilder vb = new ValueBuilder(qc);
     final int s = start, e = end, l = e - s;
-    if(l == 1) {
-      // perform the work
-      try {
-        vb.add(((FItem) funcs.itemAt(s)).invokeValue(qc, ii));
-      } catch(final QueryException ex) {
-        completeExceptionally(ex);
-        cancel(true);
-      } finally {
-        qc.close();
-      }
-    } else if(l > 1) {
+    if(l > 1) {
       // split the work and join the results in the correct order
       final int m = s + l / 2;
-      final XQueryTask task2 = new XQueryTask(funcs, qc, ii, m, e);
+      final XQueryTask task2 = new XQueryTask(funcs, qc, ii, groups, m, e);
       task2.fork();
-      final XQueryTask task1  = new XQueryTask(funcs, qc, ii, s, m);
-      vb.add(task1.invoke()).add(task2.join());
+      final XQueryTask task1 = new XQueryTask(funcs, qc, ii, groups, s, m);
+      return new ValueBuilder(qc).add(task1.invoke()).add(task2.join()).value();
+    }
+
+    // perform the work: evaluate the functions of a group
+    final long size = funcs.size();
+    final int first = (int) (size * s / groups), last = (int) (size * e / groups);
+    final QueryContext cqc = new QueryContext(qc);
+    try {
+      final ValueBuilder vb = new ValueBuilder(cqc);
+      for(int f = first; f < last; f++) {
+        cqc.checkStop();
+        final Performance perf = new Performance();
+        vb.add(((FItem) funcs.itemAt(f)).invokeValue(cqc, ii));
+        cqc.evalInfo("fork-join, function " + (f + 1) + ": " + perf.getTime());
+      }
+      return vb.value();
+    } catch(final QueryException ex) {
+      throw new QueryRTException(ex);
+    } finally {
+      cqc.close();
     }
-    return vb.value();
   }
 }
@@ -28,7 +28,9 @@ public final class DBOptions {
     MainOptions.SPLITSIZE, MainOptions.LANGUAGE, MainOptions.STOPWORDS, MainOptions.TEXTINDEX,
     MainOptions.ATTRINDEX, MainOptions.TOKENINDEX, MainOptions.FTINDEX, MainOptions.TEXTINCLUDE,
     MainOptions.ATTRINCLUDE, MainOptions.TOKENINCLUDE, MainOptions.FTINCLUDE, MainOptions.STEMMING,
-    MainOptions.CASESENS, MainOptions.DIACRITICS, MainOptions.UPDINDEX, MainOptions.AUTOOPTIMIZE };
+    MainOptions.CASESENS, MainOptions.DIACRITICS, MainOptions.UPDINDEX, MainOptions.AUTOOPTIMIZE,
+    MainOptions.MMAP, MainOptions.INDEXTHREADS, MainOptions.INDEXMEMORY,
+    MainOptions.COMPRESSTEXTS, MainOptions.NUMCOLUMNS };
 
   /** Runtime options. */
   private final HashMap<Option<?>, Object> map = new HashMap<>();
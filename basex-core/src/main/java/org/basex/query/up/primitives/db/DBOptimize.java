@@ -46,7 +46,9 @@ public final class DBOptimize extends DBUpdate {
 
     final ArrayList<Option<?>> supported = new ArrayList<>();
     for(final Option<?> option : DBOptions.INDEXING) {
-      if(all || option != MainOptions.UPDINDEX) supported.add(option);
+      if(all || option != MainOptions.UPDINDEX && option != MainOptions.COMPRESSTEXTS) {
+        supported.add(option);
+      }
     }
     options = new DBOptions(opts, supported, info);
   }
@@ -75,6 +77,9 @@ public final class DBOptimize extends DBUpdate {
     options.assignIfAbsent(MainOptions.SPLITSIZE, meta.splitsize);
     options.assignIfAbsent(MainOptions.UPDINDEX, meta.updindex);
     options.assignIfAbsent(MainOptions.AUTOOPTIMIZE, meta.autooptimize);
+    options.assignIfAbsent(MainOptions.MMAP, meta.mmap);
+    options.assignIfAbsent(MainOptions.COMPRESSTEXTS, meta.compresstexts);
+    options.assignIfAbsent(MainOptions.NUMCOLUMNS, meta.numcolumns);
     options.assignTo(opts);
 
     // adopt options to database meta data
@@ -85,7 +90,11 @@ public final class DBOptimize extends DBUpdate {
 
     meta.updindex = opts.get(MainOptions.UPDINDEX);
     meta.autooptimize = opts.get(MainOptions.AUTOOPTIMIZE);
+    meta.mmap = opts.get(MainOptions.MMAP);
+    meta.numcolumns = opts.get(MainOptions.NUMCOLUMNS);
     meta.splitsize = opts.get(MainOptions.SPLITSIZE);
+    meta.indexthreads = opts.get(MainOptions.INDEXTHREADS);
+    meta.indexmemory = opts.get(MainOptions.INDEXMEMORY);
 
     // check if other indexing options have changed
     final int maxcats = opts.get(MainOptions.MAXCATS);
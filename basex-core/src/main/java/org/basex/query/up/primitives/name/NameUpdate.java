@@ -103,7 +103,8 @@ public abstract class NameUpdate extends Update implements Comparable<NameUpdate
 
     // close data instance in query processor
     qc.resources.remove(name);
-    // check if database is stilled pinned by another process
+    // discard cached queries, check if database is stilled pinned by another process
+    qc.context.queries.invalidate(name);
     if(qc.context.pinned(name)) throw DB_LOCK1_X.get(ii, name);
   }
 }
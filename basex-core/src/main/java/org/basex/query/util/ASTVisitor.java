@@ -64,6 +64,16 @@ public abstract class ASTVisitor {
     return true;
   }
 
+  /**
+   * Notifies the visitor of a built-in function call.
+   * @param func function call
+   * @return if more expressions should be visited ({@code true} by default)
+   */
+  @SuppressWarnings("unused")
+  public boolean standardFunc(final StandardFunc func) {
+    return true;
+  }
+
   /**
    * Notifies the visitor of a dynamic function call.
    * @param call function call
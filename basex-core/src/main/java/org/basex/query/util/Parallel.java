@@ -0,0 +1,189 @@
+package org.basex.query.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.scope.*;
+import org.basex.query.value.*;
+import org.basex.query.var.*;
+
+/**
+ * Parallel evaluation of expressions on large input sequences (see
+ * {@link MainOptions#PARALLELQUERY}).
+ *
+ * The input is split into chunks, which are evaluated by separate query contexts in the fork/join
+ * pool of the database context (see {@link StaticOptions#FORKJOINTHREADS}). The number of chunks
+ * is limited by {@link MainOptions#PARALLELTASKS}. The results
+ * of the chunks are returned in the order of the input. Expressions will only be evaluated in
+ * parallel if they are deterministic, do not create nodes, do not perform updates, and do not
+ * reference global variables or invoke function items (including the bodies of called
+ * functions), as the evaluation of these expressions is not thread-safe.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class Parallel {
+  /** Minimum number of input items for parallel evaluation. */
+  public static final int MIN = 1 << 11;
+  /** Minimum number of items of a chunk. */
+  private static final int CHUNK = 1 << 8;
+
+  /** Private constructor. */
+  private Parallel() { }
+
+  /**
+   * Chunk evaluator.
+   */
+  @FunctionalInterface
+  public interface Chunk {
+    /**
+     * Evaluates a chunk of the input. The current focus of the query context can be modified.
+     * @param input input items
+     * @param qc query context of the chunk
+     * @return resulting value
+     * @throws QueryException query exception
+     */
+    Value eval(Value input, QueryContext qc) throws QueryException;
+  }
+
+  /**
+   * Checks if the specified expressions can be evaluated in parallel.
+   * @param qc query context
+   * @param exprs expressions that will be evaluated for each input item
+   * @return result of check
+   */
+  public static boolean enabled(final QueryContext qc, final Expr... exprs) {
+    if(!qc.context.options.get(MainOptions.PARALLELQUERY)) return false;
+    final IdentityHashMap<Scope, Object> map = new IdentityHashMap<>();
+    final ASTVisitor visitor = new ASTVisitor() {
+      @Override
+      public boolean staticVar(final StaticVar var) {
+        return false;
+      }
+
+      @Override
+      public boolean staticFuncCall(final StaticFuncCall call) {
+        // check the bodies of called functions
+        final StaticFunc func = call.func();
+        return map.put(func, func) != null || func.visit(this);
+      }
+
+      @Override
+      public boolean dynFuncCall(final DynFuncCall call) {
+        return false;
+      }
+
+      @Override
+      public boolean inlineFunc(final Scope scope) {
+        return false;
+      }
+    };
+    for(final Expr expr : exprs) {
+      if(expr.has(Flag.NDT, Flag.UPD, Flag.CNS, Flag.HOF) || !expr.accept(visitor)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Evaluates the chunks of the input in parallel.
+   * Should only be called if the input has at least {@link #MIN} items.
+   * @param input input value
+   * @param chunk chunk evaluator
+   * @param qc query context
+   * @return chunk results, in input order
+   * @throws QueryException query exception
+   */
+  public static Value[] eval(final Value input, final Chunk chunk, final QueryContext qc)
+      throws QueryException {
+
+    final long size = input.size(), tasks = tasks(qc);
+    final long length = Math.max(CHUNK, (size + tasks - 1) / tasks);
+    final Value[] results = new Value[(int) ((size + length - 1) / length)];
+    try {
+      qc.context.jobs.pool().invoke(new Task(input, chunk, qc, results, length,
+          0, results.length));
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+    return results;
+  }
+
+  /**
+   * Returns the maximum number of tasks of a query that will be evaluated in parallel.
+   * @param qc query context
+   * @return number of tasks
+   */
+  public static int tasks(final QueryContext qc) {
+    final int tasks = qc.context.options.get(MainOptions.PARALLELTASKS);
+    return tasks > 0 ? tasks : qc.context.jobs.pool().getParallelism();
+  }
+
+  /**
+   * Evaluation task.
+   */
+  private static final class Task extends RecursiveAction {
+    /** Input. */
+    private final Value input;
+    /** Chunk evaluator. */
+    private final Chunk chunk;
+    /** Query context. */
+    private final QueryContext qc;
+    /** Chunk results. */
+    private final Value[] results;
+    /** Length of a chunk. */
+    private final long length;
+    /** First chunk. */
+    private final int start;
+    /** Last chunk (exclusive). */
+    private final int end;
+
+    /**
+     * Constructor.
+     * @param input input
+     * @param chunk chunk evaluator
+     * @param qc query context
+     * @param results chunk results
+     * @param length length of a chunk
+     * @param start first chunk
+     * @param end last chunk (exclusive)
+     */
+    Task(final Value input, final Chunk chunk, final QueryContext qc, final Value[] results,
+        final long length, final int start, final int end) {
+      this.input = input;
+      this.chunk = chunk;
+      this.qc = qc;
+      this.results = results;
+      this.length = length;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      final int s = start, e = end;
+      if(e - s > 1) {
+        final int m = s + e >>> 1;
+        invokeAll(new Task(input, chunk, qc, results, length, s, m),
+            new Task(input, chunk, qc, results, length, m, e));
+        return;
+      }
+
+      // evaluate chunk with a new query context, which inherits the local variable bindings
+      final QueryContext cqc = new QueryContext(qc);
+      try {
+        cqc.stack.enterFrame(qc.stack);
+        cqc.focus = qc.focus.copy();
+        final long first = s * length, len = Math.min(length, input.size() - first);
+        results[s] = chunk.eval(input.subSequence(first, len, cqc), cqc);
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      } finally {
+        cqc.close();
+      }
+    }
+  }
+}
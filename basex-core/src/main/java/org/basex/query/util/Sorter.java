@@ -0,0 +1,551 @@
+package org.basex.query.util;
+
+import static org.basex.query.QueryError.*;
+
+import java.util.concurrent.*;
+
+import org.basex.query.*;
+import org.basex.query.util.collation.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.util.*;
+
+/**
+ * Stable merge sort for entries with one or more sort keys, used by {@code order by},
+ * {@code fn:sort} and {@code array:sort}.
+ *
+ * Before sorting, the keys are extracted into columns. If all items of a key have the same
+ * numeric or string type, they are stored as primitive values or tokens, which can be compared
+ * without accessing the items. If all keys could be converted, large inputs are sorted in
+ * parallel by the fork/join pool of the database context. Otherwise, items are compared one by
+ * one in the calling thread, as comparisons may access collations and lazy values, which are
+ * not thread-safe.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class Sorter {
+  /** Maximum number of requested entries for which a bounded heap is used (top-k sort). */
+  public static final int TOPK = 1 << 16;
+  /** Minimum number of entries for sorting in parallel. */
+  static final int PARALLEL = 1 << 14;
+  /** Maximum number of entries that are sorted via insertion sort. */
+  private static final int INSERTION = 24;
+
+  /** Rank of empty sequences. */
+  private static final byte EMPTY = 0;
+  /** Rank of NaN values (fn:sort). */
+  private static final byte NAN = 1;
+
+  /** Query context. */
+  private final QueryContext qc;
+  /** Number of entries. */
+  private final int size;
+  /** Key columns. */
+  private Column[] columns = { };
+
+  /**
+   * Constructor.
+   * @param size number of entries
+   * @param qc query context
+   */
+  public Sorter(final int size, final QueryContext qc) {
+    this.size = size;
+    this.qc = qc;
+  }
+
+  /**
+   * Adds a sort key of an {@code order by} clause. Empty sequences and NaN values are
+   * considered to be equal.
+   * @param items items of the key (one per entry, {@link Empty#VALUE} for empty keys)
+   * @param desc descending order
+   * @param least position of empty keys
+   * @param coll collation (can be {@code null})
+   * @param info input info
+   * @throws QueryException query exception
+   */
+  public void add(final Item[] items, final boolean desc, final boolean least,
+      final Collation coll, final InputInfo info) throws QueryException {
+    // empty keys are moved to the front or to the end
+    final byte value = 1, empty = least ? EMPTY : 2;
+    final byte[] ranks = new byte[size];
+    for(int i = 0; i < size; i++) {
+      final Item item = items[i];
+      ranks[i] = item == Empty.VALUE || item == Dbl.NAN || item == Flt.NAN ? empty : value;
+    }
+    add(column(items, ranks, value, coll, info, false), desc);
+  }
+
+  /**
+   * Adds the sort key of {@code fn:sort}. Keys are compared item by item; empty sequences
+   * precede NaN values, which precede all other values.
+   * @param values values of the key (one per entry)
+   * @param coll collation (can be {@code null})
+   * @param info input info
+   * @throws QueryException query exception
+   */
+  public void add(final Value[] values, final Collation coll, final InputInfo info)
+      throws QueryException {
+
+    // sequences with more than one item: compare them item by item
+    for(int i = 0; i < size; i++) {
+      if(values[i].size() > 1) {
+        add(new ValueColumn(values, coll, info), false);
+        return;
+      }
+    }
+    // otherwise, convert single items to a column
+    final byte value = 2;
+    final byte[] ranks = new byte[size];
+    final Item[] items = new Item[size];
+    for(int i = 0; i < size; i++) {
+      final Value val = values[i];
+      final Item item = val.isEmpty() ? null : val.itemAt(0);
+      items[i] = item;
+      ranks[i] = item == null ? EMPTY : item == Dbl.NAN || item == Flt.NAN ? NAN : value;
+    }
+    add(column(items, ranks, value, coll, info, true), false);
+  }
+
+  /**
+   * Sorts the entries.
+   * @return positions of the entries in sorted order
+   * @throws QueryException query exception
+   */
+  public int[] sort() throws QueryException {
+    final int[] order = new int[size];
+    for(int o = 0; o < size; o++) order[o] = o;
+    if(size < 2) return order;
+
+    boolean parallel = size >= PARALLEL;
+    for(final Column column : columns) parallel &= column.primitive();
+    final ForkJoinPool pool = parallel ? qc.context.jobs.pool() : null;
+
+    final int[] tmp = new int[size];
+    try {
+      if(pool != null && pool.getParallelism() > 1) {
+        pool.invoke(new SortTask(order, tmp, 0, size));
+      } else {
+        sort(order, tmp, 0, size);
+      }
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+    return order;
+  }
+
+  /**
+   * Adds a column.
+   * @param column column
+   * @param desc descending order
+   */
+  private void add(final Column column, final boolean desc) {
+    column.desc = desc;
+    columns = Array.add(columns, column);
+  }
+
+  /**
+   * Creates a column for the specified items.
+   * @param items items
+   * @param ranks ranks
+   * @param value rank of items that will be compared
+   * @param coll collation (can be {@code null})
+   * @param info input info
+   * @param sort fn:sort semantics
+   * @return column
+   * @throws QueryException query exception
+   */
+  private Column column(final Item[] items, final byte[] ranks, final byte value,
+      final Collation coll, final InputInfo info, final boolean sort) throws QueryException {
+
+    // check if all items to be compared have the same type
+    boolean ints = true, dbls = true, flts = true, strings = coll == null;
+    for(int i = 0; i < size; i++) {
+      if(ranks[i] != value) continue;
+      final Item item = items[i];
+      ints &= item instanceof Int;
+      dbls &= item instanceof Dbl;
+      flts &= item instanceof Flt;
+      strings &= item instanceof AStr || item instanceof Atm;
+      if(!(ints || dbls || flts || strings)) return new ItemColumn(items, ranks, value, coll,
+          info, sort);
+    }
+
+    if(ints) {
+      final long[] longs = new long[size];
+      for(int i = 0; i < size; i++) {
+        if(ranks[i] == value) longs[i] = ((Int) items[i]).itr();
+      }
+      return new LongColumn(longs, ranks, value);
+    }
+    if(dbls || flts) {
+      final double[] doubles = new double[size];
+      for(int i = 0; i < size; i++) {
+        if(ranks[i] == value) doubles[i] = items[i].dbl(info);
+      }
+      return new DoubleColumn(doubles, ranks, value);
+    }
+    final byte[][] tokens = new byte[size][];
+    for(int i = 0; i < size; i++) {
+      if(ranks[i] == value) tokens[i] = items[i].string(info);
+    }
+    return new TokenColumn(tokens, ranks, value);
+  }
+
+  /**
+   * Compares two entries.
+   * @param i1 first entry
+   * @param i2 second entry
+   * @return result of comparison
+   */
+  private int compare(final int i1, final int i2) {
+    for(final Column column : columns) {
+      final int c = column.compare(i1, i2);
+      if(c != 0) return column.desc ? -c : c;
+    }
+    return 0;
+  }
+
+  /**
+   * Sorts the specified range of entries.
+   * @param order entries (will be sorted)
+   * @param tmp temporary array
+   * @param start first entry
+   * @param end last entry (exclusive)
+   */
+  private void sort(final int[] order, final int[] tmp, final int start, final int end) {
+    if(end - start <= INSERTION) {
+      insertion(order, start, end);
+    } else {
+      final int mid = start + end >>> 1;
+      sort(order, tmp, start, mid);
+      sort(order, tmp, mid, end);
+      merge(order, tmp, start, mid, end);
+    }
+  }
+
+  /**
+   * Sorts a small range of entries.
+   * @param order entries (will be sorted)
+   * @param start first entry
+   * @param end last entry (exclusive)
+   */
+  private void insertion(final int[] order, final int start, final int end) {
+    qc.checkStop();
+    for(int i = start + 1; i < end; i++) {
+      final int o = order[i];
+      int j = i;
+      for(; j > start && compare(order[j - 1], o) > 0; j--) order[j] = order[j - 1];
+      order[j] = o;
+    }
+  }
+
+  /**
+   * Merges two adjacent sorted ranges.
+   * @param order entries (will be sorted)
+   * @param tmp temporary array
+   * @param start first entry of the first range
+   * @param mid first entry of the second range
+   * @param end last entry of the second range (exclusive)
+   */
+  private void merge(final int[] order, final int[] tmp, final int start, final int mid,
+      final int end) {
+
+    // skip merge if ranges are already in order
+    if(compare(order[mid - 1], order[mid]) <= 0) return;
+
+    qc.checkStop();
+    System.arraycopy(order, start, tmp, start, end - start);
+    int l = start, r = mid, o = start;
+    // in case of equal entries, the left entry is chosen first (stable sort)
+    while(l < mid && r < end) order[o++] = compare(tmp[l], tmp[r]) <= 0 ? tmp[l++] : tmp[r++];
+    while(l < mid) order[o++] = tmp[l++];
+    while(r < end) order[o++] = tmp[r++];
+  }
+
+  /**
+   * Compares two sort keys of {@code fn:sort} item by item.
+   * @param value1 first key
+   * @param value2 second key
+   * @param coll collation (can be {@code null})
+   * @param info input info
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  public static int compare(final Value value1, final Value value2, final Collation coll,
+      final InputInfo info) throws QueryException {
+
+    final long size1 = value1.size(), size2 = value2.size(), il = Math.min(size1, size2);
+    for(int i = 0; i < il; i++) {
+      Item item1 = value1.itemAt(i), item2 = value2.itemAt(i);
+      if(item1 == Dbl.NAN || item1 == Flt.NAN) item1 = null;
+      if(item2 == Dbl.NAN || item2 == Flt.NAN) item2 = null;
+      if(item1 != null && item2 != null && !item1.comparable(item2))
+        throw diffError(item1, item2, info);
+
+      final int diff = item1 == null ? item2 == null ? 0 : -1 : item2 == null ? 1 :
+        item1.diff(item2, coll, info);
+      if(diff != 0 && diff != Item.UNDEF) return diff;
+    }
+    return Long.compare(size1, size2);
+  }
+
+  /**
+   * Parallel sort task.
+   */
+  private final class SortTask extends RecursiveAction {
+    /** Entries. */
+    private final int[] order;
+    /** Temporary array. */
+    private final int[] tmp;
+    /** First entry. */
+    private final int start;
+    /** Last entry (exclusive). */
+    private final int end;
+
+    /**
+     * Constructor.
+     * @param order entries
+     * @param tmp temporary array
+     * @param start first entry
+     * @param end last entry (exclusive)
+     */
+    private SortTask(final int[] order, final int[] tmp, final int start, final int end) {
+      this.order = order;
+      this.tmp = tmp;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if(end - start <= PARALLEL >>> 2) {
+        sort(order, tmp, start, end);
+      } else {
+        final int mid = start + end >>> 1;
+        invokeAll(new SortTask(order, tmp, start, mid), new SortTask(order, tmp, mid, end));
+        merge(order, tmp, start, mid, end);
+      }
+    }
+  }
+
+  /**
+   * Key column.
+   */
+  private abstract static class Column {
+    /** Ranks of the entries. */
+    final byte[] ranks;
+    /** Rank of values that will be compared. */
+    final byte value;
+    /** Descending order. */
+    boolean desc;
+
+    /**
+     * Constructor.
+     * @param ranks ranks of the entries (can be {@code null})
+     * @param value rank of values that will be compared
+     */
+    Column(final byte[] ranks, final byte value) {
+      this.ranks = ranks;
+      this.value = value;
+    }
+
+    /**
+     * Compares two entries.
+     * @param i1 first entry
+     * @param i2 second entry
+     * @return result of comparison
+     */
+    int compare(final int i1, final int i2) {
+      final byte r1 = ranks[i1];
+      final int c = r1 - ranks[i2];
+      return c != 0 || r1 != value ? c : diff(i1, i2);
+    }
+
+    /**
+     * Compares the values of two entries.
+     * @param i1 first entry
+     * @param i2 second entry
+     * @return result of comparison
+     */
+    abstract int diff(int i1, int i2);
+
+    /**
+     * Indicates if the column contains primitive values.
+     * @return result of check
+     */
+    boolean primitive() {
+      return true;
+    }
+  }
+
+  /**
+   * Column with integers.
+   */
+  private static final class LongColumn extends Column {
+    /** Values. */
+    private final long[] values;
+
+    /**
+     * Constructor.
+     * @param values values
+     * @param ranks ranks of the entries
+     * @param value rank of values that will be compared
+     */
+    LongColumn(final long[] values, final byte[] ranks, final byte value) {
+      super(ranks, value);
+      this.values = values;
+    }
+
+    @Override
+    int diff(final int i1, final int i2) {
+      return Long.compare(values[i1], values[i2]);
+    }
+  }
+
+  /**
+   * Column with doubles or floats.
+   */
+  private static final class DoubleColumn extends Column {
+    /** Values (no NaN values). */
+    private final double[] values;
+
+    /**
+     * Constructor.
+     * @param values values
+     * @param ranks ranks of the entries
+     * @param value rank of values that will be compared
+     */
+    DoubleColumn(final double[] values, final byte[] ranks, final byte value) {
+      super(ranks, value);
+      this.values = values;
+    }
+
+    @Override
+    int diff(final int i1, final int i2) {
+      final double d1 = values[i1], d2 = values[i2];
+      // cannot be replaced by Double.compare (different semantics for -0 and 0)
+      return d1 < d2 ? -1 : d1 > d2 ? 1 : 0;
+    }
+  }
+
+  /**
+   * Column with strings.
+   */
+  private static final class TokenColumn extends Column {
+    /** Values. */
+    private final byte[][] values;
+
+    /**
+     * Constructor.
+     * @param values values
+     * @param ranks ranks of the entries
+     * @param value rank of values that will be compared
+     */
+    TokenColumn(final byte[][] values, final byte[] ranks, final byte value) {
+      super(ranks, value);
+      this.values = values;
+    }
+
+    @Override
+    int diff(final int i1, final int i2) {
+      return Token.diff(values[i1], values[i2]);
+    }
+  }
+
+  /**
+   * Column with arbitrary items.
+   */
+  private static final class ItemColumn extends Column {
+    /** Items. */
+    private final Item[] items;
+    /** Collation (can be {@code null}). */
+    private final Collation coll;
+    /** Input info. */
+    private final InputInfo info;
+    /** fn:sort semantics. */
+    private final boolean sort;
+
+    /**
+     * Constructor.
+     * @param items items
+     * @param ranks ranks of the entries
+     * @param value rank of values that will be compared
+     * @param coll collation (can be {@code null})
+     * @param info input info
+     * @param sort fn:sort semantics
+     */
+    ItemColumn(final Item[] items, final byte[] ranks, final byte value, final Collation coll,
+        final InputInfo info, final boolean sort) {
+      super(ranks, value);
+      this.items = items;
+      this.coll = coll;
+      this.info = info;
+      this.sort = sort;
+    }
+
+    @Override
+    int diff(final int i1, final int i2) {
+      final Item item1 = items[i1], item2 = items[i2];
+      try {
+        if(!item1.comparable(item2)) {
+          throw sort ? diffError(item1, item2, info) : typeError(item2, item1.type, info);
+        }
+        final int diff = item1.diff(item2, coll, info);
+        return sort && diff == Item.UNDEF ? 0 : diff;
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+    }
+
+    @Override
+    boolean primitive() {
+      return false;
+    }
+  }
+
+  /**
+   * Column with sequences (fn:sort).
+   */
+  private static final class ValueColumn extends Column {
+    /** Values. */
+    private final Value[] values;
+    /** Collation (can be {@code null}). */
+    private final Collation coll;
+    /** Input info. */
+    private final InputInfo info;
+
+    /**
+     * Constructor.
+     * @param values values
+     * @param coll collation (can be {@code null})
+     * @param info input info
+     */
+    ValueColumn(final Value[] values, final Collation coll, final InputInfo info) {
+      super(null, (byte) 0);
+      this.values = values;
+      this.coll = coll;
+      this.info = info;
+    }
+
+    @Override
+    int compare(final int i1, final int i2) {
+      return diff(i1, i2);
+    }
+
+    @Override
+    int diff(final int i1, final int i2) {
+      try {
+        return Sorter.compare(values[i1], values[i2], coll, info);
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+    }
+
+    @Override
+    boolean primitive() {
+      return false;
+    }
+  }
+}
@@ -16,6 +16,18 @@ public final class IndexCosts implements Comparable<IndexCosts> {
   public static final IndexCosts ENFORCE_DYNAMIC = new IndexCosts(-1);
   /** No results. */
   public static final IndexCosts ZERO = new IndexCosts(0);
+  /**
+   * Costs for retrieving a single index result, relative to the costs for visiting a node in a
+   * sequential scan. Index results are accessed randomly, and their ancestors need to be checked.
+   */
+  private static final int RESULT_COSTS = 4;
+  /**
+   * Maximum ratio between the results of an index request and the results of the cheapest
+   * request of the same step for intersecting the results.
+   */
+  private static final int INTERSECT_RATIO = 2;
+  /** Minimum number of scanned nodes for preferring a scan (small scans are cheap anyway). */
+  private static final long MIN_SCAN = 1 << 12;
 
   /**
    * Number of expected results.
@@ -73,6 +85,29 @@ public final class IndexCosts implements Comparable<IndexCosts> {
     return results > data.meta.size;
   }
 
+  /**
+   * Checks if a sequential scan is cheaper than index access.
+   * @param scan estimated number of nodes that will be visited by a sequential scan
+   *   ({@code -1}: unknown)
+   * @param checks number of checks that will be performed for each index result
+   * @return result of check
+   */
+  public boolean scanCheaper(final long scan, final int checks) {
+    return scan >= MIN_SCAN && results > 0 && scan < (long) results * RESULT_COSTS * checks;
+  }
+
+  /**
+   * Checks if the results of another index request should be intersected with the results of
+   * this request. Otherwise, the other predicate will be evaluated for each result of this request.
+   * Index results and their parents are processed as pre values, which is cheaper than evaluating
+   * a predicate, but all results of the other request need to be retrieved.
+   * @param ic costs of the other index request
+   * @return result of check
+   */
+  public boolean intersect(final IndexCosts ic) {
+    return results > 0 && ic.results > 0 && ic.results <= (long) results * INTERSECT_RATIO;
+  }
+
   @Override
   public int compareTo(final IndexCosts ic) {
     return results - ic.results;
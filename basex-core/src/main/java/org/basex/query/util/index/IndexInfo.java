@@ -41,6 +41,8 @@ public final class IndexInfo {
   public Expr expr;
   /** Costs of index access ({@code null}) if no index access is possible). */
   public IndexCosts costs;
+  /** Type of the requested index ({@code null} if no index access is possible). */
+  public IndexType type;
   /** Indicates if the last step addresses a text node. */
   boolean text;
 
@@ -112,6 +114,7 @@ public final class IndexInfo {
       }
       if(!new IndexNames(it, data).contains(qname)) return null;
     }
+    this.type = it;
     return it;
   }
 
@@ -135,6 +138,8 @@ public final class IndexInfo {
 
     final ParseExpr root;
     if(search instanceof Value) {
+      // reset costs (the index info may have been used for other expressions before)
+      costs = null;
       // loop through all items
       final Iter iter = search.iter(cc.qc);
       final TokenIntMap cache = new TokenIntMap();
@@ -222,6 +227,16 @@ public final class IndexInfo {
     return data != null ? data.costs(search) : IndexCosts.ENFORCE_STATIC;
   }
 
+  /**
+   * Assigns the estimated costs to the index access of the specified expression.
+   * @param ex index expression
+   * @param scan estimated number of nodes visited by a sequential scan ({@code -1}: unknown)
+   */
+  public void costs(final Expr ex, final long scan) {
+    final Expr rt = ex instanceof Path ? ((Path) ex).root : ex;
+    if(rt instanceof IndexAccess) ((IndexAccess) rt).costs(costs, scan);
+  }
+
   /**
    * Indicates if the index rewriting should be enforced.
    * @return result of check
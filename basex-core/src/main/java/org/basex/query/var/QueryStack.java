@@ -36,6 +36,19 @@ public final class QueryStack {
     return s;
   }
 
+  /**
+   * Enters a new stack frame with the bindings of the current frame of another stack.
+   * Required if expressions are evaluated by another query context.
+   * @param qs query stack
+   * @return stack pointer of the old frame
+   */
+  public int enterFrame(final QueryStack qs) {
+    final int s = qs.start, size = qs.end - s, frame = enterFrame(size);
+    System.arraycopy(qs.stack, s, stack, start, size);
+    System.arraycopy(qs.vars, s, vars, start, size);
+    return frame;
+  }
+
   /**
    * Prepares the current stack frame to be reused.
    * @param size new frame size
@@ -65,6 +78,16 @@ public final class QueryStack {
     if(len != sl) resize(len);
   }
 
+  /**
+   * Removes all stack frames (required if a query is evaluated again).
+   */
+  public void clear() {
+    stack = new Value[INIT];
+    vars = new Var[INIT];
+    start = 0;
+    end = 0;
+  }
+
   /**
    * Ensures that the query stack has at least the given size.
    * @param newSize required size of the stack
@@ -6,10 +6,12 @@ import static org.basex.query.QueryText.*;
 import org.basex.query.*;
 import org.basex.query.ann.*;
 import org.basex.query.expr.*;
+import org.basex.query.func.*;
 import org.basex.query.scope.*;
 import org.basex.query.util.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
+import org.basex.query.value.item.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
 
@@ -27,6 +29,12 @@ public final class StaticVar extends StaticDecl {
 
   /** Bound value. */
   Value value;
+  /**
+   * Indicates if the value may change after compilation. Assigned if the compiled query will be
+   * evaluated repeatedly (see {@link QueryCache}): The values of external variables and of
+   * variables that depend on them, or that are non-deterministic, are computed for each execution.
+   */
+  boolean rebind;
 
   /**
    * Constructor for a variable declared in a query.
@@ -47,10 +55,12 @@ public final class StaticVar extends StaticDecl {
 
   @Override
   public void comp(final CompileContext cc) throws QueryException {
-    if(expr == null) throw VAREMPTY_X.get(info, name());
+    if(expr == null && value == null) throw VAREMPTY_X.get(info, name());
     if(dontEnter) throw CIRCVAR_X.get(info, name());
     if(compiled) return;
     compiled = true;
+    // rebindable external variable without default value
+    if(expr == null) return;
 
     dontEnter = true;
     cc.pushScope(vs);
@@ -69,8 +79,36 @@ public final class StaticVar extends StaticDecl {
       dontEnter = false;
     }
 
+    // compiled query will be reused: check if value must be computed for each execution
+    if(cc.qc.reuse && !rebind && !(expr instanceof Value)) {
+      rebind = lazy || expr.has(Flag.NDT) || !expr.accept(new ASTVisitor() {
+        @Override
+        public boolean staticVar(final StaticVar var) {
+          return !var.rebind;
+        }
+        @Override
+        public boolean inlineFunc(final Scope scope) {
+          return false;
+        }
+        @Override
+        public boolean staticFuncCall(final StaticFuncCall call) {
+          return false;
+        }
+        @Override
+        public boolean dynFuncCall(final DynFuncCall call) {
+          return false;
+        }
+        @Override
+        public boolean funcItem(final FuncItem func) {
+          return false;
+        }
+      });
+    }
+
     // by default, pre-evaluate deterministic, non-lazy expressions
-    if(expr instanceof Value || !(lazy || expr.has(Flag.NDT))) cc.replaceWith(expr, value(cc.qc));
+    if(!rebind && (expr instanceof Value || !(lazy || expr.has(Flag.NDT)))) {
+      cc.replaceWith(expr, value(cc.qc));
+    }
   }
 
   /**
@@ -85,7 +123,7 @@ public final class StaticVar extends StaticDecl {
     if(lazy) {
       if(!compiled) throw Util.notExpected(this + " was not compiled.");
     } else {
-      if(expr == null) throw VAREMPTY_X.get(info, name());
+      if(expr == null && value == null) throw VAREMPTY_X.get(info, name());
     }
 
     if(value != null) return value;
@@ -118,11 +156,28 @@ public final class StaticVar extends StaticDecl {
    * @throws QueryException query exception
    */
   void bind(final Value val, final QueryContext qc) throws QueryException {
-    if(!external || compiled) return;
+    if(!external || compiled && !rebind) return;
     bindValue(declType == null || declType.instance(val) ? val :
       declType.cast(val, qc, sc, info), qc);
   }
 
+  /**
+   * Prepares the variable for another evaluation of the compiled query.
+   * Values that are computed for each execution are discarded.
+   */
+  void reset() {
+    if(rebind) value = null;
+  }
+
+  /**
+   * Returns the type of the references to this variable.
+   * @return type
+   */
+  SeqType refType() {
+    // the values of rebindable external variables may differ from the default value
+    return rebind && external && declType == null ? SeqType.ITEM_ZM : seqType();
+  }
+
   /**
    * Binds the specified value to the variable.
    * @param val value to be set
@@ -131,7 +186,8 @@ public final class StaticVar extends StaticDecl {
    * @throws QueryException query exception
    */
   private Value bindValue(final Value val, final QueryContext qc) throws QueryException {
-    expr = val;
+    // keep expression if the value is computed for each execution
+    if(!rebind) expr = val;
     value = val;
     if(declType != null) declType.treat(val, name, qc, info);
     return value;
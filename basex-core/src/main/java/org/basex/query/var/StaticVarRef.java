@@ -50,11 +50,11 @@ final class StaticVarRef extends ParseExpr {
 
   @Override
   public Expr optimize(final CompileContext cc) {
-    if(var.value != null) {
+    if(var.value != null && !var.rebind) {
       cc.info(QueryText.OPTINLINE_X, this);
       return var.value;
     }
-    exprType.assign(var.seqType());
+    exprType.assign(var.refType());
     return this;
   }
 
@@ -76,6 +76,29 @@ public final class Variables extends ExprInfo implements Iterable<StaticVar> {
     return ref;
   }
 
+  /**
+   * Prepares the variables for a compiled query that will be evaluated repeatedly:
+   * external variables will not be inlined.
+   */
+  public void reuse() {
+    for(final VarEntry ve : vars.values()) {
+      if(ve.var.external) ve.var.rebind = true;
+    }
+  }
+
+  /**
+   * Prepares the variables for another evaluation of the compiled query and binds all external
+   * variables.
+   * @param qc query context
+   * @param bindings variable bindings
+   * @throws QueryException query exception
+   */
+  public void rebind(final QueryContext qc, final HashMap<QNm, Value> bindings)
+      throws QueryException {
+    for(final VarEntry ve : vars.values()) ve.var.reset();
+    bindExternal(qc, bindings);
+  }
+
   /**
    * Binds all external variables.
    * @param qc query context
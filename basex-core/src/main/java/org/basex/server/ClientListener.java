@@ -4,7 +4,9 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.*;
 import org.basex.core.*;
@@ -35,7 +37,7 @@ public final class ClientListener extends Thread implements ClientInfo {
   public long last;
 
   /** Active queries. */
-  private final HashMap<String, ServerQuery> queries = new HashMap<>();
+  private final Map<String, ServerQuery> queries = new ConcurrentHashMap<>();
   /** Performance measurement. */
   private final Performance perf = new Performance();
   /** Database context. */
@@ -53,10 +55,12 @@ public final class ClientListener extends Thread implements ClientInfo {
   private Command command;
   /** Query id counter. */
   private int id;
-  /** Indicates if the server thread is running. */
-  private volatile boolean authenticated;
+  /** Id of the most recently created query ({@code null} if creation failed). */
+  private String qid;
   /** Indicates if the server has been closed. */
   private boolean closed;
+  /** Selector for idle connections ({@code null} if the session is run by its own thread). */
+  ClientSelector selector;
 
   /**
    * Constructor.
@@ -74,104 +78,131 @@ public final class ClientListener extends Thread implements ClientInfo {
 
   @Override
   public void run() {
-    if(!authenticate()) return;
+    if(authenticate()) {
+      while(process());
+    }
+  }
 
+  /**
+   * Processes a single client request.
+   * @return {@code false} if the session has been closed
+   */
+  boolean process() {
     try {
-      while(authenticated) {
-        command = null;
-        String cmd;
-        final ServerCmd sc;
-        try {
-          final int b = in.read();
-          if(b == -1) {
-            // end of stream: exit session
-            close();
-            break;
-          }
-
-          last = System.currentTimeMillis();
-          perf.ns();
-          sc = ServerCmd.get(b);
-          cmd = null;
-          if(sc == ServerCmd.CREATE) {
-            create();
-          } else if(sc == ServerCmd.ADD) {
-            add();
-          } else if(sc == ServerCmd.REPLACE) {
-            replace();
-          } else if(sc == ServerCmd.STORE) {
-            store();
-          } else if(sc != ServerCmd.COMMAND) {
-            query(sc);
-          } else {
-            // database command
-            cmd = new ByteList().add(b).add(in.readBytes()).toString();
-          }
-        } catch(final IOException ex) {
-          // this exception may be thrown if a session is stopped
-          Util.debug(ex);
+      command = null;
+      String cmd;
+      final ServerCmd sc;
+      try {
+        final int b = in.read();
+        if(b == -1) {
+          // end of stream: exit session
           close();
-          break;
-        }
-        if(sc != ServerCmd.COMMAND) continue;
-
-        // parse input and create command instance
-        try {
-          command = CommandParser.get(cmd, context).parseSingle();
-          command.jc().tracer = PASS;
-          log(LogType.REQUEST, command.toString(true));
-        } catch(final QueryException ex) {
-          // log invalid command
-          final String msg = ex.getMessage();
-          log(LogType.REQUEST, cmd);
-          log(LogType.ERROR, msg);
-          // send 0 to mark end of potential result
-          out.write(0);
-          // send {INFO}0
-          out.print(msg);
-          out.write(0);
-          // send 1 to mark error
-          send(false);
-          continue;
+          return false;
         }
 
-        // execute command and send {RESULT}
-        boolean ok = true;
-        String info;
-        try {
-          // run command
-          command.execute(context, new ServerOutput(out));
-          info = command.info();
-        } catch(final BaseXException ex) {
-          Util.debug(ex);
-          ok = false;
-          info = ex.getMessage();
+        last = System.currentTimeMillis();
+        perf.ns();
+        sc = ServerCmd.get(b);
+        cmd = null;
+        if(sc == ServerCmd.CREATE) {
+          create();
+        } else if(sc == ServerCmd.ADD) {
+          add();
+        } else if(sc == ServerCmd.REPLACE) {
+          replace();
+        } else if(sc == ServerCmd.STORE) {
+          store();
+        } else if(sc == ServerCmd.BATCH) {
+          batch();
+        } else if(sc != ServerCmd.COMMAND) {
+          query(sc);
+        } else {
+          // database command
+          cmd = new ByteList().add(b).add(in.readBytes()).toString();
         }
-
-        // send 0 to mark end of result
+      } catch(final IOException ex) {
+        // this exception may be thrown if a session is stopped
+        Util.debug(ex);
+        close();
+        return false;
+      }
+      if(sc != ServerCmd.COMMAND) return !closed;
+
+      // parse input and create command instance
+      try {
+        command = CommandParser.get(cmd, context).parseSingle();
+        command.jc().tracer = PASS;
+        log(LogType.REQUEST, command.toString(true));
+      } catch(final QueryException ex) {
+        // log invalid command
+        final String msg = ex.getMessage();
+        log(LogType.REQUEST, cmd);
+        log(LogType.ERROR, msg);
+        // send 0 to mark end of potential result
         out.write(0);
-        // send info
-        info(info, ok);
+        // send {INFO}0
+        out.print(msg);
+        out.write(0);
+        // send 1 to mark error
+        send(false);
+        return true;
+      }
 
-        // stop console
-        if(command instanceof Exit) {
-          command = null;
-          close();
-        }
+      // execute command and send {RESULT}
+      boolean ok = true;
+      String info;
+      try {
+        // run command
+        command.execute(context, new ServerOutput(out));
+        info = command.info();
+      } catch(final BaseXException ex) {
+        Util.debug(ex);
+        ok = false;
+        info = ex.getMessage();
       }
+
+      // send 0 to mark end of result
+      out.write(0);
+      // send info
+      info(info, ok);
+
+      // stop console
+      final boolean exit = command instanceof Exit;
+      command = null;
+      if(exit) {
+        close();
+        return false;
+      }
+      return true;
     } catch(final IOException ex) {
       log(LogType.ERROR, Util.message(ex));
       command = null;
       close();
+      return false;
     }
-    command = null;
+  }
+
+  /**
+   * Checks if the input buffer contains unprocessed bytes.
+   * @return result of check
+   */
+  boolean buffered() {
+    return in.buffered();
+  }
+
+  /**
+   * Returns the channel of the client socket.
+   * @return channel, or {@code null} if the socket was not created by a server socket channel
+   */
+  SocketChannel channel() {
+    return socket.getChannel();
   }
 
   /**
    * Initializes a session via digest authentication.
    * @return success flag
    */
-  private boolean authenticate() {
+  boolean authenticate() {
     boolean auth = false;
     try {
       final String nonce = Long.toString(System.nanoTime());
@@ -212,7 +243,6 @@ public final class ClientListener extends Thread implements ClientInfo {
     }
 
     server.remove(this);
-    authenticated = auth;
     return auth;
   }
 
@@ -232,8 +262,12 @@ public final class ClientListener extends Thread implements ClientInfo {
     context.sessions.remove(this);
 
     try {
-      if(context.user() != null) Close.close(context);
       socket.close();
+      // stop queries with pending results
+      for(final ServerQuery query : queries.values()) query.close();
+      if(context.user() != null) Close.close(context);
+      // trigger the deregistration of an idle connection
+      if(selector != null) selector.wakeup();
     } catch(final Throwable ex) {
       log(LogType.ERROR, Util.message(ex));
       Util.stack(ex);
@@ -351,16 +385,41 @@ public final class ClientListener extends Thread implements ClientInfo {
     }
   }
 
+  /**
+   * Processes a batch of requests. All requests are read before the first one is executed,
+   * and the responses are sent back in the order of the requests.
+   * @throws IOException I/O exception
+   */
+  private void batch() throws IOException {
+    final ArrayOutput ao = new ArrayOutput();
+    final ServerInput si = new ServerInput(in);
+    for(int b; (b = si.read()) != -1;) ao.write(b);
+
+    final BufferInput bi = in;
+    in = new ArrayInput(ao.finish());
+    try {
+      while(in.buffered() && process());
+    } finally {
+      in = bi;
+    }
+  }
+
   /**
    * Processes the query iterator.
    * @param sc server command
    * @throws IOException I/O exception
    */
   private void query(final ServerCmd sc) throws IOException {
-    // iterator argument (query or identifier)
+    // iterator argument (query or identifier; empty string: most recently created query)
     String arg = in.readString();
+    if(sc == ServerCmd.QUERY) {
+      qid = null;
+    } else if(arg.isEmpty() && qid != null) {
+      arg = qid;
+    }
 
     String error = null;
+    Boolean more = null;
     try {
       final ServerQuery qp;
       final StringBuilder info = new StringBuilder();
@@ -370,6 +429,7 @@ public final class ClientListener extends Thread implements ClientInfo {
         qp.jc().tracer = PASS;
         arg = Integer.toString(id++);
         queries.put(arg, qp);
+        qid = arg;
         // send {ID}0
         out.print(arg);
         out.write(0);
@@ -400,6 +460,10 @@ public final class ClientListener extends Thread implements ClientInfo {
           qp.execute(out, false, true, false);
         } else if(sc == ServerCmd.FULL) {
           qp.execute(out, true, true, true);
+        } else if(sc == ServerCmd.CHUNK) {
+          final int items = Strings.toInt(in.readString());
+          final int bytes = Strings.toInt(in.readString());
+          more = qp.chunk(out, items, bytes);
         } else if(sc == ServerCmd.INFO) {
           out.print(qp.info());
         } else if(sc == ServerCmd.OPTIONS) {
@@ -408,6 +472,7 @@ public final class ClientListener extends Thread implements ClientInfo {
           out.print(Boolean.toString(qp.updating()));
         } else if(sc == ServerCmd.CLOSE) {
           queries.remove(arg);
+          qp.close();
         } else if(sc == ServerCmd.NEXT) {
           throw new Exception("Protocol for query iteration is out-of-date.");
         }
@@ -416,6 +481,8 @@ public final class ClientListener extends Thread implements ClientInfo {
       }
       // send 0 as success flag
       out.write(0);
+      // chunks: send 1 if more results may follow
+      if(more != null) out.write(more ? 1 : 0);
       // write log file
       log(LogType.OK, sc.toString() + '[' + arg + "] " + info);
 
@@ -424,7 +491,8 @@ public final class ClientListener extends Thread implements ClientInfo {
       error = ex instanceof RuntimeException ? Util.bug(ex) : Util.message(ex);
       log(LogType.REQUEST, sc + "[" + arg + ']');
       log(LogType.ERROR, error);
-      queries.remove(arg);
+      final ServerQuery qp = queries.remove(arg);
+      if(qp != null) qp.close();
     }
     if(error != null) {
       // send 0 as end marker, 1 as error flag, and {MSG}0
@@ -0,0 +1,189 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.server.Log.LogType;
+import org.basex.util.*;
+
+/**
+ * Selector for idle client connections (see {@link StaticOptions#SERVERSELECTOR}).
+ *
+ * Sessions that wait for the next request are registered with a single selector thread.
+ * If new input arrives, the connection is switched to blocking mode, and the session is
+ * processed by a worker thread until no more input is buffered. Afterwards, the connection is
+ * returned to the selector. Worker threads are only bound while requests are read and executed;
+ * the client/server protocol remains unchanged.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelector implements Runnable {
+  /** Sessions to be registered. */
+  private final Queue<ClientListener> pending = new ConcurrentLinkedQueue<>();
+  /** Worker threads. */
+  private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+    final Thread thread = new Thread(r);
+    thread.setDaemon(true);
+    return thread;
+  });
+  /** Selector (will be replaced if it fails). */
+  private volatile Selector selector;
+  /** Database context. */
+  private final Context context;
+  /** Indicates if the selector is running. */
+  private volatile boolean running = true;
+
+  /**
+   * Constructor.
+   * @param context database context
+   * @throws IOException I/O exception
+   */
+  public ClientSelector(final Context context) throws IOException {
+    this.context = context;
+    selector = Selector.open();
+    final Thread thread = new Thread(this);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Authenticates a new client session and registers it as idle connection.
+   * @param client client session
+   */
+  public void add(final ClientListener client) {
+    client.selector = this;
+    workers.execute(() -> {
+      if(client.authenticate()) register(client);
+    });
+  }
+
+  /**
+   * Processes client requests until no more input is buffered.
+   * @param client client session
+   */
+  private void serve(final ClientListener client) {
+    do {
+      if(!client.process()) return;
+    } while(client.buffered());
+    register(client);
+  }
+
+  /**
+   * Switches the connection of a session to non-blocking mode and registers it.
+   * @param client client session
+   */
+  private void register(final ClientListener client) {
+    if(!running) {
+      client.close();
+      return;
+    }
+    try {
+      client.channel().configureBlocking(false);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      client.close();
+      return;
+    }
+    pending.add(client);
+    selector.wakeup();
+  }
+
+  /**
+   * Wakes up the selector.
+   */
+  void wakeup() {
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    final ArrayList<ClientListener> ready = new ArrayList<>();
+    while(running) {
+      try {
+        selector.select();
+        for(ClientListener client; (client = pending.poll()) != null;) {
+          try {
+            client.channel().register(selector, SelectionKey.OP_READ, client);
+          } catch(final ClosedChannelException ex) {
+            Util.debug(ex);
+            client.close();
+          }
+        }
+
+        final Set<SelectionKey> keys = selector.selectedKeys();
+        for(final SelectionKey key : keys) {
+          key.cancel();
+          ready.add((ClientListener) key.attachment());
+        }
+        keys.clear();
+        if(ready.isEmpty()) continue;
+
+        // deregister cancelled keys before switching back to blocking mode
+        selector.selectNow();
+        selector.selectedKeys().clear();
+        for(final ClientListener client : ready) {
+          try {
+            client.channel().configureBlocking(true);
+            workers.execute(() -> serve(client));
+          } catch(final IOException ex) {
+            Util.debug(ex);
+            client.close();
+          }
+        }
+        ready.clear();
+      } catch(final ClosedSelectorException | IOException ex) {
+        if(!running) break;
+        // unexpected error: continue with a new selector
+        context.log.writeServer(LogType.ERROR, Util.message(ex));
+        reopen(ready);
+      }
+    }
+  }
+
+  /**
+   * Closes the current selector and all sessions that are registered with it, and opens a new
+   * selector. If this fails, the selector is stopped, and all pending sessions are closed.
+   * @param ready sessions that have been selected, but not been processed yet
+   */
+  private void reopen(final ArrayList<ClientListener> ready) {
+    final Selector old = selector;
+    try {
+      for(final SelectionKey key : old.keys()) {
+        if(key.isValid()) ready.add((ClientListener) key.attachment());
+      }
+      old.close();
+    } catch(final ClosedSelectorException | IOException ex) {
+      Util.debug(ex);
+    }
+    for(final ClientListener client : ready) client.close();
+    ready.clear();
+
+    try {
+      selector = Selector.open();
+      if(running) return;
+      // selector was closed in the meantime
+      selector.close();
+    } catch(final IOException ex) {
+      context.log.writeServer(LogType.ERROR, Util.message(ex));
+      running = false;
+    }
+    for(ClientListener client; (client = pending.poll()) != null;) client.close();
+  }
+
+  /**
+   * Closes the selector and stops the worker threads.
+   */
+  public void close() {
+    running = false;
+    try {
+      selector.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    workers.shutdownNow();
+  }
+}
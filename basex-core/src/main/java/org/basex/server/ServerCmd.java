@@ -33,6 +33,10 @@ public enum ServerCmd {
   STORE(13),
   /** Code for binding a context value: {id}0{val}0{type}0. */
   CONTEXT(14),
+  /** Code for running a batch of requests, encoded as single input: {requests}0. */
+  BATCH(15),
+  /** Code for returning the next chunk of results: {id}0{items}0{bytes}0. */
+  CHUNK(16),
   /** Code for returning the update flag: {id}0. */
   UPDATING(30),
   /** Code for executing a query and returning all information relevant for XQJ: {id}0. */
@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 import static org.basex.query.QueryError.*;
 
 import java.io.*;
+import java.util.concurrent.*;
 
 import org.basex.api.client.*;
 import org.basex.core.*;
@@ -33,6 +34,8 @@ public final class ServerQuery extends Job {
   private boolean parsed;
   /** Query info. */
   private final StringBuilder info = new StringBuilder();
+  /** Iterative evaluation with pending results ({@code null} if no evaluation is pending). */
+  private volatile Chunks chunks;
 
   /**
    * Constructor.
@@ -52,6 +55,7 @@ public final class ServerQuery extends Job {
    * @throws IOException query exception
    */
   public void bind(final String name, final Object value, final String type) throws IOException {
+    close();
     try {
       qp().bind(name, value, type);
     } catch(final QueryException ex) {
@@ -67,6 +71,7 @@ public final class ServerQuery extends Job {
    * @throws IOException query exception
    */
   public void context(final Object value, final String type) throws IOException {
+    close();
     try {
       qp().context(value, type);
     } catch(final QueryException ex) {
@@ -113,25 +118,10 @@ public final class ServerQuery extends Job {
   public void execute(final OutputStream out, final boolean iterative, final boolean encode,
       final boolean full) throws IOException {
 
-    final boolean compplan = ctx.options.get(MainOptions.COMPPLAN);
-
+    close();
     try {
-      // parses the query and registers the process
-      parse();
-      qp.register(ctx);
-
-      final Performance perf = jc().performance;
-
-      if(!compplan) queryPlan();
-      qp.compile();
-      if(compplan) queryPlan();
-
+      final Iter iter = iter();
       final QueryContext qc = qp.qc;
-      final QueryInfo qi = qc.info;
-
-      qi.compiling = perf.ns();
-      final Iter iter = qp.iter();
-      qi.evaluating = perf.ns();
 
       // iterate through results
       int hits = 0;
@@ -152,10 +142,7 @@ public final class ServerQuery extends Job {
           hits++;
         }
       }
-      qi.serializing = perf.ns();
-
-      // generate query info
-      info.append(qi.toString(qp, po.size(), hits, jc().locks));
+      finish(po.size(), hits);
 
     } catch(final QueryException | JobException ex) {
       throw new BaseXException(ex);
@@ -163,16 +150,103 @@ public final class ServerQuery extends Job {
       Util.debug(ex);
       throw new BaseXException(BASEX_OVERFLOW.desc);
     } finally {
-      // close processor and unregisters the process
-      if(qp != null) {
-        if(parsed) {
-          qp.close();
-          qp.unregister(ctx);
-          parsed = false;
-        }
-        qp = null;
-        popJob();
+      release();
+    }
+  }
+
+  /**
+   * Serializes the next chunk of results in an iterative manner.
+   * The query is evaluated by a separate thread, which is started with the first call. It
+   * serializes a new chunk only if it is requested by this function, and it keeps the locks of
+   * the query until the last item has been returned or until {@link #close()} is called.
+   * @param out output stream
+   * @param items maximum number of items ({@code 0}: no limit)
+   * @param bytes maximum number of bytes ({@code 0}: no limit; the limit may be exceeded by
+   *   the last item of a chunk)
+   * @return {@code true} if more items may follow
+   * @throws IOException I/O Exception
+   */
+  public boolean chunk(final OutputStream out, final int items, final int bytes)
+      throws IOException {
+
+    // reject invalid limits (no limits at all would yield a single chunk)
+    if(items < 0 || bytes < 0 || items == 0 && bytes == 0) {
+      throw new BaseXException("Invalid chunk size: % items, % bytes.", items, bytes);
+    }
+
+    if(chunks == null) {
+      chunks = new Chunks();
+      chunks.start();
+    }
+    final Chunks ch = chunks;
+    final Object chunk = ch.next(items, bytes);
+    if(!ch.more) chunks = null;
+    if(chunk instanceof IOException) throw (IOException) chunk;
+    if(chunk instanceof RuntimeException) throw (RuntimeException) chunk;
+    out.write((byte[]) chunk);
+    return ch.more;
+  }
+
+  /**
+   * Stops an iterative evaluation with pending results and waits until its locks are released.
+   */
+  public void close() {
+    final Chunks ch = chunks;
+    if(ch != null) {
+      chunks = null;
+      ch.close();
+    }
+  }
+
+  /**
+   * Parses, registers and compiles the query and returns a result iterator.
+   * @return iterator
+   * @throws IOException I/O Exception
+   * @throws QueryException query exception
+   */
+  private Iter iter() throws IOException, QueryException {
+    // parses the query and registers the process
+    parse();
+    qp.register(ctx);
+
+    final Performance perf = jc().performance;
+    if(!ctx.options.get(MainOptions.COMPPLAN)) queryPlan();
+    qp.compile();
+
+    final QueryInfo qi = qp.qc.info;
+    qi.compiling = perf.ns();
+    final Iter iter = qp.iter();
+    qi.evaluating = perf.ns();
+    return iter;
+  }
+
+  /**
+   * Finishes the evaluation and generates the query info.
+   * @param size number of serialized bytes
+   * @param hits number of results
+   * @throws QueryIOException query I/O exception
+   */
+  private void finish(final long size, final int hits) throws QueryIOException {
+    qp.qc.info.serializing = jc().performance.ns();
+    // generate plan of compiled query after evaluation (includes runtime statistics)
+    if(ctx.options.get(MainOptions.COMPPLAN)) queryPlan();
+
+    // generate query info
+    info.append(qp.qc.info.toString(qp, size, hits, jc().locks));
+  }
+
+  /**
+   * Closes the query processor and unregisters the process.
+   */
+  private void release() {
+    if(qp != null) {
+      if(parsed) {
+        qp.close();
+        qp.unregister(ctx);
+        parsed = false;
       }
+      qp = null;
+      popJob();
     }
   }
 
@@ -215,4 +289,125 @@ public final class ServerQuery extends Job {
     }
     return qp;
   }
+
+  /**
+   * Iterative evaluation of a query in a separate thread. The thread acquires the locks of the
+   * query and is blocked until the next chunk of results is requested.
+   */
+  private final class Chunks extends Thread {
+    /** Requested chunks (maximum number of items and bytes; empty array: stop evaluation). */
+    private final BlockingQueue<int[]> requests = new LinkedBlockingQueue<>();
+    /** Serialized chunks or exceptions. */
+    private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+    /** Indicates if more items may follow. */
+    private volatile boolean more = true;
+
+    /**
+     * Constructor.
+     */
+    Chunks() {
+      setDaemon(true);
+    }
+
+    /**
+     * Requests and returns the next chunk.
+     * @param items maximum number of items
+     * @param bytes maximum number of bytes
+     * @return serialized chunk or exception
+     */
+    Object next(final int items, final int bytes) {
+      requests.add(new int[] { items, bytes });
+      while(true) {
+        try {
+          return results.take();
+        } catch(final InterruptedException ex) {
+          Util.debug(ex);
+        }
+      }
+    }
+
+    /**
+     * Stops the evaluation and waits until the thread has been finished.
+     */
+    void close() {
+      final QueryProcessor proc = qp;
+      if(proc != null) proc.stop();
+      requests.add(new int[0]);
+      try {
+        join();
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+      }
+    }
+
+    /**
+     * Waits for the next request. As the locks of the query are kept while waiting, the query
+     * is regularly checked for interruptions (stopped jobs, timeouts).
+     * @param qc query context
+     * @return request
+     * @throws InterruptedException interrupted exception
+     */
+    private int[] request(final QueryContext qc) throws InterruptedException {
+      while(true) {
+        final int[] request = requests.poll(100, TimeUnit.MILLISECONDS);
+        if(request != null) return request;
+        qc.checkStop();
+      }
+    }
+
+    @Override
+    public void run() {
+      // last chunk or exception, which will be passed on after the locks have been released
+      Object last = new BaseXException(INTERRUPTED);
+      try {
+        final Iter iter = iter();
+        final QueryContext qc = qp.qc;
+        final SerializerOptions sopts = qc.serParams();
+        long size = 0;
+        int hits = 0;
+        for(int[] request; (request = request(qc)).length != 0;) {
+          final int items = request[0], bytes = request[1];
+          final ArrayOutput ao = new ArrayOutput();
+          final PrintOutput po = PrintOutput.get(new ServerOutput(ao));
+          boolean finished = false;
+          try(Serializer ser = Serializer.get(po, sopts)) {
+            for(int i = 0; (items == 0 || i < items) && (bytes == 0 || po.size() < bytes); i++) {
+              final Item item = qc.next(iter);
+              if(item == null) {
+                finished = true;
+                break;
+              }
+              po.write(item.typeId().asByte());
+              ser.reset();
+              ser.serialize(item);
+              po.flush();
+              ao.write(0);
+              hits++;
+            }
+          }
+          size += po.size();
+          if(finished) {
+            finish(size, hits);
+            last = ao.finish();
+            break;
+          }
+          results.add(ao.finish());
+        }
+      } catch(final QueryException | JobException ex) {
+        last = new BaseXException(ex);
+      } catch(final IOException | RuntimeException ex) {
+        last = ex;
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+      } catch(final StackOverflowError ex) {
+        Util.debug(ex);
+        last = new BaseXException(BASEX_OVERFLOW.desc);
+      } finally {
+        // always pass on a final result: a pending request must not be blocked
+        more = false;
+        release();
+        results.add(last);
+      }
+    }
+  }
 }
@@ -3,6 +3,7 @@ package org.basex.data;
 import static org.junit.Assert.*;
 
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.index.*;
 import org.basex.util.list.*;
@@ -96,6 +97,51 @@ public final class IdPreMapTest {
     }
   }
 
+  /** Appends nodes to an inserted interval. */
+  @Test public void appendToInterval() {
+    final int n = BASEID + ITERATIONS;
+    for(int id = BASEID + 1, pre = BASEID / 2; id <= n; ++id, ++pre) {
+      insert(pre, id);
+      check();
+    }
+    assertEquals(1, testedmap.size());
+  }
+
+  /** Compaction: randomly insert/delete value at random positions, merge entries. */
+  @Test public void compact() {
+    insertDeleteCorrectness();
+    final int size = testedmap.size();
+    testedmap.compact();
+    check();
+    assertTrue(testedmap.size() <= size);
+  }
+
+  /**
+   * Looks up IDs while nodes are inserted.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test public void concurrentLookups() throws InterruptedException {
+    final int half = BASEID / 2;
+    final AtomicBoolean done = new AtomicBoolean(), error = new AtomicBoolean();
+    final Thread[] readers = new Thread[4];
+    for(int r = 0; r < readers.length; r++) {
+      readers[r] = new Thread(() -> {
+        while(!done.get()) {
+          for(int id = 0; id <= BASEID; id++) {
+            final int pre = testedmap.pre(id);
+            if(id < half ? pre != id : pre < id) error.set(true);
+          }
+        }
+      });
+      readers[r].start();
+    }
+    final int n = BASEID + ITERATIONS * 10;
+    for(int id = BASEID + 1; id <= n; ++id) testedmap.insert(half + RANDOM.nextInt(half), id, 1);
+    done.set(true);
+    for(final Thread reader : readers) reader.join();
+    assertFalse(error.get());
+  }
+
   /** Insert performance: insert at random positions. */
   @Test public void insertPerformance() {
     insertPerformance(testedmap);
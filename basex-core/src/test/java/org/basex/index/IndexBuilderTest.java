@@ -0,0 +1,157 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for building index structures in parallel.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexBuilderTest extends SandboxTest {
+  /** Name of the reference database. */
+  private static final String REF = NAME + "ref";
+  /** Query for creating the test databases. */
+  private static final String INPUT = "<x>{ for $i in 1 to 50000 return "
+      + "<a b='{ $i mod 1000 }'>{ 'T' || $i mod 777 } { $i mod 100 } x y</a> }</x>";
+  /** Queries on the index structures. */
+  private static final String[] QUERIES = {
+    "count(db:text('%', 'T11 x y'))",
+    "sum(db:attribute('%', ('1', '999', '500')) ! number())",
+    "count(db:token('%', ('1', '999')))",
+    "count(ft:search('%', 'T123'))",
+    "sum(ft:search('%', ('x', '42'), map { 'mode': 'all words' }) ! db:node-pre(.))",
+    "string-join(index:texts('%', 'T12') ! (. || @count), ',')",
+  };
+
+  /** Input document. */
+  private static String input;
+
+  /** Creates the input document. */
+  @BeforeClass public static void initInput() {
+    input = query(INPUT);
+  }
+
+  /** Sets options. */
+  @Before public void init() {
+    set(MainOptions.TOKENINDEX, true);
+    set(MainOptions.FTINDEX, true);
+  }
+
+  /** Resets options, drops the test databases. */
+  @After public void finish() {
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.INDEXTHREADS, 0);
+    set(MainOptions.INDEXMEMORY, 0);
+    set(MainOptions.SPLITSIZE, 0);
+    set(MainOptions.UPDINDEX, false);
+    execute(new DropDB(NAME));
+    execute(new DropDB(REF));
+  }
+
+  /** Creates the indexes in parallel. */
+  @Test public void create() {
+    compare();
+  }
+
+  /** Creates the indexes in parallel, splits partial indexes. */
+  @Test public void split() {
+    set(MainOptions.SPLITSIZE, 1);
+    compare();
+  }
+
+  /** Creates updatable indexes in parallel. */
+  @Test public void updindex() {
+    set(MainOptions.UPDINDEX, true);
+    compare();
+  }
+
+  /** Creates the indexes with a small memory budget. */
+  @Test public void memory() {
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.INDEXTHREADS, 1);
+    create(REF);
+    set(MainOptions.INDEXMEMORY, 1);
+    final CreateDB cmd = new CreateDB(NAME, input);
+    execute(cmd);
+    final String info = cmd.info();
+    assertTrue(info, info.matches("(?s).*Index 'text': [1-9]\\d* spill.*"));
+    for(final String query : QUERIES) {
+      if(!query.contains("ft:")) compare(query);
+    }
+
+    // the full-text tokens alone exceed the budget
+    set(MainOptions.FTINDEX, true);
+    try {
+      new CreateDB(NAME, input).execute(context);
+      fail("Budget was not exceeded.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().startsWith(Text.OUT_OF_MEM));
+    }
+  }
+
+  /** Creates the indexes in parallel via the database options of db:create. */
+  @Test public void dbCreate() {
+    set(MainOptions.INDEXTHREADS, 1);
+    create(REF);
+    query("db:create('" + NAME + "', " + INPUT + ", 'x.xml', map { 'tokenindex': true(), "
+        + "'ftindex': true(), 'indexthreads': 4 })");
+    check();
+  }
+
+  /** Creates the indexes in parallel via optimize. */
+  @Test public void optimize() {
+    set(MainOptions.INDEXTHREADS, 1);
+    create(REF);
+    create(NAME);
+    set(MainOptions.INDEXTHREADS, 4);
+    execute(new Open(NAME));
+    execute(new Optimize());
+    execute(new OptimizeAll());
+    check();
+  }
+
+  /**
+   * Creates a reference database with a single thread and a test database with multiple threads,
+   * and compares the results of index queries.
+   */
+  private static void compare() {
+    set(MainOptions.INDEXTHREADS, 1);
+    create(REF);
+    set(MainOptions.INDEXTHREADS, 4);
+    create(NAME);
+    check();
+  }
+
+  /**
+   * Compares the results of index queries, checks that no partial index files are left.
+   */
+  private static void check() {
+    for(final String query : QUERIES) compare(query);
+    final String files = query("file:list('" + context.soptions.dbPath(NAME) + "')");
+    assertFalse(files, files.matches("(?s).*(txt|atv|tok|ftx)\\d.*"));
+  }
+
+  /**
+   * Compares the results of an index query on both databases.
+   * @param query query
+   */
+  private static void compare(final String query) {
+    assertEquals(query, query(query.replace("%", REF)), query(query.replace("%", NAME)));
+  }
+
+  /**
+   * Creates a database.
+   * @param name name of database
+   */
+  private static void create(final String name) {
+    execute(new CreateDB(name, input));
+  }
+}
@@ -5,6 +5,7 @@ import static org.junit.Assert.*;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.junit.*;
 
 /**
@@ -22,6 +23,11 @@ public final class IndexCacheTest {
     cache = new IndexCache();
   }
 
+  /** Restores the default capacity. */
+  @After public void tearDown() {
+    IndexCache.init((long) StaticOptions.INDEXCACHE.value() << 20);
+  }
+
   /** Test for method {@link IndexCache#get(byte[])}. */
   @Test public void testGetNotExisting() {
     for(int i = 0; i < 4000; ++i) {
@@ -69,6 +75,66 @@ public final class IndexCacheTest {
     assertNull(cache.get(key));
   }
 
+  /** Test for method {@link IndexCache#close()}. */
+  @Test public void testClose() {
+    final IndexCache other = new IndexCache();
+    final byte[] key = token("keyClose");
+    cache.add(key, 1, 2L);
+    other.add(key, 3, 4L);
+    cache.close();
+
+    assertNull(cache.get(key));
+    assertEquals(3, other.get(key).size);
+  }
+
+  /** Checks that the capacity in bytes is respected. */
+  @Test public void testCapacity() {
+    IndexCache.init(1 << 16);
+    final long capacity = IndexCache.capacity();
+    assertTrue(capacity > 0 && capacity <= 1 << 16);
+
+    for(int i = 0; i < 10000; ++i) {
+      cache.add(token("keyCapacity" + i), i, i);
+      assertTrue(IndexCache.used() <= capacity);
+    }
+    assertTrue(IndexCache.entries() < 10000);
+    // the most recently added entry is still cached
+    assertCacheEntry(token("keyCapacity" + 9999), 9999, 9999L);
+  }
+
+  /** Checks that frequently requested entries are not displaced by a scan. */
+  @Test public void testScan() {
+    IndexCache.init(1 << 16);
+    final byte[] key = token("keyScan");
+    cache.add(key, 1, 1L);
+    assertNotNull(cache.get(key));
+
+    for(int i = 0; i < 10000; ++i) cache.add(token("keyScan" + i), i, i);
+    assertCacheEntry(key, 1, 1L);
+  }
+
+  /** Checks the hit statistics. */
+  @Test public void testStatistics() {
+    final long hits = IndexCache.hits(), misses = IndexCache.misses();
+    final byte[] key = token("keyStatistics");
+    assertNull(cache.get(key));
+    cache.add(key, 1, 1L);
+    assertNotNull(cache.get(key));
+    assertNotNull(cache.get(key));
+
+    assertEquals(hits + 2, IndexCache.hits());
+    assertEquals(misses + 1, IndexCache.misses());
+  }
+
+  /** Checks that nothing is cached if the cache is disabled. */
+  @Test public void testDisabled() {
+    IndexCache.init(0);
+    assertFalse(IndexCache.enabled());
+    final byte[] key = token("keyDisabled");
+    assertEquals(5, cache.add(key, 5, 6L).size);
+    assertNull(cache.get(key));
+  }
+
   /**
    * Test that new records can be continuously added without hitting
    * {@link OutOfMemoryError}.
@@ -0,0 +1,123 @@
+package org.basex.index;
+
+import static org.basex.data.DataText.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for the key directory of the value index.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class KeyDirectoryTest extends SandboxTest {
+  /** Name of the reference database (without index structures). */
+  private static final String REF = NAME + "ref";
+  /** Test document (more distinct values than fit into a single page). */
+  private static final String INPUT = "<xml>{"
+      + "for $i in 1 to 3000 return <a v='{ $i mod 1700 }'>{ 'k' || $i * 7 mod 2500 }</a>"
+      + "}</xml>";
+  /** Keys to be looked up. */
+  private static final String KEYS = "(('k', 'k0', 'k1', 'k10', 'k100', 'k2499', 'k25', 'l'), "
+      + "(1 to 2600) ! ('k' || . * 13))";
+
+  /** Creates the test databases. */
+  @Before public void init() {
+    final String input = query(INPUT);
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.TEXTINDEX, false);
+    set(MainOptions.ATTRINDEX, false);
+    execute(new CreateDB(REF, input));
+    set(MainOptions.TEXTINDEX, true);
+    set(MainOptions.ATTRINDEX, true);
+    execute(new CreateDB(NAME, input));
+    set(MainOptions.UPDINDEX, false);
+  }
+
+  /** Drops the test databases. */
+  @After public void finish() {
+    execute(new DropDB(NAME));
+    execute(new DropDB(REF));
+  }
+
+  /** Looks up keys. */
+  @Test public void lookup() {
+    assertTrue(new IOFile(context.soptions.dbPath(NAME), DATATXT + "k" + IO.BASEXSUFFIX).exists());
+    compare();
+  }
+
+  /** Looks up keys if no directory exists on disk. */
+  @Test public void missing() {
+    execute(new Close());
+    final IOFile dir = context.soptions.dbPath(NAME);
+    assertTrue(new IOFile(dir, DATATXT + "k" + IO.BASEXSUFFIX).delete());
+    assertTrue(new IOFile(dir, DATAATV + "k" + IO.BASEXSUFFIX).delete());
+    compare();
+  }
+
+  /** Looks up keys after updates. */
+  @Test public void update() {
+    for(final String db : new String[] { NAME, REF }) {
+      // insert new keys and delete existing keys
+      query("for $a in db:open('" + db + "')//a[. = ('k0', 'k7', 'k14')] return delete node $a");
+      query("insert node (1 to 2000) ! <a v='{ . * 3 }'>{ 'k' || . * 3 }x</a> "
+          + "into db:open('" + db + "')/xml");
+      query("for $a in db:open('" + db + "')//a[position() mod 3 = 0] "
+          + "return replace value of node $a with 'k' || string-length($a)");
+      query("for $a in db:open('" + db + "')//a[position() mod 5 = 0] return delete node $a");
+    }
+    compare();
+
+    // check persisted directory
+    execute(new Close());
+    compare();
+  }
+
+  /**
+   * Looks up keys if the directory on disk is outdated.
+   * @throws IOException I/O exception
+   */
+  @Test public void outdated() throws IOException {
+    execute(new Close());
+    final IOFile file = new IOFile(context.soptions.dbPath(NAME), DATATXT + "k" + IO.BASEXSUFFIX);
+    final byte[] old = file.read();
+
+    // replace a key: the number of index entries and the file sizes will not change
+    Performance.sleep(2);
+    for(final String db : new String[] { NAME, REF }) {
+      query("replace value of node db:open('" + db + "')//a[. = 'k0'] with 'j0'");
+    }
+    file.write(old);
+    assertEquals("1", query("count(db:open('" + NAME + "')//text()[. = 'j0'])"));
+    compare();
+  }
+
+  /**
+   * Compares the results of index lookups with the reference database.
+   */
+  private static void compare() {
+    for(final String query : new String[] {
+      "for $k in " + KEYS + " return count(%//text()[. = $k])",
+      "for $k in " + KEYS + " return count(%//@v[. = substring($k, 2)])",
+      "count(%//text()[. >= 'k1' and . < 'k2'])",
+      "count(%//text()[starts-with(., 'k99')])",
+    }) {
+      final String expected = query(query.replace("%", "db:open('" + REF + "')"));
+      final String result = query(query.replace("%", "db:open('" + NAME + "')"));
+      assertEquals(query, expected, result);
+    }
+    final String texts = "sort(distinct-values(db:open('" + REF + "')//text()";
+    assertEquals(query(texts + "))"), query("index:texts('" + NAME + "') ! string()"));
+    assertEquals(query(texts + "[starts-with(., 'k12')]))"),
+        query("index:texts('" + NAME + "', 'k12') ! string()"));
+  }
+}
@@ -0,0 +1,121 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.path.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for numeric columns.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericColumnsTest extends SandboxTest {
+  /** Name of the reference database. */
+  private static final String REF = NAME + "ref";
+  /** Test document. */
+  private static final String INPUT = "<xml>{"
+      + "for $i in 1 to 1000 return <item id='{ $i }' rate='{ $i div 8 }'>"
+      + "<price>{ $i * 3 mod 101 }.{ $i mod 10 }</price><count>{ $i * 7 mod 13 }</count>"
+      + "<amount>{ if($i mod 100 = 0) then 'none' else $i * 1000000 }</amount>"
+      + "<name>item{ $i }</name></item>"
+      + "}</xml>";
+
+  /** Queries to be compared. */
+  private static final String[] QUERIES = {
+    "sum(//price)", "avg(//count)", "max(//amount[. castable as xs:integer] ! xs:integer(.))",
+    "count(//item[price > 50])", "count(//item[@rate < 20.5])", "sum(//@id)",
+    "(for $i in //item order by $i/price descending, $i/count return $i/name)[position() < 20]",
+    "(for $p in //price order by number($p) return string($p))[position() < 20]",
+    "//item[count = 3][price < 10]/name/string()", "sum(//amount[. != 'none'])"
+  };
+
+  /** Creates the test databases. */
+  @Before public void init() {
+    final String input = query(INPUT);
+    execute(new CreateDB(REF, input));
+    set(MainOptions.NUMCOLUMNS, true);
+    execute(new CreateDB(NAME, input));
+    set(MainOptions.NUMCOLUMNS, false);
+  }
+
+  /** Drops the test databases. */
+  @After public void finish() {
+    execute(new DropDB(NAME));
+    execute(new DropDB(REF));
+  }
+
+  /** Compares query results. */
+  @Test public void query() {
+    assertTrue(context.data().meta.numcolumns);
+    compare();
+  }
+
+  /** Compares query results after updates. */
+  @Test public void update() {
+    for(final String db : new String[] { NAME, REF }) {
+      execute(new Open(db));
+      query("for $p in //price[. > 90] return replace value of node $p with $p * 2");
+      query("delete node //item[count = 5]");
+      query("insert node <item id='1001' rate='12'><price>7e1</price></item> into /xml");
+    }
+    compare();
+  }
+
+  /** Creates columns for single names. */
+  @Test public void names() {
+    execute(new Open(NAME));
+    assertEquals(1000, create(Data.TEXT, "price").size());
+    // paths with non-numeric values are skipped
+    assertEquals(0, create(Data.TEXT, "amount").size());
+    assertEquals(0, create(Data.TEXT, "name").size());
+    assertEquals(1000, create(Data.ATTR, "rate").size());
+    assertEquals(0, create(Data.ATTR, "price").size());
+  }
+
+  /** Skips columns that exceed the size limit. */
+  @Test public void limit() {
+    execute(new Open(NAME));
+    assertTrue(create(Data.TEXT, "price").size() > 0);
+    NumericColumns.limit(0);
+    try {
+      assertEquals(0, create(Data.TEXT, "price").size());
+      compare();
+    } finally {
+      NumericColumns.limit((long) StaticOptions.NUMCOLUMNSMAX.value() << 20);
+    }
+  }
+
+  /**
+   * Creates the numeric column for the specified name of the opened database.
+   * @param kind node kind
+   * @param name element or attribute name
+   * @return column
+   */
+  private static NumericColumns create(final int kind, final String name) {
+    final Data data = context.data();
+    final int id = (kind == Data.ATTR ? data.attrNames : data.elemNames).id(Token.token(name));
+    return NumericColumns.create(data, kind, id, 0);
+  }
+
+  /**
+   * Compares the results of the test queries.
+   */
+  private static void compare() {
+    for(final String query : QUERIES) {
+      execute(new Open(REF));
+      final String expected = query(query);
+      execute(new Open(NAME));
+      assertEquals(query, expected, query(query));
+      // second run uses existing columns
+      assertEquals(query, expected, query(query));
+    }
+  }
+}
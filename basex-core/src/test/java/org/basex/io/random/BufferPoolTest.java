@@ -0,0 +1,97 @@
+package org.basex.io.random;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for the shared buffer pool.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class BufferPoolTest extends SandboxTest {
+  /** Number of pages in the pool. */
+  private static final int PAGES = 1 << 8;
+
+  /** Initializes the buffer pool. */
+  @Before public void init() {
+    BufferPool.init(0);
+    BufferPool.init((long) PAGES * IO.BLOCKSIZE);
+  }
+
+  /** Disables the buffer pool. */
+  @AfterClass public static void finish() {
+    BufferPool.init(0);
+  }
+
+  /** Adds and reads pages. */
+  @Test public void readWrite() {
+    final int id = BufferPool.id();
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    for(int p = 0; p < PAGES; p++) {
+      data[0] = (byte) p;
+      BufferPool.add(id, p, data);
+    }
+    int found = 0;
+    for(int p = 0; p < PAGES; p++) {
+      if(BufferPool.read(id, p, data)) {
+        assertEquals((byte) p, data[0]);
+        found++;
+      }
+    }
+    assertTrue(found > 0);
+
+    // update page, remove all pages of the file
+    data[0] = -1;
+    BufferPool.update(id, 1, data);
+    if(BufferPool.read(id, 1, data)) assertEquals(-1, data[0]);
+    BufferPool.remove(id);
+    assertFalse(BufferPool.read(id, 1, data));
+    assertEquals(0, BufferPool.get().size());
+  }
+
+  /** Checks that frequently accessed pages survive a sequential scan. */
+  @Test public void scan() {
+    final int id = BufferPool.id();
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    // hot pages: add and access them twice
+    final int hot = PAGES / 4;
+    for(int p = 0; p < hot; p++) BufferPool.add(id, p, data);
+    for(int p = 0; p < hot; p++) BufferPool.read(id, p, data);
+    // scan: add many pages once
+    for(int p = hot; p < PAGES * 8; p++) BufferPool.add(id, p, data);
+
+    int found = 0;
+    for(int p = 0; p < hot; p++) {
+      if(BufferPool.read(id, p, data)) found++;
+    }
+    assertTrue("Only " + found + " of " + hot + " pages were found.", found > hot * 3 / 4);
+  }
+
+  /** Evaluates queries with an enabled buffer pool. */
+  @Test public void query() {
+    query("db:create('" + NAME + "', <x>{ for $i in 1 to 20000 return <a>{ $i }</a> }</x>, 'x.xml')");
+    execute(new Open(NAME));
+    final String query = "sum(//a/text())";
+    final String result = query(query);
+    execute(new Close());
+    execute(new Open(NAME));
+    assertEquals(result, query(query));
+    assertEquals(result, query(query));
+    assertTrue(BufferPool.get().hits() > 0);
+
+    query("for $i in 1 to 100 return insert node <b>{ $i }</b> into (//a)[1]");
+    assertEquals("5050", query("sum(//b)"));
+    assertEquals(result, query(query));
+    // statistics are shown in the general information
+    assertTrue(execute(new Info()).contains(Text.BUFFER_POOL));
+    assertFalse(execute(new InfoDB()).contains(Text.BUFFER_POOL));
+    execute(new DropDB(NAME));
+  }
+}
@@ -0,0 +1,207 @@
+package org.basex.io.random;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.io.out.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for texts and attribute values stored in compressed blocks.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedAccessTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/xmark.xml";
+  /** Name of the reference database. */
+  private static final String REF = NAME + "ref";
+  /** Size of the test contents (spans more blocks than can be cached). */
+  private static final int SIZE = CompressedAccess.BLOCKSIZE * 20 + 123;
+
+  /** Creates the test databases. */
+  @Before public void init() {
+    execute(new CreateDB(REF, FILE));
+    set(MainOptions.COMPRESSTEXTS, true);
+    execute(new CreateDB(NAME, FILE));
+    set(MainOptions.COMPRESSTEXTS, false);
+  }
+
+  /** Drops the test databases. */
+  @After public void finish() {
+    execute(new DropDB(NAME));
+    execute(new DropDB(REF));
+  }
+
+  /** Compares the contents of the compressed and the uncompressed database. */
+  @Test public void read() {
+    assertTrue(context.data().meta.compresstexts);
+    compare();
+  }
+
+  /** Performs updates and reopens the database. */
+  @Test public void update() {
+    for(final String db : new String[] { NAME, REF }) {
+      query("for $n in (db:open('" + db + "')//item)[position() <= 10] " +
+          "return insert node <new a='{ 1 to 20 }'>{ 1 to 100 }</new> into $n");
+      query("delete node (db:open('" + db + "')//category)[1]");
+      query("replace value of node (db:open('" + db + "')//text)[1] with 'X'");
+      query("for $t in (db:open('" + db + "')//text())[position() <= 100] " +
+          "return replace value of node $t with string-join(($t, $t))");
+    }
+    compare();
+
+    execute(new Close());
+    execute(new Open(NAME));
+    assertTrue(context.data().meta.compresstexts);
+    compare();
+  }
+
+  /** Converts a database with OPTIMIZE ALL. */
+  @Test public void optimizeAll() {
+    execute(new Open(REF));
+    set(MainOptions.COMPRESSTEXTS, true);
+    execute(new OptimizeAll());
+    set(MainOptions.COMPRESSTEXTS, false);
+    assertTrue(context.data().meta.compresstexts);
+    compare();
+  }
+
+  /**
+   * Writes and reads blocks.
+   * @throws IOException I/O exception
+   */
+  @Test public void blocks() throws IOException {
+    final IOFile file = new IOFile(sandbox(), NAME + IO.BASEXSUFFIX);
+    final byte[] contents = new byte[SIZE];
+    final Random rnd = new Random(0);
+    for(int i = 0; i < SIZE; i++) contents[i] = (byte) ('a' + rnd.nextInt(4));
+
+    // sequential output
+    try(CompressedOutput out = new CompressedOutput(file)) {
+      out.write(contents);
+    }
+    assertTrue(file.length() < SIZE);
+    check(file, contents);
+
+    // random updates, partly with incompressible data
+    try(CompressedAccess ca = new CompressedAccess(file)) {
+      for(int i = 0; i < 200; i++) {
+        final byte[] data = new byte[rnd.nextInt(IO.BLOCKSIZE)];
+        if(i % 2 == 0) rnd.nextBytes(data);
+        final int pos = rnd.nextInt(SIZE - data.length);
+        ca.write(pos, data, data.length);
+        System.arraycopy(data, 0, contents, pos, data.length);
+      }
+    }
+    check(file, contents);
+
+    // truncate contents
+    final byte[] truncated = Arrays.copyOf(contents, SIZE / 3);
+    try(CompressedAccess ca = new CompressedAccess(file)) {
+      ca.length(truncated.length);
+    }
+    check(file, truncated);
+    assertTrue(file.delete());
+  }
+
+  /**
+   * Checks if the regions of moved blocks and replaced directories are reused.
+   * @throws IOException I/O exception
+   */
+  @Test public void reuse() throws IOException {
+    final IOFile file = new IOFile(sandbox(), NAME + IO.BASEXSUFFIX);
+    final int bs = CompressedAccess.BLOCKSIZE, blocks = 2;
+    final byte[] contents = new byte[bs * blocks], random = new byte[bs];
+    new Random(0).nextBytes(random);
+
+    // blocks grow with each update and need to be moved
+    try(CompressedAccess ca = new CompressedAccess(file)) {
+      for(int i = 1; i <= 64; i++) {
+        for(int b = 0; b < blocks; b++) {
+          final byte[] data = Arrays.copyOf(random, bs * i / 64);
+          ca.write((long) b * bs, data, data.length);
+          System.arraycopy(data, 0, contents, b * bs, data.length);
+        }
+        ca.flush();
+      }
+      assertTrue(ca.size() < 8L * bs);
+    }
+    check(file, contents);
+    assertTrue(file.delete());
+  }
+
+  /**
+   * Reads blocks in parallel.
+   * @throws Exception exception
+   */
+  @Test public void parallel() throws Exception {
+    final IOFile file = new IOFile(sandbox(), NAME + IO.BASEXSUFFIX);
+    final byte[] contents = new byte[SIZE];
+    final Random rnd = new Random(0);
+    for(int i = 0; i < SIZE; i++) contents[i] = (byte) ('a' + rnd.nextInt(4));
+    try(CompressedOutput out = new CompressedOutput(file)) {
+      out.write(contents);
+    }
+
+    final ExecutorService pool = Executors.newFixedThreadPool(8);
+    try(CompressedAccess ca = new CompressedAccess(file)) {
+      final ArrayList<Future<?>> futures = new ArrayList<>();
+      for(int t = 0; t < 8; t++) {
+        final Random r = new Random(t);
+        futures.add(pool.submit(() -> {
+          final byte[] data = new byte[IO.BLOCKSIZE];
+          for(int i = 0; i < 500; i++) {
+            final int pos = r.nextInt(SIZE - data.length);
+            ca.read(pos, data, data.length);
+            assertArrayEquals(Arrays.copyOfRange(contents, pos, pos + data.length), data);
+          }
+          return null;
+        }));
+      }
+      for(final Future<?> future : futures) future.get();
+    } finally {
+      pool.shutdown();
+    }
+    assertTrue(file.delete());
+  }
+
+  /**
+   * Compares the contents of a compressed file.
+   * @param file file
+   * @param contents expected contents
+   * @throws IOException I/O exception
+   */
+  private static void check(final IOFile file, final byte[] contents) throws IOException {
+    try(CompressedAccess ca = new CompressedAccess(file)) {
+      assertEquals(contents.length, ca.length());
+      // read blocks in reverse order to enforce evictions
+      final byte[] data = new byte[IO.BLOCKSIZE];
+      for(int pos = (contents.length - 1) / IO.BLOCKSIZE * IO.BLOCKSIZE; pos >= 0;
+          pos -= IO.BLOCKSIZE) {
+        final int len = Math.min(IO.BLOCKSIZE, contents.length - pos);
+        ca.read(pos, data, len);
+        assertArrayEquals(Arrays.copyOfRange(contents, pos, pos + len),
+            Arrays.copyOf(data, len));
+      }
+    }
+  }
+
+  /**
+   * Compares the serialized databases.
+   */
+  private static void compare() {
+    assertEquals(query("db:open('" + REF + "')"), query("db:open('" + NAME + "')"));
+    assertEquals(query("count(db:open('" + REF + "')//node())"),
+        query("count(db:open('" + NAME + "')//node())"));
+  }
+}
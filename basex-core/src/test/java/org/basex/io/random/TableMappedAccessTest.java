@@ -0,0 +1,78 @@
+package org.basex.io.random;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for the memory-mapped table access.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class TableMappedAccessTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/xmark.xml";
+  /** Name of the reference database. */
+  private static final String REF = NAME + "ref";
+
+  /** Creates the test databases. */
+  @Before public void init() {
+    execute(new CreateDB(REF, FILE));
+    set(MainOptions.MMAP, true);
+    execute(new CreateDB(NAME, FILE));
+    set(MainOptions.MMAP, false);
+  }
+
+  /** Drops the test databases. */
+  @After public void finish() {
+    execute(new DropDB(NAME));
+    execute(new DropDB(REF));
+  }
+
+  /** Compares the contents of the mapped and the buffered table. */
+  @Test public void read() {
+    assertTrue(context.data().meta.mmap);
+    compare();
+  }
+
+  /** Performs updates and reopens the database. */
+  @Test public void update() {
+    for(final String db : new String[] { NAME, REF }) {
+      query("for $n in (db:open('" + db + "')//item)[position() <= 10] " +
+          "return insert node <new>{ 1 to 100 }</new> into $n");
+      query("delete node (db:open('" + db + "')//category)[1]");
+      query("replace value of node (db:open('" + db + "')//@id)[1] with 'X'");
+    }
+    compare();
+
+    execute(new Close());
+    execute(new Open(NAME));
+    assertTrue(context.data().meta.mmap);
+    compare();
+  }
+
+  /** Performs updates that do not change the size of the table (segments will be reused). */
+  @Test public void reuse() {
+    for(int i = 0; i < 5; i++) {
+      for(final String db : new String[] { NAME, REF }) {
+        query("replace value of node (db:open('" + db + "')//@id)[1] with '" + i + "'");
+        query("rename node (db:open('" + db + "')//*)[last()] as 'n" + i + "'");
+      }
+      compare();
+    }
+  }
+
+  /**
+   * Compares the serialized databases.
+   */
+  private static void compare() {
+    assertEquals(query("db:open('" + REF + "')"), query("db:open('" + NAME + "')"));
+    assertEquals(query("count(db:open('" + REF + "')//node())"),
+        query("count(db:open('" + NAME + "')//node())"));
+  }
+}
@@ -0,0 +1,175 @@
+package org.basex.query;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.api.client.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for the query cache.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCacheTest extends SandboxTest {
+  /** Query with an external variable. */
+  private static final String QUERY = "declare variable $v external := 1; "
+      + "count(db:open('" + NAME + "')//a[text() = string($v)])";
+
+  /** Creates a database context with an enabled query cache. */
+  @BeforeClass public static void initCache() {
+    context.close();
+    Prop.put(StaticOptions.QUERYCACHE, "8");
+    context = new Context();
+  }
+
+  /** Creates the test database. */
+  @Before public void init() {
+    execute(new CreateDB(NAME, query("<x>{ (1 to 20) ! <a>{ . mod 4 }</a> }</x>")));
+    execute(new Close());
+    context.queries.close();
+  }
+
+  /** Drops the test database. */
+  @After public void finish() {
+    execute(new DropDB(NAME));
+  }
+
+  /** Evaluates cached queries with different bindings. */
+  @Test public void bind() {
+    final long hits = context.queries.hits();
+    assertEquals("5", bind("1"));
+    assertEquals(1, context.queries.size());
+    assertEquals("5", bind("2"));
+    assertEquals("0", bind("5"));
+    assertEquals("5", execute(new XQuery(QUERY)));
+    assertEquals(hits + 3, context.queries.hits());
+    assertEquals(1, context.queries.size());
+  }
+
+  /** Discards cached queries after updates. */
+  @Test public void update() {
+    assertEquals("5", bind("1"));
+    query("insert node <a>1</a> into db:open('" + NAME + "')/x");
+    final long misses = context.queries.misses();
+    assertEquals("6", bind("1"));
+    assertEquals(misses + 1, context.queries.misses());
+  }
+
+  /** Discards cached queries after index structures have been created or dropped. */
+  @Test public void index() {
+    assertEquals("5", bind("1"));
+    execute(new Open(NAME));
+    execute(new DropIndex(CmdIndex.TEXT));
+    execute(new Close());
+    final long misses = context.queries.misses();
+    assertEquals("5", bind("1"));
+    assertEquals(misses + 1, context.queries.misses());
+  }
+
+  /** Drops and recreates a database that is referenced by a cached query. */
+  @Test public void drop() {
+    assertEquals("5", bind("1"));
+    execute(new DropDB(NAME));
+    assertEquals(0, context.queries.size());
+    execute(new CreateDB(NAME, "<x><a>1</a></x>"));
+    assertEquals("1", bind("1"));
+  }
+
+  /**
+   * Checks a cached query again if the database is updated before the query is evaluated.
+   * @throws Exception exception
+   */
+  @Test public void parsed() throws Exception {
+    assertEquals("5", bind("1"));
+    try(QueryProcessor qp = new QueryProcessor(QUERY, context)) {
+      qp.parse();
+      query("insert node <a>1</a> into db:open('" + NAME + "')/x");
+      assertEquals("6", qp.value().serialize().toString());
+    }
+  }
+
+  /**
+   * Discards cached queries if the user is no longer permitted to read the database.
+   * @throws IOException I/O exception
+   */
+  @Test public void permission() throws IOException {
+    execute(new CreateUser(NAME, NAME));
+    try {
+      execute(new Grant("read", NAME, NAME));
+      try(LocalSession session = new LocalSession(context, NAME, NAME)) {
+        assertEquals("5", session.execute(new XQuery(QUERY)));
+        assertEquals("5", session.execute(new XQuery(QUERY)));
+        execute(new Grant("none", NAME, NAME));
+        try {
+          session.execute(new XQuery(QUERY));
+          fail("Permission was not checked.");
+        } catch(final BaseXException ex) {
+          assertTrue(ex.getMessage(), ex.getMessage().contains("permission"));
+        }
+      }
+    } finally {
+      execute(new DropUser(NAME));
+    }
+  }
+
+  /** Renames a database that is referenced by a cached query. */
+  @Test public void alter() {
+    assertEquals("5", bind("1"));
+    // checking the pin state does not discard cached queries
+    assertTrue(context.pinned(NAME));
+    assertEquals(1, context.queries.size());
+    execute(new AlterDB(NAME, NAME + '2'));
+    assertEquals(0, context.queries.size());
+    execute(new AlterDB(NAME + '2', NAME));
+  }
+
+  /** Counts the index results of each evaluation of a cached query. */
+  @Test public void plan() {
+    set(MainOptions.XMLPLAN, true);
+    try {
+      for(int i = 0; i < 3; i++) {
+        final XQuery cmd = new XQuery(QUERY);
+        assertEquals("5", execute(cmd.bind("v", "1")));
+        assertTrue(cmd.info(), cmd.info().contains("results=\"5\""));
+      }
+      assertEquals(1, context.queries.size());
+    } finally {
+      set(MainOptions.XMLPLAN, false);
+    }
+  }
+
+  /** Queries that will not be cached. */
+  @Test public void uncached() {
+    query("current-dateTime()");
+    query("insert node <a/> into db:open('" + NAME + "')/x");
+    query("declare context item := <a/>; .");
+    assertEquals(0, context.queries.size());
+  }
+
+  /** Nondeterministic expressions are evaluated again. */
+  @Test public void nondeterministic() {
+    final String query = "declare variable $r := random:double(); $r";
+    final String result = query(query);
+    String next = result;
+    for(int i = 0; i < 10 && next.equals(result); i++) next = query(query);
+    assertNotEquals(result, next);
+  }
+
+  /**
+   * Evaluates the test query with the specified binding.
+   * @param value value of the external variable
+   * @return result
+   */
+  private static String bind(final String value) {
+    return execute(new XQuery(QUERY).bind("v", value));
+  }
+}
@@ -0,0 +1,84 @@
+package org.basex.query.expr;
+
+import static org.basex.query.QueryError.*;
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for the batch evaluation of comparisons.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class CmpBatchTest extends SandboxTest {
+  /** Test document. */
+  private static final String DOC = "<x>"
+      + "<a n='1'><b>5</b><c>x</c></a>"
+      + "<a n='2'><b>15</b><b>1</b><c>y</c></a>"
+      + "<a n='3'><b>0</b><c>x</c><a n='4'><b>20</b><c>x<d/></c></a></a>"
+      + "<a n='5' b='30'>25<p:b xmlns:p='p'>40</p:b></a>"
+      + "<a n='6'><b>NaN</b><c>xy</c></a>"
+      + "</x>";
+
+  /** Creates the test database. */
+  @BeforeClass public static void init() {
+    execute(new CreateDB(NAME, DOC));
+  }
+
+  /** Drops the test database. */
+  @AfterClass public static void end() {
+    execute(new DropDB(NAME));
+  }
+
+  /** Numeric range comparisons. */
+  @Test public void range() {
+    compare("//b[. > 10]", "//b[xs:double(.) > 10]");
+    compare("//b[. < 10]", "//b[xs:double(.) < 10]");
+    compare("//a[b > 10]", "//a[b ! xs:double(.) > 10]");
+    compare("//a[b >= 5]", "//a[b ! xs:double(.) >= 5]");
+    compare("//a[@b > 10]", "//a[@b ! xs:double(.) > 10]");
+    compare("//a[@n < 3]", "//a[@n ! xs:double(.) < 3]");
+    compare("//a[text() > 10]", "//a[text() ! xs:double(.) > 10]");
+    compare("//a/b[. > 10]", "//a/b[xs:double(.) > 10]");
+    compare("(//b)[. > 10]", "(//b)[xs:double(.) > 10]");
+    compare("(//a)[b > 10]", "(//a)[b ! xs:double(.) > 10]");
+    compare("//a[b > 100]", "()");
+  }
+
+  /** String comparisons. */
+  @Test public void string() {
+    compare("//c[. = 'x']", "//c[string(.) = 'x']");
+    compare("//a[c = 'x']", "//a[c ! string(.) = 'x']");
+    compare("//a[@n = '4']", "//a[@n ! string(.) = '4']");
+    compare("//a[c = 'z']", "()");
+    compare("(//c)[. = 'xy']", "(//c)[string(.) = 'xy']");
+  }
+
+  /** Nested and main-memory nodes. */
+  @Test public void nodes() {
+    compare("//a//a[b > 10]", "//a//a[b ! xs:double(.) > 10]");
+    compare("(//a, //a)[c = 'x']", "(//a, //a)[c ! string(.) = 'x']");
+    compare("(" + DOC + "//b)[. > 10]", "(" + DOC + "//b)[xs:double(.) > 10]");
+    compare(DOC + "//a[c = 'x']", DOC + "//a[c ! string(.) = 'x']");
+  }
+
+  /** Errors. */
+  @Test public void errors() {
+    error("//a[c > 1]", FUNCCAST_X_X);
+    error("(//c)[. > 1]", FUNCCAST_X_X);
+  }
+
+  /**
+   * Compares the results of a batch evaluation and a default evaluation.
+   * @param query query that will be evaluated in a batch
+   * @param reference query that will be evaluated node by node
+   */
+  private static void compare(final String query, final String reference) {
+    final String prefix = "db:open('" + NAME + "') ! ";
+    assertEquals(query(prefix + reference), query(prefix + query));
+  }
+}
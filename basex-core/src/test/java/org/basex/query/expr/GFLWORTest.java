@@ -409,4 +409,102 @@ public final class GFLWORTest extends QueryPlanTest {
   @Test public void posVar() {
     check("for $v at $p in (1, 2) where $p = 2 return $v", 2, root(Int.class));
   }
+
+  /** Hash joins. */
+  @Test public void join() {
+    final String a = "let $a := (1 to 6) ! <a id='{ . }'/> ";
+    final String b = "let $b := (1 to 8) ! <b ref='{ . mod 4 }' id='{ . }'/> ";
+
+    // general comparison, nodes
+    check(a + b + "for $x in $a for $y in $b where $x/@id = $y/@ref return $y/@id || $x/@id",
+        "11\n51\n22\n62\n33\n73", count(Join.class, 1));
+    // value comparison, predicate, swapped operands
+    check(a + b + "for $x in $a for $y in $b[$x/@id eq @ref] return $y/@id || $x/@id",
+        "11\n51\n22\n62\n33\n73", exists(Join.class));
+    // filter in return clause
+    check(a + b + "return (for $x in $a return $b[@ref = $x/@id]) ! @id/string()",
+        "1\n5\n2\n6\n3\n7", exists(Join.class));
+    // multiple keys, path with additional predicate
+    check("let $d := document { <x>{ (1 to 6) ! <i k='{ . mod 3 } { . mod 2 }' t='{ . }'/> }</x> } "
+        + "for $n in 0 to 2 for $i in $d//i[@t > 1] where tokenize($i/@k) = string($n) "
+        + "return $n || $i/@t", "02\n03\n04\n06\n13\n14\n15\n22\n25",
+        exists(Join.class));
+    // maps, numeric keys
+    check("let $m := (1 to 6) ! map { 'k': . mod 3 } "
+        + "for $n in (1, 2.0, 3e0) for $o in $m where $o?k = $n - 1 return $n || $o?k",
+        "10\n10\n21\n21\n32\n32", exists(Join.class));
+
+    // numeric keys of different types
+    check("for $a in (-0e0, 2) for $b in (0, 1)[. = $a] return $b", 0, exists(Join.class));
+    check("for $a in (1e20, 2) for $b in (100000000000000000000.0, 1)[. = $a] return $b",
+        "100000000000000000000", exists(Join.class));
+    check("for $a in (xs:float(0.1), 2) for $b in (0.1, 1)[. = $a] return $b", "0.1",
+        exists(Join.class));
+    check("for $a in (xs:double('NaN'), 1) for $b in (xs:double('NaN'), 1)[. = $a] return $b",
+        1, exists(Join.class));
+
+    // incompatible keys: evaluate predicate for each item
+    check("let $b := (<b>1</b>, 1, 2.0, 'x') for $x in (1, 2) for $y in $b[. instance of node() "
+        + "or . instance of xs:decimal] where $x = $y return string($y)", "1\n1\n2",
+        exists(Join.class));
+    error("let $b := (<b>1</b>, <b>x</b>) for $x in (1, 'x', 2) for $y in $b where $x = $y "
+        + "return $y", FUNCCAST_X_X);
+    error("let $b := (1, 'x') for $x in (1, 2) for $y in $b where $x = $y return $y",
+        CMPTYPES_X_X);
+
+    // no joins: dependent input, positional variable, single tuple
+    check("for $x in 1 to 3 for $y in (1 to $x) where $x = $y return $y",
+        "1\n2\n3", empty(Join.class));
+    check("for $x in 1 to 3 for $y at $p in (3, 2, 1) where $x = $y return $p",
+        "3\n2\n1", empty(Join.class));
+    check("for $x in '2' for $y in (1 to 3) ! string() where $x = $y return $y", "2",
+        empty(Join.class));
+    // no join: new nodes are constructed for each outer tuple
+    check("let $n := for $x in (1, 1) for $y in (<a>1</a>, <a>2</a>)[. = $x] return $y "
+        + "return $n[1] is $n[2]", false, empty(Join.class));
+  }
+
+  /** Group by, aggregated non-grouping variables. */
+  @Test public void aggregate() {
+    final String logs = "let $l := (1 to 100) ! <e u='{ . mod 3 }' b='{ . }' d='PT{ . }S'/> ";
+    query(logs + "for $e in $l let $b := $e/@b group by $u := $e/@u order by $u "
+        + "return $u || ':' || count($b) || ':' || sum($b) || ':' || min($b) || ':' || max($b)",
+        "0:33:1683:3:99\n1:34:1717:1:100\n2:33:1650:2:98");
+    query(logs + "for $e in $l let $b := xs:integer($e/@b) group by $u := $e/@u order by $u "
+        + "return avg($b)", "51\n50.5\n50");
+    query(logs + "for $e in $l let $d := xs:dayTimeDuration($e/@d) group by $u := $e/@u "
+        + "order by $u return sum($d) || ' ' || avg($d)",
+        "PT28M3S PT51S\nPT28M37S PT50.5S\nPT27M30S PT50S");
+    query(logs + "for $e in $l group by $u := $e/@u order by $u return count($e)",
+        "33\n34\n33");
+
+    // type promotion, NaN, strings, arrays
+    query("for $i in (1 to 20, 2.5e0) let $v := $i group by $k := 1 return min($v)", "1");
+    query("for $i in (1 to 20, 2.5e0) let $v := $i group by $k := 1 "
+        + "return min($v) instance of xs:double", true);
+    query("for $i in (1 to 20, xs:double('NaN')) let $v := $i group by $k := 1 return max($v)",
+        "NaN");
+    query("for $i in (1 to 20) ! string() let $v := $i group by $k := 1 return max($v)", "9");
+    query("for $i in (1 to 20) let $v := [$i, $i] group by $k := 1 "
+        + "return count($v) || ' ' || sum($v)", "20 420");
+    query("for $i in (1 to 20) let $v := [$i, $i] group by $k := 1 return avg($v)", "10.5");
+    query("for $i in (1 to 20) let $v := $i[. > 30] group by $k := 1 "
+        + "return count($v) || sum($v) || avg($v) || min($v)", "00");
+
+    // different aggregate functions
+    query("for $i in 1 to 20 let $v := $i group by $k := $i mod 2 order by $k "
+        + "return count($v) + sum($v) + avg($v) + min($v) + max($v)", "153\n140");
+    query("for $i in 1 to 20 let $v := $i group by $k := $i mod 2 "
+        + "return count($v) + sum($v) + count($v)", "120\n130");
+
+    // other references: values are not aggregated
+    query("for $i in (1 to 20) let $v := $i group by $k := $i mod 2 order by $k "
+        + "return count($v) + sum($v) + $v[1]", "122\n111");
+
+    // errors are only raised if the function is invoked
+    query("for $i in (1 to 20, 'x') let $v := $i group by $k := $i instance of xs:string "
+        + "where not($k) return sum($v)", "210");
+    error("for $i in (1 to 20, 'x') let $v := $i group by $k := 1 return sum($v)", CMP_X_X_X);
+    error("for $i in (1 to 20, 'x') let $v := $i group by $k := 1 return min($v)", CMP_X_X_X);
+  }
 }
@@ -2,10 +2,14 @@ package org.basex.query.func;
 
 import static org.basex.query.QueryError.*;
 import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
 
 import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.core.jobs.*;
+import org.basex.query.*;
+import org.basex.util.*;
 import org.junit.Test;
 
 /**
@@ -117,6 +121,32 @@ public final class XQueryModuleTest extends SandboxTest {
     error(func.args(" count#1"), ZEROFUNCS_X_X);
     error(func.args(" 123"), ZEROFUNCS_X_X);
     error(func.args(" error#0"), FUNERR1);
+    error(func.args(" for $i in 1 to 100 return function() { if($i = 50) then error() else $i }"), FUNERR1);
+
+    // limit number of parallel tasks
+    set(MainOptions.PARALLELTASKS, 3);
+    query("count(" + func.args(" (1 to 100) ! false#0") + ')', 100);
+    query(func.args(" for $i in 1 to 10 return function() { $i }"), "1\n2\n3\n4\n5\n6\n7\n8\n9\n10");
+    set(MainOptions.PARALLELTASKS, 0);
+  }
+
+  /**
+   * Stops a query with forked functions.
+   * @throws Exception exception
+   */
+  @Test public void forkJoinStop() throws Exception {
+    final String query = _XQUERY_FORK_JOIN.args(
+        " (1 to 4) ! function() { count((1 to 100000000000)[string() = 'x']) }");
+    try(QueryProcessor qp = new QueryProcessor(query, context)) {
+      new Thread(() -> {
+        Performance.sleep(200);
+        qp.stop();
+      }).start();
+      qp.value();
+      fail("Query was not stopped.");
+    } catch(final JobException ex) {
+      Util.debug(ex);
+    }
   }
 
   /** Test method. */
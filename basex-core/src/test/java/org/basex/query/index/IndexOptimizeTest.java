@@ -1,10 +1,13 @@
 package org.basex.query.index;
 
 import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
 
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.query.*;
 import org.basex.query.ast.*;
+import org.basex.query.expr.*;
 import org.basex.query.expr.ft.*;
 import org.basex.query.expr.index.*;
 import org.basex.util.*;
@@ -274,6 +277,53 @@ public final class IndexOptimizeTest extends QueryPlanTest {
         empty(ValueAccess.class));
   }
 
+  /** Chooses between index access and sequential scan. */
+  @Test public void costs() {
+    final StringBuilder sb = new StringBuilder("<xml>");
+    for(int i = 0; i < 10000; i++) sb.append("<a><b>x</b></a>");
+    sb.append("<r><a><b>x</b></a><a><b>y</b></a></r></xml>");
+    execute(new CreateDB(NAME, sb.toString()));
+
+    // index access: few results
+    check("count(//a[b = 'y'])", 1, exists(Util.className(ValueAccess.class) +
+        "[@estimated = 1][@scan > 40000]"));
+    check("count(/xml/a[b = 'y'])", 0, exists(ValueAccess.class));
+    // sequential scan: many index results, selective path
+    check("count(/xml/r/a[b = 'x'])", 1, empty(ValueAccess.class));
+    check("count(//a[b = 'x'])", 10001, empty(ValueAccess.class));
+    check("count(/xml/r/a[b = 'x'][. = 'x'])", 1, empty(ValueAccess.class));
+
+    // number of retrieved index results
+    try(QueryProcessor qp = new QueryProcessor("//a[b = 'y']", context)) {
+      qp.value();
+      assertTrue(qp.plan().serialize().toString().contains(" results=\"1\""));
+    } catch(final QueryException | QueryIOException ex) {
+      throw new AssertionError(ex);
+    }
+  }
+
+  /** Intersection of index results. */
+  @Test public void intersect() {
+    final StringBuilder sb = new StringBuilder("<xml>");
+    for(int i = 0; i < 10000; i++) {
+      sb.append("<a x='").append(i % 100).append("' y='").append(i % 97).append("'><b>").
+        append(i % 89).append("</b></a>");
+    }
+    execute(new CreateDB(NAME, sb.append("</xml>").toString()));
+
+    // index results of comparable size are intersected
+    check("count(//a[@x = '5'][@y = '7'])", 1, exists(Intersect.class),
+        count(ValueAccess.class, 2));
+    check("count(//a[@x = '5'][b = '7'])", 1, exists(Intersect.class));
+    check("count(//a[@x = '5'][@y = '7'][b = '12'])", 1, count(ValueAccess.class, 3));
+    check("count(//a[@x = '5'][@y = 'z'])", 0);
+    // results of unions, intersections and differences
+    check("count(//a[@x = '5'] | //a[@y = '7'])", 203, exists(Union.class));
+    check("count(//a[@x = '5'] intersect //a[@y = '7'])", 1);
+    check("count(//a[@x = '5'] except //a[@y = '7'])", 99);
+    check("count(//a[@x = ('5', '6')] except //a[@x = '6'])", 100);
+  }
+
   /**
    * Creates a test database.
    */
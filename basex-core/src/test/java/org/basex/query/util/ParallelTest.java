@@ -0,0 +1,99 @@
+package org.basex.query.util;
+
+import static org.basex.query.QueryError.*;
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for the parallel evaluation of expressions.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelTest extends SandboxTest {
+  /** Number of items (large enough to be evaluated in parallel). */
+  private static final int SIZE = Parallel.MIN * 4;
+
+  /** Creates the test database, enforces multiple tasks. */
+  @BeforeClass public static void init() {
+    set(MainOptions.PARALLELTASKS, 4);
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 1; i <= SIZE; i++) sb.append("<a n='").append(i).append("'><b>").append(i % 7).
+      append("</b></a>");
+    execute(new CreateDB(NAME, sb.append("</x>").toString()));
+  }
+
+  /** Resets the options and drops the test database. */
+  @AfterClass public static void end() {
+    set(MainOptions.PARALLELQUERY, false);
+    set(MainOptions.PARALLELTASKS, 0);
+    execute(new DropDB(NAME));
+  }
+
+  /** Simple map expressions. */
+  @Test public void map() {
+    compare("(1 to " + SIZE + ") ! (. * 2)");
+    compare("let $n := 3 return (1 to " + SIZE + ") ! (. * $n) ! string()");
+    compare("sum(db:open('" + NAME + "')//a ! xs:integer(@n))");
+    compare("(1 to " + SIZE + ") ! local:f(.)");
+    compare("(1 to " + SIZE + ") ! (random:double() < 1)");
+    compare("(1 to " + SIZE + ") ! <a>{ . }</a> ! string()");
+  }
+
+  /** Filter expressions. */
+  @Test public void filter() {
+    compare("(1 to " + SIZE + ")[. mod 3 = 0]");
+    compare("let $n := 3 return (1 to " + SIZE + ")[. mod $n = 1][. > 100]");
+    compare("db:open('" + NAME + "')//a ! @n[. > 1000]");
+  }
+
+  /** Path expressions. */
+  @Test public void path() {
+    compare("db:open('" + NAME + "')//a[b = 3]");
+    compare("db:open('" + NAME + "')//a[b = 3]/b/text()");
+    compare("db:open('" + NAME + "')/x/a[@n = '100']/b");
+    compare("for $b in (db:open('" + NAME + "')//a/b) return $b/..");
+    compare("let $d := db:open('" + NAME + "') return ($d//a, $d//b)/text()");
+  }
+
+  /** Functions that reference global variables. */
+  @Test public void globals() {
+    // prevent inlining of the function
+    set(MainOptions.INLINELIMIT, 0);
+    try {
+      for(int i = 0; i < 10; i++) compare("(1 to " + SIZE + ") ! local:g(.)");
+    } finally {
+      set(MainOptions.INLINELIMIT, MainOptions.INLINELIMIT.value());
+    }
+  }
+
+  /** Errors. */
+  @Test public void errors() {
+    set(MainOptions.PARALLELQUERY, true);
+    error("(1 to " + SIZE + ") ! (if(. = " + (SIZE - 1) + ") then error() else .)", FUNERR1);
+    error("(1 to " + SIZE + ")[xs:integer('x' || .)]", FUNCCAST_X_X_X);
+    set(MainOptions.PARALLELQUERY, false);
+  }
+
+  /**
+   * Compares the results of sequential and parallel evaluation.
+   * @param expr expression
+   */
+  private static void compare(final String expr) {
+    set(MainOptions.PARALLELQUERY, false);
+    final String query = "declare %basex:lazy variable $g := count(db:open('" + NAME + "')//a); "
+        + "declare function local:g($i) { $i + $g }; "
+        + "declare function local:f($i) { $i + 1 }; let $r := " + expr
+        + " return ($r, count($r))";
+    final String expected = query(query);
+    set(MainOptions.PARALLELQUERY, true);
+    final String result = query(query);
+    set(MainOptions.PARALLELQUERY, false);
+    assertEquals(expected, result);
+  }
+}
@@ -0,0 +1,126 @@
+package org.basex.query.util;
+
+import static org.basex.query.QueryError.*;
+import static org.basex.query.func.Function.*;
+
+import org.basex.*;
+import org.junit.*;
+
+/**
+ * Tests for sorting tuples and items.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class SorterTest extends SandboxTest {
+  /** Number of entries (large enough to be sorted in parallel). */
+  private static final int SIZE = Sorter.PARALLEL * 4;
+
+  /** Sorts integers, doubles, floats and strings. */
+  @Test public void types() {
+    for(final String type : new String[] { "xs:integer", "xs:double", "xs:float", "string" }) {
+      final String input = "(1 to " + SIZE + ") ! " + type + "((. * 7919) mod " + SIZE + ")";
+      query("let $s := for $i in " + input + " order by $i return $i "
+          + "return every $p in 2 to count($s) satisfies $s[$p - 1] <= $s[$p]", true);
+      query("let $s := for $i in " + input + " order by $i descending return $i "
+          + "return every $p in 2 to count($s) satisfies $s[$p - 1] >= $s[$p]", true);
+      query("let $s := " + SORT.args(" " + input)
+          + " return every $p in 2 to count($s) satisfies $s[$p - 1] <= $s[$p]", true);
+    }
+  }
+
+  /** Checks if the sort is stable. */
+  @Test public void stable() {
+    query("let $s := for $i in 1 to " + SIZE + " order by $i mod 3 return $i "
+        + "return ($s[1], $s[2], $s[last()])", "3\n6\n" + (SIZE - SIZE % 3 - 1));
+    query("let $s := " + SORT.args(" 1 to " + SIZE, " ()", " function($i) { $i mod 3 }")
+        + " return ($s[1], $s[2], $s[last()])", "3\n6\n" + (SIZE - SIZE % 3 - 1));
+    query("for $i in (<a>1</a>, <b>0</b>, <c>1</c>, <d>0</d>) "
+        + "stable order by xs:integer($i) descending return name($i)", "a\nc\nb\nd");
+  }
+
+  /** Empty sequences and NaN values. */
+  @Test public void empty() {
+    final String input = "(2, (), 1, xs:double('NaN'), 3)";
+    query("for $i in " + input + " order by $i return $i", "NaN\n1\n2\n3");
+    query("for $i in " + input + " order by $i empty greatest return $i", "1\n2\n3\nNaN");
+    query("for $i in " + input + " order by $i descending return $i", "3\n2\n1\nNaN");
+    query("for $i in " + input + " order by $i descending empty least return $i",
+        "3\n2\n1\nNaN");
+    query("for $i in (2, 'x', 1) order by ($i[. instance of xs:integer]) return $i",
+        "x\n1\n2");
+    query(SORT.args(" (3, xs:double('NaN'), 1)", " ()", " function($i) { $i[. != 1] }"),
+        "1\nNaN\n3");
+    query(SORT.args(" (3, xs:double('NaN'), 1)"), "NaN\n1\n3");
+  }
+
+  /** Multiple keys. */
+  @Test public void keys() {
+    query("for $i in 1 to " + SIZE + " order by $i mod 2, $i descending return $i",
+        SIZE + "\n" + (SIZE - 2), 2);
+    query("(for $i in 1 to " + SIZE + " order by $i mod 2, string($i) descending "
+        + "return $i)[1]", "9998");
+    query(SORT.args(" (1 to 5)", " ()", " function($i) { $i mod 2, -$i }"), "4\n2\n5\n3\n1");
+    query(SORT.args(" ('b', 'a', 'c')", " ()", " function($s) { ($s = 'c'), $s }"),
+        "a\nb\nc");
+  }
+
+  /** Mixed types. */
+  @Test public void mixed() {
+    query("for $i in (3, 1.5, 2e0, xs:float(2.5)) order by $i return $i", "1.5\n2\n2.5\n3");
+    query("for $i in ('b', xs:untypedAtomic('a'), xs:anyURI('c')) order by $i return $i",
+        "a\nb\nc");
+    query(SORT.args(" (3, 1.5, 2e0, xs:float(2.5))"), "1.5\n2\n2.5\n3");
+
+    error("for $i in (1, 'a') order by $i return $i", INVTYPE_X_X_X);
+    error("for $i in (1 to " + SIZE + ", 'a') order by $i return $i", INVTYPE_X_X_X);
+    error(SORT.args(" (1, 'a')"), CMPTYPES_X_X);
+    error(SORT.args(" (1 to " + SIZE + ", 'a')"), CMPTYPES_X_X);
+  }
+
+  /** Returns the first results of sorted sequences (top-k). */
+  @Test public void top() {
+    final String input = "(1 to " + SIZE + ") ! ((. * 7919) mod " + SIZE + ")";
+    final String flwor = "for $i in " + input + " order by $i descending return $i";
+    query("(" + flwor + ")[position() <= 3]", (SIZE - 1) + "\n" + (SIZE - 2) + "\n" + (SIZE - 3));
+    query("(" + flwor + ")[position() = 2 to 3]", (SIZE - 2) + "\n" + (SIZE - 3));
+    query(HEAD.args(" " + flwor), SIZE - 1);
+    query("(" + flwor + ")[2]", SIZE - 2);
+    query(SUBSEQUENCE.args(" " + flwor, 2, 2), (SIZE - 2) + "\n" + (SIZE - 3));
+    query(_UTIL_RANGE.args(" " + flwor, 1, 2), (SIZE - 1) + "\n" + (SIZE - 2));
+    query(SORT.args(" " + input) + "[position() <= 3]", "0\n1\n2");
+    query(SORT.args(" " + input, " ()", " function($i) { -$i }") + "[1]", SIZE - 1);
+    query(HEAD.args(SORT.args(" reverse(" + input + ")")), 0);
+
+    // stable sort, empty keys
+    query("(for $i in 1 to 10 order by $i mod 2 return $i)[position() <= 3]", "2\n4\n6");
+    query("(for $i in 1 to 10 order by ($i[. > 5] mod 2) empty greatest return $i)"
+        + "[position() <= 3]", "6\n8\n10");
+    query("(for $i in 1 to 10 order by ($i[. > 5] mod 2) return $i)[position() <= 3]",
+        "1\n2\n3");
+    query(SORT.args(" 1 to 10", " ()", " function($i) { $i mod 2 }") + "[position() <= 3]",
+        "2\n4\n6");
+    query(SORT.args(" (2, 1, 3, 1)", " ()", " function($i) { () }") + "[position() <= 2]",
+        "2\n1");
+
+    // results with multiple items per tuple, no results
+    query("(for $i in 1 to 10 order by $i descending return ($i, $i))[position() <= 3]",
+        "10\n10\n9");
+    query("(for $i in 1 to 10 order by $i descending return $i[. < 5])[position() <= 3]",
+        "4\n3\n2");
+    query("(for $i in 1 to 10 order by $i descending return $i)[position() <= 20]", "10", 1);
+
+    error("(for $i in (1, 'a') order by $i return $i)[1]", INVTYPE_X_X_X);
+    error(HEAD.args(SORT.args(" (1, 'a')")), CMPTYPES_X_X);
+  }
+
+  /**
+   * Runs a query and compares the first results.
+   * @param query query
+   * @param expected expected result
+   * @param results number of results to compare
+   */
+  private static void query(final String query, final String expected, final int results) {
+    query("(" + query + ")[position() <= " + results + "]", expected);
+  }
+}
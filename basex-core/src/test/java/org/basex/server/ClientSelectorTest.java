@@ -0,0 +1,57 @@
+package org.basex.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.api.client.*;
+import org.basex.core.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the client/server session API with multiplexed client connections.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelectorTest extends ClientSessionTest {
+  /** Number of sessions. */
+  private static final int SESSIONS = 100;
+
+  /**
+   * Starts the server.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass public static void startServer() throws IOException {
+    Prop.put(StaticOptions.SERVERSELECTOR, Boolean.toString(true));
+    try {
+      ClientSessionTest.startServer();
+    } finally {
+      Prop.put(StaticOptions.SERVERSELECTOR, Boolean.toString(false));
+    }
+  }
+
+  /**
+   * Runs requests on many open sessions.
+   * @throws IOException I/O exception
+   */
+  @Test public void idleSessions() throws IOException {
+    final int threads = Thread.activeCount();
+    final ClientSession[] sessions = new ClientSession[SESSIONS];
+    try {
+      for(int s = 0; s < SESSIONS; s++) sessions[s] = createClient();
+      for(int s = 0; s < SESSIONS; s++) {
+        assertEquals(Integer.toString(s), sessions[s].query(s + " * 1").execute());
+        assertEquals("", sessions[s].execute("xquery ()"));
+      }
+      // idle sessions are not bound to threads
+      assertTrue(Thread.activeCount() - threads < SESSIONS / 2);
+    } finally {
+      for(final ClientSession cs : sessions) {
+        if(cs != null) cs.close();
+      }
+    }
+  }
+}
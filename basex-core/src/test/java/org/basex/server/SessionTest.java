@@ -5,6 +5,7 @@ import static org.basex.util.Token.*;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.util.List;
 
 import org.basex.*;
 import org.basex.api.client.*;
@@ -623,6 +624,111 @@ public abstract class SessionTest extends SandboxTest {
     assertEqual("map{\"a\":\"&amp;\"}", query.next());
   }
 
+  /**
+   * Retrieves results in chunks.
+   * @throws IOException I/O exception
+   */
+  @Test public void queryChunks() throws IOException {
+    try(Query query = session.query("1 to 10")) {
+      query.chunks(3, 0);
+      for(int i = 1; i <= 10; i++) {
+        assertTrue(query.more());
+        assertEqual(Integer.toString(i), query.next());
+      }
+      assertFalse(query.more());
+      // iterate again, enforce chunks with single items
+      query.chunks(0, 1);
+      for(int i = 1; i <= 10; i++) assertEqual(Integer.toString(i), query.next());
+      assertFalse(query.more());
+    }
+
+    // stop infinite evaluation, release locks
+    session.execute(new CreateDB(NAME, "<a/>"));
+    try(Query query = session.query(_DB_OPEN.args(NAME) + "! (1 to 1000000000000)")) {
+      query.chunks(100, 0);
+      assertEqual("1", query.next());
+      assertEqual("2", query.next());
+    }
+    session.execute("xquery insert node <b/> into " + _DB_OPEN.args(NAME) + "/a");
+    assertEqual("1", session.execute("xquery count(" + _DB_OPEN.args(NAME) + "//b)"));
+
+    // stop evaluation with pending results, release locks before the query is closed
+    try(Query query = session.query(_DB_OPEN.args(NAME) + "! (1 to 1000000000000)")) {
+      query.chunks(100, 0);
+      assertEqual("1", query.next());
+      session.execute("xquery " + _JOBS_LIST.args() + "[. != " + _JOBS_CURRENT.args() + "] ! "
+          + _JOBS_STOP.args(" ."));
+      session.execute("xquery insert node <b/> into " + _DB_OPEN.args(NAME) + "/a");
+    }
+    assertEqual("2", session.execute("xquery count(" + _DB_OPEN.args(NAME) + "//b)"));
+  }
+
+  /**
+   * Retrieves erroneous results in chunks.
+   * @throws IOException I/O exception
+   */
+  @Test public void queryChunksError() throws IOException {
+    try(Query query = session.query("(1 to 10) ! (if(. = 8) then error() else .)")) {
+      query.chunks(5, 0);
+      for(int i = 1; i <= 5; i++) assertEqual(Integer.toString(i), query.next());
+      try {
+        query.more();
+        fail("Error expected.");
+      } catch(final BaseXException ex) {
+        assertTrue(ex.getMessage().contains("FOER0000"));
+      }
+    }
+    assertEqual("1", session.execute("xquery 1"));
+
+    // invalid chunk sizes
+    for(final int[] sizes : new int[][] { { -1, 0 }, { 0, -1 }, { Integer.MIN_VALUE, 1 } }) {
+      try(Query query = session.query("1 to 10")) {
+        query.chunks(sizes[0], sizes[1]);
+        query.more();
+        fail("Error expected.");
+      } catch(final BaseXException ex) {
+        assertTrue(ex.getMessage(), ex.getMessage().contains("chunk size"));
+      }
+    }
+  }
+
+  /**
+   * Runs commands and queries in a batch.
+   * @throws IOException I/O exception
+   */
+  @Test public void batch() throws IOException {
+    final Batch batch = session.batch();
+    batch.execute(new CreateDB(NAME)).add("a.xml", new ArrayInput("<a/>"));
+    batch.add("b.xml", new ArrayInput("<b/>")).execute("xquery count(/*)");
+    batch.query("declare variable $x external; declare context item external; $x + .").
+      bind("$x", 1, "xs:integer").context(2, "xs:integer");
+    batch.query("(").execute("xquery (").execute("xquery 'A'").query("1 + 1");
+    assertEquals(9, batch.size());
+
+    final List<Batch.Result> results = batch.run();
+    assertEquals(0, batch.size());
+    assertEquals(9, results.size());
+    final StringBuilder sb = new StringBuilder();
+    final boolean[] ok = { true, true, true, true, true, false, false, true, true };
+    for(int r = 0; r < ok.length; r++) {
+      final Batch.Result result = results.get(r);
+      assertEquals(ok[r], result.ok);
+      if(!ok[r]) assertFalse(result.info.isEmpty());
+      if(result.result != null) sb.append(result.result);
+    }
+    assertEqual("23A2", out != null ? null : sb.toString());
+
+    // session can be used after the batch
+    assertEqual("2", session.query("count(" + _DB_OPEN.args(NAME) + ")").execute());
+    assertEquals(0, session.batch().run().size());
+  }
+
+  /** Binds a value without query. */
+  @Test(expected = IllegalStateException.class)
+  public void batchBind() {
+    session.batch().execute("info").bind("$x", 1);
+  }
+
   /**
    * Checks if the most recent output equals the specified string.
    * @param exp expected string
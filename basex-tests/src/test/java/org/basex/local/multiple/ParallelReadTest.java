@@ -0,0 +1,105 @@
+package org.basex.local.multiple;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class benchmarks concurrent read access to the heap files and index structures of
+ * a single database. The same number of queries is evaluated by 1, 2, 4 and 8 threads;
+ * if reads are not serialized, the total runtime should decrease with the number of threads.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelReadTest extends SandboxTest {
+  /** Input document. */
+  private static final String INPUT = "src/test/resources/factbook.zip";
+  /** Thread counts. */
+  private static final int[] THREADS = { 1, 2, 4, 8 };
+  /** Total number of queries per measurement. */
+  private static final int QUERIES = 64;
+
+  /**
+   * Creates the test database.
+   */
+  @BeforeClass
+  public static void initDB() {
+    execute(new CreateDB(NAME, INPUT));
+  }
+
+  /**
+   * Drops the test database.
+   */
+  @AfterClass
+  public static void finishDB() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Accesses all texts and attribute values of the database.
+   * @throws Exception exception
+   */
+  @Test
+  public void texts() throws Exception {
+    run("sum(db:open('" + NAME + "')//(text() | @*) ! string-length())");
+  }
+
+  /**
+   * Performs text and attribute index lookups.
+   * @throws Exception exception
+   */
+  @Test
+  public void index() throws Exception {
+    run("for $n in db:open('" + NAME + "')//@name ! string() " +
+        "return count(db:open('" + NAME + "')//*[@name = $n][text() != $n])");
+  }
+
+  /**
+   * Evaluates the specified query with a varying number of threads.
+   * @param query query
+   * @throws Exception exception
+   */
+  private static void run(final String query) throws Exception {
+    Util.outln("Query: " + query);
+    // warm up
+    final String result = query(query);
+    for(final int threads : THREADS) {
+      final Client[] clients = new Client[threads];
+      for(int c = 0; c < threads; c++) clients[c] = new Client(query, QUERIES / threads);
+      final Performance p = new Performance();
+      for(final Client c : clients) c.start();
+      for(final Client c : clients) c.join();
+      Util.outln(threads + " thread(s): " + p);
+      for(final Client c : clients) Assert.assertEquals(result, c.result);
+    }
+    Util.outln();
+  }
+
+  /** Single client. */
+  static final class Client extends Thread {
+    /** Query. */
+    private final String query;
+    /** Number of runs. */
+    private final int runs;
+    /** Last result. */
+    String result;
+
+    /**
+     * Constructor.
+     * @param query query
+     * @param runs number of runs
+     */
+    Client(final String query, final int runs) {
+      this.query = query;
+      this.runs = runs;
+    }
+
+    @Override
+    public void run() {
+      for(int r = 0; r < runs; r++) result = query(query);
+    }
+  }
+}
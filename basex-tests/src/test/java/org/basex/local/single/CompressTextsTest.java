@@ -0,0 +1,137 @@
+package org.basex.local.single;
+
+import static org.basex.data.DataText.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.io.out.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class benchmarks the sizes of the heap files and the throughput of scans with
+ * uncompressed and compressed texts and attribute values.
+ *
+ * @author BaseX Team 2005-20, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressTextsTest extends SandboxTest {
+  /** Number of elements to be created. */
+  private static final int ELEMENTS = 1000000;
+  /** Number of loops. */
+  private static final int LOOPS = 3;
+  /** Name of the database with compressed texts. */
+  private static final String COMPRESSED = NAME + "compressed";
+  /** Words of the generated texts. */
+  private static final String[] WORDS = { "the", "database", "stores", "texts", "and",
+    "attribute", "values", "in", "heap", "files", "which", "are", "accessed", "by", "offset" };
+
+  /**
+   * Initializes the test databases.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void initDB() throws IOException {
+    /* generate test file. example:
+     * <XML>
+     *   <SUB id="sub1" type="texts">heap files the stores ...</SUB>
+     * </XML>
+     */
+    final IOFile dbfile = new IOFile(sandbox(), NAME);
+    try(BufferOutput bo = new BufferOutput(dbfile)) {
+      // use constant seed to create same test document every time
+      final Random rnd = new Random(0);
+      bo.write(Token.token("<XML>"));
+      for(int e = 0; e < ELEMENTS; e++) {
+        final StringBuilder sb = new StringBuilder("<SUB id='sub").append(e).append("' type='");
+        sb.append(WORDS[rnd.nextInt(WORDS.length)]).append("'>");
+        final int wl = rnd.nextInt(16) + 4;
+        for(int w = 0; w < wl; w++) sb.append(WORDS[rnd.nextInt(WORDS.length)]).append(' ');
+        sb.append(e).append("</SUB>");
+        bo.write(Token.token(sb.toString()));
+      }
+      bo.write(Token.token("</XML>"));
+    }
+
+    // create databases
+    final Performance perf = new Performance();
+    execute(new CreateDB(NAME, dbfile.path()));
+    Util.outln("Create (uncompressed): " + perf);
+    set(MainOptions.COMPRESSTEXTS, true);
+    execute(new CreateDB(COMPRESSED, dbfile.path()));
+    set(MainOptions.COMPRESSTEXTS, false);
+    Util.outln("Create (compressed): " + perf);
+
+    for(final String db : new String[] { NAME, COMPRESSED }) {
+      final IOFile dir = context.soptions.dbPath(db);
+      final long txt = new IOFile(dir, DATATXT + IO.BASEXSUFFIX).length();
+      final long atv = new IOFile(dir, DATAATV + IO.BASEXSUFFIX).length();
+      Util.outln(db + ": texts " + Performance.format(txt) + ", attribute values " +
+          Performance.format(atv));
+    }
+    Util.outln();
+    assertTrue(dbfile.delete());
+  }
+
+  /**
+   * Drops the test databases.
+   */
+  @AfterClass
+  public static void finishDB() {
+    execute(new DropDB(NAME));
+    execute(new DropDB(COMPRESSED));
+  }
+
+  /**
+   * Scans all texts.
+   */
+  @Test
+  public void texts() {
+    run("sum(db:open('%')//text() ! string-length())");
+  }
+
+  /**
+   * Scans all attribute values.
+   */
+  @Test
+  public void attributes() {
+    run("count(db:open('%')//@type[. = 'heap'])");
+  }
+
+  /**
+   * Serializes the database.
+   */
+  @Test
+  public void serialize() {
+    run("string-length(serialize(db:open('%')))");
+  }
+
+  /**
+   * Performs the specified query on both databases; some performance measurements are output
+   * and the results are compared.
+   * @param query query to be evaluated ({@code %} will be replaced with the database name)
+   */
+  private static void run(final String query) {
+    Util.outln("Query: " + query);
+    String expected = null;
+    for(final String db : new String[] { NAME, COMPRESSED }) {
+      final String q = query.replace("%", db);
+      // warm up
+      final String result = query(q);
+      if(expected == null) expected = result;
+      else assertEquals(expected, result);
+
+      final Performance p = new Performance();
+      for(int l = 0; l < LOOPS; l++) query(q);
+      Util.outln(db + ": " + p.getTime(LOOPS));
+    }
+    Util.outln();
+  }
+}